@@ -0,0 +1,4 @@
+#!/bin/sh
+# Lets the replica of docker-compose stream the write-ahead log of this database.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
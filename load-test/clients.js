@@ -0,0 +1,103 @@
+// Many mostly idle clients against the user resource routes that both the servlet and the reactive deployment serve,
+// for comparing how each stack holds concurrent connections. Every client waits THINK seconds between requests.
+// Run with: k6 run -e BASE_URL=http://localhost:8081 -e LABEL=reactive -e VUS=10000 load-test/clients.js
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = `${__ENV.BASE_URL || 'http://localhost:8081'}/api/v1/users`;
+const LABEL = __ENV.LABEL || 'run';
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+const SEED_USERS = Number(__ENV.SEED_USERS || 10000);
+const THINK = Number(__ENV.THINK || 1);
+const ENDPOINTS = ['get', 'search', 'find', 'create', 'update', 'delete'];
+
+export const options = {
+    scenarios: {
+        clients: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 10000),
+            duration: __ENV.DURATION || '120s',
+        },
+    },
+    setupTimeout: '120s',
+    teardownTimeout: '300s',
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    // Thresholds that always pass, so the summary holds the latency of every endpoint.
+    thresholds: Object.fromEntries(ENDPOINTS.map((endpoint) => [`http_req_duration{endpoint:${endpoint}}`, ['max>=0']])),
+};
+
+function birthDate() {
+    const year = 1950 + Math.floor(Math.random() * 50);
+    const day = 1 + Math.floor(Math.random() * 28);
+    return `${year}-01-${String(day).padStart(2, '0')}`;
+}
+
+export function setup() {
+    const ids = [];
+    for (let offset = 0; offset < SEED_USERS; offset += 1000) {
+        const users = Array.from({ length: Math.min(1000, SEED_USERS - offset) }, (_, i) => ({
+            email: `clients-${offset + i}-${Date.now()}@example.com`, firstName: 'Load', lastName: `Client${offset + i}`,
+            birthDate: birthDate(),
+        }));
+        const batch = http.post(`${BASE_URL}/batch`, JSON.stringify(users), JSON_HEADERS);
+        ids.push(...batch.json('items').map((item) => item.id).filter((id) => id));
+    }
+    return { ids: ids };
+}
+
+export default function (data) {
+    const roll = Math.random();
+    if (roll < 0.6) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        const found = http.get(`${BASE_URL}/${id}`, { tags: { endpoint: 'get' } });
+        check(found, { 'get is 200': (r) => r.status === 200 });
+    } else if (roll < 0.8) {
+        const year = 1950 + Math.floor(Math.random() * 50);
+        const search = http.get(`${BASE_URL}/search?from=${year}-01-01&to=${year}-12-31&limit=20`,
+            { tags: { endpoint: 'search' } });
+        check(search, { 'search is 200': (r) => r.status === 200 });
+    } else if (roll < 0.9) {
+        const find = http.get(`${BASE_URL}/find?q=client${Math.floor(Math.random() * 100)}&limit=20`,
+            { tags: { endpoint: 'find' } });
+        check(find, { 'find is 200': (r) => r.status === 200 });
+    } else {
+        const created = http.post(`${BASE_URL}/create`, JSON.stringify({
+            email: `clients-${__VU}-${__ITER}-${Date.now()}@example.com`, firstName: 'Load', lastName: 'Client',
+            birthDate: birthDate(),
+        }), Object.assign({ tags: { endpoint: 'create' } }, JSON_HEADERS));
+        check(created, { 'create is 201': (r) => r.status === 201 });
+        if (created.status === 201) {
+            const id = created.json('data.id');
+            const patched = http.patch(`${BASE_URL}/update/${id}`, JSON.stringify({ address: 'Kyiv' }),
+                Object.assign({ tags: { endpoint: 'update' } }, JSON_HEADERS));
+            check(patched, { 'update is 200': (r) => r.status === 200 });
+            const deleted = http.del(`${BASE_URL}/delete/${id}`, null, { tags: { endpoint: 'delete' } });
+            check(deleted, { 'delete is 204': (r) => r.status === 204 });
+        }
+    }
+    sleep(THINK * (0.5 + Math.random()));
+}
+
+export function teardown(data) {
+    for (const id of data.ids) {
+        http.del(`${BASE_URL}/delete/${id}`);
+    }
+}
+
+export function handleSummary(data) {
+    const duration = data.metrics.http_req_duration.values;
+    let lines = `${LABEL}: ${data.metrics.http_reqs.values.rate.toFixed(1)} req/s, ` +
+        `p50 ${duration['p(50)'].toFixed(1)} ms, p99 ${duration['p(99)'].toFixed(1)} ms, ` +
+        `failed ${(data.metrics.http_req_failed.values.rate * 100).toFixed(2)}%\n`;
+    for (const endpoint of ENDPOINTS) {
+        const metric = data.metrics[`http_req_duration{endpoint:${endpoint}}`];
+        if (metric) {
+            lines += `  ${endpoint}: p50 ${metric.values['p(50)'].toFixed(1)} ms, ` +
+                `p99 ${metric.values['p(99)'].toFixed(1)} ms\n`;
+        }
+    }
+    return {
+        stdout: lines,
+        [`load-test/results/${LABEL}.json`]: JSON.stringify(data, null, 2),
+    };
+}
@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+# Runs load-test/users.js against the application with the default configuration and then with the prod profile
+# (no SQL logging, sized pool, rewritten batch inserts, server-side prepared statements) and prints the throughput
+# and latency of both runs, per endpoint as well.
+# Needs k6, a built jar (./gradlew bootJar) and the PostgreSQL from docker-compose.
+set -euo pipefail
+
+JAR=${JAR:-build/libs/Clear_Solutions-0.0.1-SNAPSHOT.jar}
+BASE_URL=${BASE_URL:-http://localhost:8081}
+export DB_USERNAME=${DB_USERNAME:-postgres} DB_PASSWORD=${DB_PASSWORD:-password}
+DB_URL=${DB_URL:-jdbc:postgresql://localhost:5431/Users}
+
+mkdir -p load-test/results
+
+run() {
+    local label=$1 profiles=$2
+    java -jar "$JAR" --spring.profiles.active="$profiles" --spring.datasource.url="$DB_URL" \
+        > "load-test/results/$label.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+    until curl -sf "$BASE_URL/actuator/health" > /dev/null; do
+        kill -0 $pid 2>/dev/null || { echo "$label: application did not start, see load-test/results/$label.log"; exit 1; }
+        sleep 1
+    done
+    k6 run --quiet -e BASE_URL="$BASE_URL" -e LABEL="$label" load-test/users.js
+    kill $pid
+    wait $pid 2>/dev/null || true
+    trap - EXIT
+}
+
+run default default
+run prod prod
@@ -0,0 +1,57 @@
+#!/usr/bin/env bash
+# Runs load-test/clients.js with 10000 concurrent clients against the servlet deployment (Tomcat, JPA and HikariCP)
+# and then against the reactive one (Netty and R2DBC), and prints, next to the k6 latencies of each run,
+# the most database connections, live threads, heap and resident memory the application held during the run.
+# Needs k6, a built jar (./gradlew bootJar) and the PostgreSQL from docker-compose; raise the open file limit first.
+set -euo pipefail
+
+JAR=${JAR:-build/libs/Clear_Solutions-0.0.1-SNAPSHOT.jar}
+BASE_URL=${BASE_URL:-http://localhost:8081}
+VUS=${VUS:-10000}
+export DB_USERNAME=${DB_USERNAME:-postgres} DB_PASSWORD=${DB_PASSWORD:-password}
+DB_URL=${DB_URL:-jdbc:postgresql://localhost:5431/Users}
+R2DBC_URL=${R2DBC_URL:-r2dbc:postgresql://localhost:5431/Users}
+
+mkdir -p load-test/results
+
+metric() {
+    curl -sf "$BASE_URL/actuator/metrics/$1" | grep -o '"value":[0-9.E]*' | head -1 | cut -d: -f2
+}
+
+sample() {
+    local pid=$1 connections=$2 label=$3
+    while kill -0 "$pid" 2>/dev/null; do
+        echo "$(metric "$connections") $(metric jvm.threads.live)" \
+            "$(metric 'jvm.memory.used?tag=area:heap') $(awk '/VmRSS/ { print $2 }' "/proc/$pid/status")"
+        sleep 2
+    done > "load-test/results/$label.samples"
+}
+
+run() {
+    local label=$1 profiles=$2 connections=$3
+    java -jar "$JAR" --spring.profiles.active="$profiles" --spring.datasource.url="$DB_URL" \
+        --spring.r2dbc.url="$R2DBC_URL" --server.tomcat.max-connections="$VUS" \
+        > "load-test/results/$label.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+    until curl -sf "$BASE_URL/actuator/health" > /dev/null; do
+        kill -0 $pid 2>/dev/null || { echo "$label: application did not start, see load-test/results/$label.log"; exit 1; }
+        sleep 1
+    done
+    sample $pid "$connections" "$label" &
+    local sampler=$!
+    k6 run --quiet -e BASE_URL="$BASE_URL" -e LABEL="$label" -e VUS="$VUS" load-test/clients.js
+    kill $pid
+    wait $pid 2>/dev/null || true
+    wait $sampler
+    trap - EXIT
+    awk -v label="$label" '{
+        for (i = 1; i <= 4; i++) if ($i + 0 > max[i]) max[i] = $i + 0
+    } END {
+        printf "  %s held at most: %d database connections, %d live threads, heap %.0f MiB, RSS %.0f MiB\n",
+            label, max[1], max[2], max[3] / 1048576, max[4] / 1024
+    }' "load-test/results/$label.samples"
+}
+
+run servlet prod hikaricp.connections
+run reactive prod,reactive r2dbc.pool.allocated
@@ -0,0 +1,81 @@
+// Mixed CRUD and search load against the users API, for comparing request execution modes and configurations.
+// Run with: k6 run -e BASE_URL=http://localhost:8081 -e LABEL=platform load-test/users.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = `${__ENV.BASE_URL || 'http://localhost:8081'}/api/v1/users`;
+const LABEL = __ENV.LABEL || 'run';
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+const BATCH_SIZE = Number(__ENV.BATCH_SIZE || 20);
+const ENDPOINTS = ['create', 'batch', 'bulk-delete', 'search', 'update', 'delete'];
+
+export const options = {
+    scenarios: {
+        users: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 400),
+            duration: __ENV.DURATION || '60s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    // Thresholds that always pass, so the summary holds the latency of every endpoint.
+    thresholds: Object.fromEntries(ENDPOINTS.map((endpoint) => [`http_req_duration{endpoint:${endpoint}}`, ['max>=0']])),
+};
+
+function birthDate() {
+    const year = 1950 + Math.floor(Math.random() * 50);
+    const day = 1 + Math.floor(Math.random() * 28);
+    return `${year}-01-${String(day).padStart(2, '0')}`;
+}
+
+export default function () {
+    const email = `load-${__VU}-${__ITER}-${Date.now()}@example.com`;
+    const created = http.post(`${BASE_URL}/create`, JSON.stringify({
+        email: email, firstName: 'Load', lastName: 'Test', birthDate: birthDate(),
+    }), Object.assign({ tags: { endpoint: 'create' } }, JSON_HEADERS));
+    check(created, { 'create is 201': (r) => r.status === 201 });
+
+    const users = Array.from({ length: BATCH_SIZE }, (_, i) => ({
+        email: `batch-${i}-${email}`, firstName: 'Load', lastName: 'Test', birthDate: birthDate(),
+    }));
+    const batch = http.post(`${BASE_URL}/batch`, JSON.stringify(users),
+        Object.assign({ tags: { endpoint: 'batch' } }, JSON_HEADERS));
+    check(batch, { 'batch is 200': (r) => r.status === 200 });
+    if (batch.status === 200) {
+        const ids = batch.json('items').map((item) => item.id).filter((id) => id);
+        http.post(`${BASE_URL}/bulk/delete`, JSON.stringify({ ids: ids }),
+            Object.assign({ tags: { endpoint: 'bulk-delete' } }, JSON_HEADERS));
+    }
+
+    const search = http.get(`${BASE_URL}/search?from=1970-01-01&to=1979-12-31&limit=100`, { tags: { endpoint: 'search' } });
+    check(search, { 'search is 200': (r) => r.status === 200 });
+
+    if (created.status !== 201) {
+        return;
+    }
+    const id = created.json('data.id');
+    const patched = http.patch(`${BASE_URL}/update/${id}`, JSON.stringify({ address: 'Kyiv' }),
+        Object.assign({ tags: { endpoint: 'update' } }, JSON_HEADERS));
+    check(patched, { 'update is 200': (r) => r.status === 200 });
+
+    const deleted = http.del(`${BASE_URL}/delete/${id}`, null, { tags: { endpoint: 'delete' } });
+    check(deleted, { 'delete is 204': (r) => r.status === 204 });
+}
+
+export function handleSummary(data) {
+    const duration = data.metrics.http_req_duration.values;
+    let lines = `${LABEL}: ${data.metrics.http_reqs.values.rate.toFixed(1)} req/s, ` +
+        `p50 ${duration['p(50)'].toFixed(1)} ms, p99 ${duration['p(99)'].toFixed(1)} ms, ` +
+        `failed ${(data.metrics.http_req_failed.values.rate * 100).toFixed(2)}%\n`;
+    for (const endpoint of ENDPOINTS) {
+        const metric = data.metrics[`http_req_duration{endpoint:${endpoint}}`];
+        if (metric) {
+            lines += `  ${endpoint}: p50 ${metric.values['p(50)'].toFixed(1)} ms, ` +
+                `p99 ${metric.values['p(99)'].toFixed(1)} ms\n`;
+        }
+    }
+    return {
+        stdout: lines,
+        [`load-test/results/${LABEL}.json`]: JSON.stringify(data, null, 2),
+    };
+}
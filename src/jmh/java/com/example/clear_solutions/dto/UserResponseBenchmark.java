@@ -0,0 +1,128 @@
+package com.example.clear_solutions.dto;
+
+import com.example.clear_solutions.model.User;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Getter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserResponseBenchmark measures constructing and writing a search page with the record-based UserResponse
+ * and compares it against the former map-based response.
+ * Run it with the gc profiler to compare the allocation rate per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserResponseBenchmark {
+
+    /**
+     * The self link written for every User.
+     */
+    private static final String SELF_LINK = "http://localhost:8081/users/search?from=1970-01-01&to=1979-12-31";
+
+    /**
+     * The number of Users on a page.
+     */
+    @Param({"1000"})
+    public int pageSize;
+
+    private List<User> users;
+
+    private ObjectWriter writer;
+
+    /**
+     * Creates the Users of the page and the ObjectWriter configured like the one of the application.
+     */
+    @Setup
+    public void setUp() {
+        users = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            users.add(new User((long) i, "user" + i + "@example.com", "John", "Doe",
+                    LocalDate.of(1970, 1, 1).plusDays(i), i % 2 == 0 ? "Kyiv" : null, null, null));
+        }
+        writer = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build().writer();
+    }
+
+    /**
+     * Constructs the UserResponses of the page without writing them.
+     */
+    @Benchmark
+    public List<UserResponse> recordResponseConstruction() {
+        List<UserResponse> responses = new ArrayList<>(users.size());
+        for (User user : users) {
+            responses.add(new UserResponse(user, SELF_LINK));
+        }
+        return responses;
+    }
+
+    /**
+     * Writes the page with the record-based UserResponse.
+     */
+    @Benchmark
+    public void recordResponse() throws IOException {
+        List<UserResponse> responses = new ArrayList<>(users.size());
+        for (User user : users) {
+            responses.add(new UserResponse(user, SELF_LINK));
+        }
+        writer.writeValue(OutputStream.nullOutputStream(), responses);
+    }
+
+    /**
+     * Writes the page with the former map-based response.
+     */
+    @Benchmark
+    public void mapResponse() throws IOException {
+        List<MapUserResponse> responses = new ArrayList<>(users.size());
+        for (User user : users) {
+            responses.add(new MapUserResponse(user, SELF_LINK));
+        }
+        writer.writeValue(OutputStream.nullOutputStream(), responses);
+    }
+
+    /**
+     * MapUserResponse is the former UserResponse, which builds three HashMaps per User.
+     */
+    @Getter
+    public static class MapUserResponse {
+
+        private final Map<String, String> links;
+
+        private final Map<String, Object> data;
+
+        public MapUserResponse(User user, String selfLink) {
+            links = new HashMap<>();
+            links.put("self", selfLink);
+
+            data = new HashMap<>();
+            data.put("type", "user");
+            data.put("id", user.getId());
+            Map<String, Object> attributes = new HashMap<>();
+            attributes.put("email", user.getEmail());
+            attributes.put("firstName", user.getFirstName());
+            attributes.put("lastName", user.getLastName());
+            attributes.put("birthDate", user.getBirthDate());
+            if (user.getAddress() != null) {
+                attributes.put("address", user.getAddress());
+            }
+            if (user.getPhoneNumber() != null) {
+                attributes.put("phoneNumber", user.getPhoneNumber());
+            }
+            data.put("attributes", attributes);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.clear_solutions.exception;
+
+import com.example.clear_solutions.dto.ErrorResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GlobalExceptionHandlerBenchmark measures turning an exception into an error response,
+ * with and without the cost of creating the exception, for exceptions with and without a stack trace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler globalExceptionHandler;
+
+    private IllegalArgumentException exception;
+
+    /**
+     * Binds a request to the benchmark thread, like the DispatcherServlet does for a request.
+     */
+    @Setup
+    public void setUp() {
+        globalExceptionHandler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+        exception = new IllegalArgumentException("User not found");
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v1/users/update/1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    /**
+     * Creates the error response for an existing exception.
+     */
+    @Benchmark
+    public ResponseEntity<ErrorResponse> handle() {
+        return globalExceptionHandler.handleIllegalArgumentException(exception);
+    }
+
+    /**
+     * Creates an IllegalArgumentException, which captures a stack trace, and its error response.
+     */
+    @Benchmark
+    public ResponseEntity<ErrorResponse> createAndHandle() {
+        return globalExceptionHandler.handleIllegalArgumentException(new IllegalArgumentException("User not found"));
+    }
+
+    /**
+     * Throws a UserNotFoundException and creates its error response, as a request for a missing User does.
+     */
+    @Benchmark
+    public ResponseEntity<ErrorResponse> throwAndHandleUserException() {
+        try {
+            throw new UserNotFoundException();
+        } catch (UserException e) {
+            return globalExceptionHandler.handleUserException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.clear_solutions.ingest;
+
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.validation.AgeCutoff;
+import com.example.clear_solutions.validation.UserValidation;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CsvBlockProcessorBenchmark measures the per-worker throughput of the CSV ingestion: splitting a block of rows
+ * into fields and validating them with the rules of UserValidation. The split-only benchmark skips
+ * the validation, so the difference between the two is the cost of the rules.
+ * Nothing is written to a database; the throughput of a whole import also depends on COPY.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvBlockProcessorBenchmark {
+
+    /**
+     * The number of rows of the block.
+     */
+    private static final int ROWS = 10_000;
+
+    private CsvBlock block;
+
+    private CsvBlockProcessor processor;
+
+    private CsvBlockProcessor splitter;
+
+    /**
+     * Creates a block of valid rows and the processors.
+     */
+    @Setup
+    public void setUp() {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            rows.append("user").append(i).append("@example.com,John,\"Doe, Jr\",19").append(50 + i % 40)
+                    .append("-0").append(1 + i % 9).append("-1").append(i % 9)
+                    .append(",Kyiv,+380000000000\n");
+        }
+        byte[] data = rows.toString().getBytes(StandardCharsets.UTF_8);
+        block = new CsvBlock(data, 0, data.length, 2);
+        CsvHeader header = CsvHeader.parse("email,firstName,lastName,birthDate,address,phoneNumber");
+        UserValidation userValidation = new UserValidation(Validation.buildDefaultValidatorFactory().getValidator(),
+                new AgeCutoff(Clock.systemDefaultZone(), 18));
+        processor = new CsvBlockProcessor(header, userValidation, false, false);
+        UserValidation permissive = new UserValidation(null, null) {
+            @Override
+            public String findViolation(User user) {
+                return null;
+            }
+        };
+        splitter = new CsvBlockProcessor(header, permissive, false, false);
+    }
+
+    /**
+     * Splits and validates the rows of the block.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ValidatedBlock splitAndValidate() {
+        return processor.process(block);
+    }
+
+    /**
+     * Splits the rows of the block without validating them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ValidatedBlock splitOnly() {
+        return splitter.process(block);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.clear_solutions.repository;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserInsertBenchmark compares the insert throughput of the two ways User IDs have been generated.
+ * The identity benchmark inserts one row per statement and reads its key back, which is what Hibernate has to do
+ * for an identity column. The pooled sequence benchmark reserves one block of IDs per allocation and inserts the
+ * rows with JDBC batches, which is what Hibernate does for a pooled sequence.
+ * It needs a running PostgreSQL, by default the one from docker-compose.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class UserInsertBenchmark {
+
+    /**
+     * The number of rows inserted by one benchmark invocation.
+     */
+    private static final int ROWS = 1000;
+
+    /**
+     * The number of IDs reserved by one call to the sequence, matching the allocationSize of User.
+     */
+    private static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * The JDBC URL of the database to run against.
+     */
+    @Param("jdbc:postgresql://localhost:5431/Users")
+    public String url;
+
+    /**
+     * The database user.
+     */
+    @Param("postgres")
+    public String username;
+
+    /**
+     * The database password.
+     */
+    @Param("password")
+    public String password;
+
+    private Connection connection;
+
+    /**
+     * Creates the benchmark tables, shaped like the users table.
+     *
+     * @throws SQLException if the tables cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(url, username, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table bench_users_identity (id bigint generated by default as identity primary key, " +
+                    "email varchar(255), first_name varchar(255), last_name varchar(255), birth_date date)");
+            statement.execute("create table bench_users_pooled (id bigint primary key, " +
+                    "email varchar(255), first_name varchar(255), last_name varchar(255), birth_date date)");
+            statement.execute("create sequence bench_users_pooled_seq increment by " + ALLOCATION_SIZE);
+        }
+    }
+
+    /**
+     * Drops the benchmark tables.
+     *
+     * @throws SQLException if the tables cannot be dropped
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table bench_users_identity");
+            statement.execute("drop table bench_users_pooled");
+            statement.execute("drop sequence bench_users_pooled_seq");
+        }
+        connection.close();
+    }
+
+    /**
+     * Inserts rows one statement at a time, reading every generated key back.
+     *
+     * @return the last generated key
+     * @throws SQLException if an insert fails
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long identityInserts() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into bench_users_identity (email, first_name, last_name, birth_date) values (?, ?, ?, ?)",
+                new String[]{"id"})) {
+            for (int i = 0; i < ROWS; i++) {
+                bind(insert, 1, i);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        }
+        return lastId;
+    }
+
+    /**
+     * Inserts rows in JDBC batches, taking their IDs from blocks reserved from a pooled sequence.
+     *
+     * @return the last assigned ID
+     * @throws SQLException if an insert fails
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long pooledSequenceBatchInserts() throws SQLException {
+        long id = 0;
+        long hi = 0;
+        try (PreparedStatement nextBlock = connection.prepareStatement("select nextval('bench_users_pooled_seq')");
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into bench_users_pooled (id, email, first_name, last_name, birth_date) values (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                if (id == hi) {
+                    try (ResultSet block = nextBlock.executeQuery()) {
+                        block.next();
+                        long first = block.getLong(1);
+                        id = first - 1;
+                        hi = first + ALLOCATION_SIZE - 1;
+                    }
+                }
+                insert.setLong(1, ++id);
+                bind(insert, 2, i);
+                insert.addBatch();
+                if ((i + 1) % ALLOCATION_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        return id;
+    }
+
+    /**
+     * Binds the user columns of a row to an insert statement.
+     *
+     * @param insert the insert statement
+     * @param firstParameter the index of the parameter the email is bound to
+     * @param i the number of the row
+     * @throws SQLException if a parameter cannot be bound
+     */
+    private void bind(PreparedStatement insert, int firstParameter, int i) throws SQLException {
+        insert.setString(firstParameter, "user" + i + "@example.com");
+        insert.setString(firstParameter + 1, "First");
+        insert.setString(firstParameter + 2, "Last");
+        insert.setDate(firstParameter + 3, Date.valueOf(LocalDate.of(1990, 1, 1)));
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.ClearSolutionsApplication;
+import com.example.clear_solutions.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * UserReadPathBenchmark compares reading Users as managed entities with reading them through the constructor
+ * queries of UserRepository, on a birth date range of a million Users. The entity read paths are the ones the
+ * repository used before: the same query selecting the entity, as pages did, or with the read-only hint as well,
+ * as streams did, with the persistence context cleared after every batch of a stream. Every invocation either streams the whole range or reads its first page
+ * of the largest size a search may ask for, in one read-only transaction.
+ * Run it with the GC profiler (-prof gc) to compare the bytes allocated per invocation as well as the time.
+ * It needs a running PostgreSQL, by default the one from docker-compose. The Users are generated in a range of birth
+ * dates before any real one and are kept afterwards, so only the first run pays for the load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class UserReadPathBenchmark {
+
+    /**
+     * The start of the range the Users are generated in.
+     */
+    private static final LocalDate FROM = LocalDate.of(1850, 1, 1);
+
+    /**
+     * The end of the range the Users are generated in.
+     */
+    private static final LocalDate TO = LocalDate.of(1859, 12, 31);
+
+    /**
+     * The query that reads the range as managed entities.
+     */
+    private static final String ENTITY_QUERY =
+            "select u from User u where u.birthDate between :from and :to order by u.birthDate, u.id";
+
+    /**
+     * The number of Users streamed between two clears of the persistence context, as the stream batches have.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * The size of the pages, the largest a search may ask for.
+     */
+    private static final int PAGE_SIZE = 1000;
+
+    /**
+     * The number of Users in the range.
+     */
+    @Param("1000000")
+    public int users;
+
+    /**
+     * How the Users are read: as managed entities, as read-only managed entities or through the constructor queries.
+     */
+    @Param({"entity", "readOnlyEntity", "projection"})
+    public String read;
+
+    /**
+     * The JDBC URL of the database to run against.
+     */
+    @Param("jdbc:postgresql://localhost:5431/Users")
+    public String url;
+
+    /**
+     * The database user.
+     */
+    @Param("postgres")
+    public String username;
+
+    /**
+     * The database password.
+     */
+    @Param("password")
+    public String password;
+
+    private ConfigurableApplicationContext context;
+
+    private UserRepository userRepository;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Starts the application without a web server and generates the missing Users of the range.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        context = new SpringApplicationBuilder(ClearSolutionsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.jpa.show-sql=false");
+        userRepository = context.getBean(UserRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        fill();
+    }
+
+    /**
+     * Stops the application.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Streams every User of the range.
+     *
+     * @param blackhole the Blackhole that consumes the Users
+     */
+    @Benchmark
+    public void streamRange(Blackhole blackhole) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!read.equals("projection")) {
+                int streamed = 0;
+                try (Stream<User> stream = entityQuery().setHint(HibernateHints.HINT_FETCH_SIZE, BATCH_SIZE)
+                        .getResultStream()) {
+                    for (User user : (Iterable<User>) stream::iterator) {
+                        blackhole.consume(user);
+                        if (++streamed % BATCH_SIZE == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+                entityManager.clear();
+            } else {
+                try (Stream<User> stream = userRepository.streamByBirthDateBetween(FROM, TO)) {
+                    stream.forEach(blackhole::consume);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the first page of the range.
+     *
+     * @return the Users of the page
+     */
+    @Benchmark
+    public List<User> firstPage() {
+        return transactionTemplate.execute(status -> !read.equals("projection")
+                ? entityQuery().setMaxResults(PAGE_SIZE).getResultList()
+                : userRepository.findPageByBirthDateBetween(FROM, TO, Limit.of(PAGE_SIZE)));
+    }
+
+    /**
+     * Creates the query that reads the range as managed entities, read-only ones if they are benchmarked.
+     *
+     * @return the query
+     */
+    private TypedQuery<User> entityQuery() {
+        return entityManager.createQuery(ENTITY_QUERY, User.class)
+                .setParameter("from", FROM)
+                .setParameter("to", TO)
+                .setHint(HibernateHints.HINT_READ_ONLY, read.equals("readOnlyEntity"));
+    }
+
+    /**
+     * Generates Users in the range until it holds the requested number,
+     * then refreshes the statistics and the visibility map of the table.
+     */
+    private void fill() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement statement = connection.createStatement()) {
+            long existing;
+            try (ResultSet resultSet = statement.executeQuery(
+                    "select count(*) from users where birth_date between '" + FROM + "' and '" + TO + "'")) {
+                resultSet.next();
+                existing = resultSet.getLong(1);
+            }
+            if (existing >= users) {
+                return;
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into users (id, email, first_name, last_name, birth_date, address, phone_number, version) " +
+                    "select nextval('users_seq'), 'read-bench-' || n || '@example.com', 'Bench', 'User', " +
+                    "date '" + FROM + "' + (n % " + (ChronoUnit.DAYS.between(FROM, TO) + 1) + ")::int, " +
+                    "'Kyiv, Khreshchatyk street ' || n % 100, '+38000' || lpad((n % 10000000)::text, 7, '0'), 0 " +
+                    "from generate_series(?, ?) n on conflict (email) do nothing")) {
+                for (long start = existing; start < users; start += 100_000) {
+                    insert.setLong(1, start);
+                    insert.setLong(2, Math.min(start + 100_000, users) - 1);
+                    insert.executeUpdate();
+                }
+            }
+            statement.execute("vacuum analyze users");
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.clear_solutions.service;
+
+import com.example.clear_solutions.ClearSolutionsApplication;
+import com.example.clear_solutions.index.BirthDateIndex;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserRepository;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserIndexSearchBenchmark compares a page of a birth date range search resolved by the in-memory BirthDateIndex
+ * with the keyset query on the (birth_date, id) index, on a table of millions of Users.
+ * Every invocation searches the first page of a random year, with the range cache disabled.
+ * The indexed search reads the Users through the UserCache, so it is measured with the cache disabled
+ * and with room for all searched Users; indexedIds measures the in-memory lookup alone.
+ * It needs a running PostgreSQL, by default the one from docker-compose. Users are generated until the table holds
+ * the requested number and are kept afterwards, so only the first run pays for the load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class UserIndexSearchBenchmark {
+
+    /**
+     * The first year of birth of the generated Users.
+     */
+    private static final int FIRST_YEAR = 1940;
+
+    /**
+     * The number of years of birth the generated Users span.
+     */
+    private static final int YEARS = 65;
+
+    /**
+     * The page size of the searches.
+     */
+    private static final int LIMIT = 100;
+
+    /**
+     * The number of Users the table holds.
+     */
+    @Param("10000000")
+    public int users;
+
+    /**
+     * The size of the UserCache; 0 disables it.
+     */
+    @Param({"0", "10000"})
+    public int cachedUsers;
+
+    /**
+     * The JDBC URL of the database to run against.
+     */
+    @Param("jdbc:postgresql://localhost:5431/Users")
+    public String url;
+
+    /**
+     * The database user.
+     */
+    @Param("postgres")
+    public String username;
+
+    /**
+     * The database password.
+     */
+    @Param("password")
+    public String password;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private UserRepository userRepository;
+
+    private BirthDateIndex birthDateIndex;
+
+    /**
+     * Migrates the database, generates the missing Users and starts the application without a web server,
+     * with the index enabled, which loads it.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        Flyway.configure().dataSource(url, username, password).baselineOnMigrate(true).load().migrate();
+        fill();
+        context = new SpringApplicationBuilder(ClearSolutionsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.cache.caffeine.spec=maximumSize=" + cachedUsers,
+                        "--user.range-cache.max-users=0",
+                        "--user.birth-date-index.enabled=true");
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+        birthDateIndex = context.getBean(BirthDateIndex.class);
+    }
+
+    /**
+     * Stops the application.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Searches a page through the service, which resolves it with the index and fetches the Users by ID.
+     *
+     * @return the found Users
+     */
+    @Benchmark
+    public List<User> indexedSearch() {
+        LocalDate from = randomYear();
+        return userService.findUsersByBirthDateRange(from, from.plusYears(1).minusDays(1), null, LIMIT);
+    }
+
+    /**
+     * Searches a page with the keyset query the service issues when the index is disabled.
+     *
+     * @return the found Users
+     */
+    @Benchmark
+    public List<User> sqlSearch() {
+        LocalDate from = randomYear();
+        return userRepository.findPageByBirthDateBetween(from, from.plusYears(1).minusDays(1), Limit.of(LIMIT));
+    }
+
+    /**
+     * Finds the IDs of a page in the index without fetching the Users.
+     *
+     * @return the found IDs
+     */
+    @Benchmark
+    public long[] indexedIds() {
+        LocalDate from = randomYear();
+        return birthDateIndex.findIds(from, from.plusYears(1).minusDays(1), null, LIMIT);
+    }
+
+    /**
+     * Picks the first day of a random year in which the generated Users were born.
+     *
+     * @return the first day of the year
+     */
+    private static LocalDate randomYear() {
+        return LocalDate.of(FIRST_YEAR + ThreadLocalRandom.current().nextInt(YEARS), 1, 1);
+    }
+
+    /**
+     * Generates Users with random birth dates until the table holds the requested number,
+     * then refreshes the statistics and the visibility map so the keys can be read by an index-only scan.
+     */
+    private void fill() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement statement = connection.createStatement()) {
+            long existing;
+            try (ResultSet resultSet = statement.executeQuery("select count(*) from users")) {
+                resultSet.next();
+                existing = resultSet.getLong(1);
+            }
+            if (existing >= users) {
+                return;
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into users (id, email, first_name, last_name, birth_date) " +
+                    "select nextval('users_seq'), 'index' || n || '@bench.example.com', 'Bench', 'User', " +
+                    "date '" + FIRST_YEAR + "-01-01' + (random() * " + YEARS * 365 + ")::int " +
+                    "from generate_series(?, ?) n on conflict (email) do nothing")) {
+                for (long start = existing; start < users; start += 1_000_000) {
+                    insert.setLong(1, start);
+                    insert.setLong(2, Math.min(start + 1_000_000, users) - 1);
+                    insert.executeUpdate();
+                }
+            }
+            statement.execute("vacuum analyze users");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.clear_solutions.service;
+
+import com.example.clear_solutions.ClearSolutionsApplication;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserRangeSearchBenchmark measures the latency distribution of a repeated dashboard search
+ * with and without the range result cache, through the real service and database.
+ * Run it with the sample time mode to compare the p99 of both settings.
+ * It needs a running PostgreSQL, by default the one from docker-compose.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class UserRangeSearchBenchmark {
+
+    /**
+     * The start of the searched range.
+     */
+    private static final LocalDate FROM = LocalDate.of(1970, 1, 1);
+
+    /**
+     * The end of the searched range.
+     */
+    private static final LocalDate TO = LocalDate.of(1979, 12, 31);
+
+    /**
+     * The number of Users created in the searched range.
+     */
+    private static final int USERS = 2000;
+
+    /**
+     * The budget of the range cache; 0 disables it.
+     */
+    @Param({"0", "100000"})
+    public int rangeCacheMaxUsers;
+
+    /**
+     * The JDBC URL of the database to run against.
+     */
+    @Param("jdbc:postgresql://localhost:5431/Users")
+    public String url;
+
+    /**
+     * The database user.
+     */
+    @Param("postgres")
+    public String username;
+
+    /**
+     * The database password.
+     */
+    @Param("password")
+    public String password;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private List<Long> createdIds;
+
+    /**
+     * Starts the application without a web server and creates the searched Users.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ClearSolutionsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.jpa.show-sql=false",
+                        "--user.range-cache.max-users=" + rangeCacheMaxUsers);
+        userService = context.getBean(UserService.class);
+
+        String run = UUID.randomUUID().toString();
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(null, "bench" + i + "." + run + "@example.com", "Bench", "User",
+                    FROM.plusDays(i % 3650), null, null, null));
+        }
+        userService.createUsers(users);
+        createdIds = users.stream().map(User::getId).toList();
+    }
+
+    /**
+     * Deletes the created Users and stops the application.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.getBean(UserRepository.class).deleteAllByIdInBatch(createdIds);
+        context.close();
+    }
+
+    /**
+     * Searches the first page of the dashboard range.
+     *
+     * @return the found Users
+     */
+    @Benchmark
+    public List<User> searchDashboardRange() {
+        return userService.findUsersByBirthDateRange(FROM, TO, null, 100);
+    }
+}
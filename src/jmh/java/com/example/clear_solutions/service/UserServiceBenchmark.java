@@ -0,0 +1,101 @@
+package com.example.clear_solutions.service;
+
+import com.example.clear_solutions.cache.UserCache;
+import com.example.clear_solutions.cache.UserRangeCache;
+import com.example.clear_solutions.exception.UserException;
+import com.example.clear_solutions.index.BirthDateIndex;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.repository.UserUpdateRepository.UpdatedUser;
+import com.example.clear_solutions.service.impl.UserServiceImpl;
+import com.example.clear_solutions.stats.BirthDateStats;
+import com.example.clear_solutions.validation.AgeCutoff;
+import com.example.clear_solutions.validation.UserValidation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserServiceBenchmark measures the in-memory work of UserServiceImpl around the database:
+ * the age check of createUser and the validation and cache upkeep of updateUserFields.
+ * The repository is replaced by a stub that returns what it is given, so no database is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private UserService userService;
+
+    private User adult;
+
+    private User minor;
+
+    private User userUpdates;
+
+    /**
+     * Creates the service with stubbed persistence and a cached User to update.
+     */
+    @Setup
+    public void setUp() {
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> args[0];
+                    case "findById" -> Optional.empty();
+                    case "updateFields" -> Optional.of(new UpdatedUser(adult, adult.getBirthDate()));
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        UserCache userCache = new UserCache(new ConcurrentMapCacheManager(UserCache.CACHE_NAME), userRepository, Duration.ZERO);
+        UserRangeCache userRangeCache = new UserRangeCache(1000, Duration.ofMinutes(5), Duration.ZERO, new SimpleMeterRegistry());
+        AgeCutoff ageCutoff = new AgeCutoff(Clock.systemDefaultZone(), 18);
+        UserServiceImpl userServiceImpl = new UserServiceImpl(userRepository, userCache, userRangeCache,
+                new UserValidation(Validation.buildDefaultValidatorFactory().getValidator(), ageCutoff), null, ageCutoff,
+                new BirthDateStats(userRepository, ageCutoff),
+                new BirthDateIndex(userRepository, false, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+        userService = userServiceImpl;
+
+        adult = new User(1L, "adult@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, null);
+        minor = new User(2L, "minor@example.com", "Jane", "Doe", LocalDate.now().minusYears(10), null, null, null);
+        userUpdates = new User(null, null, "Johnny", null, null, "Kyiv", "+380000000000", null);
+        userCache.put(adult);
+    }
+
+    /**
+     * Creates a User old enough to pass the age check.
+     */
+    @Benchmark
+    public User createUser() {
+        return userService.createUser(adult);
+    }
+
+    /**
+     * Creates a User too young to pass the age check, which is rejected with an exception.
+     */
+    @Benchmark
+    public Object createUserTooYoung() {
+        try {
+            return userService.createUser(minor);
+        } catch (UserException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Updates some fields of a User.
+     */
+    @Benchmark
+    public User updateUserFields() {
+        return userService.updateUserFields(1L, userUpdates, null);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.clear_solutions.service;
+
+import com.example.clear_solutions.ClearSolutionsApplication;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserRepository;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * UserTextSearchBenchmark measures the first page of a search by name and email on a table of millions of Users.
+ * The generated names are made of syllables, about six hundred first names and fifteen thousand last names,
+ * and every email is made of the names, a number and one of a few domains, so prefixes and misspellings
+ * hit realistic numbers of Users. Every invocation searches a random text of one kind:
+ * the start of a last name, the start of an email, or a last name with two letters swapped, which only the
+ * similarity search finds.
+ * It needs a running PostgreSQL, by default the one from docker-compose. Users are generated until the table holds
+ * the requested number and are kept afterwards, so only the first run pays for the load; the search indexes are
+ * built after the load, which is much faster than maintaining them row by row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class UserTextSearchBenchmark {
+
+    /**
+     * The syllables the names are made of.
+     */
+    private static final String[] SYLLABLES = {"an", "bel", "cor", "da", "el", "fin", "gar", "han", "is", "jo",
+            "ka", "lin", "mar", "nor", "ol", "per", "quin", "ros", "sam", "tor", "ul", "ven", "wil", "xa", "yor"};
+
+    /**
+     * The domains of the generated emails.
+     */
+    private static final String[] DOMAINS = {"example.com", "mail.example.org", "corp.example.net", "example.io"};
+
+    /**
+     * The page size of the searches.
+     */
+    private static final int LIMIT = 20;
+
+    /**
+     * The number of Users the table holds.
+     */
+    @Param("10000000")
+    public int users;
+
+    /**
+     * The kind of the searched texts.
+     */
+    @Param({"namePrefix", "emailPrefix", "misspelledName"})
+    public String text;
+
+    /**
+     * The JDBC URL of the database to run against.
+     */
+    @Param("jdbc:postgresql://localhost:5431/Users")
+    public String url;
+
+    /**
+     * The database user.
+     */
+    @Param("postgres")
+    public String username;
+
+    /**
+     * The database password.
+     */
+    @Param("password")
+    public String password;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private UserRepository userRepository;
+
+    /**
+     * Migrates the database, generates the missing Users, builds the search indexes and starts the application
+     * without a web server, with the UserCache disabled so every search reads its Users from the database.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        Flyway.configure().dataSource(url, username, password).baselineOnMigrate(true).target("5").load().migrate();
+        fill();
+        Flyway.configure().dataSource(url, username, password).baselineOnMigrate(true).load().migrate();
+        context = new SpringApplicationBuilder(ClearSolutionsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.cache.caffeine.spec=maximumSize=0");
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+    }
+
+    /**
+     * Stops the application.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Searches the first page of a random text through the service, which reads the found Users by ID.
+     *
+     * @return the found Users
+     */
+    @Benchmark
+    public List<User> search() {
+        return userService.findUsersByText(randomText(), 0, LIMIT);
+    }
+
+    /**
+     * Finds the IDs of the first page of a random text as the service does, without reading the Users.
+     *
+     * @return the found IDs
+     */
+    @Benchmark
+    public long[] searchIds() {
+        String query = randomText();
+        long[] ids = userRepository.findIdsByPrefix(query, LIMIT);
+        return ids.length < LIMIT ? userRepository.findIdsBySimilarity(query, LIMIT) : ids;
+    }
+
+    /**
+     * Makes a random text of the benchmarked kind.
+     *
+     * @return the text
+     */
+    private String randomText() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String lastName = randomName(3);
+        return switch (text) {
+            case "namePrefix" -> lastName.substring(0, 3 + random.nextInt(3));
+            case "emailPrefix" -> randomName(2).toLowerCase(Locale.ROOT) + "." + lastName.toLowerCase(Locale.ROOT);
+            default -> {
+                int swapped = 1 + random.nextInt(lastName.length() - 2);
+                char[] letters = lastName.toCharArray();
+                char letter = letters[swapped];
+                letters[swapped] = letters[swapped + 1];
+                letters[swapped + 1] = letter;
+                yield new String(letters);
+            }
+        };
+    }
+
+    /**
+     * Makes a random capitalized name of the specified number of syllables, as the generated Users have.
+     *
+     * @param syllables the number of syllables
+     * @return the name
+     */
+    private static String randomName(int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[ThreadLocalRandom.current().nextInt(SYLLABLES.length)]);
+        }
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Generates Users with random names until the table holds the requested number,
+     * then refreshes the statistics and the visibility map of the table.
+     */
+    private void fill() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement statement = connection.createStatement()) {
+            long existing;
+            try (ResultSet resultSet = statement.executeQuery("select count(*) from users")) {
+                resultSet.next();
+                existing = resultSet.getLong(1);
+            }
+            if (existing >= users) {
+                return;
+            }
+            String syllables = array(SYLLABLES);
+            String domains = array(DOMAINS);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into users (id, email, first_name, last_name, birth_date) " +
+                    "select nextval('users_seq'), lower(first_name) || '.' || lower(last_name) || n || '@' || " +
+                    "(" + domains + ")[1 + n % " + DOMAINS.length + "], first_name, last_name, " +
+                    "date '1940-01-01' + (random() * 23000)::int from (" +
+                    "select n, initcap(" + randomSyllables(syllables, 2) + ") as first_name, " +
+                    "initcap(" + randomSyllables(syllables, 3) + ") as last_name " +
+                    "from generate_series(?, ?) n) generated on conflict (email) do nothing")) {
+                for (long start = existing; start < users; start += 1_000_000) {
+                    insert.setLong(1, start);
+                    insert.setLong(2, Math.min(start + 1_000_000, users) - 1);
+                    insert.executeUpdate();
+                }
+            }
+            statement.execute("vacuum analyze users");
+        }
+    }
+
+    /**
+     * Writes the specified values as an SQL text array.
+     *
+     * @param values the values
+     * @return the array literal
+     */
+    private static String array(String[] values) {
+        return Stream.of(values).map(value -> "'" + value + "'")
+                .collect(Collectors.joining(", ", "array[", "]"));
+    }
+
+    /**
+     * Writes an SQL expression that concatenates the specified number of random syllables.
+     *
+     * @param syllables the SQL array of the syllables
+     * @param count the number of syllables
+     * @return the expression
+     */
+    private static String randomSyllables(String syllables, int count) {
+        return Stream.generate(() -> "(" + syllables + ")[1 + floor(random() * " + SYLLABLES.length + ")::int]")
+                .limit(count)
+                .collect(Collectors.joining(" || "));
+    }
+}
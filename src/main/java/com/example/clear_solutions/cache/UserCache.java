@@ -0,0 +1,185 @@
+package com.example.clear_solutions.cache;
+
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserCache is a read-through cache of Users by ID that sits in front of UserRepository.
+ * It is backed by the "users" cache of the CacheManager, whose size, expiry and statistics are configured
+ * in the application properties. The cache holds its own copies of the Users, so callers may modify
+ * the Users they get without affecting the cached state.
+ * Users are loaded outside of the cache's locks, so a thread blocked on the database never holds a monitor,
+ * which would pin a virtual thread to its carrier.
+ * Users loaded while a write happened are not kept, and neither are Users loaded within the stale read window
+ * after a write, in case they were read from a replica that had not replayed the write yet.
+ */
+@Component
+@Profile("!reactive")
+public class UserCache {
+
+    /**
+     * The name of the cache that holds the Users.
+     */
+    public static final String CACHE_NAME = "users";
+
+    /**
+     * The cache that holds the Users by ID.
+     */
+    private final Cache cache;
+
+    /**
+     * The UserRepository used to load Users that are not cached.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * The number of writes so far, used to discard Users that were loaded while a write happened.
+     */
+    private final AtomicLong writes = new AtomicLong();
+
+    /**
+     * How long after a write a loaded User may still predate it, in nanoseconds.
+     */
+    private final long staleReadWindowNanos;
+
+    /**
+     * The time of the last write, from System.nanoTime().
+     */
+    private volatile long lastWriteNanos;
+
+    /**
+     * Constructs a UserCache with the specified CacheManager, UserRepository and stale read window.
+     *
+     * @param cacheManager the CacheManager that provides the "users" cache
+     * @param userRepository the UserRepository to be used
+     * @param staleReadWindow how long after a write a loaded User may still predate it
+     */
+    public UserCache(CacheManager cacheManager, UserRepository userRepository,
+                     @Value("${user.cache.stale-read-window}") Duration staleReadWindow) {
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        this.userRepository = userRepository;
+        this.staleReadWindowNanos = staleReadWindow.toNanos();
+        this.lastWriteNanos = System.nanoTime() - staleReadWindowNanos;
+    }
+
+    /**
+     * Finds a User by ID, loading it from the database if it is not cached.
+     *
+     * @param id the ID of the User
+     * @return a copy of the User, or an empty Optional if there is no User with the ID
+     */
+    public Optional<User> findById(Long id) {
+        Cache.ValueWrapper cached = cache.get(id);
+        if (cached != null) {
+            return Optional.ofNullable((User) cached.get()).map(UserCache::copy);
+        }
+        long writesBeforeLoad = writes.get();
+        long loadStart = System.nanoTime();
+        User user = userRepository.findById(id).map(UserCache::copy).orElse(null);
+        cache.putIfAbsent(id, user);
+        if (mayBeStale(writesBeforeLoad, loadStart)) {
+            cache.evict(id);
+        }
+        return Optional.ofNullable(user).map(UserCache::copy);
+    }
+
+    /**
+     * Finds Users by ID, loading the ones that are not cached with a single query.
+     *
+     * @param ids the IDs of the Users
+     * @return copies of the Users that exist, in the order of their IDs
+     */
+    public List<User> findAllById(long[] ids) {
+        User[] found = new User[ids.length];
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            Cache.ValueWrapper cached = cache.get(ids[i]);
+            if (cached != null) {
+                found[i] = (User) cached.get();
+            } else {
+                missing.add(ids[i]);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long writesBeforeLoad = writes.get();
+            long loadStart = System.nanoTime();
+            Map<Long, User> loaded = new HashMap<>();
+            for (User user : userRepository.findAllUnmanagedByIdIn(missing)) {
+                loaded.put(user.getId(), user);
+                cache.putIfAbsent(user.getId(), user);
+            }
+            if (mayBeStale(writesBeforeLoad, loadStart)) {
+                loaded.keySet().forEach(cache::evict);
+            }
+            for (int i = 0; i < ids.length; i++) {
+                if (found[i] == null) {
+                    found[i] = loaded.get(ids[i]);
+                }
+            }
+        }
+        List<User> users = new ArrayList<>(ids.length);
+        for (User user : found) {
+            if (user != null) {
+                users.add(copy(user));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Caches the current state of a User.
+     *
+     * @param user the User to be cached
+     */
+    public void put(User user) {
+        writes.incrementAndGet();
+        lastWriteNanos = System.nanoTime();
+        cache.put(user.getId(), copy(user));
+    }
+
+    /**
+     * Removes a User from the cache.
+     *
+     * @param id the ID of the User
+     */
+    public void evict(Long id) {
+        writes.incrementAndGet();
+        lastWriteNanos = System.nanoTime();
+        cache.evict(id);
+    }
+
+    /**
+     * Checks whether Users loaded from the specified point on may be older than a write.
+     *
+     * @param writesBeforeLoad the number of writes before the load
+     * @param loadStart the time the load started, from System.nanoTime()
+     * @return true if a write happened during the load or within the stale read window before it
+     */
+    private boolean mayBeStale(long writesBeforeLoad, long loadStart) {
+        return writes.get() != writesBeforeLoad || loadStart - lastWriteNanos < staleReadWindowNanos;
+    }
+
+    /**
+     * Creates a copy of a User.
+     *
+     * @param user the User to be copied
+     * @return the copy of the User
+     */
+    private static User copy(User user) {
+        return new User(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getBirthDate(), user.getAddress(), user.getPhoneNumber(), user.getVersion());
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.clear_solutions.cache;
+
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * UserRangeCache is a cache of birth date range search results.
+ * Entries are keyed by the normalized search (range, cursor and limit) and weighed by the number of Users they hold,
+ * so the cache stays within a fixed budget of Users. A write only invalidates the entries whose range contains
+ * the birth date it touched, so unrelated ranges stay cached; the keys are indexed by the start of their range, so it
+ * only visits the keys that start within the longest range cached so far before that birth date, not every key.
+ * A budget of 0 disables the cache.
+ * Results loaded while an invalidation happened are not kept, and neither are results loaded within the stale read
+ * window after an invalidation, in case they were read from a replica that had not replayed the write yet.
+ */
+@Component
+@Profile("!reactive")
+public class UserRangeCache {
+
+    /**
+     * The cached search results.
+     */
+    private final Cache<RangeKey, List<User>> cache;
+
+    /**
+     * The keys of the cached search results by the start of their range; it is guarded by its own lock.
+     * A key is added after its result is cached, and removed when it is invalidated or once its result has left
+     * the cache otherwise, so the index holds every cached key and, briefly, keys whose results were just removed.
+     */
+    private final NavigableMap<LocalDate, Set<RangeKey>> keysByFrom = new TreeMap<>();
+
+    /**
+     * The number of days of the longest range that has been indexed, guarded by the lock of keysByFrom.
+     * Only the keys whose range starts at most this many days before a birth date can contain it.
+     */
+    private long maxSpanDays;
+
+    /**
+     * Whether search results are cached at all.
+     */
+    private final boolean enabled;
+
+    /**
+     * The number of invalidations so far.
+     * A search result loaded while an invalidation happened may be stale and is not kept.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * How long after an invalidation a loaded search result may still predate it, in nanoseconds.
+     */
+    private final long staleReadWindowNanos;
+
+    /**
+     * The time of the last invalidation, from System.nanoTime().
+     */
+    private volatile long lastInvalidationNanos;
+
+    /**
+     * Constructs a UserRangeCache with the specified budget, time to live and stale read window.
+     *
+     * @param maxUsers the maximum total number of Users held by the cache, or 0 to disable it
+     * @param timeToLive how long a search result is kept after it was loaded
+     * @param staleReadWindow how long after an invalidation a loaded search result may still predate it
+     * @param meterRegistry the MeterRegistry the cache statistics are published to
+     */
+    public UserRangeCache(@Value("${user.range-cache.max-users}") long maxUsers,
+                          @Value("${user.range-cache.time-to-live}") Duration timeToLive,
+                          @Value("${user.cache.stale-read-window}") Duration staleReadWindow,
+                          MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxUsers)
+                .weigher((RangeKey key, List<User> users) -> users.size() + 1)
+                .expireAfterWrite(timeToLive)
+                .removalListener(this::unindex)
+                .recordStats()
+                .build();
+        this.enabled = maxUsers > 0;
+        this.staleReadWindowNanos = staleReadWindow.toNanos();
+        this.lastInvalidationNanos = System.nanoTime() - staleReadWindowNanos;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users.range");
+    }
+
+    /**
+     * Gets a search result, loading it if it is not cached.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param after the cursor of the last User of the previous page, or null for the first page
+     * @param limit the maximum number of Users in the result
+     * @param loader the function that loads the result from the database
+     * @return the search result
+     */
+    public List<User> get(LocalDate from, LocalDate to, UserCursor after, int limit, Supplier<List<User>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        RangeKey key = after == null
+                ? new RangeKey(from, to, null, null, limit)
+                : new RangeKey(from, to, after.getBirthDate(), after.getId(), limit);
+        List<User> users = cache.getIfPresent(key);
+        if (users != null) {
+            return users;
+        }
+        long invalidationsBeforeLoad = invalidations.get();
+        long loadStart = System.nanoTime();
+        users = List.copyOf(loader.get());
+        cache.put(key, users);
+        index(key);
+        if (invalidations.get() != invalidationsBeforeLoad
+                || loadStart - lastInvalidationNanos < staleReadWindowNanos) {
+            cache.invalidate(key);
+        }
+        return users;
+    }
+
+    /**
+     * Invalidates every cached search result whose range contains the specified birth date.
+     * A User without a birth date is not part of any range, so nothing is invalidated for it.
+     *
+     * @param birthDate the birth date of a User that was created, updated or deleted
+     */
+    public void invalidate(LocalDate birthDate) {
+        if (birthDate == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        lastInvalidationNanos = System.nanoTime();
+        cache.invalidateAll(removeKeys(birthDate, birthDate));
+    }
+
+    /**
+     * Invalidates every cached search result whose range overlaps the specified range of birth dates.
+     * It is used after bulk writes, which touch many birth dates at once.
+     *
+     * @param from the earliest birth date that was touched
+     * @param to the latest birth date that was touched
+     */
+    public void invalidate(LocalDate from, LocalDate to) {
+        invalidations.incrementAndGet();
+        lastInvalidationNanos = System.nanoTime();
+        cache.invalidateAll(removeKeys(from, to));
+    }
+
+    /**
+     * Invalidates every cached search result.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        lastInvalidationNanos = System.nanoTime();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Adds the key of a cached search result to the index.
+     *
+     * @param key the key
+     */
+    private void index(RangeKey key) {
+        synchronized (keysByFrom) {
+            keysByFrom.computeIfAbsent(key.from(), from -> new HashSet<>()).add(key);
+            maxSpanDays = Math.max(maxSpanDays, ChronoUnit.DAYS.between(key.from(), key.to()));
+        }
+    }
+
+    /**
+     * Removes the keys whose range overlaps a range of birth dates from the index.
+     * Only the keys that start at most the longest indexed range before it are visited.
+     *
+     * @param from the start of the range of birth dates
+     * @param to the end of the range of birth dates
+     * @return the removed keys, whose search results are to be invalidated
+     */
+    private List<RangeKey> removeKeys(LocalDate from, LocalDate to) {
+        List<RangeKey> removed = new ArrayList<>();
+        synchronized (keysByFrom) {
+            Iterator<Set<RangeKey>> candidates =
+                    keysByFrom.subMap(from.minusDays(maxSpanDays), true, to, true).values().iterator();
+            while (candidates.hasNext()) {
+                Set<RangeKey> keys = candidates.next();
+                keys.removeIf(key -> key.overlaps(from, to) && removed.add(key));
+                if (keys.isEmpty()) {
+                    candidates.remove();
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the key of a search result that left the cache from the index.
+     * It runs after the removal, so the key is kept if its result was cached again in the meantime.
+     *
+     * @param key the key
+     * @param users the removed search result
+     * @param cause why the search result was removed
+     */
+    private void unindex(RangeKey key, List<User> users, RemovalCause cause) {
+        synchronized (keysByFrom) {
+            Set<RangeKey> keys = keysByFrom.get(key.from());
+            if (keys != null && !cache.asMap().containsKey(key)) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByFrom.remove(key.from());
+                }
+            }
+        }
+    }
+
+    /**
+     * RangeKey is the normalized form of a birth date range search.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param afterBirthDate the birthdate of the cursor, or null for the first page
+     * @param afterId the ID of the cursor, or null for the first page
+     * @param limit the maximum number of Users in the result
+     */
+    private record RangeKey(LocalDate from, LocalDate to, LocalDate afterBirthDate, Long afterId, int limit) {
+
+        /**
+         * Checks whether the range of the search overlaps a range of birth dates.
+         *
+         * @param otherFrom the start of the other range
+         * @param otherTo the end of the other range
+         * @return true if the ranges have a birth date in common
+         */
+        boolean overlaps(LocalDate otherFrom, LocalDate otherTo) {
+            return !otherTo.isBefore(from) && !otherFrom.isAfter(to);
+        }
+    }
+}
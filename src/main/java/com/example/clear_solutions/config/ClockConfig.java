@@ -0,0 +1,24 @@
+package com.example.clear_solutions.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * ClockConfig provides the Clock that date rules, such as the minimum age, are evaluated against.
+ * Tests replace it with a fixed Clock to check the rules on a chosen day.
+ */
+@Configuration
+public class ClockConfig {
+
+    /**
+     * Creates the Clock of the system time zone.
+     *
+     * @return the Clock
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
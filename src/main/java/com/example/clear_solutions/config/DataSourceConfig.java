@@ -0,0 +1,91 @@
+package com.example.clear_solutions.config;
+
+import com.example.clear_solutions.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataSourceConfig sends the read-only transactions to read replicas when "user.datasource.replica.urls" lists any.
+ * The primary is the pool configured by the "spring.datasource" properties, and every replica gets a pool
+ * with the same settings, named replica-1, replica-2 and so on, which starts even if the replica is down.
+ * Without replicas, this configuration is skipped and Spring Boot configures the single pool as usual.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty("user.datasource.replica.urls")
+public class DataSourceConfig {
+
+    /**
+     * Creates the pool of the primary from the "spring.datasource" properties, as Spring Boot would.
+     *
+     * @param properties the DataSourceProperties of the application
+     * @return the pool of the primary
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Creates the DataSource that routes connections between the primary and the replicas and starts checking
+     * the replicas.
+     *
+     * @param primaryDataSource the pool of the primary
+     * @param replicaUrls the JDBC URLs of the replicas
+     * @param maxLag the largest replay lag a replica may have to be used
+     * @param checkInterval how often the replicas are checked
+     * @param meterRegistry the MeterRegistry the pools and the routing decisions are published to
+     * @return the ReplicaRoutingDataSource
+     */
+    @Bean(initMethod = "start")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${user.datasource.replica.urls}") List<String> replicaUrls,
+            @Value("${user.datasource.replica.max-lag}") Duration maxLag,
+            @Value("${user.datasource.replica.check-interval}") Duration checkInterval,
+            MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            String name = "replica-" + (replicas.size() + 1);
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(url);
+            config.setPoolName(name);
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(name, new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, checkInterval, meterRegistry);
+    }
+
+    /**
+     * Creates the DataSource used by the application, which opens the routed connection on the first statement
+     * of a transaction, once it is known whether the transaction is read-only.
+     *
+     * @param replicaRoutingDataSource the ReplicaRoutingDataSource
+     * @return the DataSource
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
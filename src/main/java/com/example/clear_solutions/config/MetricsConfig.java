@@ -0,0 +1,26 @@
+package com.example.clear_solutions.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MetricsConfig configures the application's own metrics.
+ * Endpoint, repository, connection pool and cache metrics are recorded by Spring Boot's actuator;
+ * the histograms of all timers are enabled in the application properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Creates the aspect that times the methods of beans annotated with @Timed.
+     *
+     * @param meterRegistry the MeterRegistry the timers are registered with
+     * @return the TimedAspect
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.clear_solutions.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * ReactiveServerConfig runs the reactive profile on Reactor Netty.
+ * Spring Boot prefers Tomcat whenever it is on the classpath, which it is for the servlet deployment,
+ * so the Netty factory is declared here; a few event loop threads then serve every connection.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveServerConfig {
+
+    /**
+     * Creates the factory of the Netty web server, applying the NettyServerCustomizers of the context.
+     * The server properties, such as the port, are applied by Spring Boot's customizers.
+     *
+     * @param serverCustomizers the NettyServerCustomizers to be applied
+     * @return the NettyReactiveWebServerFactory
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(
+            ObjectProvider<NettyServerCustomizer> serverCustomizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.getServerCustomizers().addAll(serverCustomizers.orderedStream().toList());
+        return factory;
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.clear_solutions.controller;
+
+import com.example.clear_solutions.dto.BatchCreateResponse;
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.dto.UserPageResponse;
+import com.example.clear_solutions.dto.UserResponse;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.service.ReactiveUserService;
+import com.example.clear_solutions.validation.UserValidation;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReactiveUserController is the WebFlux counterpart of UserController for the reactive profile.
+ * It serves the same api/v1/users routes of the user resource with the same request and response shapes,
+ * using ReactiveUserService, so no thread waits for the database while a request is in flight.
+ * Bulk requests, imports, exports, background jobs and statistics are only served by the servlet deployment.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("api/v1/users")
+public class ReactiveUserController {
+
+    /**
+     * The media type of newline-delimited JSON responses.
+     */
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * The ReactiveUserService used to perform operations on Users.
+     */
+    private final ReactiveUserService userService;
+
+    /**
+     * The ObjectWriter used to write streamed UserResponses without flushing after every one of them.
+     */
+    private final ObjectWriter userResponseWriter;
+
+    /**
+     * The number of streamed UserResponses written to one buffer of the response.
+     */
+    private final int streamBatchSize;
+
+    /**
+     * Constructs a ReactiveUserController with the specified ReactiveUserService, ObjectMapper and stream batch size.
+     *
+     * @param userService     the ReactiveUserService to be used by the ReactiveUserController
+     * @param objectMapper    the ObjectMapper used to serialize streamed responses
+     * @param streamBatchSize the number of streamed UserResponses written to one buffer
+     */
+    public ReactiveUserController(ReactiveUserService userService, ObjectMapper objectMapper,
+                                  @Value("${user.stream.batch-size}") int streamBatchSize) {
+        this.userService = userService;
+        this.userResponseWriter = objectMapper.writerFor(UserResponse.class)
+                .withRootValueSeparator("")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.streamBatchSize = streamBatchSize;
+    }
+
+    /**
+     * Handles POST requests to create a new User.
+     *
+     * @param user    the User to be created
+     * @param request the current request
+     * @return a ResponseEntity containing a UserResponse with the created User and the request URL
+     */
+    @PostMapping("/create")
+    public Mono<ResponseEntity<UserResponse>> createUser(@RequestBody User user, ServerHttpRequest request) {
+        return userService.createUser(user).map(createdUser -> {
+            UserResponse response = new UserResponse(createdUser, getRequestUrl(request));
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(response.eTag()).body(response);
+        });
+    }
+
+    /**
+     * Handles POST requests to create many Users at once.
+     * Every User is validated on its own, so one invalid User does not prevent the others from being created.
+     *
+     * @param users the Users to be created
+     * @return a ResponseEntity containing a BatchCreateResponse with the outcome for every submitted User
+     */
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<BatchCreateResponse>> createUsers(@RequestBody List<User> users) {
+        return userService.createUsers(users).map(rejected -> {
+            List<BatchCreateResponse.Item> items = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                String detail = rejected.get(i);
+                if (detail == null) {
+                    items.add(new BatchCreateResponse.Item(i, HttpStatus.CREATED.value(), users.get(i).getId(), null));
+                } else {
+                    items.add(new BatchCreateResponse.Item(i, HttpStatus.BAD_REQUEST.value(), null, detail));
+                }
+            }
+            return new ResponseEntity<>(new BatchCreateResponse(items), HttpStatus.OK);
+        });
+    }
+
+    /**
+     * Handles GET requests to find a User by ID.
+     * The response carries the version of the User as its ETag; a request whose If-None-Match holds
+     * the current ETag is answered with 304 Not Modified and no body.
+     *
+     * @param id      the ID of the User
+     * @param request the current request
+     * @return a ResponseEntity containing a UserResponse with the found User and the request URL
+     */
+    @GetMapping("{id}")
+    public Mono<ResponseEntity<UserResponse>> findUserById(@PathVariable Long id, ServerHttpRequest request) {
+        return userService.findUserById(id).map(user -> ok(user, request));
+    }
+
+    /**
+     * Handles PATCH requests to update fields of an existing User.
+     * If the request has an If-Match header, the User is only updated if it still has that version.
+     *
+     * @param id          the ID of the User to be updated
+     * @param userUpdates the User object containing the updated fields
+     * @param ifMatch     the ETag the User must have, or null to update any version
+     * @param request     the current request
+     * @return a ResponseEntity containing a UserResponse with the updated User and the request URL
+     */
+    @PatchMapping("update/{id}")
+    public Mono<ResponseEntity<UserResponse>> updateUserFields(
+            @PathVariable Long id, @RequestBody User userUpdates,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            ServerHttpRequest request) {
+        return userService.updateUserFields(id, userUpdates, UserResponse.versionOf(ifMatch))
+                .map(user -> ok(user, request));
+    }
+
+    /**
+     * Handles PUT requests to update all fields of an existing User.
+     * If the request has an If-Match header, the User is only updated if it still has that version.
+     *
+     * @param id          the ID of the User to be updated
+     * @param userUpdates the User object containing the updated fields
+     * @param ifMatch     the ETag the User must have, or null to update any version
+     * @param request     the current request
+     * @return a ResponseEntity containing a UserResponse with the updated User and the request URL
+     */
+    @PutMapping("update-all/{id}")
+    public Mono<ResponseEntity<UserResponse>> updateAllUserFields(
+            @PathVariable Long id, @RequestBody User userUpdates,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            ServerHttpRequest request) {
+        return userService.updateAllUserFields(id, userUpdates, UserResponse.versionOf(ifMatch))
+                .map(user -> ok(user, request));
+    }
+
+    /**
+     * Handles DELETE requests to delete a User.
+     * If the request has an If-Match header, the User is only deleted if it still has that version.
+     *
+     * @param id      the ID of the User to be deleted
+     * @param ifMatch the ETag the User must have, or null to delete any version
+     * @return a ResponseEntity with a NO_CONTENT status
+     */
+    @DeleteMapping("delete/{id}")
+    public Mono<ResponseEntity<Void>> deleteUser(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.deleteUser(id, UserResponse.versionOf(ifMatch))
+                .then(Mono.just(new ResponseEntity<>(HttpStatus.NO_CONTENT)));
+    }
+
+    /**
+     * Handles GET requests to find Users by a range of birth dates.
+     * The result is returned page by page; the "next" link of a full page points at the following page.
+     *
+     * @param from    the start of the birth date range
+     * @param to      the end of the birth date range
+     * @param after   the opaque cursor of the last User of the previous page, or null for the first page
+     * @param limit   the maximum number of Users in the page
+     * @param request the current request
+     * @return a ResponseEntity containing a UserPageResponse with the found Users and the page links
+     */
+    @GetMapping("/search")
+    public Mono<ResponseEntity<UserPageResponse>> findUsersByBirthDateRange(
+            @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "${user.search.default-limit}") int limit,
+            ServerHttpRequest request) {
+        UserCursor cursor = after != null ? UserCursor.decode(after) : null;
+        return userService.findUsersByBirthDateRange(from, to, cursor, limit)
+                .collectList()
+                .map(users -> {
+                    String nextCursor = !users.isEmpty() && users.size() == limit
+                            ? UserCursor.of(users.get(users.size() - 1)).encode() : null;
+                    return page(users, request, "after", nextCursor);
+                });
+    }
+
+    /**
+     * Handles GET requests to find Users by a part of their email, first name or last name.
+     * The result is ranked by relevance and returned page by page; the "next" link of a full page points
+     * at the following page.
+     *
+     * @param q       the text to be matched
+     * @param offset  the number of matching Users to skip
+     * @param limit   the maximum number of Users in the page
+     * @param request the current request
+     * @return a ResponseEntity containing a UserPageResponse with the found Users and the page links
+     */
+    @GetMapping("/find")
+    public Mono<ResponseEntity<UserPageResponse>> findUsersByText(
+            @RequestParam("q") String q,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "${user.search.default-limit}") int limit,
+            ServerHttpRequest request) {
+        return userService.findUsersByText(q, offset, limit)
+                .collectList()
+                .map(users -> page(users, request, "offset",
+                        !users.isEmpty() && users.size() == limit ? offset + limit : null));
+    }
+
+    /**
+     * Handles GET requests to export Users by a range of birth dates as newline-delimited JSON.
+     * The Users are serialized streamBatchSize at a time into one buffer each, and the next Users are only read
+     * from the database cursor once the client has taken the previous buffer, so a slow client slows the cursor down
+     * instead of filling the memory. The range is checked before streaming starts,
+     * because errors can no longer be reported once it has.
+     *
+     * @param from     the start of the birth date range
+     * @param to       the end of the birth date range
+     * @param request  the current request
+     * @param response the current response, whose buffer factory allocates the buffers
+     * @return a ResponseEntity containing the buffers of the body, with one UserResponse per line
+     * @throws UserValidationException if the 'from' date is after the 'to' date
+     */
+    @GetMapping(value = "/search/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<DataBuffer>> streamUsersByBirthDateRange(
+            @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            ServerHttpRequest request, ServerHttpResponse response) {
+        UserValidation.checkRange(from, to);
+        String requestUrl = getRequestUrl(request);
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        Flux<DataBuffer> body = userService.streamUsersByBirthDateRange(from, to)
+                .buffer(streamBatchSize)
+                .map(batch -> write(batch, requestUrl, bufferFactory));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Writes a batch of streamed Users to a buffer, one UserResponse per line.
+     *
+     * @param batch         the batch of Users
+     * @param requestUrl    the URL of the request, the self link of the UserResponses
+     * @param bufferFactory the factory of the buffer
+     * @return the buffer
+     */
+    private DataBuffer write(List<User> batch, String requestUrl, DataBufferFactory bufferFactory) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(256 * batch.size());
+        try (OutputStream outputStream = buffer.asOutputStream();
+             JsonGenerator generator = userResponseWriter.createGenerator(outputStream)) {
+            for (User user : batch) {
+                userResponseWriter.writeValue(generator, new UserResponse(user, requestUrl));
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+        return buffer;
+    }
+
+    /**
+     * Creates the 200 OK response for a User, with its version as the ETag.
+     *
+     * @param user    the User
+     * @param request the current request
+     * @return a ResponseEntity containing a UserResponse with the User and the request URL
+     */
+    private ResponseEntity<UserResponse> ok(User user, ServerHttpRequest request) {
+        UserResponse response = new UserResponse(user, getRequestUrl(request));
+        return ResponseEntity.ok().eTag(response.eTag()).body(response);
+    }
+
+    /**
+     * Creates the response of a search page. Its self link is the request URI and its "next" link,
+     * if there is a following page, the request URI with the paging parameter replaced.
+     *
+     * @param users     the Users of the page
+     * @param request   the current request
+     * @param parameter the name of the paging parameter
+     * @param next      the value of the paging parameter for the following page, or null if there is none
+     * @return a ResponseEntity containing a UserPageResponse with the Users and the page links
+     */
+    private ResponseEntity<UserPageResponse> page(List<User> users, ServerHttpRequest request, String parameter,
+                                                  Object next) {
+        String requestUrl = getRequestUrl(request);
+        List<UserResponse> responses = users.stream()
+                .map(user -> new UserResponse(user, requestUrl))
+                .toList();
+        UriComponentsBuilder currentRequest = UriComponentsBuilder.fromUri(request.getURI());
+        String selfLink = currentRequest.toUriString();
+        String nextLink = next != null ? currentRequest.replaceQueryParam(parameter, next).toUriString() : null;
+        return new ResponseEntity<>(new UserPageResponse(responses, selfLink, nextLink), HttpStatus.OK);
+    }
+
+    /**
+     * Gets the URL of a request without its query, as the servlet stack reports it.
+     *
+     * @param request the request
+     * @return the URL of the request
+     */
+    private static String getRequestUrl(ServerHttpRequest request) {
+        return UriComponentsBuilder.fromUri(request.getURI()).replaceQuery(null).build().toUriString();
+    }
+}
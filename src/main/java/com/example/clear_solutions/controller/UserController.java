@@ -1,36 +1,99 @@
 package com.example.clear_solutions.controller;
 
+import com.example.clear_solutions.dto.BatchCreateResponse;
+import com.example.clear_solutions.dto.BulkResponse;
+import com.example.clear_solutions.dto.BulkUpdateRequest;
+import com.example.clear_solutions.dto.JobResponse;
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.dto.UserPageResponse;
 import com.example.clear_solutions.dto.UserResponse;
+import com.example.clear_solutions.dto.UserSelection;
+import com.example.clear_solutions.dto.UserStatsResponse;
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.job.Job;
+import com.example.clear_solutions.job.JobService;
 import com.example.clear_solutions.model.User;
 import com.example.clear_solutions.service.UserService;
+import com.example.clear_solutions.service.UserTransferService;
+import com.example.clear_solutions.stats.StatsGroup;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * UserController is a REST controller that handles HTTP requests related to User entities.
  * It uses UserService to perform operations on User entities.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/v1/users")
 public class UserController {
 
+    /**
+     * The media type of newline-delimited JSON responses.
+     */
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final UserService userService;
 
     /**
-     * Constructs a UserController with the specified UserService.
+     * The UserTransferService used to import and export Users in the background.
+     */
+    private final UserTransferService userTransferService;
+
+    /**
+     * The JobService used to look up background jobs.
+     */
+    private final JobService jobService;
+
+    /**
+     * The ObjectWriter used to write streamed UserResponses without flushing after every one of them.
+     */
+    private final ObjectWriter userResponseWriter;
+
+    /**
+     * Constructs a UserController with the specified UserService, UserTransferService, JobService and ObjectMapper.
      *
-     * @param userService the UserService to be used by the UserController
+     * @param userService         the UserService to be used by the UserController
+     * @param userTransferService the UserTransferService used to import and export Users in the background
+     * @param jobService          the JobService used to look up background jobs
+     * @param objectMapper        the ObjectMapper used to serialize streamed responses
      */
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserTransferService userTransferService, JobService jobService,
+                          ObjectMapper objectMapper) {
         this.userService = userService;
+        this.userTransferService = userTransferService;
+        this.jobService = jobService;
+        this.userResponseWriter = objectMapper.writerFor(UserResponse.class)
+                .withRootValueSeparator("")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     /**
@@ -44,68 +107,342 @@ public class UserController {
         User createdUser = userService.createUser(user);
         String requestUrl = getRequestUrl();
         UserResponse response = new UserResponse(createdUser, requestUrl);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(response.eTag()).body(response);
+    }
+
+    /**
+     * Handles POST requests to create many Users at once.
+     * Every User is validated on its own, so one invalid User does not prevent the others from being created.
+     *
+     * @param users the Users to be created
+     * @return a ResponseEntity containing a BatchCreateResponse with the outcome for every submitted User
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCreateResponse> createUsers(@RequestBody List<User> users) {
+        Map<Integer, String> rejected = userService.createUsers(users);
+        List<BatchCreateResponse.Item> items = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            String detail = rejected.get(i);
+            if (detail == null) {
+                items.add(new BatchCreateResponse.Item(i, HttpStatus.CREATED.value(), users.get(i).getId(), null));
+            } else {
+                items.add(new BatchCreateResponse.Item(i, HttpStatus.BAD_REQUEST.value(), null, detail));
+            }
+        }
+        return new ResponseEntity<>(new BatchCreateResponse(items), HttpStatus.OK);
+    }
+
+    /**
+     * Handles GET requests to find a User by ID.
+     * The response carries the version of the User as its ETag; a request whose If-None-Match holds
+     * the current ETag is answered with 304 Not Modified and no body.
+     *
+     * @param id the ID of the User
+     * @return a ResponseEntity containing a UserResponse with the found User and the request URL
+     */
+    @GetMapping("{id}")
+    public ResponseEntity<UserResponse> findUserById(@PathVariable Long id) {
+        User user = userService.findUserById(id);
+        String requestUrl = getRequestUrl();
+        UserResponse response = new UserResponse(user, requestUrl);
+        return ResponseEntity.ok().eTag(response.eTag()).body(response);
     }
 
     /**
      * Handles PATCH requests to update fields of an existing User.
+     * If the request has an If-Match header, the User is only updated if it still has that version.
      *
      * @param id          the ID of the User to be updated
      * @param userUpdates the User object containing the updated fields
+     * @param ifMatch     the ETag the User must have, or null to update any version
      * @return a ResponseEntity containing a UserResponse with the updated User and the request URL
      */
     @PatchMapping("update/{id}")
-    public ResponseEntity<UserResponse> updateUserFields(@PathVariable Long id, @RequestBody User userUpdates) {
-        User updatedUser = userService.updateUserFields(id, userUpdates);
+    public ResponseEntity<UserResponse> updateUserFields(
+            @PathVariable Long id, @RequestBody User userUpdates,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        User updatedUser = userService.updateUserFields(id, userUpdates, UserResponse.versionOf(ifMatch));
         String requestUrl = getRequestUrl();
         UserResponse response = new UserResponse(updatedUser, requestUrl);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(response.eTag()).body(response);
     }
 
     /**
      * Handles PUT requests to update all fields of an existing User.
+     * If the request has an If-Match header, the User is only updated if it still has that version.
      *
      * @param id          the ID of the User to be updated
      * @param userUpdates the User object containing the updated fields
+     * @param ifMatch     the ETag the User must have, or null to update any version
      * @return a ResponseEntity containing a UserResponse with the updated User and the request URL
      */
     @PutMapping("update-all/{id}")
-    public ResponseEntity<UserResponse> updateAllUserFields(@PathVariable Long id, @RequestBody User userUpdates) {
-        User updatedUser = userService.updateAllUserFields(id, userUpdates);
+    public ResponseEntity<UserResponse> updateAllUserFields(
+            @PathVariable Long id, @RequestBody User userUpdates,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        User updatedUser = userService.updateAllUserFields(id, userUpdates, UserResponse.versionOf(ifMatch));
         String requestUrl = getRequestUrl();
         UserResponse response = new UserResponse(updatedUser, requestUrl);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(response.eTag()).body(response);
     }
 
     /**
      * Handles DELETE requests to delete a User.
+     * If the request has an If-Match header, the User is only deleted if it still has that version.
      *
-     * @param id the ID of the User to be deleted
+     * @param id      the ID of the User to be deleted
+     * @param ifMatch the ETag the User must have, or null to delete any version
      * @return a ResponseEntity with a NO_CONTENT status
      */
     @DeleteMapping("delete/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        userService.deleteUser(id);
+    public ResponseEntity<Void> deleteUser(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.deleteUser(id, UserResponse.versionOf(ifMatch));
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
     /**
-     * Handles GET requests to find Users by a range of birth dates.
+     * Handles POST requests to delete many Users at once, selected by ID or by birth date range.
+     * The Users are deleted in chunks, each in its own transaction. With async=true the request is answered
+     * with 202 Accepted as soon as it is validated, and the deletion runs as a job that can be polled.
+     *
+     * @param selection the Users to be deleted
+     * @param async     whether to run the deletion in the background
+     * @return a ResponseEntity containing a BulkResponse with the number of deleted Users, or a JobResponse
+     */
+    @PostMapping("bulk/delete")
+    public ResponseEntity<?> deleteUsers(@RequestBody UserSelection selection,
+                                         @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        if (async) {
+            return accepted(userService.deleteUsersAsync(selection));
+        }
+        return new ResponseEntity<>(new BulkResponse(userService.deleteUsers(selection)), HttpStatus.OK);
+    }
+
+    /**
+     * Handles POST requests to set fields on many Users at once, selected by ID or by birth date range.
+     * The Users are updated in chunks, each in its own transaction. With async=true the request is answered
+     * with 202 Accepted as soon as it is validated, and the update runs as a job that can be polled.
+     *
+     * @param request the Users to be updated and the fields to be set
+     * @param async   whether to run the update in the background
+     * @return a ResponseEntity containing a BulkResponse with the number of updated Users, or a JobResponse
+     */
+    @PostMapping("bulk/update")
+    public ResponseEntity<?> updateUsers(@RequestBody BulkUpdateRequest request,
+                                         @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        if (async) {
+            return accepted(userService.updateUsersAsync(request.getSelection(), request.getUpdates()));
+        }
+        long updated = userService.updateUsers(request.getSelection(), request.getUpdates());
+        return new ResponseEntity<>(new BulkResponse(updated), HttpStatus.OK);
+    }
+
+    /**
+     * Handles POST requests to import Users from a newline-delimited JSON body, one User per line.
+     * The body is spooled and the request is answered with 202 Accepted; the import runs as a job that can be polled.
+     * The result of the job lists the lines that were rejected and why.
+     *
+     * @param body the body of the request
+     * @return a ResponseEntity containing a JobResponse with the queued job and its link as Location
+     */
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<JobResponse> importUsers(InputStream body) {
+        return accepted(userTransferService.importUsers(body));
+    }
+
+    /**
+     * Handles POST requests to import Users from a CSV body whose first line names the columns.
+     * The columns email, firstName, lastName and birthDate are required; address and phoneNumber are optional.
+     * The header is checked and the body is spooled, then the request is answered with 202 Accepted;
+     * the import runs as a job that can be polled. The result of the job is a CSV file of the rejected rows.
+     *
+     * @param body the body of the request
+     * @return a ResponseEntity containing a JobResponse with the queued job and its link as Location
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<JobResponse> importCsv(InputStream body) {
+        return accepted(userTransferService.importCsv(body));
+    }
+
+    /**
+     * Handles POST requests to export Users by a range of birth dates.
+     * The request is answered with 202 Accepted; the export runs as a job that can be polled,
+     * and its result is the newline-delimited JSON that GET /search/stream would return.
      *
      * @param from the start of the birth date range
      * @param to   the end of the birth date range
-     * @return a ResponseEntity containing a list of UserResponses with the found Users and the request URL
+     * @return a ResponseEntity containing a JobResponse with the queued job and its link as Location
      */
-    @GetMapping("/search")
-    public ResponseEntity<List<UserResponse>> findUsersByBirthDateRange(
+    @PostMapping("/export")
+    public ResponseEntity<JobResponse> exportUsers(
             @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
             @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to) {
-        List<User> users = userService.findUsersByBirthDateRange(from, to);
+        return accepted(userTransferService.exportUsers(from, to, getRequestUrl()));
+    }
+
+    /**
+     * Handles GET requests to count all Users per year of birth, month of birth or age.
+     * The counts are kept in memory and answered without the database unless source=database is requested.
+     *
+     * @param groupBy how the Users are grouped: year, month or age
+     * @param source where the counts are taken from: memory or database
+     * @return a ResponseEntity containing a UserStatsResponse with the non-empty groups in ascending order
+     * @throws UserValidationException if the grouping or the source is unknown
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<UserStatsResponse> countUsersByBirthDate(
+            @RequestParam(value = "groupBy", defaultValue = "year") String groupBy,
+            @RequestParam(value = "source", defaultValue = "memory") String source) {
+        StatsGroup group = StatsGroup.parse(groupBy);
+        if (!source.equals("memory") && !source.equals("database")) {
+            throw new UserValidationException(ErrorCode.INVALID_ARGUMENT, "source must be memory or database");
+        }
+        Map<String, Long> counts = userService.countUsersByBirthDate(group, source.equals("database"));
+        return new ResponseEntity<>(new UserStatsResponse(group.name().toLowerCase(Locale.ROOT), counts),
+                HttpStatus.OK);
+    }
+
+    /**
+     * Handles GET requests to poll a background job.
+     *
+     * @param id the ID of the job
+     * @return a ResponseEntity containing a JobResponse with the current state of the job
+     */
+    @GetMapping("jobs/{id}")
+    public ResponseEntity<JobResponse> findJob(@PathVariable UUID id) {
+        Job job = jobService.find(id);
+        return new ResponseEntity<>(new JobResponse(job, getRequestUrl()), HttpStatus.OK);
+    }
+
+    /**
+     * Handles GET requests to fetch the result of a background job that has succeeded.
+     *
+     * @param id the ID of the job
+     * @return a ResponseEntity containing the result file of the job, with the media type of the result
+     */
+    @GetMapping("jobs/{id}/result")
+    public ResponseEntity<Resource> findJobResult(@PathVariable UUID id) {
+        Job job = jobService.find(id);
+        Path result = jobService.findResult(job);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.getResultType()))
+                .body(new FileSystemResource(result));
+    }
+
+    /**
+     * Handles GET requests to find Users by a range of birth dates.
+     * The result is returned page by page; the "next" link of a full page points at the following page.
+     *
+     * @param from  the start of the birth date range
+     * @param to    the end of the birth date range
+     * @param after the opaque cursor of the last User of the previous page, or null for the first page
+     * @param limit the maximum number of Users in the page
+     * @return a ResponseEntity containing a UserPageResponse with the found Users and the page links
+     */
+    @GetMapping("/search")
+    public ResponseEntity<UserPageResponse> findUsersByBirthDateRange(
+            @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "${user.search.default-limit}") int limit) {
+        UserCursor cursor = after != null ? UserCursor.decode(after) : null;
+        List<User> users = userService.findUsersByBirthDateRange(from, to, cursor, limit);
         String requestUrl = getRequestUrl();
         List<UserResponse> responses = users.stream()
                 .map(user -> new UserResponse(user, requestUrl))
-                .collect(Collectors.toList());
-        return new ResponseEntity<>(responses, HttpStatus.OK);
+                .toList();
+        ServletUriComponentsBuilder currentRequest = ServletUriComponentsBuilder.fromCurrentRequest();
+        String selfLink = currentRequest.toUriString();
+        String nextLink = null;
+        if (!users.isEmpty() && users.size() == limit) {
+            String nextCursor = UserCursor.of(users.get(users.size() - 1)).encode();
+            nextLink = currentRequest.replaceQueryParam("after", nextCursor).toUriString();
+        }
+        return new ResponseEntity<>(new UserPageResponse(responses, selfLink, nextLink), HttpStatus.OK);
+    }
+
+    /**
+     * Handles GET requests to find Users by a part of their email, first name or last name.
+     * The result is ranked by relevance and returned page by page; the "next" link of a full page points
+     * at the following page.
+     *
+     * @param q      the text to be matched
+     * @param offset the number of matching Users to skip
+     * @param limit  the maximum number of Users in the page
+     * @return a ResponseEntity containing a UserPageResponse with the found Users and the page links
+     */
+    @GetMapping("/find")
+    public ResponseEntity<UserPageResponse> findUsersByText(
+            @RequestParam("q") String q,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "${user.search.default-limit}") int limit) {
+        List<User> users = userService.findUsersByText(q, offset, limit);
+        String requestUrl = getRequestUrl();
+        List<UserResponse> responses = users.stream()
+                .map(user -> new UserResponse(user, requestUrl))
+                .toList();
+        ServletUriComponentsBuilder currentRequest = ServletUriComponentsBuilder.fromCurrentRequest();
+        String selfLink = currentRequest.toUriString();
+        String nextLink = null;
+        if (!users.isEmpty() && users.size() == limit) {
+            nextLink = currentRequest.replaceQueryParam("offset", offset + limit).toUriString();
+        }
+        return new ResponseEntity<>(new UserPageResponse(responses, selfLink, nextLink), HttpStatus.OK);
+    }
+
+    /**
+     * Handles GET requests to export Users by a range of birth dates as newline-delimited JSON.
+     * The response is written while the Users are read from the database and flushed after every batch,
+     * so neither the result set nor the serialized body is held in memory.
+     * The range is checked before streaming starts, because errors can no longer be reported once it has.
+     *
+     * @param from the start of the birth date range
+     * @param to   the end of the birth date range
+     * @return a ResponseEntity containing a StreamingResponseBody that writes one UserResponse per line
+     * @throws UserValidationException if the 'from' date is after the 'to' date
+     */
+    @GetMapping(value = "/search/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsersByBirthDateRange(
+            @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam("to") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new UserValidationException(ErrorCode.INVALID_DATE_RANGE, "'From' date must be less than 'To' date");
+        }
+        String requestUrl = getRequestUrl();
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = userResponseWriter.createGenerator(outputStream)) {
+                userService.streamUsersByBirthDateRange(from, to, batch -> {
+                    try {
+                        for (User user : batch) {
+                            userResponseWriter.writeValue(generator, new UserResponse(user, requestUrl));
+                            generator.writeRaw('\n');
+                        }
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Creates the 202 Accepted response for a submitted job, linking to the resource that polls it.
+     *
+     * @param job the submitted Job
+     * @return a ResponseEntity containing a JobResponse with the queued job and its link as Location
+     */
+    private ResponseEntity<JobResponse> accepted(Job job) {
+        URI jobLink = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/v1/users/jobs/{id}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(jobLink).body(new JobResponse(job, jobLink.toString()));
     }
 
     /**
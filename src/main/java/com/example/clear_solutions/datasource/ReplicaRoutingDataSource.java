@@ -0,0 +1,304 @@
+package com.example.clear_solutions.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReplicaRoutingDataSource opens the connections of read-only transactions on read replicas of the database
+ * and every other connection on the primary.
+ * A transaction is read-only when the outermost @Transactional method it runs in is read-only, so the decision needs
+ * the transaction to have started before the connection is opened: this DataSource must be used through
+ * a LazyConnectionDataSourceProxy, which opens the connection on the first statement.
+ * Replicas are taken in turn. Every replica is checked in the background: one that cannot be queried is unavailable
+ * until a later check succeeds, and one whose replay lags behind the primary by more than the maximum lag is skipped
+ * until it catches up. A read-only transaction that finds no usable replica, or whose replica fails to open
+ * a connection, runs on the primary, and the failing replica is marked unavailable at once.
+ * Every decision is counted by the "user.datasource.routing" counter, tagged with the target and the reason;
+ * the lag and availability of every replica are published as the "user.datasource.replica.lag" and
+ * "user.datasource.replica.available" gauges.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    /**
+     * The statement that measures the replay lag of a replica in seconds. A replica that has replayed everything
+     * it received is up to date, however long ago the last transaction was, and a database that is not a standby
+     * has no lag. It is null if the replica has not replayed any transaction yet.
+     */
+    private static final String LAG_SQL = "select case when not pg_is_in_recovery() " +
+            "or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+    /**
+     * The DataSource of the primary.
+     */
+    private final DataSource primary;
+
+    /**
+     * The replicas, in the order they are taken in turn.
+     */
+    private final List<Replica> replicas;
+
+    /**
+     * The largest replay lag, in seconds, a replica may have to be used.
+     */
+    private final double maxLagSeconds;
+
+    /**
+     * How often the replicas are checked.
+     */
+    private final Duration checkInterval;
+
+    /**
+     * The number of read-only connections opened so far, which picks the next replica.
+     */
+    private final AtomicInteger turn = new AtomicInteger();
+
+    /**
+     * The connections opened on the primary outside of read-only transactions.
+     */
+    private final Counter readWrite;
+
+    /**
+     * The read-only connections opened on the primary because every available replica lagged too far behind.
+     */
+    private final Counter stale;
+
+    /**
+     * The read-only connections opened on the primary because no replica was available.
+     */
+    private final Counter unavailable;
+
+    /**
+     * The read-only connections opened on the primary because their replica failed to open one.
+     */
+    private final Counter failover;
+
+    /**
+     * The executor that checks the replicas, created when the checks start.
+     */
+    private ScheduledExecutorService checker;
+
+    /**
+     * Constructs a ReplicaRoutingDataSource with the specified primary, replicas, maximum lag and check interval.
+     * The replicas are unavailable until they are checked for the first time.
+     *
+     * @param primary the DataSource of the primary
+     * @param replicas the DataSources of the replicas by name, in the order they are taken in turn
+     * @param maxLag the largest replay lag a replica may have to be used
+     * @param checkInterval how often the replicas are checked, which is also the timeout of a check
+     * @param meterRegistry the MeterRegistry the routing decisions and the state of the replicas are published to
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag,
+                                    Duration checkInterval, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource, meterRegistry)));
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.checkInterval = checkInterval;
+        this.readWrite = routing(meterRegistry, "primary", "read-write");
+        this.stale = routing(meterRegistry, "primary", "stale");
+        this.unavailable = routing(meterRegistry, "primary", "unavailable");
+        this.failover = routing(meterRegistry, "primary", "failover");
+    }
+
+    /**
+     * Checks the replicas once and then every check interval in the background.
+     */
+    public void start() {
+        checkReplicas();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-check-");
+        threadFactory.setDaemon(true);
+        checker = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = checkInterval.toMillis();
+        checker.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the checks and closes the DataSources of the replicas that can be closed, such as their pools.
+     * A replica that fails to close is logged, so the others are closed all the same.
+     */
+    @Override
+    public void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    log.warn("Replica {} failed to close", replica.name, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens a connection on a replica if the current transaction is read-only and a replica is usable,
+     * otherwise on the primary.
+     *
+     * @return the connection
+     * @throws SQLException if the primary fails to open a connection
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readWrite.increment();
+            return primary.getConnection();
+        }
+        Replica replica = null;
+        boolean lagging = false;
+        int first = Math.floorMod(turn.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size() && replica == null; i++) {
+            Replica candidate = replicas.get((first + i) % replicas.size());
+            if (candidate.available) {
+                if (candidate.lagSeconds <= maxLagSeconds) {
+                    replica = candidate;
+                } else {
+                    lagging = true;
+                }
+            }
+        }
+        if (replica == null) {
+            (lagging ? stale : unavailable).increment();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replica.reads.increment();
+            return connection;
+        } catch (SQLException e) {
+            log.warn("Replica {} failed to open a connection; reading from the primary until it recovers",
+                    replica.name, e);
+            replica.available = false;
+            failover.increment();
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Connections are opened with the credentials of the DataSources, so other credentials are not supported.
+     *
+     * @param username the database user
+     * @param password the password of the user
+     * @return never
+     * @throws SQLFeatureNotSupportedException always
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connections are opened with the credentials of the DataSources");
+    }
+
+    /**
+     * Measures the lag of every replica and records whether it could be queried.
+     */
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(Math.toIntExact(Math.max(checkInterval.toSeconds(), 1)));
+                try (ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+                    resultSet.next();
+                    double lag = resultSet.getDouble(1);
+                    replica.lagSeconds = resultSet.wasNull() ? Double.POSITIVE_INFINITY : lag;
+                }
+                if (!replica.available) {
+                    log.info("Replica {} is available", replica.name);
+                    replica.available = true;
+                }
+            } catch (SQLException e) {
+                if (replica.available) {
+                    log.warn("Replica {} is unavailable; reading from the other replicas or the primary",
+                            replica.name, e);
+                    replica.available = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers the counter of one routing decision.
+     *
+     * @param meterRegistry the MeterRegistry the counter is registered with
+     * @param target the name of the database the connections are opened on
+     * @param reason why the connections are opened there
+     * @return the counter
+     */
+    private static Counter routing(MeterRegistry meterRegistry, String target, String reason) {
+        return meterRegistry.counter("user.datasource.routing", "target", target, "reason", reason);
+    }
+
+    /**
+     * Replica is a read replica and its state as of its last check.
+     */
+    private static final class Replica {
+
+        /**
+         * The name of the replica, used in logs and metrics.
+         */
+        private final String name;
+
+        /**
+         * The DataSource of the replica.
+         */
+        private final DataSource dataSource;
+
+        /**
+         * The read-only connections opened on the replica.
+         */
+        private final Counter reads;
+
+        /**
+         * Whether the replica could be queried, as of its last check or connection.
+         */
+        private volatile boolean available;
+
+        /**
+         * The replay lag of the replica in seconds as of its last check, infinite if it is unknown.
+         */
+        private volatile double lagSeconds = Double.POSITIVE_INFINITY;
+
+        /**
+         * Constructs a Replica with the specified name and DataSource and publishes its metrics.
+         *
+         * @param name the name of the replica
+         * @param dataSource the DataSource of the replica
+         * @param meterRegistry the MeterRegistry the metrics are registered with
+         */
+        private Replica(String name, DataSource dataSource, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.reads = routing(meterRegistry, name, "read-only");
+            Gauge.builder("user.datasource.replica.lag", this, replica -> replica.lagSeconds)
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("user.datasource.replica.available", this, replica -> replica.available ? 1 : 0)
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        }
+    }
+}
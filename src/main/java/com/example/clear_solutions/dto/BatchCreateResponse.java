@@ -0,0 +1,54 @@
+package com.example.clear_solutions.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * BatchCreateResponse is a DTO (Data Transfer Object) that represents the result of a batch create request.
+ * It contains one Item per submitted user, in the order the users were submitted.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class BatchCreateResponse {
+    /**
+     * A list of Item objects.
+     */
+    private List<Item> items;
+
+    /**
+     * Item is a static inner class that represents the outcome for a single submitted user.
+     * A created user carries its ID, a rejected user carries the reason it was rejected.
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @ToString
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Item {
+        /**
+         * The position of the user in the submitted array.
+         */
+        private int index;
+
+        /**
+         * The HTTP status code of the outcome.
+         */
+        private int status;
+
+        /**
+         * The ID of the created user.
+         */
+        private Long id;
+
+        /**
+         * The detail message of the rejection.
+         */
+        private String detail;
+    }
+}
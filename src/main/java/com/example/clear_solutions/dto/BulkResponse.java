@@ -0,0 +1,18 @@
+package com.example.clear_solutions.dto;
+
+import lombok.*;
+
+/**
+ * BulkResponse is a DTO (Data Transfer Object) that represents the result of a bulk update or delete.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class BulkResponse {
+    /**
+     * The number of Users that were updated or deleted.
+     */
+    private long affected;
+}
@@ -0,0 +1,25 @@
+package com.example.clear_solutions.dto;
+
+import com.example.clear_solutions.model.User;
+import lombok.*;
+
+/**
+ * BulkUpdateRequest is a DTO (Data Transfer Object) that represents a bulk update request.
+ * It contains the selection of the Users to be updated and the fields to be set on all of them.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class BulkUpdateRequest {
+    /**
+     * The selection of the Users to be updated.
+     */
+    private UserSelection selection;
+
+    /**
+     * A User object containing the fields to be set; null fields are left unchanged.
+     */
+    private User updates;
+}
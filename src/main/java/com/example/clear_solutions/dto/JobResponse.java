@@ -0,0 +1,99 @@
+package com.example.clear_solutions.dto;
+
+import com.example.clear_solutions.job.Job;
+import com.example.clear_solutions.job.JobStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * JobResponse is a DTO (Data Transfer Object) that represents the state of a background job.
+ * It contains a link to poll the job, its status, the number of items it has processed so far and the rate
+ * at which it processed them. Once a job that writes a result has succeeded, a link to fetch the result is added.
+ */
+@Getter
+@Setter
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobResponse {
+    /**
+     * A map of links related to the job.
+     */
+    private Map<String, String> links;
+
+    /**
+     * The ID of the job.
+     */
+    private UUID id;
+
+    /**
+     * The type of the job.
+     */
+    private String type;
+
+    /**
+     * The status of the job.
+     */
+    private JobStatus status;
+
+    /**
+     * The number of items processed so far.
+     */
+    private long processed;
+
+    /**
+     * The reason the job failed, or null if it did not.
+     */
+    private String detail;
+
+    /**
+     * The time the job was submitted.
+     */
+    private Instant submittedAt;
+
+    /**
+     * The time the job started running, or null if it is still queued.
+     */
+    private Instant startedAt;
+
+    /**
+     * The time the job finished, or null if it has not finished yet.
+     */
+    private Instant finishedAt;
+
+    /**
+     * The number of items processed per second while the job ran, or null if it has not started yet.
+     */
+    private Double itemsPerSecond;
+
+    /**
+     * Constructs a JobResponse with the current state of the specified Job.
+     *
+     * @param job the Job to be included in the response
+     * @param selfLink the link to poll the job
+     */
+    public JobResponse(Job job, String selfLink) {
+        this.links = job.hasResult()
+                ? Map.of("self", selfLink, "result", selfLink + "/result")
+                : Map.of("self", selfLink);
+        this.id = job.getId();
+        this.type = job.getType();
+        this.status = job.getStatus();
+        this.processed = job.getProcessed();
+        this.detail = job.getDetail();
+        this.submittedAt = job.getSubmittedAt();
+        this.startedAt = job.getStartedAt();
+        this.finishedAt = job.getFinishedAt();
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Math.max(Duration.between(startedAt, end).toMillis(), 1) / 1000.0;
+            this.itemsPerSecond = processed / seconds;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.clear_solutions.dto;
+
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * UserCursor is a DTO (Data Transfer Object) that represents a position in a birth date range search.
+ * It holds the (birthdate, ID) key of the last User of a page and is exchanged with clients as an opaque token.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class UserCursor {
+    /**
+     * The birthdate of the last User of the page.
+     */
+    private LocalDate birthDate;
+
+    /**
+     * The ID of the last User of the page.
+     */
+    private Long id;
+
+    /**
+     * Creates a UserCursor pointing at the specified User.
+     *
+     * @param user the User the cursor points at
+     * @return a UserCursor with the birthdate and ID of the User
+     */
+    public static UserCursor of(User user) {
+        return new UserCursor(user.getBirthDate(), user.getId());
+    }
+
+    /**
+     * Encodes the cursor as an opaque URL-safe token.
+     *
+     * @return the encoded token
+     */
+    public String encode() {
+        String key = birthDate + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token created by {@link #encode()}.
+     *
+     * @param token the token to be decoded
+     * @return the decoded UserCursor
+     * @throws UserValidationException if the token is not a valid cursor
+     */
+    public static UserCursor decode(String token) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = key.indexOf(':');
+            return new UserCursor(LocalDate.parse(key.substring(0, separator)), Long.valueOf(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new UserValidationException(ErrorCode.INVALID_CURSOR, "Invalid 'after' cursor");
+        }
+    }
+}
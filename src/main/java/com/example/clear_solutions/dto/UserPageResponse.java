@@ -0,0 +1,44 @@
+package com.example.clear_solutions.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UserPageResponse is a DTO (Data Transfer Object) that represents one page of a user search.
+ * It contains links to the current and the next page and the UserResponses of the page.
+ */
+@Getter
+@Setter
+public class UserPageResponse {
+    /**
+     * A map of links related to the page.
+     * The "next" link is only present if there may be more Users after this page.
+     */
+    private Map<String, String> links;
+
+    /**
+     * The UserResponses of the page.
+     */
+    private List<UserResponse> data;
+
+    /**
+     * Constructs a UserPageResponse with the specified UserResponses and links.
+     *
+     * @param data the UserResponses of the page
+     * @param selfLink the self link to be included in the response
+     * @param nextLink the link to the next page, or null if this is the last page
+     */
+    public UserPageResponse(List<UserResponse> data, String selfLink, String nextLink) {
+        links = new HashMap<>();
+        links.put("self", selfLink);
+        if (nextLink != null) {
+            links.put("next", nextLink);
+        }
+
+        this.data = data;
+    }
+}
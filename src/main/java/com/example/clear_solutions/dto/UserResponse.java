@@ -1,56 +1,196 @@
 package com.example.clear_solutions.dto;
 
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserConflictException;
 import com.example.clear_solutions.model.User;
-import lombok.Getter;
-import lombok.Setter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.time.LocalDate;
 
 /**
  * UserResponse is a DTO (Data Transfer Object) that represents a user response.
- * It contains links related to the user and data about the user.
+ * It contains the self link of the user and data about the user, written in the JSON:API shape
+ * {"links":{"self":...},"data":{"attributes":{...},"id":...,"type":"user"}} by its Serializer.
+ * The version of the user is not part of the body; it is exposed as the ETag of the response instead.
+ *
+ * @param selfLink the self link to be included in the response
+ * @param id the ID of the user, or null if it has none
+ * @param version the version of the user, or null if it has none
+ * @param attributes the attributes of the user, or null if there is no user
  */
-@Getter
-@Setter
-public class UserResponse {
+@JsonSerialize(using = UserResponse.Serializer.class)
+public record UserResponse(String selfLink, Long id, Long version, Attributes attributes) {
+
     /**
-     * A map of links related to the user.
+     * Constructs a UserResponse with the specified User and self link.
+     *
+     * @param user the User to be included in the response
+     * @param selfLink the self link to be included in the response
      */
-    private Map<String, String> links;
+    public UserResponse(User user, String selfLink) {
+        this(selfLink, user == null ? null : user.getId(), user == null ? null : user.getVersion(),
+                user == null ? null : new Attributes(user));
+    }
 
     /**
-     * A map of data about the user.
+     * Returns the strong ETag of the user, which is its quoted version.
+     *
+     * @return the ETag of the user, or null if it has no version
      */
-    private Map<String, Object> data;
+    public String eTag() {
+        return version == null ? null : "\"" + version + "\"";
+    }
 
     /**
-     * Constructs a UserResponse with the specified User and self link.
+     * Returns the version an If-Match header requires.
+     * The header must hold a single strong ETag as returned by {@link #eTag()}, or "*" to match any version.
      *
-     * @param user the User to be included in the response
-     * @param selfLink the self link to be included in the response
+     * @param ifMatch the value of the If-Match header, or null if there is none
+     * @return the required version, or null if any version matches
+     * @throws UserConflictException if the header does not hold an ETag of this API, so it cannot match
      */
-    public UserResponse(User user, String selfLink) {
-        links = new HashMap<>();
-        links.put("self", selfLink);
-
-        data = new HashMap<>();
-        data.put("type", "user");
-        if (user != null) {
-            data.put("id", user.getId());
-            Map<String, Object> attributes = new HashMap<>();
-            attributes.put("email", user.getEmail());
-            attributes.put("firstName", user.getFirstName());
-            attributes.put("lastName", user.getLastName());
-            attributes.put("birthDate", user.getBirthDate());
-            if (user.getAddress() != null) {
-                attributes.put("address", user.getAddress());
+    public static Long versionOf(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.equals("*")) {
+            return null;
+        }
+        String version = eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")
+                ? eTag.substring(1, eTag.length() - 1) : "";
+        if (!version.isEmpty() && version.length() <= 18 && version.chars().allMatch(Character::isDigit)) {
+            return Long.valueOf(version);
+        }
+        throw new UserConflictException(ErrorCode.VERSION_MISMATCH,
+                "If-Match does not match the current version of the User");
+    }
+
+    /**
+     * Attributes represents the attributes of a user.
+     * The address and the phone number are only written when present.
+     *
+     * @param email the email of the user
+     * @param firstName the first name of the user
+     * @param lastName the last name of the user
+     * @param birthDate the birth date of the user
+     * @param address the address of the user, or null if it has none
+     * @param phoneNumber the phone number of the user, or null if it has none
+     */
+    public record Attributes(String email, String firstName, String lastName, LocalDate birthDate,
+                             String address, String phoneNumber) {
+
+        /**
+         * Constructs Attributes with the fields of the specified User.
+         *
+         * @param user the User whose fields are to be included
+         */
+        public Attributes(User user) {
+            this(user.getEmail(), user.getFirstName(), user.getLastName(), user.getBirthDate(),
+                    user.getAddress(), user.getPhoneNumber());
+        }
+    }
+
+    /**
+     * Serializer writes a UserResponse straight to the JsonGenerator, without building intermediate maps.
+     * Fields are written in the order the former map-based response produced them, so the output is unchanged.
+     */
+    public static class Serializer extends StdSerializer<UserResponse> {
+
+        /**
+         * Constructs a Serializer for UserResponses.
+         */
+        public Serializer() {
+            super(UserResponse.class);
+        }
+
+        /**
+         * Writes the specified UserResponse.
+         *
+         * @param response the UserResponse to be written
+         * @param generator the JsonGenerator to write to
+         * @param provider the SerializerProvider to look up the birth date serializer from
+         */
+        @Override
+        public void serialize(UserResponse response, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("links");
+            generator.writeStringField("self", response.selfLink());
+            generator.writeEndObject();
+
+            generator.writeObjectFieldStart("data");
+            Attributes attributes = response.attributes();
+            if (attributes != null) {
+                generator.writeObjectFieldStart("attributes");
+                generator.writeStringField("firstName", attributes.firstName());
+                generator.writeStringField("lastName", attributes.lastName());
+                if (attributes.address() != null) {
+                    generator.writeStringField("address", attributes.address());
+                }
+                if (attributes.phoneNumber() != null) {
+                    generator.writeStringField("phoneNumber", attributes.phoneNumber());
+                }
+                generator.writeFieldName("birthDate");
+                writeDate(attributes.birthDate(), generator, provider);
+                generator.writeStringField("email", attributes.email());
+                generator.writeEndObject();
+
+                generator.writeFieldName("id");
+                if (response.id() != null) {
+                    generator.writeNumber(response.id());
+                } else {
+                    generator.writeNull();
+                }
             }
-            if (user.getPhoneNumber() != null) {
-                attributes.put("phoneNumber", user.getPhoneNumber());
+            generator.writeStringField("type", "user");
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+
+        /**
+         * Writes the specified date.
+         * ISO dates of four-digit years are written digit by digit instead of through a formatted String;
+         * everything else is left to the configured serializer for LocalDate, so date formatting follows the ObjectMapper.
+         *
+         * @param date the date to be written, or null
+         * @param generator the JsonGenerator to write to
+         * @param provider the SerializerProvider to look up the date serializer from
+         */
+        private static void writeDate(LocalDate date, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            if (date == null || provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    || date.getYear() < 0 || date.getYear() > 9999) {
+                provider.defaultSerializeValue(date, generator);
+                return;
             }
+            char[] text = new char[10];
+            writeDigits(text, 0, date.getYear(), 4);
+            text[4] = '-';
+            writeDigits(text, 5, date.getMonthValue(), 2);
+            text[7] = '-';
+            writeDigits(text, 8, date.getDayOfMonth(), 2);
+            generator.writeString(text, 0, text.length);
+        }
 
-            data.put("attributes", attributes);
+        /**
+         * Writes the specified number as a fixed count of decimal digits, padded with leading zeros.
+         *
+         * @param text the characters to write to
+         * @param offset the index of the first digit
+         * @param value the non-negative number to be written
+         * @param digits the number of digits to write
+         */
+        private static void writeDigits(char[] text, int offset, int value, int digits) {
+            for (int i = offset + digits - 1; i >= offset; i--) {
+                text[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.example.clear_solutions.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * UserSelection is a DTO (Data Transfer Object) that selects the Users of a bulk request.
+ * Users are selected either by a list of IDs or by a range of birth dates, never both.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class UserSelection {
+    /**
+     * The IDs of the selected Users, or null if Users are selected by birth date.
+     */
+    private List<Long> ids;
+
+    /**
+     * The start of the birth date range of the selected Users, or null if Users are selected by ID.
+     */
+    private LocalDate from;
+
+    /**
+     * The end of the birth date range of the selected Users, or null if Users are selected by ID.
+     */
+    private LocalDate to;
+}
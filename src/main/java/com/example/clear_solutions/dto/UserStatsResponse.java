@@ -0,0 +1,66 @@
+package com.example.clear_solutions.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UserStatsResponse is a DTO (Data Transfer Object) that represents the number of Users per birth date group.
+ * It contains the grouping, the total number of Users counted and the non-empty groups in ascending order.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class UserStatsResponse {
+    /**
+     * How the Users are grouped: year, month or age.
+     */
+    private String groupBy;
+
+    /**
+     * The number of Users in all groups.
+     */
+    private long total;
+
+    /**
+     * The non-empty groups in ascending order.
+     */
+    private List<Group> groups;
+
+    /**
+     * Constructs a UserStatsResponse from the number of Users per group key.
+     *
+     * @param groupBy how the Users are grouped
+     * @param counts the number of Users per group key, in ascending order of the groups
+     */
+    public UserStatsResponse(String groupBy, Map<String, Long> counts) {
+        this.groupBy = groupBy;
+        this.total = counts.values().stream().mapToLong(Long::longValue).sum();
+        this.groups = counts.entrySet().stream()
+                .map(count -> new Group(count.getKey(), count.getValue()))
+                .toList();
+    }
+
+    /**
+     * Group is a static inner class that represents the number of Users in one group.
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @ToString
+    public static class Group {
+        /**
+         * The key of the group, such as "1990" for a year, "1990-05" for a month or "18" for an age.
+         */
+        private String key;
+
+        /**
+         * The number of Users in the group.
+         */
+        private long users;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.clear_solutions.exception;
+
+import io.r2dbc.spi.R2dbcException;
+
+import java.sql.SQLException;
+
+/**
+ * DataConflict enumerates the ways a write of Users can be refused by the database, each with a fixed message.
+ * The messages of the database name constraints and repeat the refused values, so they are never shown to clients;
+ * the conflict is recognised by the SQLState of the JDBC or R2DBC exception that caused it.
+ */
+public enum DataConflict {
+
+    /**
+     * Another User already has the email; the unique index on the email was violated.
+     */
+    DUPLICATE_EMAIL("23505", "A user with this email already exists"),
+
+    /**
+     * A column that requires a value was written without one.
+     */
+    MISSING_VALUE("23502", "A required field is missing"),
+
+    /**
+     * A value is longer than its column allows.
+     */
+    VALUE_TOO_LONG("22001", "A field is longer than allowed"),
+
+    /**
+     * Any other refusal of the database.
+     */
+    OTHER(null, "The user conflicts with the stored users");
+
+    /**
+     * The SQLState the database reports this conflict with, or null for any other.
+     */
+    private final String sqlState;
+
+    /**
+     * The message written to responses and reject reasons.
+     */
+    private final String message;
+
+    /**
+     * Constructs a DataConflict with the specified SQLState and message.
+     *
+     * @param sqlState the SQLState the database reports this conflict with, or null for any other
+     * @param message the message written to responses and reject reasons
+     */
+    DataConflict(String sqlState, String message) {
+        this.sqlState = sqlState;
+        this.message = message;
+    }
+
+    /**
+     * Finds the conflict that caused an exception, from the SQLState of the first JDBC or R2DBC exception
+     * in its chain of causes.
+     *
+     * @param e the exception thrown by a write
+     * @return the DataConflict, OTHER if no cause carries a known SQLState
+     */
+    public static DataConflict of(Throwable e) {
+        for (Throwable cause = e; cause != null && cause.getCause() != cause; cause = cause.getCause()) {
+            String state = cause instanceof SQLException sqlException ? sqlException.getSQLState()
+                    : cause instanceof R2dbcException r2dbcException ? r2dbcException.getSqlState() : null;
+            if (state != null) {
+                for (DataConflict conflict : values()) {
+                    if (state.equals(conflict.sqlState)) {
+                        return conflict;
+                    }
+                }
+                return OTHER;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Returns the message written to responses and reject reasons.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+}
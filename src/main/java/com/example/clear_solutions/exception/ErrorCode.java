@@ -0,0 +1,134 @@
+package com.example.clear_solutions.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * ErrorCode enumerates the stable, application-specific codes of error responses.
+ * Every code belongs to one HTTP status; codes are never reused once published.
+ */
+public enum ErrorCode {
+
+    /**
+     * A request parameter or body is invalid in a way no more specific code describes.
+     */
+    INVALID_ARGUMENT(1000, HttpStatus.BAD_REQUEST),
+
+    /**
+     * The User is younger than the minimum age.
+     */
+    USER_TOO_YOUNG(1001, HttpStatus.BAD_REQUEST),
+
+    /**
+     * The start of a birth date range is after its end.
+     */
+    INVALID_DATE_RANGE(1002, HttpStatus.BAD_REQUEST),
+
+    /**
+     * The requested page size is out of bounds.
+     */
+    INVALID_LIMIT(1003, HttpStatus.BAD_REQUEST),
+
+    /**
+     * The 'after' cursor is not a valid cursor.
+     */
+    INVALID_CURSOR(1004, HttpStatus.BAD_REQUEST),
+
+    /**
+     * A batch contains more Users than allowed.
+     */
+    BATCH_TOO_LARGE(1005, HttpStatus.BAD_REQUEST),
+
+    /**
+     * A full update does not contain all required fields.
+     */
+    MISSING_FIELDS(1006, HttpStatus.BAD_REQUEST),
+
+    /**
+     * A field of an update violates its constraints, such as a malformed email.
+     */
+    INVALID_FIELD(1007, HttpStatus.BAD_REQUEST),
+
+    /**
+     * A bulk request does not select Users by exactly one of an ID list or a birth date range.
+     */
+    INVALID_SELECTION(1008, HttpStatus.BAD_REQUEST),
+
+    /**
+     * The header of an imported CSV file does not name the required columns.
+     */
+    INVALID_CSV_HEADER(1009, HttpStatus.BAD_REQUEST),
+
+    /**
+     * There is no User with the requested ID.
+     */
+    USER_NOT_FOUND(2001, HttpStatus.NOT_FOUND),
+
+    /**
+     * There is no job with the requested ID, or it finished too long ago to be kept.
+     */
+    JOB_NOT_FOUND(2002, HttpStatus.NOT_FOUND),
+
+    /**
+     * The request conflicts with the stored data, such as a second User with the same email.
+     */
+    DATA_CONFLICT(3001, HttpStatus.CONFLICT),
+
+    /**
+     * The If-Match header of a request does not match the current version of the User.
+     */
+    VERSION_MISMATCH(3002, HttpStatus.PRECONDITION_FAILED),
+
+    /**
+     * The result of a job was requested before the job succeeded, or the job produces no result.
+     */
+    JOB_RESULT_UNAVAILABLE(3003, HttpStatus.CONFLICT),
+
+    /**
+     * An unexpected error occurred.
+     */
+    INTERNAL_ERROR(5000, HttpStatus.INTERNAL_SERVER_ERROR),
+
+    /**
+     * The job queue is full; the request may be retried later.
+     */
+    JOBS_BUSY(5001, HttpStatus.SERVICE_UNAVAILABLE);
+
+    /**
+     * The code written to error responses.
+     */
+    private final int code;
+
+    /**
+     * The HTTP status of error responses with this code.
+     */
+    private final HttpStatus status;
+
+    /**
+     * Constructs an ErrorCode with the specified code and HTTP status.
+     *
+     * @param code the code written to error responses
+     * @param status the HTTP status of error responses with this code
+     */
+    ErrorCode(int code, HttpStatus status) {
+        this.code = code;
+        this.status = status;
+    }
+
+    /**
+     * Returns the code written to error responses.
+     *
+     * @return the code
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the HTTP status of error responses with this code.
+     *
+     * @return the HTTP status
+     */
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
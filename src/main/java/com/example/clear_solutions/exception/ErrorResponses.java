@@ -0,0 +1,88 @@
+package com.example.clear_solutions.exception;
+
+import com.example.clear_solutions.dto.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * ErrorResponses turns the exceptions of the user API into error responses, for the servlet and the reactive stack.
+ * Every error response carries the stable code of its ErrorCode and is counted as "user.errors",
+ * tagged with its status and code.
+ */
+@Slf4j
+public class ErrorResponses {
+
+    /**
+     * The counters of error responses by ErrorCode, registered up front so that counting an error is a plain increment.
+     */
+    private final Map<ErrorCode, Counter> errorCounters = new EnumMap<>(ErrorCode.class);
+
+    /**
+     * Constructs an ErrorResponses with the specified MeterRegistry.
+     *
+     * @param meterRegistry the MeterRegistry the error responses are counted with
+     */
+    public ErrorResponses(MeterRegistry meterRegistry) {
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            errorCounters.put(errorCode, Counter.builder("user.errors")
+                    .description("Error responses of the user API")
+                    .tag("status", String.valueOf(errorCode.getStatus().value()))
+                    .tag("code", String.valueOf(errorCode.getCode()))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Creates the error response of an exception.
+     * UserExceptions carry their ErrorCode; IllegalArgumentExceptions are invalid arguments,
+     * DataIntegrityViolationExceptions conflicts answered with the fixed message of their DataConflict,
+     * since the database's message names constraints and repeats the refused values; the cause is logged instead.
+     * RejectedExecutionExceptions are a full job queue. Any other exception is an internal error.
+     *
+     * @param e the exception to be answered
+     * @param url the URL of the request that failed
+     * @return a ResponseEntity containing an ErrorResponse with details about the exception
+     */
+    public ResponseEntity<ErrorResponse> of(RuntimeException e, String url) {
+        if (e instanceof UserException userException) {
+            return create(userException.getErrorCode(), e.getMessage(), url);
+        }
+        if (e instanceof IllegalArgumentException) {
+            return create(ErrorCode.INVALID_ARGUMENT, e.getMessage(), url);
+        }
+        if (e instanceof DataIntegrityViolationException dataIntegrityViolation) {
+            log.warn("Data conflict at {}: {}", url, dataIntegrityViolation.getMostSpecificCause().getMessage());
+            return create(ErrorCode.DATA_CONFLICT, DataConflict.of(dataIntegrityViolation).getMessage(), url);
+        }
+        if (e instanceof RejectedExecutionException) {
+            return create(ErrorCode.JOBS_BUSY, "Too many jobs are queued; retry later", url);
+        }
+        return create(ErrorCode.INTERNAL_ERROR, e.getMessage(), url);
+    }
+
+    /**
+     * Creates an ErrorResponse for the specified ErrorCode and detail message.
+     * Only the detail message and the request URL vary; the status and code are taken from the ErrorCode,
+     * so the stack trace of the exception is never needed.
+     *
+     * @param errorCode the ErrorCode whose status and code are to be included in the ErrorResponse
+     * @param detail the detail message to be included in the ErrorResponse
+     * @param url the URL of the request that failed
+     * @return a ResponseEntity containing the ErrorResponse
+     */
+    public ResponseEntity<ErrorResponse> create(ErrorCode errorCode, String detail, String url) {
+        errorCounters.get(errorCode).increment();
+        int status = errorCode.getStatus().value();
+        ErrorResponse.Error error = new ErrorResponse.Error(status, detail, errorCode.getCode(), Map.of("about", url));
+
+        return ResponseEntity.status(status).body(new ErrorResponse(List.of(error)));
+    }
+}
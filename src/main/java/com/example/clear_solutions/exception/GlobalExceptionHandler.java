@@ -1,22 +1,54 @@
 package com.example.clear_solutions.exception;
 
 import com.example.clear_solutions.dto.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * GlobalExceptionHandler is a controller advice that handles exceptions globally across the whole application.
- * It provides centralized exception handling across all @RequestMapping methods.
+ * It provides centralized exception handling across all @RequestMapping methods of the servlet stack;
+ * the reactive profile uses the ReactiveExceptionHandler instead.
+ * The error responses are created by ErrorResponses, which carries the stable code of every ErrorCode
+ * and counts the responses as "user.errors", tagged with their status and code.
  */
 @ControllerAdvice
+@Profile("!reactive")
 public class GlobalExceptionHandler {
 
+    /**
+     * The ErrorResponses that create and count the error responses.
+     */
+    private final ErrorResponses errorResponses;
+
+    /**
+     * Constructs a GlobalExceptionHandler with the specified MeterRegistry.
+     *
+     * @param meterRegistry the MeterRegistry the error responses are counted with
+     */
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.errorResponses = new ErrorResponses(meterRegistry);
+    }
+
+    /**
+     * Handles UserExceptions, the expected errors of the user API.
+     * The status and code of the response are those of the exception's ErrorCode.
+     *
+     * @param e the UserException to be handled
+     * @return a ResponseEntity containing an ErrorResponse with details about the exception
+     */
+    @ExceptionHandler(UserException.class)
+    public ResponseEntity<ErrorResponse> handleUserException(UserException e) {
+        return errorResponses.of(e, getRequestUrl());
+    }
+
     /**
      * Handles IllegalArgumentExceptions.
      *
@@ -25,7 +57,30 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException e) {
-        return createErrorResponse(e, 400);
+        return errorResponses.of(e, getRequestUrl());
+    }
+
+    /**
+     * Handles DataIntegrityViolationExceptions, such as a second User with the same email.
+     * The detail is the fixed message of the DataConflict it maps to; the database's message is only logged.
+     *
+     * @param e the DataIntegrityViolationException to be handled
+     * @return a ResponseEntity containing an ErrorResponse with details about the exception
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        return errorResponses.of(e, getRequestUrl());
+    }
+
+    /**
+     * Handles RejectedExecutionExceptions, which are thrown when the job queue is full.
+     *
+     * @param e the RejectedExecutionException to be handled
+     * @return a ResponseEntity containing an ErrorResponse with details about the exception
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponse> handleRejectedExecutionException(RejectedExecutionException e) {
+        return errorResponses.of(e, getRequestUrl());
     }
 
     /**
@@ -36,29 +91,17 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException e) {
-        return createErrorResponse(e, 500);
+        return errorResponses.of(e, getRequestUrl());
     }
 
     /**
-     * Creates an ErrorResponse for the specified Exception and status.
+     * Gets the URL of the current request.
      *
-     * @param e the Exception to be included in the ErrorResponse
-     * @param status the status to be included in the ErrorResponse
-     * @return a ResponseEntity containing the ErrorResponse
+     * @return the URL of the current request
      */
-    private ResponseEntity<ErrorResponse> createErrorResponse(Exception e, int status) {
+    private String getRequestUrl() {
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         assert attributes != null;
-        String url = attributes.getRequest().getRequestURL().toString();
-        ErrorResponse.Error error = new ErrorResponse.Error();
-        error.setStatus(status);
-        error.setDetail(e.getMessage());
-        error.setCode(e.getStackTrace()[0].getLineNumber());
-        error.setLinks(Map.of("about", url));
-
-        ErrorResponse errorResponse = new ErrorResponse();
-        errorResponse.setErrors(List.of(error));
-
-        return ResponseEntity.status(status).body(errorResponse);
+        return attributes.getRequest().getRequestURL().toString();
     }
-}
\ No newline at end of file
+}
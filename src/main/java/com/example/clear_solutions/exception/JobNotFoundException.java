@@ -0,0 +1,14 @@
+package com.example.clear_solutions.exception;
+
+/**
+ * JobNotFoundException is thrown when there is no job with the requested ID.
+ */
+public class JobNotFoundException extends UserException {
+
+    /**
+     * Constructs a JobNotFoundException.
+     */
+    public JobNotFoundException() {
+        super(ErrorCode.JOB_NOT_FOUND, "Job not found");
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.clear_solutions.exception;
+
+import com.example.clear_solutions.dto.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * ReactiveExceptionHandler is the controller advice of the reactive profile.
+ * It answers the exceptions of the WebFlux controllers with the error responses of GlobalExceptionHandler,
+ * created and counted by the same ErrorResponses, so a client cannot tell the two stacks apart by their errors.
+ */
+@ControllerAdvice
+@Profile("reactive")
+public class ReactiveExceptionHandler {
+
+    /**
+     * The ErrorResponses that create and count the error responses.
+     */
+    private final ErrorResponses errorResponses;
+
+    /**
+     * Constructs a ReactiveExceptionHandler with the specified MeterRegistry.
+     *
+     * @param meterRegistry the MeterRegistry the error responses are counted with
+     */
+    public ReactiveExceptionHandler(MeterRegistry meterRegistry) {
+        this.errorResponses = new ErrorResponses(meterRegistry);
+    }
+
+    /**
+     * Handles ServerWebInputExceptions, which are thrown when a parameter or the body of a request
+     * cannot be read, as invalid arguments.
+     *
+     * @param e the ServerWebInputException to be handled
+     * @param request the request that failed
+     * @return a ResponseEntity containing an ErrorResponse with details about the exception
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorResponse> handleServerWebInputException(ServerWebInputException e,
+                                                                       ServerHttpRequest request) {
+        return errorResponses.create(ErrorCode.INVALID_ARGUMENT, e.getReason(), getRequestUrl(request));
+    }
+
+    /**
+     * Handles the other ResponseStatusExceptions of WebFlux, such as an unsupported media type,
+     * with their status and no body, as the servlet stack answers them.
+     *
+     * @param e the ResponseStatusException to be handled
+     * @return a ResponseEntity with the status of the exception
+     */
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorResponse> handleResponseStatusException(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatusCode()).headers(e.getHeaders()).build();
+    }
+
+    /**
+     * Handles RuntimeExceptions, including UserExceptions, IllegalArgumentExceptions, DataIntegrityViolationExceptions
+     * and RejectedExecutionExceptions, which ErrorResponses tells apart.
+     *
+     * @param e the RuntimeException to be handled
+     * @param request the request that failed
+     * @return a ResponseEntity containing an ErrorResponse with details about the exception
+     */
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException e, ServerHttpRequest request) {
+        return errorResponses.of(e, getRequestUrl(request));
+    }
+
+    /**
+     * Gets the URL of a request without its query, as the servlet stack reports it.
+     *
+     * @param request the request
+     * @return the URL of the request
+     */
+    private static String getRequestUrl(ServerHttpRequest request) {
+        return UriComponentsBuilder.fromUri(request.getURI()).replaceQuery(null).build().toUriString();
+    }
+}
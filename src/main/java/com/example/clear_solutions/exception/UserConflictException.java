@@ -0,0 +1,17 @@
+package com.example.clear_solutions.exception;
+
+/**
+ * UserConflictException is thrown when a request conflicts with the stored Users.
+ */
+public class UserConflictException extends UserException {
+
+    /**
+     * Constructs a UserConflictException with the specified ErrorCode and detail message.
+     *
+     * @param errorCode the ErrorCode of the error response
+     * @param message the detail message
+     */
+    public UserConflictException(ErrorCode errorCode, String message) {
+        super(errorCode, message);
+    }
+}
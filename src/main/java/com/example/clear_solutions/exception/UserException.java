@@ -0,0 +1,34 @@
+package com.example.clear_solutions.exception;
+
+/**
+ * UserException is the base class of the expected errors of the user API.
+ * It carries the ErrorCode of the error response and does not capture a stack trace:
+ * these errors are caused by the request rather than by a bug, and are answered without one.
+ */
+public abstract class UserException extends RuntimeException {
+
+    /**
+     * The ErrorCode of the error response.
+     */
+    private final ErrorCode errorCode;
+
+    /**
+     * Constructs a UserException with the specified ErrorCode and detail message.
+     *
+     * @param errorCode the ErrorCode of the error response
+     * @param message the detail message
+     */
+    protected UserException(ErrorCode errorCode, String message) {
+        super(message, null, false, false);
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Returns the ErrorCode of the error response.
+     *
+     * @return the ErrorCode
+     */
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+}
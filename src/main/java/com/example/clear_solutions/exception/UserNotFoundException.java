@@ -0,0 +1,14 @@
+package com.example.clear_solutions.exception;
+
+/**
+ * UserNotFoundException is thrown when there is no User with the requested ID.
+ */
+public class UserNotFoundException extends UserException {
+
+    /**
+     * Constructs a UserNotFoundException.
+     */
+    public UserNotFoundException() {
+        super(ErrorCode.USER_NOT_FOUND, "User not found");
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.clear_solutions.exception;
+
+/**
+ * UserValidationException is thrown when a request is invalid, such as an under-age User or an inverted date range.
+ */
+public class UserValidationException extends UserException {
+
+    /**
+     * Constructs a UserValidationException with the specified ErrorCode and detail message.
+     *
+     * @param errorCode the ErrorCode of the error response
+     * @param message the detail message
+     */
+    public UserValidationException(ErrorCode errorCode, String message) {
+        super(errorCode, message);
+    }
+}
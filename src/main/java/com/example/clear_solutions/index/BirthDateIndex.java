@@ -0,0 +1,398 @@
+package com.example.clear_solutions.index;
+
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.repository.UserRepository.BirthDateKey;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BirthDateIndex is an optional in-process index of all Users by (birth date, ID), the order of birth date range searches.
+ * The keys are held in two sorted primitive arrays, epoch days and IDs, so a page of a search is resolved to IDs
+ * by a binary search without the database, at 12 bytes per User.
+ * Writes do not shift the arrays: created keys are kept in a small sorted set and removed keys are marked in a BitSet,
+ * and both are merged into new arrays once they outgrow a fraction of them, which briefly needs twice the memory.
+ * Searches share a read lock and writes take a write lock.
+ * The index is loaded in chunks from the (birth_date, id) index of the database when the application starts,
+ * if "user.birth-date-index.enabled" is true, and kept up to date by every write of this application.
+ * Writes made to the database by other means are not seen. A disabled index ignores all writes.
+ * The number of indexed Users is published as the "user.index.users" gauge.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class BirthDateIndex {
+
+    /**
+     * The number of keys read from the database per query while loading.
+     */
+    private static final int LOAD_CHUNK_SIZE = 100_000;
+
+    /**
+     * The number of pending writes below which the arrays are never rebuilt.
+     */
+    private static final int MIN_MERGE_SIZE = 4096;
+
+    /**
+     * The arrays are rebuilt once the pending writes exceed their length divided by this ratio.
+     */
+    private static final int MERGE_RATIO = 32;
+
+    /**
+     * The UserRepository the keys are loaded from.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Whether the index is loaded and kept up to date.
+     */
+    private final boolean enabled;
+
+    /**
+     * The lock that lets searches run together and writes alone.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The birth dates of the merged keys as epoch days, in (birth date, ID) order.
+     */
+    private int[] days = new int[0];
+
+    /**
+     * The IDs of the merged keys, in (birth date, ID) order.
+     */
+    private long[] ids = new long[0];
+
+    /**
+     * The positions of the merged keys that were removed since the last merge.
+     */
+    private BitSet removed = new BitSet();
+
+    /**
+     * The number of set bits of removed.
+     */
+    private int removedCount;
+
+    /**
+     * The keys that were added since the last merge.
+     */
+    private final TreeSet<Key> added = new TreeSet<>();
+
+    /**
+     * Constructs a BirthDateIndex with the specified UserRepository.
+     *
+     * @param userRepository the UserRepository to be used
+     * @param enabled whether the index is loaded and kept up to date
+     * @param meterRegistry the MeterRegistry the size of the index is published to
+     */
+    public BirthDateIndex(UserRepository userRepository,
+                          @Value("${user.birth-date-index.enabled}") boolean enabled,
+                          MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        Gauge.builder("user.index.users", this, BirthDateIndex::size).register(meterRegistry);
+    }
+
+    /**
+     * Loads the keys of all Users from the database, chunk by chunk in key order, so no sorting is needed.
+     * It runs before the application accepts requests, so no write is missed.
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        int[] loadedDays = new int[LOAD_CHUNK_SIZE];
+        long[] loadedIds = new long[LOAD_CHUNK_SIZE];
+        int count = 0;
+        List<BirthDateKey> chunk = userRepository.findBirthDateKeys(Limit.of(LOAD_CHUNK_SIZE));
+        while (!chunk.isEmpty()) {
+            if (count + chunk.size() > loadedDays.length) {
+                int capacity = Math.max(count + chunk.size(), loadedDays.length + (loadedDays.length >> 1));
+                loadedDays = Arrays.copyOf(loadedDays, capacity);
+                loadedIds = Arrays.copyOf(loadedIds, capacity);
+            }
+            for (BirthDateKey key : chunk) {
+                loadedDays[count] = Math.toIntExact(key.birthDate().toEpochDay());
+                loadedIds[count++] = key.id();
+            }
+            if (chunk.size() < LOAD_CHUNK_SIZE) {
+                break;
+            }
+            BirthDateKey last = chunk.get(chunk.size() - 1);
+            chunk = userRepository.findBirthDateKeysAfter(last.birthDate(), last.id(), Limit.of(LOAD_CHUNK_SIZE));
+        }
+        lock.writeLock().lock();
+        try {
+            days = Arrays.copyOf(loadedDays, count);
+            ids = Arrays.copyOf(loadedIds, count);
+            removed = new BitSet();
+            removedCount = 0;
+            added.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded the birth date index of {} users", count);
+    }
+
+    /**
+     * Checks whether the index is enabled, so searches may be answered from it.
+     *
+     * @return true if the index is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Indexes a created User.
+     *
+     * @param id the ID of the User
+     * @param birthDate the birth date of the User
+     */
+    public void add(Long id, LocalDate birthDate) {
+        move(id, null, birthDate);
+    }
+
+    /**
+     * Removes a deleted User from the index.
+     *
+     * @param id the ID of the User
+     * @param birthDate the birth date the User had
+     */
+    public void remove(Long id, LocalDate birthDate) {
+        move(id, birthDate, null);
+    }
+
+    /**
+     * Moves a User to another birth date.
+     *
+     * @param id the ID of the User
+     * @param previousBirthDate the birth date before the change, or null if the User was created
+     * @param birthDate the birth date after the change, or null if the User was deleted
+     */
+    public void move(Long id, LocalDate previousBirthDate, LocalDate birthDate) {
+        if (!enabled || id == null || Objects.equals(previousBirthDate, birthDate)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (previousBirthDate != null) {
+                removeKey(new Key(Math.toIntExact(previousBirthDate.toEpochDay()), id));
+            }
+            if (birthDate != null) {
+                addKey(new Key(Math.toIntExact(birthDate.toEpochDay()), id));
+            }
+            if (added.size() + removedCount > Math.max(MIN_MERGE_SIZE, days.length / MERGE_RATIO)) {
+                merge();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the IDs of one page of Users whose birth date is within the specified range,
+     * in the (birth date, ID) order of the database search.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param after the cursor of the last User of the previous page, or null for the first page
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of at most limit Users
+     */
+    public long[] findIds(LocalDate from, LocalDate to, UserCursor after, int limit) {
+        int toDay = Math.toIntExact(to.toEpochDay());
+        Key start = new Key(Math.toIntExact(from.toEpochDay()), Long.MIN_VALUE);
+        boolean afterStart = false;
+        if (after != null) {
+            Key cursor = new Key(Math.toIntExact(after.getBirthDate().toEpochDay()), after.getId());
+            if (cursor.compareTo(start) >= 0) {
+                start = cursor;
+                afterStart = true;
+            }
+        }
+        long[] found = new long[limit];
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            int position = lowerBound(start);
+            if (afterStart && position < days.length && start.equals(days[position], ids[position])) {
+                position++;
+            }
+            Iterator<Key> pending = added.tailSet(start, !afterStart).iterator();
+            Key next = pending.hasNext() ? pending.next() : null;
+            while (count < limit) {
+                position = removed.nextClearBit(position);
+                int day;
+                long id;
+                if (position < days.length && (next == null || next.compareTo(days[position], ids[position]) > 0)) {
+                    day = days[position];
+                    id = ids[position++];
+                } else if (next != null) {
+                    day = next.day();
+                    id = next.id();
+                    next = pending.hasNext() ? pending.next() : null;
+                } else {
+                    break;
+                }
+                if (day > toDay) {
+                    break;
+                }
+                found[count++] = id;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count == limit ? found : Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Gets the number of indexed Users.
+     *
+     * @return the number of indexed Users
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return days.length - removedCount + added.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a key, or restores it if it was removed from the arrays since the last merge.
+     *
+     * @param key the key
+     */
+    private void addKey(Key key) {
+        int position = lowerBound(key);
+        if (position < days.length && key.equals(days[position], ids[position])) {
+            if (removed.get(position)) {
+                removed.clear(position);
+                removedCount--;
+            }
+        } else {
+            added.add(key);
+        }
+    }
+
+    /**
+     * Removes a key. A key that is not indexed is ignored.
+     *
+     * @param key the key
+     */
+    private void removeKey(Key key) {
+        if (added.remove(key)) {
+            return;
+        }
+        int position = lowerBound(key);
+        if (position < days.length && key.equals(days[position], ids[position]) && !removed.get(position)) {
+            removed.set(position);
+            removedCount++;
+        }
+    }
+
+    /**
+     * Rebuilds the arrays from the keys that were not removed and the added keys.
+     */
+    private void merge() {
+        int size = days.length - removedCount + added.size();
+        int[] mergedDays = new int[size];
+        long[] mergedIds = new long[size];
+        int position = removed.nextClearBit(0);
+        int count = 0;
+        for (Key key : added) {
+            while (position < days.length && key.compareTo(days[position], ids[position]) > 0) {
+                mergedDays[count] = days[position];
+                mergedIds[count++] = ids[position];
+                position = removed.nextClearBit(position + 1);
+            }
+            mergedDays[count] = key.day();
+            mergedIds[count++] = key.id();
+        }
+        while (position < days.length) {
+            mergedDays[count] = days[position];
+            mergedIds[count++] = ids[position];
+            position = removed.nextClearBit(position + 1);
+        }
+        days = mergedDays;
+        ids = mergedIds;
+        removed = new BitSet();
+        removedCount = 0;
+        added.clear();
+    }
+
+    /**
+     * Finds the position of the first key of the arrays that is not before the specified key.
+     *
+     * @param key the key
+     * @return the position of the first key not before it, or the length of the arrays if there is none
+     */
+    private int lowerBound(Key key) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key.compareTo(days[middle], ids[middle]) > 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Key is the (birth date, ID) key of a User.
+     *
+     * @param day the birth date as an epoch day
+     * @param id the ID
+     */
+    private record Key(int day, long id) implements Comparable<Key> {
+
+        /**
+         * Compares this key with a key of the arrays.
+         *
+         * @param otherDay the epoch day of the other key
+         * @param otherId the ID of the other key
+         * @return a negative number, zero or a positive number if this key is before, equal to or after the other
+         */
+        int compareTo(int otherDay, long otherId) {
+            return day != otherDay ? Integer.compare(day, otherDay) : Long.compare(id, otherId);
+        }
+
+        /**
+         * Checks whether this key equals a key of the arrays.
+         *
+         * @param otherDay the epoch day of the other key
+         * @param otherId the ID of the other key
+         * @return true if both keys are equal
+         */
+        boolean equals(int otherDay, long otherId) {
+            return day == otherDay && id == otherId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return compareTo(other.day, other.id);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.clear_solutions.ingest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * ByteSink is a growable byte array the ingestion writes CSV rows into without creating intermediate Strings.
+ * It is used by one thread at a time.
+ */
+final class ByteSink {
+
+    /**
+     * The bytes written so far, followed by spare capacity.
+     */
+    private byte[] bytes;
+
+    /**
+     * The number of bytes written so far.
+     */
+    private int length;
+
+    /**
+     * Constructs an empty ByteSink with the specified initial capacity.
+     *
+     * @param capacity the initial capacity in bytes
+     */
+    ByteSink(int capacity) {
+        this.bytes = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Gets the array holding the written bytes; only the first {@link #length()} bytes are written.
+     *
+     * @return the array
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     *
+     * @return the number of written bytes
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Appends a byte.
+     *
+     * @param b the byte
+     */
+    void append(byte b) {
+        ensureCapacity(1);
+        bytes[length++] = b;
+    }
+
+    /**
+     * Appends a range of bytes.
+     *
+     * @param source the array holding the bytes
+     * @param from the offset of the first byte
+     * @param to the offset after the last byte
+     */
+    void append(byte[] source, int from, int to) {
+        ensureCapacity(to - from);
+        System.arraycopy(source, from, bytes, length, to - from);
+        length += to - from;
+    }
+
+    /**
+     * Appends the decimal digits of a non-negative number.
+     *
+     * @param value the number
+     */
+    void appendDecimal(long value) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    /**
+     * Appends a range of bytes as a quoted CSV field, doubling the quotes it contains.
+     *
+     * @param source the array holding the bytes
+     * @param from the offset of the first byte
+     * @param to the offset after the last byte
+     */
+    void appendQuoted(byte[] source, int from, int to) {
+        ensureCapacity(2 * (to - from) + 2);
+        bytes[length++] = '"';
+        for (int i = from; i < to; i++) {
+            if (source[i] == '"') {
+                bytes[length++] = '"';
+            }
+            bytes[length++] = source[i];
+        }
+        bytes[length++] = '"';
+    }
+
+    /**
+     * Appends a String as a quoted CSV field, encoded as UTF-8.
+     *
+     * @param text the String
+     */
+    void appendQuoted(String text) {
+        byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        appendQuoted(encoded, 0, encoded.length);
+    }
+
+    /**
+     * Writes the written bytes to a stream.
+     *
+     * @param out the stream
+     * @throws IOException if the stream cannot be written
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * Discards the written bytes, keeping the capacity.
+     */
+    void clear() {
+        length = 0;
+    }
+
+    /**
+     * Grows the array so that the specified number of bytes can be appended.
+     *
+     * @param extra the number of bytes to be appended
+     */
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.clear_solutions.ingest;
+
+/**
+ * CsvBlock is a run of whole lines of an imported CSV file, read into a byte array by UserCsvIngester.
+ *
+ * @param data the array holding the lines
+ * @param from the offset of the first line
+ * @param to the offset after the last line
+ * @param firstLine the line number of the first line in the file, counting from 1
+ */
+record CsvBlock(byte[] data, int from, int to, long firstLine) {
+}
@@ -0,0 +1,326 @@
+package com.example.clear_solutions.ingest;
+
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.validation.UserValidation;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * CsvBlockProcessor splits the lines of a CsvBlock into fields and validates them as new Users.
+ * Only the fields that are validated are decoded to Strings; the valid rows are passed on with their original bytes.
+ * Fields may be quoted with '"', a quote inside a quoted field being doubled; a quoted field may not span lines.
+ * A CsvBlockProcessor keeps no state between blocks, so one instance validates the blocks of a file in parallel.
+ */
+final class CsvBlockProcessor {
+
+    /**
+     * The longest value of a text column, in characters, which is the width of the columns of the users table.
+     */
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    /**
+     * The names of the fields in reject reasons, by field index.
+     */
+    private static final String[] FIELD_NAMES = {"email", "firstName", "lastName", "birthDate", "address", "phoneNumber"};
+
+    /**
+     * The length of a birth date in the format yyyy-MM-dd.
+     */
+    private static final int DATE_LENGTH = 10;
+
+    /**
+     * The header of the file.
+     */
+    private final CsvHeader header;
+
+    /**
+     * The UserValidation that checks the rules every created User must satisfy.
+     */
+    private final UserValidation userValidation;
+
+    /**
+     * Whether a field has to be decoded to be validated, by field index.
+     */
+    private final boolean[] validated;
+
+    /**
+     * Constructs a CsvBlockProcessor for a file with the specified header.
+     *
+     * @param header the header of the file
+     * @param userValidation the UserValidation that checks new Users
+     * @param addressValidated whether the address has validation constraints
+     * @param phoneNumberValidated whether the phone number has validation constraints
+     */
+    CsvBlockProcessor(CsvHeader header, UserValidation userValidation, boolean addressValidated,
+                      boolean phoneNumberValidated) {
+        this.header = header;
+        this.userValidation = userValidation;
+        this.validated = new boolean[]{true, true, true, true, addressValidated, phoneNumberValidated};
+    }
+
+    /**
+     * Validates the lines of a block. Blank lines are skipped.
+     *
+     * @param block the block
+     * @return the valid and rejected rows of the block
+     */
+    ValidatedBlock process(CsvBlock block) {
+        byte[] data = block.data();
+        ValidatedBlock result = new ValidatedBlock(block.to() - block.from());
+        int[] starts = new int[header.columnCount()];
+        int[] ends = new int[header.columnCount()];
+        long line = block.firstLine();
+        int lineStart = block.from();
+        while (lineStart < block.to()) {
+            int lineEnd = lineStart;
+            while (lineEnd < block.to() && data[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && data[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            if (contentEnd > lineStart) {
+                processRow(data, lineStart, contentEnd, line, starts, ends, result);
+            }
+            line++;
+            lineStart = lineEnd + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Validates a row and adds it to the valid or the rejected rows.
+     *
+     * @param data the array holding the row
+     * @param from the offset of the row
+     * @param to the offset after the row, without its line break
+     * @param line the line number of the row
+     * @param starts the array the start offsets of the columns are written to
+     * @param ends the array the end offsets of the columns are written to
+     * @param result the ValidatedBlock the row is added to
+     */
+    private void processRow(byte[] data, int from, int to, long line, int[] starts, int[] ends,
+                            ValidatedBlock result) {
+        String violation = split(data, from, to, starts, ends);
+        if (violation != null) {
+            result.reject(line, violation, data, from, to);
+            return;
+        }
+        String[] texts = new String[FIELD_NAMES.length];
+        for (int field = 0; field < FIELD_NAMES.length; field++) {
+            int column = header.column(field);
+            if (column >= 0 && validated[field] && field != CsvHeader.BIRTH_DATE) {
+                texts[field] = decode(data, starts[column], ends[column]);
+            }
+        }
+        int dateColumn = header.column(CsvHeader.BIRTH_DATE);
+        int dateStart = unquotedStart(data, starts[dateColumn], ends[dateColumn]);
+        int dateEnd = unquotedEnd(data, starts[dateColumn], ends[dateColumn]);
+        LocalDate birthDate = parseDate(data, dateStart, dateEnd);
+        if (birthDate == null) {
+            result.reject(line, "birthDate must be a date in the format yyyy-MM-dd", data, from, to);
+            return;
+        }
+        User user = new User();
+        user.setEmail(texts[CsvHeader.EMAIL]);
+        user.setFirstName(texts[CsvHeader.FIRST_NAME]);
+        user.setLastName(texts[CsvHeader.LAST_NAME]);
+        user.setBirthDate(birthDate);
+        user.setAddress(texts[CsvHeader.ADDRESS]);
+        user.setPhoneNumber(texts[CsvHeader.PHONE_NUMBER]);
+        violation = userValidation.findViolation(user);
+        if (violation == null) {
+            violation = findTooLong(data, starts, ends, texts);
+        }
+        if (violation != null) {
+            result.reject(line, violation, data, from, to);
+            return;
+        }
+        ByteSink rows = result.rows();
+        rows.appendDecimal(line);
+        for (int field = 0; field < FIELD_NAMES.length; field++) {
+            rows.append((byte) ',');
+            int column = header.column(field);
+            if (field == CsvHeader.BIRTH_DATE) {
+                rows.append(data, dateStart, dateEnd);
+            } else if (column >= 0) {
+                rows.append(data, starts[column], ends[column]);
+            }
+        }
+        rows.append((byte) '\n');
+        result.endRow(line, birthDate);
+    }
+
+    /**
+     * Splits a row into columns. Unquoted fields may not contain quotes or carriage returns,
+     * which COPY would read differently.
+     *
+     * @param data the array holding the row
+     * @param from the offset of the row
+     * @param to the offset after the row
+     * @param starts the array the start offsets of the columns are written to
+     * @param ends the array the end offsets of the columns are written to
+     * @return the reason the row is malformed, or null if it has the columns of the header
+     */
+    private String split(byte[] data, int from, int to, int[] starts, int[] ends) {
+        int column = 0;
+        int p = from;
+        while (true) {
+            if (column == starts.length) {
+                return "Row has more columns than the header";
+            }
+            starts[column] = p;
+            if (p < to && data[p] == '"') {
+                p++;
+                while (true) {
+                    if (p == to) {
+                        return "Row has an unterminated quoted field";
+                    }
+                    if (data[p] == '"') {
+                        if (p + 1 < to && data[p + 1] == '"') {
+                            p += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    p++;
+                }
+                p++;
+                if (p < to && data[p] != ',') {
+                    return "Row has characters after a quoted field";
+                }
+            } else {
+                while (p < to && data[p] != ',') {
+                    if (data[p] == '"' || data[p] == '\r') {
+                        return "Row has a quote or carriage return in an unquoted field";
+                    }
+                    p++;
+                }
+            }
+            ends[column++] = p;
+            if (p == to) {
+                break;
+            }
+            p++;
+        }
+        return column < starts.length ? "Row has fewer columns than the header" : null;
+    }
+
+    /**
+     * Finds a decoded or undecoded text field that is longer than its column.
+     * A field is only decoded to count its characters if it has more bytes than the column has characters.
+     *
+     * @param data the array holding the row
+     * @param starts the start offsets of the columns
+     * @param ends the end offsets of the columns
+     * @param texts the decoded fields, by field index
+     * @return the reason the row is rejected, or null if every field fits its column
+     */
+    private String findTooLong(byte[] data, int[] starts, int[] ends, String[] texts) {
+        for (int field = 0; field < FIELD_NAMES.length; field++) {
+            int column = header.column(field);
+            if (field == CsvHeader.BIRTH_DATE || column < 0 || ends[column] - starts[column] <= MAX_TEXT_LENGTH) {
+                continue;
+            }
+            String text = texts[field] != null ? texts[field] : decode(data, starts[column], ends[column]);
+            if (text.codePointCount(0, text.length()) > MAX_TEXT_LENGTH) {
+                return FIELD_NAMES[field] + " must be at most " + MAX_TEXT_LENGTH + " characters";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes a field, removing its quotes. An empty unquoted field is null, as COPY reads it.
+     *
+     * @param data the array holding the field
+     * @param from the offset of the field
+     * @param to the offset after the field
+     * @return the value of the field, or null if it is empty and unquoted
+     */
+    private static String decode(byte[] data, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        if (data[from] != '"') {
+            return new String(data, from, to - from, StandardCharsets.UTF_8);
+        }
+        byte[] value = new byte[to - from - 2];
+        int length = 0;
+        for (int i = from + 1; i < to - 1; i++) {
+            value[length++] = data[i];
+            if (data[i] == '"') {
+                i++;
+            }
+        }
+        return new String(value, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the offset of the value of a field, after its opening quote.
+     *
+     * @param data the array holding the field
+     * @param from the offset of the field
+     * @param to the offset after the field
+     * @return the offset of the value
+     */
+    private static int unquotedStart(byte[] data, int from, int to) {
+        return from < to && data[from] == '"' ? from + 1 : from;
+    }
+
+    /**
+     * Gets the offset after the value of a field, before its closing quote.
+     *
+     * @param data the array holding the field
+     * @param from the offset of the field
+     * @param to the offset after the field
+     * @return the offset after the value
+     */
+    private static int unquotedEnd(byte[] data, int from, int to) {
+        return from < to && data[from] == '"' ? to - 1 : to;
+    }
+
+    /**
+     * Parses a date in the format yyyy-MM-dd without decoding it to a String.
+     *
+     * @param data the array holding the date
+     * @param from the offset of the date
+     * @param to the offset after the date
+     * @return the date, or null if it is not a valid date in the format
+     */
+    private static LocalDate parseDate(byte[] data, int from, int to) {
+        if (to - from != DATE_LENGTH || data[from + 4] != '-' || data[from + 7] != '-') {
+            return null;
+        }
+        int year = digits(data, from, from + 4);
+        int month = digits(data, from + 5, from + 7);
+        int day = digits(data, from + 8, from + 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a run of decimal digits.
+     *
+     * @param data the array holding the digits
+     * @param from the offset of the digits
+     * @param to the offset after the digits
+     * @return the value of the digits, or -1 if one of the bytes is not a digit
+     */
+    private static int digits(byte[] data, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            if (data[i] < '0' || data[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + data[i] - '0';
+        }
+        return value;
+    }
+}
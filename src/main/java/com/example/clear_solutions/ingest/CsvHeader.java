@@ -0,0 +1,155 @@
+package com.example.clear_solutions.ingest;
+
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserValidationException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * CsvHeader is the header line of an imported CSV file, which maps the fields of a User to columns.
+ * Column names are matched ignoring case and underscores, so both "birthDate" and "birth_date" name the birth date.
+ * The email, first name, last name and birth date columns are required; unknown columns are ignored.
+ */
+public final class CsvHeader {
+
+    /**
+     * The field index of the email.
+     */
+    static final int EMAIL = 0;
+
+    /**
+     * The field index of the first name.
+     */
+    static final int FIRST_NAME = 1;
+
+    /**
+     * The field index of the last name.
+     */
+    static final int LAST_NAME = 2;
+
+    /**
+     * The field index of the birth date.
+     */
+    static final int BIRTH_DATE = 3;
+
+    /**
+     * The field index of the address.
+     */
+    static final int ADDRESS = 4;
+
+    /**
+     * The field index of the phone number.
+     */
+    static final int PHONE_NUMBER = 5;
+
+    /**
+     * The normalized column names of the fields, by field index.
+     */
+    private static final List<String> FIELD_NAMES =
+            List.of("email", "firstname", "lastname", "birthdate", "address", "phonenumber");
+
+    /**
+     * The number of fields that must have a column.
+     */
+    private static final int REQUIRED_FIELDS = 4;
+
+    /**
+     * The longest header line that is read, in bytes.
+     */
+    private static final int MAX_LENGTH = 64 * 1024;
+
+    /**
+     * The column of every field, by field index, or -1 for a field without a column.
+     */
+    private final int[] columns;
+
+    /**
+     * The number of columns of the file.
+     */
+    private final int columnCount;
+
+    /**
+     * Constructs a CsvHeader with the specified field columns and number of columns.
+     *
+     * @param columns the column of every field, or -1 for a field without a column
+     * @param columnCount the number of columns of the file
+     */
+    private CsvHeader(int[] columns, int columnCount) {
+        this.columns = columns;
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * Parses a header line.
+     *
+     * @param line the header line, without its line break
+     * @return the CsvHeader
+     * @throws UserValidationException if a required column is missing
+     */
+    public static CsvHeader parse(String line) {
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        String[] names = line.split(",", -1);
+        int[] columns = new int[FIELD_NAMES.size()];
+        Arrays.fill(columns, -1);
+        for (int column = 0; column < names.length; column++) {
+            String name = names[column].strip().replace("\"", "").replace("_", "").toLowerCase(Locale.ROOT);
+            int field = FIELD_NAMES.indexOf(name);
+            if (field >= 0) {
+                columns[field] = column;
+            }
+        }
+        for (int field = 0; field < REQUIRED_FIELDS; field++) {
+            if (columns[field] < 0) {
+                throw new UserValidationException(ErrorCode.INVALID_CSV_HEADER,
+                        "The CSV header must name the columns email, firstName, lastName and birthDate");
+            }
+        }
+        return new CsvHeader(columns, names.length);
+    }
+
+    /**
+     * Reads and parses the header line of a CSV stream without consuming it, so the stream still starts with it.
+     *
+     * @param input the stream
+     * @return the CsvHeader
+     * @throws IOException if the stream cannot be read
+     * @throws UserValidationException if a required column is missing or there is no header line
+     */
+    public static CsvHeader peek(BufferedInputStream input) throws IOException {
+        input.mark(MAX_LENGTH);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while (line.size() < MAX_LENGTH && (b = input.read()) >= 0 && b != '\n') {
+            line.write(b);
+        }
+        input.reset();
+        return parse(line.toString(StandardCharsets.UTF_8).stripTrailing());
+    }
+
+    /**
+     * Gets the column of a field.
+     *
+     * @param field the field index
+     * @return the column of the field, or -1 if the file has no column for it
+     */
+    int column(int field) {
+        return columns[field];
+    }
+
+    /**
+     * Gets the number of columns of the file.
+     *
+     * @return the number of columns
+     */
+    int columnCount() {
+        return columnCount;
+    }
+}
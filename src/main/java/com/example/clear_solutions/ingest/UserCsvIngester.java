@@ -0,0 +1,365 @@
+package com.example.clear_solutions.ingest;
+
+import com.example.clear_solutions.cache.UserCache;
+import com.example.clear_solutions.cache.UserRangeCache;
+import com.example.clear_solutions.index.BirthDateIndex;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.stats.BirthDateStats;
+import com.example.clear_solutions.validation.UserValidation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import jakarta.validation.metadata.PropertyDescriptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * UserCsvIngester creates Users from a CSV file of any size.
+ * The file is read through a FileChannel in blocks of whole lines; the blocks are split into fields and validated
+ * by a pool of workers while the calling thread copies the valid rows of the blocks, in order, into the database
+ * with COPY, one transaction per block. Rows that are malformed, break a rule of UserService or conflict with
+ * an existing User are written to a reject file instead, and the import goes on.
+ * At most twice as many blocks as there are workers are in memory at once.
+ * The created and rejected rows are counted by the "user.ingest.rows" metric tagged with the outcome.
+ */
+@Component
+@Profile("!reactive")
+public class UserCsvIngester {
+
+    /**
+     * The reason written for rows that conflict with an existing User.
+     */
+    private static final String CONFLICT = "A user with this email already exists";
+
+    /**
+     * The header line of the reject file.
+     */
+    private static final byte[] REJECT_HEADER = "line,detail,row\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The size of the buffer the reject file is written through.
+     */
+    private static final int REJECT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The UserValidation that checks the rows.
+     */
+    private final UserValidation userValidation;
+
+    /**
+     * The UserRepository the rows are copied with.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * The UserCache the created Users are evicted from.
+     */
+    private final UserCache userCache;
+
+    /**
+     * The UserRangeCache whose ranges are invalidated by the created Users.
+     */
+    private final UserRangeCache userRangeCache;
+
+    /**
+     * The BirthDateStats that count the created Users.
+     */
+    private final BirthDateStats birthDateStats;
+
+    /**
+     * The BirthDateIndex the created Users are added to.
+     */
+    private final BirthDateIndex birthDateIndex;
+
+    /**
+     * Whether the address has validation constraints and therefore has to be decoded.
+     */
+    private final boolean addressValidated;
+
+    /**
+     * Whether the phone number has validation constraints and therefore has to be decoded.
+     */
+    private final boolean phoneNumberValidated;
+
+    /**
+     * The size of a block in bytes, which is also the longest line that can be read.
+     */
+    private final int blockSize;
+
+    /**
+     * The number of workers that validate blocks.
+     */
+    private final int parallelism;
+
+    /**
+     * The workers that validate blocks.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * The counter of the created rows.
+     */
+    private final Counter createdRows;
+
+    /**
+     * The counter of the rejected rows.
+     */
+    private final Counter rejectedRows;
+
+    /**
+     * Constructs a UserCsvIngester with the specified collaborators, block size and number of workers.
+     *
+     * @param userValidation the UserValidation to be used
+     * @param userRepository the UserRepository to be used
+     * @param userCache the UserCache to be used
+     * @param userRangeCache the UserRangeCache to be used
+     * @param birthDateStats the BirthDateStats to be used
+     * @param birthDateIndex the BirthDateIndex to be used
+     * @param validator the Validator whose constraints decide which optional fields are decoded
+     * @param meterRegistry the MeterRegistry the metrics are registered with
+     * @param blockSize the size of a block, which is also the longest line that can be read
+     * @param parallelism the number of workers, or 0 for one per available processor
+     */
+    public UserCsvIngester(UserValidation userValidation, UserRepository userRepository, UserCache userCache,
+                           UserRangeCache userRangeCache, BirthDateStats birthDateStats,
+                           BirthDateIndex birthDateIndex, Validator validator, MeterRegistry meterRegistry,
+                           @Value("${user.ingest.block-size}") DataSize blockSize,
+                           @Value("${user.ingest.parallelism}") int parallelism) {
+        this.userValidation = userValidation;
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.userRangeCache = userRangeCache;
+        this.birthDateStats = birthDateStats;
+        this.birthDateIndex = birthDateIndex;
+        Set<String> constrained = validator.getConstraintsForClass(User.class).getConstrainedProperties().stream()
+                .map(PropertyDescriptor::getPropertyName)
+                .collect(Collectors.toSet());
+        this.addressValidated = constrained.contains("address");
+        this.phoneNumberValidated = constrained.contains("phoneNumber");
+        this.blockSize = Math.toIntExact(blockSize.toBytes());
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.workers = Executors.newFixedThreadPool(this.parallelism, new CustomizableThreadFactory("ingest-"));
+        new ExecutorServiceMetrics(workers, "user.ingest", Tags.empty()).bindTo(meterRegistry);
+        this.createdRows = meterRegistry.counter("user.ingest.rows", "outcome", "created");
+        this.rejectedRows = meterRegistry.counter("user.ingest.rows", "outcome", "rejected");
+    }
+
+    /**
+     * Stops the workers.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Creates the Users of a CSV file. The first line of the file is its header.
+     * The reject file is CSV with the columns line, detail and row, in line order.
+     *
+     * @param csv the CSV file
+     * @param rejects the stream the reject file is written to; it is closed when the import ends
+     * @param progress the consumer of the number of data lines processed, called after every block
+     * @throws IOException if the file cannot be read, a line is longer than a block or the rejects cannot be written
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws com.example.clear_solutions.exception.UserValidationException if the header lacks a required column
+     */
+    public void ingest(Path csv, OutputStream rejects, LongConsumer progress)
+            throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ);
+             OutputStream out = new BufferedOutputStream(rejects, REJECT_BUFFER_SIZE)) {
+            out.write(REJECT_HEADER);
+            BlockReader reader = new BlockReader(channel);
+            CsvBlock block = reader.next(new byte[blockSize]);
+            if (block == null) {
+                block = new CsvBlock(new byte[0], 0, 0, 1);
+            }
+            int headerEnd = block.from();
+            while (headerEnd < block.to() && block.data()[headerEnd] != '\n') {
+                headerEnd++;
+            }
+            CsvHeader header = CsvHeader.parse(
+                    new String(block.data(), block.from(), headerEnd - block.from(), StandardCharsets.UTF_8).strip());
+            CsvBlockProcessor processor =
+                    new CsvBlockProcessor(header, userValidation, addressValidated, phoneNumberValidated);
+            block = new CsvBlock(block.data(), Math.min(headerEnd + 1, block.to()), block.to(), 2);
+            Deque<Future<ValidatedBlock>> pending = new ArrayDeque<>();
+            Deque<byte[]> pendingBuffers = new ArrayDeque<>();
+            Deque<byte[]> freeBuffers = new ArrayDeque<>();
+            try {
+                while (block != null || !pending.isEmpty()) {
+                    while (block != null && pending.size() < 2 * parallelism) {
+                        CsvBlock submitted = block;
+                        pending.add(workers.submit(() -> processor.process(submitted)));
+                        pendingBuffers.add(submitted.data());
+                        block = reader.next(freeBuffers.isEmpty() ? new byte[blockSize] : freeBuffers.poll());
+                    }
+                    write(await(pending.poll()), out, progress);
+                    freeBuffers.add(pendingBuffers.poll());
+                }
+            } finally {
+                pending.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    /**
+     * Copies the valid rows of a block into the database and writes its rejected rows to the reject file.
+     *
+     * @param block the validated block
+     * @param out the stream of the reject file
+     * @param progress the consumer of the number of data lines processed
+     * @throws IOException if the rejects cannot be written
+     */
+    private void write(ValidatedBlock block, OutputStream out, LongConsumer progress) throws IOException {
+        long[] conflicts = new long[0];
+        if (block.rowCount() > 0) {
+            long[] ids = userRepository.reserveIds(block.rowCount());
+            conflicts = userRepository.copyUsers(block.copyBatch(), ids);
+            for (long id : ids) {
+                userCache.evict(id);
+            }
+            userRangeCache.invalidate(block.minBirthDate(), block.maxBirthDate());
+            block.forEachCreated(ids, conflicts, (birthDate, id) -> {
+                birthDateStats.add(birthDate);
+                birthDateIndex.add(id, birthDate);
+            });
+        }
+        block.writeRejects(out, conflicts, CONFLICT);
+        createdRows.increment(block.rowCount() - conflicts.length);
+        rejectedRows.increment(block.rejectCount() + conflicts.length);
+        progress.accept(block.rowCount() + block.rejectCount());
+    }
+
+    /**
+     * Waits for a block to be validated.
+     *
+     * @param future the future of the validated block
+     * @return the validated block
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    private static ValidatedBlock await(Future<ValidatedBlock> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * BlockReader reads a file into blocks of whole lines. The bytes after the last line break of a block
+     * are carried over to the start of the next one.
+     */
+    private static final class BlockReader {
+
+        /**
+         * The channel of the file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The array of the previous block, which holds the carried over bytes.
+         */
+        private byte[] previous;
+
+        /**
+         * The offset of the carried over bytes in previous.
+         */
+        private int carryFrom;
+
+        /**
+         * The offset after the carried over bytes in previous.
+         */
+        private int carryTo;
+
+        /**
+         * The line number of the first line of the next block.
+         */
+        private long nextLine = 1;
+
+        /**
+         * Whether the end of the file was reached.
+         */
+        private boolean endOfFile;
+
+        /**
+         * Constructs a BlockReader for the specified channel.
+         *
+         * @param channel the channel of the file
+         */
+        private BlockReader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Reads the next block. The array of the previous block may be reused once this method has returned.
+         *
+         * @param buffer the array the block is read into
+         * @return the block, or null if the whole file has been read
+         * @throws IOException if the file cannot be read or a line is longer than the array
+         */
+        private CsvBlock next(byte[] buffer) throws IOException {
+            int length = carryTo - carryFrom;
+            if (length > 0) {
+                System.arraycopy(previous, carryFrom, buffer, 0, length);
+            }
+            ByteBuffer target = ByteBuffer.wrap(buffer, length, buffer.length - length);
+            while (target.hasRemaining() && !endOfFile) {
+                endOfFile = channel.read(target) < 0;
+            }
+            length = target.position();
+            if (length == 0) {
+                return null;
+            }
+            int end = length;
+            if (!endOfFile) {
+                while (end > 0 && buffer[end - 1] != '\n') {
+                    end--;
+                }
+                if (end == 0) {
+                    throw new IOException("Line " + nextLine + " is longer than " + buffer.length + " bytes");
+                }
+            }
+            previous = buffer;
+            carryFrom = end;
+            carryTo = length;
+            CsvBlock block = new CsvBlock(buffer, 0, end, nextLine);
+            for (int i = 0; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    nextLine++;
+                }
+            }
+            return block;
+        }
+    }
+}
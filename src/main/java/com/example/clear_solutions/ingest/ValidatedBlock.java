@@ -0,0 +1,244 @@
+package com.example.clear_solutions.ingest;
+
+import com.example.clear_solutions.repository.UserCopyRepository.CopyBatch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * ValidatedBlock is the outcome of validating a CsvBlock: the valid rows, formatted for PostgreSQL COPY,
+ * and the rejected rows, formatted as lines of the reject file. Both are kept in line order.
+ * A ValidatedBlock is filled by the worker that validates the block and then handed to the writer.
+ */
+final class ValidatedBlock {
+
+    /**
+     * The valid rows in the format of CopyBatch.
+     */
+    private final ByteSink rows;
+
+    /**
+     * The end offset of every valid row in rows.
+     */
+    private int[] rowEnds = new int[256];
+
+    /**
+     * The line number of every valid row.
+     */
+    private long[] rowLines = new long[256];
+
+    /**
+     * The birth date of every valid row, as an epoch day.
+     */
+    private int[] rowBirthDays = new int[256];
+
+    /**
+     * The number of valid rows.
+     */
+    private int rowCount;
+
+    /**
+     * The rejected rows as lines of the reject file.
+     */
+    private final ByteSink rejects = new ByteSink(1024);
+
+    /**
+     * The end offset of every rejected row in rejects.
+     */
+    private int[] rejectEnds = new int[16];
+
+    /**
+     * The line number of every rejected row.
+     */
+    private long[] rejectLines = new long[16];
+
+    /**
+     * The number of rejected rows.
+     */
+    private int rejectCount;
+
+    /**
+     * The earliest birth date of the valid rows, or null if there are none.
+     */
+    private LocalDate minBirthDate;
+
+    /**
+     * The latest birth date of the valid rows, or null if there are none.
+     */
+    private LocalDate maxBirthDate;
+
+    /**
+     * Constructs an empty ValidatedBlock for a block of the specified size.
+     *
+     * @param blockLength the length of the block in bytes
+     */
+    ValidatedBlock(int blockLength) {
+        this.rows = new ByteSink(blockLength + blockLength / 8);
+    }
+
+    /**
+     * Gets the sink the next valid row is written to.
+     *
+     * @return the sink of the valid rows
+     */
+    ByteSink rows() {
+        return rows;
+    }
+
+    /**
+     * Ends the valid row that was written to {@link #rows()}.
+     *
+     * @param line the line number of the row
+     * @param birthDate the birth date of the row
+     */
+    void endRow(long line, LocalDate birthDate) {
+        if (rowCount == rowEnds.length) {
+            rowEnds = Arrays.copyOf(rowEnds, rowCount * 2);
+            rowLines = Arrays.copyOf(rowLines, rowCount * 2);
+            rowBirthDays = Arrays.copyOf(rowBirthDays, rowCount * 2);
+        }
+        rowEnds[rowCount] = rows.length();
+        rowBirthDays[rowCount] = (int) birthDate.toEpochDay();
+        rowLines[rowCount++] = line;
+        if (minBirthDate == null || birthDate.isBefore(minBirthDate)) {
+            minBirthDate = birthDate;
+        }
+        if (maxBirthDate == null || birthDate.isAfter(maxBirthDate)) {
+            maxBirthDate = birthDate;
+        }
+    }
+
+    /**
+     * Adds a rejected row.
+     *
+     * @param line the line number of the row
+     * @param detail the reason the row was rejected
+     * @param data the array holding the row
+     * @param from the offset of the row
+     * @param to the offset after the row, without its line break
+     */
+    void reject(long line, String detail, byte[] data, int from, int to) {
+        if (rejectCount == rejectEnds.length) {
+            rejectEnds = Arrays.copyOf(rejectEnds, rejectCount * 2);
+            rejectLines = Arrays.copyOf(rejectLines, rejectCount * 2);
+        }
+        appendReject(rejects, line, detail, data, from, to);
+        rejectEnds[rejectCount] = rejects.length();
+        rejectLines[rejectCount++] = line;
+    }
+
+    /**
+     * Gets the number of valid rows.
+     *
+     * @return the number of valid rows
+     */
+    int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the number of rejected rows.
+     *
+     * @return the number of rejected rows
+     */
+    int rejectCount() {
+        return rejectCount;
+    }
+
+    /**
+     * Gets the earliest birth date of the valid rows.
+     *
+     * @return the earliest birth date, or null if there are no valid rows
+     */
+    LocalDate minBirthDate() {
+        return minBirthDate;
+    }
+
+    /**
+     * Gets the latest birth date of the valid rows.
+     *
+     * @return the latest birth date, or null if there are no valid rows
+     */
+    LocalDate maxBirthDate() {
+        return maxBirthDate;
+    }
+
+    /**
+     * Gets the valid rows as a batch for COPY.
+     *
+     * @return the CopyBatch of the valid rows
+     */
+    CopyBatch copyBatch() {
+        return new CopyBatch(rows.bytes(), rowEnds, rowCount);
+    }
+
+    /**
+     * Hands the birth date and ID of every valid row the database did not refuse to a consumer.
+     *
+     * @param ids the IDs the valid rows were copied with, in row order
+     * @param refusedLines the line numbers of the valid rows the database refused, in ascending order
+     * @param consumer the consumer of the birth dates and IDs of the created rows
+     */
+    void forEachCreated(long[] ids, long[] refusedLines, ObjLongConsumer<LocalDate> consumer) {
+        int refused = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (refused < refusedLines.length && refusedLines[refused] == rowLines[row]) {
+                refused++;
+            } else {
+                consumer.accept(LocalDate.ofEpochDay(rowBirthDays[row]), ids[row]);
+            }
+        }
+    }
+
+    /**
+     * Writes the rejected rows to the reject file, together with the valid rows the database refused,
+     * in line order.
+     *
+     * @param out the stream of the reject file
+     * @param refusedLines the line numbers of the valid rows the database refused, in ascending order
+     * @param refusedDetail the reason written for the refused rows
+     * @throws IOException if the reject file cannot be written
+     */
+    void writeRejects(OutputStream out, long[] refusedLines, String refusedDetail) throws IOException {
+        ByteSink refused = new ByteSink(256);
+        int reject = 0;
+        int rejectStart = 0;
+        for (long refusedLine : refusedLines) {
+            while (reject < rejectCount && rejectLines[reject] < refusedLine) {
+                out.write(rejects.bytes(), rejectStart, rejectEnds[reject] - rejectStart);
+                rejectStart = rejectEnds[reject++];
+            }
+            int row = Arrays.binarySearch(rowLines, 0, rowCount, refusedLine);
+            int rowStart = row == 0 ? 0 : rowEnds[row - 1];
+            while (rows.bytes()[rowStart] != ',') {
+                rowStart++;
+            }
+            refused.clear();
+            appendReject(refused, refusedLine, refusedDetail, rows.bytes(), rowStart + 1, rowEnds[row] - 1);
+            refused.writeTo(out);
+        }
+        out.write(rejects.bytes(), rejectStart, rejects.length() - rejectStart);
+    }
+
+    /**
+     * Appends a line of the reject file: the line number, the reason and the row, as CSV.
+     *
+     * @param sink the sink the line is appended to
+     * @param line the line number of the row
+     * @param detail the reason the row was rejected
+     * @param data the array holding the row
+     * @param from the offset of the row
+     * @param to the offset after the row
+     */
+    private static void appendReject(ByteSink sink, long line, String detail, byte[] data, int from, int to) {
+        sink.appendDecimal(line);
+        sink.append((byte) ',');
+        sink.appendQuoted(detail);
+        sink.append((byte) ',');
+        sink.appendQuoted(data, from, to);
+        sink.append((byte) '\n');
+    }
+}
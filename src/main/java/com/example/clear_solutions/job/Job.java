@@ -0,0 +1,159 @@
+package com.example.clear_solutions.job;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Job is a unit of work that runs in the background after the request that submitted it has been answered.
+ * Its state is stored in the "jobs" table, so it can be polled after a restart of the application.
+ * While the job runs, its state is written by the worker running it and read by the requests that poll it,
+ * so its mutable fields are volatile.
+ */
+@Getter
+@ToString
+@Entity
+@Table(name = "jobs")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class Job {
+
+    /**
+     * The ID of the job.
+     */
+    @Id
+    private UUID id;
+
+    /**
+     * The type of the job, such as "bulk-delete".
+     */
+    private String type;
+
+    /**
+     * The time the job was submitted.
+     * It is mapped to the "submitted_at" column in the database.
+     */
+    @Column(name = "submitted_at")
+    private Instant submittedAt;
+
+    /**
+     * The status of the job.
+     */
+    @Enumerated(EnumType.STRING)
+    private volatile JobStatus status = JobStatus.QUEUED;
+
+    /**
+     * The number of items processed so far.
+     */
+    private volatile long processed;
+
+    /**
+     * The reason the job failed, or null if it did not.
+     */
+    private volatile String detail;
+
+    /**
+     * The media type of the result of the job, or null if the job has not written a result.
+     * It is mapped to the "result_type" column in the database.
+     */
+    @Column(name = "result_type")
+    private volatile String resultType;
+
+    /**
+     * The time the job started running, or null if it is still queued.
+     * It is mapped to the "started_at" column in the database.
+     */
+    @Column(name = "started_at")
+    private volatile Instant startedAt;
+
+    /**
+     * The time the job finished, or null if it has not finished yet.
+     * It is mapped to the "finished_at" column in the database.
+     */
+    @Column(name = "finished_at")
+    private volatile Instant finishedAt;
+
+    /**
+     * The time the instance that owns the job last renewed its lease; it is only written by update statements.
+     * It is mapped to the "heartbeat_at" column in the database.
+     */
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+
+    /**
+     * Constructs a queued Job of the specified type.
+     *
+     * @param type the type of the job
+     */
+    public Job(String type) {
+        this.id = UUID.randomUUID();
+        this.type = type;
+        this.submittedAt = Instant.now();
+        this.heartbeatAt = submittedAt;
+    }
+
+    /**
+     * Marks the job as running.
+     */
+    void start() {
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+    }
+
+    /**
+     * Adds to the number of processed items.
+     * Only the worker running the job calls this, so the update needs no lock.
+     *
+     * @param count the number of items processed since the last call
+     */
+    void addProcessed(long count) {
+        processed += count;
+    }
+
+    /**
+     * Records that the job has written a result of the specified media type.
+     *
+     * @param mediaType the media type of the result
+     */
+    void setResultType(String mediaType) {
+        resultType = mediaType;
+    }
+
+    /**
+     * Marks the job as finished.
+     *
+     * @param failure the reason the job failed, or null if it succeeded
+     */
+    void finish(String failure) {
+        detail = failure;
+        finishedAt = Instant.now();
+        status = failure == null ? JobStatus.SUCCEEDED : JobStatus.FAILED;
+    }
+
+    /**
+     * Checks whether the job has finished.
+     *
+     * @return true if the job succeeded or failed
+     */
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    /**
+     * Checks whether the result of the job can be fetched.
+     *
+     * @return true if the job succeeded and wrote a result
+     */
+    public boolean hasResult() {
+        return status == JobStatus.SUCCEEDED && resultType != null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.clear_solutions.job;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * JobContext is what the work of a Job is given to read its input, report its progress and write its result.
+ */
+public interface JobContext {
+
+    /**
+     * Gets the file the input of the Job was spooled to when it was submitted.
+     *
+     * @return the input file, or null if the Job was submitted without input
+     */
+    Path input();
+
+    /**
+     * Adds to the number of items the Job has processed.
+     *
+     * @param count the number of items processed since the last call
+     */
+    void addProcessed(long count);
+
+    /**
+     * Opens the result of the Job for writing. The result can be fetched once the Job has succeeded.
+     *
+     * @param mediaType the media type of the result
+     * @return the stream the result is written to; the caller must close it
+     * @throws IOException if the result file cannot be created
+     */
+    OutputStream openResult(String mediaType) throws IOException;
+}
@@ -0,0 +1,131 @@
+package com.example.clear_solutions.job;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * JobRepository is a Spring Data JPA repository for Job entities.
+ * The state of a running Job is written with update statements, so the Job held by its worker is never merged.
+ */
+@Repository
+public interface JobRepository extends JpaRepository<Job, UUID> {
+
+    /**
+     * Finds a Job by ID. Unlike the inherited method, which opens a read-only transaction, it opens a read-write one,
+     * so the state of a Job is read from the primary that it is written to rather than from a replica.
+     *
+     * @param id the ID of the Job
+     * @return the Job, or an empty Optional if there is no Job with the ID
+     */
+    @Override
+    @Transactional
+    Optional<Job> findById(UUID id);
+
+    /**
+     * Writes the mutable state of a Job.
+     *
+     * @param id the ID of the Job
+     * @param status the status of the Job
+     * @param processed the number of items processed so far
+     * @param detail the reason the Job failed, or null
+     * @param resultType the media type of the result of the Job, or null
+     * @param startedAt the time the Job started running, or null
+     * @param finishedAt the time the Job finished, or null
+     * @return the number of updated Jobs
+     */
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = :status, j.processed = :processed, j.detail = :detail, " +
+           "j.resultType = :resultType, j.startedAt = :startedAt, j.finishedAt = :finishedAt where j.id = :id")
+    int updateState(@Param("id") UUID id,
+                    @Param("status") JobStatus status,
+                    @Param("processed") long processed,
+                    @Param("detail") String detail,
+                    @Param("resultType") String resultType,
+                    @Param("startedAt") Instant startedAt,
+                    @Param("finishedAt") Instant finishedAt);
+
+    /**
+     * Writes the number of items a running Job has processed so far.
+     *
+     * @param id the ID of the Job
+     * @param processed the number of items processed so far
+     * @return the number of updated Jobs
+     */
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.processed = :processed where j.id = :id")
+    int updateProgress(@Param("id") UUID id, @Param("processed") long processed);
+
+    /**
+     * Renews the leases of the specified Jobs that have not finished.
+     *
+     * @param ids the IDs of the Jobs
+     * @param heartbeatAt the time of the renewal
+     * @return the number of renewed Jobs
+     */
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.heartbeatAt = :heartbeatAt where j.id in :ids and j.finishedAt is null")
+    int renewLeases(@Param("ids") Collection<UUID> ids, @Param("heartbeatAt") Instant heartbeatAt);
+
+    /**
+     * Finds the IDs of the unfinished Jobs whose lease was last renewed before the specified time,
+     * which are the Jobs of instances that have stopped.
+     *
+     * @param expiry the time before which the leases were renewed
+     * @return the IDs of the Jobs
+     */
+    @Query("select j.id from Job j where j.finishedAt is null and j.heartbeatAt < :expiry")
+    List<UUID> findIdsAbandonedBefore(@Param("expiry") Instant expiry);
+
+    /**
+     * Marks the specified Jobs as failed if they have not finished and their lease was still not renewed
+     * after the specified time, so a Job whose owner renews it in the meantime is left alone.
+     *
+     * @param ids the IDs of the Jobs
+     * @param expiry the time before which the leases were renewed
+     * @param status the status of a failed Job
+     * @param detail the reason the Jobs failed
+     * @param finishedAt the time the Jobs are marked as finished
+     * @return the number of failed Jobs
+     */
+    @Transactional
+    @Modifying
+    @Query("update Job j set j.status = :status, j.detail = :detail, j.finishedAt = :finishedAt " +
+           "where j.id in :ids and j.finishedAt is null and j.heartbeatAt < :expiry")
+    int failAbandoned(@Param("ids") Collection<UUID> ids,
+                      @Param("expiry") Instant expiry,
+                      @Param("status") JobStatus status,
+                      @Param("detail") String detail,
+                      @Param("finishedAt") Instant finishedAt);
+
+    /**
+     * Finds the IDs of the Jobs that finished before the specified time.
+     *
+     * @param expiry the time before which the Jobs finished
+     * @return the IDs of the Jobs
+     */
+    @Query("select j.id from Job j where j.finishedAt < :expiry")
+    List<UUID> findIdsFinishedBefore(@Param("expiry") Instant expiry);
+
+    /**
+     * Writes the mutable state of the specified Job.
+     *
+     * @param job the Job
+     */
+    default void updateState(Job job) {
+        updateState(job.getId(), job.getStatus(), job.getProcessed(), job.getDetail(), job.getResultType(),
+                job.getStartedAt(), job.getFinishedAt());
+    }
+}
@@ -0,0 +1,485 @@
+package com.example.clear_solutions.job;
+
+import com.example.clear_solutions.exception.DataConflict;
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.JobNotFoundException;
+import com.example.clear_solutions.exception.UserConflictException;
+import com.example.clear_solutions.exception.UserException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JobService runs Jobs in the background on a fixed number of workers.
+ * Jobs wait in a bounded queue; when it is full, further submissions are rejected instead of piling up,
+ * so the caller can ask its client to retry later.
+ * The state of every Job is stored in the database, and its input and result are kept as files in the job directory,
+ * so finished Jobs can be polled and their results fetched after a restart until the retention period has passed.
+ * Several instances may share the jobs table and the job directory, so every instance renews the leases of its
+ * queued and running Jobs every heartbeat interval, and fails only the unfinished Jobs whose lease has not been renewed
+ * for the lease timeout: those of instances that stopped.
+ * The workers are published as the "executor" metrics tagged name=user.jobs; for every type of Job,
+ * "user.jobs.wait" and "user.jobs.duration" time the queueing and running, "user.jobs.processed" counts
+ * the processed items and "user.jobs.rejected" the Jobs refused because the queue was full.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class JobService {
+
+    /**
+     * How often the progress of a running Job is written to the database.
+     */
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The reason recorded for Jobs that were interrupted by a restart.
+     */
+    private static final String INTERRUPTED = "Interrupted by a stop of the application";
+
+    /**
+     * The reason recorded for Jobs that failed with an unexpected exception, whose message is only logged.
+     */
+    private static final String UNEXPECTED = "The job failed unexpectedly";
+
+    /**
+     * The JobRepository used to store the state of the Jobs.
+     */
+    private final JobRepository jobRepository;
+
+    /**
+     * The MeterRegistry the metrics of the Jobs are registered with.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The executor whose workers run the Jobs.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * How long a finished Job is kept.
+     */
+    private final Duration retention;
+
+    /**
+     * The directory the inputs and results of the Jobs are kept in.
+     */
+    private final Path directory;
+
+    /**
+     * How often the leases of the queued and running Jobs are renewed and abandoned Jobs are looked for.
+     */
+    private final Duration heartbeatInterval;
+
+    /**
+     * How long the lease of an unfinished Job may go without renewal before the Job counts as abandoned.
+     */
+    private final Duration leaseTimeout;
+
+    /**
+     * The Jobs that are queued or running, by ID; their progress is read from here rather than from the database.
+     */
+    private final Map<UUID, Job> activeJobs = new ConcurrentHashMap<>();
+
+    /**
+     * The executor that renews the leases, or null until the JobService is started.
+     */
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * Constructs a JobService with the specified JobRepository, MeterRegistry, number of workers, queue capacity,
+     * retention, job directory and leases.
+     *
+     * @param jobRepository the JobRepository to be used
+     * @param meterRegistry the MeterRegistry to be used
+     * @param threads the number of Jobs run at the same time
+     * @param queueCapacity the number of Jobs that may wait for a worker
+     * @param retention how long a finished Job is kept
+     * @param directory the directory the inputs and results of the Jobs are kept in
+     * @param heartbeatInterval how often the leases of the Jobs are renewed
+     * @param leaseTimeout how long a lease may go without renewal before its Job counts as abandoned
+     */
+    public JobService(JobRepository jobRepository, MeterRegistry meterRegistry,
+                      @Value("${user.jobs.threads}") int threads,
+                      @Value("${user.jobs.queue-capacity}") int queueCapacity,
+                      @Value("${user.jobs.retention}") Duration retention,
+                      @Value("${user.jobs.directory}") Path directory,
+                      @Value("${user.jobs.heartbeat-interval}") Duration heartbeatInterval,
+                      @Value("${user.jobs.lease-timeout}") Duration leaseTimeout) {
+        this.jobRepository = jobRepository;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retention = retention;
+        this.directory = directory;
+        this.heartbeatInterval = heartbeatInterval;
+        this.leaseTimeout = leaseTimeout;
+        new ExecutorServiceMetrics(executor, "user.jobs", Tags.empty()).bindTo(meterRegistry);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Fails the Jobs abandoned by stopped instances and then renews the leases of the Jobs of this instance
+     * every heartbeat interval, failing the Jobs abandoned since.
+     */
+    @PostConstruct
+    public void start() {
+        failAbandonedJobs();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("job-heartbeat-");
+        threadFactory.setDaemon(true);
+        heartbeat = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = heartbeatInterval.toMillis();
+        heartbeat.scheduleWithFixedDelay(this::beat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Renews the leases of the Jobs of this instance and fails the abandoned Jobs.
+     * A failure is logged rather than thrown, so the next heartbeat still runs.
+     */
+    void beat() {
+        try {
+            if (!activeJobs.isEmpty()) {
+                jobRepository.renewLeases(List.copyOf(activeJobs.keySet()), Instant.now());
+            }
+            failAbandonedJobs();
+        } catch (RuntimeException e) {
+            log.warn("Could not renew the leases of the jobs", e);
+        }
+    }
+
+    /**
+     * Marks the unfinished Jobs whose lease has not been renewed for the lease timeout as failed,
+     * and deletes their input and partial result files. The Jobs of running instances are left alone.
+     */
+    void failAbandonedJobs() {
+        Instant expiry = Instant.now().minus(leaseTimeout);
+        List<UUID> abandoned = jobRepository.findIdsAbandonedBefore(expiry);
+        if (abandoned.isEmpty()) {
+            return;
+        }
+        int failed = jobRepository.failAbandoned(abandoned, expiry, JobStatus.FAILED, INTERRUPTED, Instant.now());
+        if (failed > 0) {
+            log.warn("Marked {} jobs abandoned by a stopped instance as failed", failed);
+        }
+        for (UUID id : abandoned) {
+            deleteIfExists(inputFile(id));
+            deleteIfExists(resultFile(id));
+        }
+    }
+
+    /**
+     * Submits a Job that runs the specified work.
+     *
+     * @param type the type of the job
+     * @param work the work of the job
+     * @return the queued Job
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public Job submit(String type, JobWork work) {
+        return submit(type, null, work);
+    }
+
+    /**
+     * Submits a Job that runs the specified work on the specified input.
+     * The input is spooled to a file before the Job is queued, so the request that submits it can be answered
+     * before the work starts; the file is deleted when the Job finishes.
+     *
+     * @param type the type of the job
+     * @param input the input of the job, or null if it has none
+     * @param work the work of the job
+     * @return the queued Job
+     * @throws RejectedExecutionException if the queue is full
+     * @throws UncheckedIOException if the input cannot be spooled
+     */
+    public Job submit(String type, InputStream input, JobWork work) {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw rejected(type, new RejectedExecutionException("The job queue is full"));
+        }
+        removeExpiredJobs();
+        Job job = new Job(type);
+        Path inputFile = input != null ? spool(job.getId(), input) : null;
+        jobRepository.save(job);
+        activeJobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, inputFile, work));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.getId());
+            jobRepository.deleteById(job.getId());
+            deleteIfExists(inputFile);
+            throw rejected(type, e);
+        }
+        return job;
+    }
+
+    /**
+     * Finds a Job by ID.
+     *
+     * @param id the ID of the Job
+     * @return the Job
+     * @throws JobNotFoundException if there is no Job with the ID
+     */
+    public Job find(UUID id) {
+        Job job = activeJobs.get(id);
+        if (job != null) {
+            return job;
+        }
+        return jobRepository.findById(id).orElseThrow(JobNotFoundException::new);
+    }
+
+    /**
+     * Finds the file holding the result of a Job.
+     *
+     * @param job the Job
+     * @return the result file
+     * @throws UserConflictException if the Job has not succeeded or has no result
+     */
+    public Path findResult(Job job) {
+        Path result = resultFile(job.getId());
+        if (!job.hasResult() || !Files.exists(result)) {
+            throw new UserConflictException(ErrorCode.JOB_RESULT_UNAVAILABLE, "The job has no result to fetch");
+        }
+        return result;
+    }
+
+    /**
+     * Stops the workers when the application shuts down; running Jobs are interrupted and queued Jobs are not started.
+     * The leases of the Jobs that do not finish are no longer renewed, so they are failed once their lease times out.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the work of a Job and records its outcome.
+     *
+     * @param job the Job
+     * @param input the input file of the Job, or null if it has none
+     * @param work the work of the Job
+     */
+    private void run(Job job, Path input, JobWork work) {
+        Tags tags = Tags.of("type", job.getType());
+        job.start();
+        meterRegistry.timer("user.jobs.wait", tags).record(Duration.between(job.getSubmittedAt(), job.getStartedAt()));
+        String failure = null;
+        try {
+            jobRepository.updateState(job);
+            work.run(new Context(job, input, meterRegistry.counter("user.jobs.processed", tags)));
+        } catch (Exception e) {
+            log.warn("Job {} of type {} failed", job.getId(), job.getType(), e);
+            failure = describe(e);
+        } finally {
+            deleteIfExists(input);
+        }
+        job.finish(failure);
+        if (failure != null) {
+            deleteIfExists(resultFile(job.getId()));
+        }
+        meterRegistry.timer("user.jobs.duration", tags.and("status", job.getStatus().name()))
+                .record(Duration.between(job.getStartedAt(), job.getFinishedAt()));
+        try {
+            jobRepository.updateState(job);
+        } catch (RuntimeException e) {
+            log.error("Could not store the outcome of job {}", job.getId(), e);
+        } finally {
+            activeJobs.remove(job.getId());
+        }
+    }
+
+    /**
+     * Describes the failure of a Job the way ErrorResponses describes a failed request, since the detail is
+     * returned to clients: UserExceptions and IllegalArgumentExceptions by their message, data conflicts
+     * by the fixed message of their DataConflict, and any other exception, whose message may hold SQL
+     * or refused values, by a fixed message.
+     *
+     * @param e the exception the work of the Job failed with
+     * @return the reason the Job failed
+     */
+    private static String describe(Exception e) {
+        if ((e instanceof UserException || e instanceof IllegalArgumentException) && e.getMessage() != null) {
+            return e.getMessage();
+        }
+        if (e instanceof DataIntegrityViolationException) {
+            return DataConflict.of(e).getMessage();
+        }
+        return UNEXPECTED;
+    }
+
+    /**
+     * Counts a rejected Job.
+     *
+     * @param type the type of the Job
+     * @param e the exception the Job was rejected with
+     * @return the exception, to be thrown by the caller
+     */
+    private RejectedExecutionException rejected(String type, RejectedExecutionException e) {
+        meterRegistry.counter("user.jobs.rejected", "type", type).increment();
+        return e;
+    }
+
+    /**
+     * Copies the input of a Job to its input file.
+     *
+     * @param id the ID of the Job
+     * @param input the input of the Job
+     * @return the input file
+     * @throws UncheckedIOException if the input cannot be copied
+     */
+    private Path spool(UUID id, InputStream input) {
+        Path inputFile = inputFile(id);
+        try {
+            Files.copy(input, inputFile);
+            return inputFile;
+        } catch (IOException e) {
+            deleteIfExists(inputFile);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Removes the Jobs that finished longer ago than the retention period, with their results.
+     */
+    private void removeExpiredJobs() {
+        List<UUID> expired = jobRepository.findIdsFinishedBefore(Instant.now().minus(retention));
+        if (!expired.isEmpty()) {
+            jobRepository.deleteAllByIdInBatch(expired);
+            expired.forEach(id -> deleteIfExists(resultFile(id)));
+        }
+    }
+
+    /**
+     * Gets the file the input of a Job is spooled to.
+     *
+     * @param id the ID of the Job
+     * @return the input file
+     */
+    private Path inputFile(UUID id) {
+        return directory.resolve(id + ".input");
+    }
+
+    /**
+     * Gets the file the result of a Job is written to.
+     *
+     * @param id the ID of the Job
+     * @return the result file
+     */
+    private Path resultFile(UUID id) {
+        return directory.resolve(id + ".result");
+    }
+
+    /**
+     * Deletes a file if it exists, logging instead of failing if it cannot be deleted.
+     *
+     * @param file the file, or null
+     */
+    private void deleteIfExists(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", file, e);
+        }
+    }
+
+    /**
+     * Context is the JobContext of a running Job.
+     * It writes the progress of the Job to the database at most once per second.
+     */
+    private final class Context implements JobContext {
+
+        /**
+         * The running Job.
+         */
+        private final Job job;
+
+        /**
+         * The input file of the Job, or null if it has none.
+         */
+        private final Path input;
+
+        /**
+         * The counter of the items processed by Jobs of this type.
+         */
+        private final Counter processedCounter;
+
+        /**
+         * The time the progress was last written to the database, from System.nanoTime().
+         */
+        private long progressStoredAt = System.nanoTime();
+
+        /**
+         * Constructs a Context for the specified Job.
+         *
+         * @param job the running Job
+         * @param input the input file of the Job, or null if it has none
+         * @param processedCounter the counter of the items processed by Jobs of this type
+         */
+        private Context(Job job, Path input, Counter processedCounter) {
+            this.job = job;
+            this.input = input;
+            this.processedCounter = processedCounter;
+        }
+
+        @Override
+        public Path input() {
+            return input;
+        }
+
+        @Override
+        public void addProcessed(long count) {
+            job.addProcessed(count);
+            processedCounter.increment(count);
+            long now = System.nanoTime();
+            if (now - progressStoredAt >= PROGRESS_INTERVAL_NANOS) {
+                progressStoredAt = now;
+                jobRepository.updateProgress(job.getId(), job.getProcessed());
+            }
+        }
+
+        @Override
+        public OutputStream openResult(String mediaType) throws IOException {
+            OutputStream result = Files.newOutputStream(resultFile(job.getId()));
+            job.setResultType(mediaType);
+            return result;
+        }
+    }
+}
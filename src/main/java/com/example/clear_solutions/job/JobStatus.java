@@ -0,0 +1,27 @@
+package com.example.clear_solutions.job;
+
+/**
+ * JobStatus enumerates the states of a Job.
+ */
+public enum JobStatus {
+
+    /**
+     * The job waits for a free worker.
+     */
+    QUEUED,
+
+    /**
+     * The job is being run.
+     */
+    RUNNING,
+
+    /**
+     * The job finished successfully.
+     */
+    SUCCEEDED,
+
+    /**
+     * The job stopped with an error.
+     */
+    FAILED
+}
@@ -0,0 +1,16 @@
+package com.example.clear_solutions.job;
+
+/**
+ * JobWork is the work a Job runs in the background.
+ */
+@FunctionalInterface
+public interface JobWork {
+
+    /**
+     * Runs the work. The Job fails if this throws.
+     *
+     * @param context the context of the Job
+     * @throws Exception if the work fails
+     */
+    void run(JobContext context) throws Exception;
+}
@@ -7,6 +7,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Past;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 
@@ -14,8 +16,11 @@ import java.time.LocalDate;
  * User is an entity class that represents a user in the application.
  * It contains fields for the user's ID, email, first name, last name, birthdate, address, and phone number.
  * The ID field is annotated with @Id and @GeneratedValue to indicate that it is the primary key and is automatically generated.
+ * IDs are taken from the pooled "users_seq" sequence, so inserts need no round trip to learn their key and can be batched.
  * The email, first name, last name, and birthdate fields are annotated with validation constraints.
  * The first name, last name, birthdate, and phone number fields are mapped to specific column names in the database.
+ * The entity may be held in the Hibernate second-level cache when that cache is enabled.
+ * The version is incremented by every write and is used for optimistic locking and as the ETag of the user.
  */
 @Getter
 @Setter
@@ -24,15 +29,20 @@ import java.time.LocalDate;
 @ToString
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class User {
 
     /**
      * The ID of the user.
      * It is the primary key and is automatically generated.
+     * Every call to the sequence reserves a block of allocationSize IDs; if the increment of the
+     * sequence in the database differs, Hibernate adopts the increment of the database.
      */
     @Id
     @JsonIgnore
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -80,4 +90,12 @@ public class User {
      */
     @Column(name = "phone_number")
     private String phoneNumber;
+
+    /**
+     * The version of the user.
+     * It starts at 0 and is incremented by every update, so a stale write can be detected and refused.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
 }
\ No newline at end of file
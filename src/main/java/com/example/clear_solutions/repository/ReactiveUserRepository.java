@@ -0,0 +1,452 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserUpdateRepository.UpdatedUser;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * ReactiveUserRepository reads and writes Users through R2DBC for the reactive profile, without a JDBC connection
+ * or a thread held while a statement runs. It issues the statements of the JPA repository fragments: the keyset
+ * pages of the birth date range search, the single-statement UPDATE ... RETURNING of UserUpdateRepositoryImpl
+ * and the prefix and similarity searches of UserSearchRepositoryImpl, whose JPA positional parameters
+ * are rewritten to the PostgreSQL ones.
+ * IDs are allocated the way Hibernate's pooled optimizer allocates them: a call to the users_seq sequence reserves
+ * the block of IDs up to the returned value, as long as the increment of the sequence, and the IDs of the block
+ * are handed out before the sequence is called again.
+ * Errors of the database are translated to DataAccessExceptions by the DatabaseClient.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveUserRepository {
+
+    /**
+     * The columns of a User, in the order of the User constructor.
+     */
+    private static final String COLUMNS = "id, email, first_name, last_name, birth_date, address, phone_number, version";
+
+    /**
+     * The statement that inserts a User; its parameters are the fields of the User in the order of the constructor.
+     */
+    private static final String INSERT = "insert into users (" + COLUMNS + ") " +
+            "values ($1, $2, $3, $4, $5, $6, $7, 0) returning id, version";
+
+    /**
+     * The statement that inserts many Users with one round trip; its parameters are one array per column.
+     */
+    private static final String INSERT_ALL = "insert into users (" + COLUMNS + ") " +
+            "select id, email, first_name, last_name, birth_date, address, phone_number, 0 " +
+            "from unnest($1::bigint[], $2::varchar[], $3::varchar[], $4::varchar[], $5::date[], $6::varchar[], " +
+            "$7::varchar[]) as new_users (id, email, first_name, last_name, birth_date, address, phone_number)";
+
+    /**
+     * The statement that reserves blocks of IDs; its parameter is the number of blocks.
+     * Each returned value is the last ID of its block.
+     */
+    private static final String NEXT_BLOCKS = "select nextval('users_seq') from generate_series(1, $1)";
+
+    /**
+     * The statement that reads the increment of users_seq, which is the size of a block of IDs.
+     */
+    private static final String SEQUENCE_INCREMENT = "select increment_by from pg_sequences " +
+            "where schemaname = current_schema() and sequencename = 'users_seq'";
+
+    /**
+     * The first page of a birth date range search; its parameters are the range and the limit.
+     */
+    static final String FIND_PAGE = "select " + COLUMNS + " from users where birth_date between $1 and $2 " +
+            "order by birth_date, id limit $3";
+
+    /**
+     * The following pages of a birth date range search; its parameters are the range, the key of the last User
+     * of the previous page and the limit.
+     */
+    static final String FIND_PAGE_AFTER = "select " + COLUMNS + " from users " +
+            "where birth_date between $1 and $2 and (birth_date, id) > ($3, $4) order by birth_date, id limit $5";
+
+    /**
+     * The DatabaseClient used to run the statements.
+     */
+    private final DatabaseClient databaseClient;
+
+    /**
+     * The increment of users_seq, read from the database on first use; 0 until then.
+     */
+    private volatile int sequenceIncrement;
+
+    /**
+     * The next ID of the block reserved last.
+     */
+    private long nextId = 1;
+
+    /**
+     * The last ID of the block reserved last; the block is used up when nextId is beyond it.
+     */
+    private long blockEnd;
+
+    /**
+     * Constructs a ReactiveUserRepository with the specified DatabaseClient.
+     *
+     * @param databaseClient the DatabaseClient to be used
+     */
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Inserts a User with a reserved ID and sets its ID and version.
+     *
+     * @param user the User to be inserted
+     * @return the inserted User
+     */
+    public Mono<User> insert(User user) {
+        return reserveIds(1).flatMap(ids -> {
+            GenericExecuteSpec spec = databaseClient.sql(INSERT).bind(0, ids[0]);
+            spec = bind(spec, 1, user.getEmail(), String.class);
+            spec = bind(spec, 2, user.getFirstName(), String.class);
+            spec = bind(spec, 3, user.getLastName(), String.class);
+            spec = bind(spec, 4, user.getBirthDate(), LocalDate.class);
+            spec = bind(spec, 5, user.getAddress(), String.class);
+            spec = bind(spec, 6, user.getPhoneNumber(), String.class);
+            return spec.map(row -> {
+                        user.setId(row.get("id", Long.class));
+                        user.setVersion(row.get("version", Long.class));
+                        return user;
+                    })
+                    .one();
+        });
+    }
+
+    /**
+     * Inserts the specified Users with reserved IDs, with a single statement over arrays of their fields,
+     * and sets their IDs. If the statement fails, no User is inserted and their IDs are left unset.
+     *
+     * @param users the Users to be inserted
+     * @return a Mono that completes when the Users are inserted
+     */
+    public Mono<Void> insertAll(List<User> users) {
+        return reserveIds(users.size()).flatMap(ids -> databaseClient.sql(INSERT_ALL)
+                .bind(0, Arrays.stream(ids).boxed().toArray(Long[]::new))
+                .bind(1, users.stream().map(User::getEmail).toArray(String[]::new))
+                .bind(2, users.stream().map(User::getFirstName).toArray(String[]::new))
+                .bind(3, users.stream().map(User::getLastName).toArray(String[]::new))
+                .bind(4, users.stream().map(User::getBirthDate).toArray(LocalDate[]::new))
+                .bind(5, users.stream().map(User::getAddress).toArray(String[]::new))
+                .bind(6, users.stream().map(User::getPhoneNumber).toArray(String[]::new))
+                .then()
+                .doOnSuccess(ignored -> {
+                    for (int i = 0; i < users.size(); i++) {
+                        users.get(i).setId(ids[i]);
+                        users.get(i).setVersion(0L);
+                    }
+                }));
+    }
+
+    /**
+     * Reserves IDs for new Users. The IDs left in the block reserved last are handed out first; the rest are taken
+     * from as few new blocks as cover them, reserved with one statement, and what is left of the last new block
+     * is kept for the next call.
+     *
+     * @param count the number of IDs to reserve
+     * @return the reserved IDs, in ascending order
+     */
+    Mono<long[]> reserveIds(int count) {
+        long[] ids = new long[count];
+        int reserved = takeReservedIds(ids, 0);
+        if (reserved == count) {
+            return Mono.just(ids);
+        }
+        return sequenceIncrement().flatMap(increment -> databaseClient.sql(NEXT_BLOCKS)
+                .bind(0, (count - reserved + increment - 1) / increment)
+                .map(row -> row.get(0, Long.class))
+                .all()
+                .collectList()
+                .map(blockEnds -> {
+                    int i = reserved;
+                    for (long end : blockEnds) {
+                        long id = end - increment + 1;
+                        while (id <= end && i < count) {
+                            ids[i++] = id++;
+                        }
+                        if (id <= end) {
+                            keepReservedIds(id, end);
+                        }
+                    }
+                    return ids;
+                }));
+    }
+
+    /**
+     * Hands out the IDs left in the block reserved last.
+     *
+     * @param ids the array the IDs are written to
+     * @param from the index of the first ID to be written
+     * @return the index after the last written ID
+     */
+    private synchronized int takeReservedIds(long[] ids, int from) {
+        int i = from;
+        while (i < ids.length && nextId <= blockEnd) {
+            ids[i++] = nextId++;
+        }
+        return i;
+    }
+
+    /**
+     * Keeps the rest of a new block for the next calls, unless a concurrent call kept the rest of another one.
+     *
+     * @param from the first ID left in the block
+     * @param to the last ID of the block
+     */
+    private synchronized void keepReservedIds(long from, long to) {
+        if (nextId > blockEnd) {
+            nextId = from;
+            blockEnd = to;
+        }
+    }
+
+    /**
+     * Returns the increment of users_seq, reading it from the database on first use.
+     *
+     * @return the increment of the sequence
+     */
+    private Mono<Integer> sequenceIncrement() {
+        int increment = sequenceIncrement;
+        if (increment != 0) {
+            return Mono.just(increment);
+        }
+        return databaseClient.sql(SEQUENCE_INCREMENT)
+                .map(row -> row.get(0, Long.class).intValue())
+                .one()
+                .doOnNext(value -> sequenceIncrement = value);
+    }
+
+    /**
+     * Finds a User by ID.
+     *
+     * @param id the ID of the User
+     * @return the User, or an empty Mono if there is no User with the ID
+     */
+    public Mono<User> findById(Long id) {
+        return databaseClient.sql("select " + COLUMNS + " from users where id = $1")
+                .bind(0, id)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    /**
+     * Finds the Users with the specified IDs with one statement.
+     *
+     * @param ids the IDs of the Users
+     * @return the found Users, in the order of their IDs; IDs without a User are skipped
+     */
+    public Mono<List<User>> findAllById(long[] ids) {
+        if (ids.length == 0) {
+            return Mono.just(List.of());
+        }
+        Long[] boxedIds = Arrays.stream(ids).boxed().toArray(Long[]::new);
+        return databaseClient.sql("select " + COLUMNS + " from users where id = any($1)")
+                .bind(0, boxedIds)
+                .map(ReactiveUserRepository::toUser)
+                .all()
+                .collectMap(User::getId, Function.identity())
+                .map(users -> Arrays.stream(boxedIds).map(users::get).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * Checks whether a User exists.
+     *
+     * @param id the ID of the User
+     * @return true if there is a User with the ID
+     */
+    public Mono<Boolean> existsById(Long id) {
+        return databaseClient.sql("select exists (select 1 from users where id = $1)")
+                .bind(0, id)
+                .map(row -> row.get(0, Boolean.class))
+                .one();
+    }
+
+    /**
+     * Updates the non-null fields of the specified User with a single statement and returns the updated row,
+     * with the statement of UserUpdateRepositoryImpl.
+     *
+     * @param id the ID of the User to be updated
+     * @param updates a User object containing the fields to be updated; at least one field must be non-null
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
+     * @return the updated User and its previous birth date, or an empty Mono if no User with the ID
+     *         and the expected version exists
+     */
+    public Mono<UpdatedUser> updateFields(Long id, User updates, Long expectedVersion) {
+        UserSetClause setClause = new UserSetClause(updates);
+        boolean birthDateChanges = updates.getBirthDate() != null;
+        String sql = UserUpdateRepositoryImpl.updateSql(setClause, birthDateChanges, expectedVersion != null);
+        GenericExecuteSpec spec = databaseClient.sql(sql.replace('?', '$'));
+        List<Object> values = setClause.values();
+        for (int i = 0; i < values.size(); i++) {
+            spec = spec.bind(i, values.get(i));
+        }
+        spec = spec.bind(values.size(), id);
+        if (expectedVersion != null) {
+            spec = spec.bind(values.size() + 1, expectedVersion);
+        }
+        return spec.map(row -> {
+                    User user = toUser(row);
+                    LocalDate previousBirthDate = birthDateChanges
+                            ? row.get("previous_birth_date", LocalDate.class) : user.getBirthDate();
+                    return new UpdatedUser(user, previousBirthDate);
+                })
+                .one();
+    }
+
+    /**
+     * Deletes a User.
+     *
+     * @param id the ID of the User to be deleted
+     * @param expectedVersion the version the User must have to be deleted, or null to delete any version
+     * @return the number of deleted Users, 0 or 1
+     */
+    public Mono<Long> delete(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return databaseClient.sql("delete from users where id = $1")
+                    .bind(0, id)
+                    .fetch()
+                    .rowsUpdated();
+        }
+        return databaseClient.sql("delete from users where id = $1 and version = $2")
+                .bind(0, id)
+                .bind(1, expectedVersion)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Finds one page of Users whose birth date is within the specified range, ordered by birth date and ID.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param after the cursor of the last User of the previous page, or null for the first page
+     * @param limit the maximum number of Users to return
+     * @return at most limit Users whose birth date is within the specified range
+     */
+    public Flux<User> findPageByBirthDateBetween(LocalDate from, LocalDate to, UserCursor after, int limit) {
+        if (after == null) {
+            return databaseClient.sql(FIND_PAGE)
+                    .bind(0, from)
+                    .bind(1, to)
+                    .bind(2, limit)
+                    .map(ReactiveUserRepository::toUser)
+                    .all();
+        }
+        return databaseClient.sql(FIND_PAGE_AFTER)
+                .bind(0, from)
+                .bind(1, to)
+                .bind(2, after.getBirthDate())
+                .bind(3, after.getId())
+                .bind(4, limit)
+                .map(ReactiveUserRepository::toUser)
+                .all();
+    }
+
+    /**
+     * Streams all Users whose birth date is within the specified range, ordered by birth date and ID.
+     * The rows are fetched from a portal fetchSize at a time, and the next rows are only fetched once the subscriber
+     * requests them, so a slow client holds back the database cursor instead of filling the memory.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param fetchSize the number of rows fetched at a time
+     * @return the Users whose birth date is within the specified range
+     */
+    public Flux<User> streamByBirthDateBetween(LocalDate from, LocalDate to, int fetchSize) {
+        return databaseClient.sql("select " + COLUMNS + " from users where birth_date between $1 and $2 " +
+                                  "order by birth_date, id")
+                .bind(0, from)
+                .bind(1, to)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveUserRepository::toUser)
+                .all();
+    }
+
+    /**
+     * Finds the first Users with a field that starts with the specified text.
+     *
+     * @param text the text to be matched
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of at most limit Users, in rank order
+     */
+    public Mono<long[]> findIdsByPrefix(String text, int limit) {
+        String prefix = text.toLowerCase(Locale.ROOT);
+        return findIds(UserSearchRepositoryImpl.FIND_BY_PREFIX, prefix, limit, UserSearchRepositoryImpl.prefixEnd(prefix));
+    }
+
+    /**
+     * Finds the first Users whose first or last name is similar to the specified text.
+     *
+     * @param text the text to be matched
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of at most limit Users, in rank order
+     */
+    public Mono<long[]> findIdsBySimilarity(String text, int limit) {
+        return findIds(UserSearchRepositoryImpl.FIND_BY_SIMILARITY, text.toLowerCase(Locale.ROOT), limit);
+    }
+
+    /**
+     * Runs a search statement of UserSearchRepositoryImpl.
+     *
+     * @param sql the statement, with JPA positional parameters
+     * @param text the text to be matched, the first parameter
+     * @param limit the maximum number of IDs to return, the second parameter
+     * @param more the following parameters
+     * @return the found IDs, in the order of the statement
+     */
+    private Mono<long[]> findIds(String sql, String text, int limit, Object... more) {
+        GenericExecuteSpec spec = databaseClient.sql(sql.replace('?', '$'))
+                .bind(0, text)
+                .bind(1, limit);
+        for (int i = 0; i < more.length; i++) {
+            spec = spec.bind(i + 2, more[i]);
+        }
+        return spec.map(row -> row.get("id", Long.class))
+                .all()
+                .collectList()
+                .map(ids -> ids.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    /**
+     * Binds a value that may be null.
+     *
+     * @param spec the statement
+     * @param index the index of the parameter
+     * @param value the value, or null
+     * @param type the type of the parameter
+     * @return the statement
+     */
+    private static GenericExecuteSpec bind(GenericExecuteSpec spec, int index, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(index, type) : spec.bind(index, value);
+    }
+
+    /**
+     * Maps a row with the columns of a User to a User.
+     *
+     * @param row the row
+     * @return the User
+     */
+    private static User toUser(Readable row) {
+        return new User(row.get("id", Long.class), row.get("email", String.class),
+                row.get("first_name", String.class), row.get("last_name", String.class),
+                row.get("birth_date", LocalDate.class), row.get("address", String.class),
+                row.get("phone_number", String.class), row.get("version", Long.class));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * UserBatchRepository is a repository fragment for writing many User entities at once.
+ * It is implemented by UserBatchRepositoryImpl and mixed into UserRepository by Spring Data.
+ */
+public interface UserBatchRepository {
+
+    /**
+     * Inserts the specified Users with a single JDBC batch and sets their generated IDs.
+     * Either all of the Users are inserted or none of them is.
+     *
+     * @param users the Users to be inserted
+     */
+    @Transactional
+    void insertAll(List<User> users);
+}
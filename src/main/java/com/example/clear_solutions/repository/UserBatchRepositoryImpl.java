@@ -0,0 +1,47 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.util.List;
+
+/**
+ * UserBatchRepositoryImpl is the implementation of the UserBatchRepository fragment.
+ * It persists Users through Hibernate with JDBC batching sized to the whole list,
+ * which is possible because User IDs come from a pooled sequence instead of an identity column.
+ */
+public class UserBatchRepositoryImpl implements UserBatchRepository {
+
+    /**
+     * The EntityManager used to persist the Users.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs a UserBatchRepositoryImpl with the specified EntityManager.
+     *
+     * @param entityManager the EntityManager to be used
+     */
+    public UserBatchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Inserts the specified Users with a single JDBC batch and sets their generated IDs.
+     * If the batch fails, the IDs are reset so that the Users can be inserted again.
+     *
+     * @param users the Users to be inserted
+     */
+    @Override
+    public void insertAll(List<User> users) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(users.size());
+        try {
+            users.forEach(entityManager::persist);
+            entityManager.flush();
+        } catch (RuntimeException e) {
+            users.forEach(user -> user.setId(null));
+            throw e;
+        }
+    }
+}
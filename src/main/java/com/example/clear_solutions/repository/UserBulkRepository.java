@@ -0,0 +1,88 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * UserBulkRepository is a repository fragment for updating and deleting many Users with set-based statements.
+ * Every method handles one bounded chunk in its own transaction, so a bulk operation made of many chunks
+ * never holds its row locks for long. It is implemented by UserBulkRepositoryImpl and mixed into UserRepository
+ * by Spring Data. A single User is deleted with the same kind of statement, so its birthdate is known
+ * without reading it first.
+ */
+public interface UserBulkRepository {
+
+    /**
+     * Deletes the User with the specified ID, if it has the specified version.
+     *
+     * @param id the ID of the User to be deleted
+     * @param version the version the User must have to be deleted, or null to delete any version
+     * @return the deleted User, or an empty Optional if no User has the ID and the version
+     */
+    @Transactional
+    Optional<ChangedUser> deleteOne(Long id, Long version);
+
+    /**
+     * Deletes the Users with the specified IDs.
+     *
+     * @param ids the IDs of the Users to be deleted
+     * @return the deleted Users
+     */
+    @Transactional
+    List<ChangedUser> deleteChunkByIds(Collection<Long> ids);
+
+    /**
+     * Deletes the first Users, in (birthdate, ID) order, whose birthdate is between the specified dates.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @param limit the maximum number of Users to delete
+     * @return the deleted Users
+     */
+    @Transactional
+    List<ChangedUser> deleteChunkByBirthDateBetween(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * Sets the non-null fields of the specified User on the Users with the specified IDs.
+     * Users already at the new values are skipped.
+     *
+     * @param ids the IDs of the Users to be updated
+     * @param updates a User object containing the fields to be set; at least one field must be non-null
+     * @return the updated Users
+     */
+    @Transactional
+    List<ChangedUser> updateChunkByIds(Collection<Long> ids, User updates);
+
+    /**
+     * Sets the non-null fields of the specified User on the first Users, in (birthdate, ID) order,
+     * whose birthdate is between the specified dates and that follow the specified key.
+     * Users already at the new values are skipped, so a User moved further into the range by an earlier chunk
+     * is not updated again.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @param afterBirthDate the birthdate of the last User of the previous chunk, or null for the first chunk
+     * @param afterId the ID of the last User of the previous chunk, or null for the first chunk
+     * @param updates a User object containing the fields to be set; at least one field must be non-null
+     * @param limit the maximum number of Users to update
+     * @return the updated Users
+     */
+    @Transactional
+    List<ChangedUser> updateChunkByBirthDateBetween(LocalDate from, LocalDate to, LocalDate afterBirthDate,
+                                                    Long afterId, User updates, int limit);
+
+    /**
+     * ChangedUser is a User touched by a bulk statement.
+     *
+     * @param id the ID of the User
+     * @param previousBirthDate the birthdate of the User before the statement
+     * @param birthDate the birthdate of the User after the statement, or null if it was deleted
+     */
+    record ChangedUser(Long id, LocalDate previousBirthDate, LocalDate birthDate) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * UserBulkRepositoryImpl is the implementation of the UserBulkRepository fragment.
+ * It issues PostgreSQL DELETE ... RETURNING and UPDATE ... RETURNING statements that return the key of every
+ * touched row, so the callers can keep their caches up to date without reading the rows.
+ * Range chunks are selected on the (birth_date, id) index and locked in that order.
+ */
+public class UserBulkRepositoryImpl implements UserBulkRepository {
+
+    /**
+     * The columns returned by a bulk statement, in the order of the ChangedUser constructor.
+     */
+    private static final String RETURNING = " returning u.id, chunk.birth_date as previous_birth_date, ";
+
+    /**
+     * The EntityManager used to run the statements.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs a UserBulkRepositoryImpl with the specified EntityManager.
+     *
+     * @param entityManager the EntityManager to be used
+     */
+    public UserBulkRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Deletes the User with the specified ID, if it has the specified version.
+     *
+     * @param id the ID of the User to be deleted
+     * @param version the version the User must have to be deleted, or null to delete any version
+     * @return the deleted User, or an empty Optional if no User has the ID and the version
+     */
+    @Override
+    public Optional<ChangedUser> deleteOne(Long id, Long version) {
+        String sql = "delete from users u where u.id = ?1" + (version != null ? " and u.version = ?2" : "") +
+                " returning u.id, u.birth_date as previous_birth_date, cast(null as date) as birth_date";
+        NativeQuery<Object[]> query = createQuery(sql).setParameter(1, id);
+        if (version != null) {
+            query.setParameter(2, version);
+        }
+        return run(query).stream().findFirst();
+    }
+
+    /**
+     * Deletes the Users with the specified IDs, locking them in ID order.
+     *
+     * @param ids the IDs of the Users to be deleted
+     * @return the deleted Users
+     */
+    @Override
+    public List<ChangedUser> deleteChunkByIds(Collection<Long> ids) {
+        String sql = "delete from users u using (select id, birth_date from users where id in (?1) " +
+                "order by id for update) chunk where u.id = chunk.id" + RETURNING + "cast(null as date) as birth_date";
+        return run(createQuery(sql).setParameter(1, ids));
+    }
+
+    /**
+     * Deletes the first Users, in (birthdate, ID) order, whose birthdate is between the specified dates.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @param limit the maximum number of Users to delete
+     * @return the deleted Users
+     */
+    @Override
+    public List<ChangedUser> deleteChunkByBirthDateBetween(LocalDate from, LocalDate to, int limit) {
+        String sql = "delete from users u using (select id, birth_date from users where birth_date between ?1 and ?2 " +
+                "order by birth_date, id limit ?3 for update) chunk where u.id = chunk.id" + RETURNING +
+                "cast(null as date) as birth_date";
+        return run(createQuery(sql).setParameter(1, from).setParameter(2, to).setParameter(3, limit));
+    }
+
+    /**
+     * Sets the non-null fields of the specified User on the Users with the specified IDs, locking them in ID order.
+     * Users already at the new values are skipped, so they are neither counted nor given a new version.
+     *
+     * @param ids the IDs of the Users to be updated
+     * @param updates a User object containing the fields to be set; at least one field must be non-null
+     * @return the updated Users
+     */
+    @Override
+    public List<ChangedUser> updateChunkByIds(Collection<Long> ids, User updates) {
+        UserSetClause setClause = new UserSetClause(updates);
+        int idsParameter = setClause.parameterCount() + 1;
+        StringBuilder sql = setClause.appendTo(new StringBuilder("update users u"))
+                .append(" from (select id, birth_date from users where id in (?").append(idsParameter).append(")");
+        setClause.appendChangedCondition(sql).append(" order by id for update) chunk where u.id = chunk.id")
+                .append(RETURNING).append("u.birth_date");
+        NativeQuery<Object[]> query = createQuery(sql.toString());
+        setClause.bind(query);
+        return run(query.setParameter(idsParameter, ids));
+    }
+
+    /**
+     * Sets the non-null fields of the specified User on the first Users, in (birthdate, ID) order,
+     * whose birthdate is between the specified dates and that follow the specified key.
+     * Users already at the new values are skipped, so a User moved further into the range by an earlier chunk
+     * is not updated again.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @param afterBirthDate the birthdate of the last User of the previous chunk, or null for the first chunk
+     * @param afterId the ID of the last User of the previous chunk, or null for the first chunk
+     * @param updates a User object containing the fields to be set; at least one field must be non-null
+     * @param limit the maximum number of Users to update
+     * @return the updated Users
+     */
+    @Override
+    public List<ChangedUser> updateChunkByBirthDateBetween(LocalDate from, LocalDate to, LocalDate afterBirthDate,
+                                                           Long afterId, User updates, int limit) {
+        UserSetClause setClause = new UserSetClause(updates);
+        int fromParameter = setClause.parameterCount() + 1;
+        StringBuilder sql = setClause.appendTo(new StringBuilder("update users u"))
+                .append(" from (select id, birth_date from users where birth_date between ?").append(fromParameter)
+                .append(" and ?").append(fromParameter + 1);
+        if (afterBirthDate != null) {
+            sql.append(" and (birth_date, id) > (?").append(fromParameter + 3)
+                    .append(", ?").append(fromParameter + 4).append(")");
+        }
+        setClause.appendChangedCondition(sql).append(" order by birth_date, id limit ?").append(fromParameter + 2)
+                .append(" for update) chunk where u.id = chunk.id")
+                .append(RETURNING).append("u.birth_date");
+        NativeQuery<Object[]> query = createQuery(sql.toString());
+        setClause.bind(query);
+        query.setParameter(fromParameter, from)
+                .setParameter(fromParameter + 1, to)
+                .setParameter(fromParameter + 2, limit);
+        if (afterBirthDate != null) {
+            query.setParameter(fromParameter + 3, afterBirthDate).setParameter(fromParameter + 4, afterId);
+        }
+        return run(query);
+    }
+
+    /**
+     * Creates a native query that returns the columns of a ChangedUser.
+     *
+     * @param sql the statement
+     * @return the query
+     */
+    @SuppressWarnings("unchecked")
+    private NativeQuery<Object[]> createQuery(String sql) {
+        return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("previous_birth_date", LocalDate.class)
+                .addScalar("birth_date", LocalDate.class);
+    }
+
+    /**
+     * Runs a bulk statement and evicts the touched Users from the Hibernate second-level cache,
+     * which the statement bypasses.
+     *
+     * @param query the query of the statement
+     * @return the touched Users
+     */
+    private List<ChangedUser> run(NativeQuery<Object[]> query) {
+        List<ChangedUser> changedUsers = query.getResultList().stream()
+                .map(row -> new ChangedUser((Long) row[0], (LocalDate) row[1], (LocalDate) row[2]))
+                .toList();
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        for (ChangedUser changedUser : changedUsers) {
+            cache.evict(User.class, changedUser.id());
+        }
+        return changedUsers;
+    }
+}
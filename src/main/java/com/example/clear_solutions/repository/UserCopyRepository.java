@@ -0,0 +1,46 @@
+package com.example.clear_solutions.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * UserCopyRepository is a repository fragment for loading large numbers of new Users with PostgreSQL COPY.
+ * The rows are copied into a temporary staging table and inserted from there in one statement, so a row
+ * the database refuses, such as one with an email that is already taken, is reported instead of failing the batch.
+ * It is implemented by UserCopyRepositoryImpl and mixed into UserRepository by Spring Data.
+ */
+public interface UserCopyRepository {
+
+    /**
+     * Reserves IDs for new Users from the users_seq sequence, in the blocks the User entity allocates them in,
+     * so the reserved IDs never collide with IDs assigned by Hibernate.
+     *
+     * @param count the number of IDs to reserve
+     * @return the reserved IDs
+     */
+    @Transactional
+    long[] reserveIds(int count);
+
+    /**
+     * Inserts a batch of Users given as PostgreSQL CSV rows.
+     *
+     * @param batch the rows of the Users
+     * @param ids the ID of every row of the batch, as returned by {@link #reserveIds(int)}
+     * @return the line numbers of the rows the database refused because they conflict with an existing User,
+     *         in ascending order
+     */
+    @Transactional
+    long[] copyUsers(CopyBatch batch, long[] ids);
+
+    /**
+     * CopyBatch is a batch of Users in the CSV format of PostgreSQL COPY.
+     * Every row holds the columns line, email, first_name, last_name, birth_date, address and phone_number
+     * and ends with a line feed, where line is the line number the row had in its source; an empty unquoted
+     * column is NULL. Row i ends before rowEnds[i] and starts where row i - 1 ends, or at 0.
+     *
+     * @param data the bytes of the rows
+     * @param rowEnds the end offset of every row in data
+     * @param rowCount the number of rows
+     */
+    record CopyBatch(byte[] data, int[] rowEnds, int rowCount) {
+    }
+}
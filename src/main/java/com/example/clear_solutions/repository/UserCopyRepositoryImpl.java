@@ -0,0 +1,204 @@
+package com.example.clear_solutions.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * UserCopyRepositoryImpl is the implementation of the UserCopyRepository fragment.
+ * A batch is streamed with COPY into the session-local "user_import" table and moved into "users"
+ * with ON CONFLICT DO NOTHING; the rows that were not inserted are returned by line.
+ * The staging table has unbounded text columns, so the rows must fit the columns of "users" before they are copied.
+ */
+public class UserCopyRepositoryImpl implements UserCopyRepository {
+
+    /**
+     * The statement that creates the staging table once per database session.
+     */
+    private static final String CREATE_STAGING_TABLE = "create temporary table if not exists user_import " +
+            "(id bigint not null, line bigint not null, email text, first_name text, last_name text, " +
+            "birth_date date, address text, phone_number text) on commit delete rows";
+
+    /**
+     * The statement that copies a batch into the staging table.
+     */
+    private static final String COPY = "copy user_import (id, line, email, first_name, last_name, birth_date, " +
+            "address, phone_number) from stdin with (format csv)";
+
+    /**
+     * The statement that moves the staged rows into "users" and returns the lines of the rows that were not inserted.
+     * It empties the staging table, so several batches may be copied in one transaction.
+     */
+    private static final String INSERT = "with staged as (delete from user_import returning *), " +
+            "inserted as (insert into users (id, email, first_name, last_name, birth_date, address, phone_number) " +
+            "select id, email, first_name, last_name, birth_date, address, phone_number from staged " +
+            "on conflict do nothing returning id) " +
+            "select line from staged s where not exists (select 1 from inserted i where i.id = s.id) order by line";
+
+    /**
+     * The size of the buffer the rows are handed to the COPY stream in.
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The longest row prefix written in front of a row: a bigint and a comma.
+     */
+    private static final int MAX_ID_LENGTH = 21;
+
+    /**
+     * The EntityManager used to run the statements.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * The increment of users_seq, read from the database on first use; 0 until then.
+     */
+    private volatile int sequenceIncrement;
+
+    /**
+     * Constructs a UserCopyRepositoryImpl with the specified EntityManager.
+     *
+     * @param entityManager the EntityManager to be used
+     */
+    public UserCopyRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Reserves IDs by calling nextval once per block of the sequence increment.
+     * Like Hibernate's pooled optimizer, every value v returned by the sequence reserves the IDs v - increment + 1 to v.
+     *
+     * @param count the number of IDs to reserve
+     * @return the reserved IDs
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public long[] reserveIds(int count) {
+        int increment = sequenceIncrement();
+        int blocks = (count + increment - 1) / increment;
+        List<Number> blockEnds = entityManager
+                .createNativeQuery("select nextval('users_seq') from generate_series(1, ?1)")
+                .setParameter(1, blocks)
+                .getResultList();
+        long[] ids = new long[count];
+        int i = 0;
+        for (Number blockEnd : blockEnds) {
+            for (long id = blockEnd.longValue() - increment + 1; id <= blockEnd.longValue() && i < count; id++) {
+                ids[i++] = id;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Copies the batch into the staging table, writing the reserved ID in front of every row,
+     * and inserts the staged rows into "users".
+     *
+     * @param batch the rows of the Users
+     * @param ids the ID of every row of the batch
+     * @return the line numbers of the rows that were not inserted, in ascending order
+     */
+    @Override
+    public long[] copyUsers(CopyBatch batch, long[] ids) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_TABLE);
+            }
+            copy(connection, batch, ids);
+            try (Statement statement = connection.createStatement();
+                 ResultSet refused = statement.executeQuery(INSERT)) {
+                long[] lines = new long[16];
+                int count = 0;
+                while (refused.next()) {
+                    if (count == lines.length) {
+                        lines = Arrays.copyOf(lines, count * 2);
+                    }
+                    lines[count++] = refused.getLong(1);
+                }
+                return Arrays.copyOf(lines, count);
+            }
+        });
+    }
+
+    /**
+     * Streams the rows of a batch to a COPY into the staging table.
+     *
+     * @param connection the connection of the current transaction
+     * @param batch the rows of the Users
+     * @param ids the ID of every row of the batch
+     * @throws SQLException if the copy fails
+     */
+    private static void copy(Connection connection, CopyBatch batch, long[] ids) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY);
+        try {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int length = 0;
+            int rowStart = 0;
+            for (int i = 0; i < batch.rowCount(); i++) {
+                int rowEnd = batch.rowEnds()[i];
+                if (length + MAX_ID_LENGTH + rowEnd - rowStart > buffer.length) {
+                    copyIn.writeToCopy(buffer, 0, length);
+                    length = 0;
+                }
+                if (MAX_ID_LENGTH + rowEnd - rowStart > buffer.length) {
+                    buffer = new byte[MAX_ID_LENGTH + rowEnd - rowStart];
+                }
+                length = writeId(buffer, length, ids[i]);
+                buffer[length++] = ',';
+                System.arraycopy(batch.data(), rowStart, buffer, length, rowEnd - rowStart);
+                length += rowEnd - rowStart;
+                rowStart = rowEnd;
+            }
+            copyIn.writeToCopy(buffer, 0, length);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Writes the decimal digits of a positive ID into a buffer.
+     *
+     * @param buffer the buffer
+     * @param offset the offset the digits are written at
+     * @param id the ID
+     * @return the offset after the digits
+     */
+    private static int writeId(byte[] buffer, int offset, long id) {
+        int digits = 1;
+        for (long rest = id / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (byte) ('0' + id % 10);
+            id /= 10;
+        }
+        return offset + digits;
+    }
+
+    /**
+     * Gets the increment of users_seq, which is the number of IDs every call to nextval reserves.
+     *
+     * @return the increment of the sequence
+     */
+    private int sequenceIncrement() {
+        int increment = sequenceIncrement;
+        if (increment == 0) {
+            Number value = (Number) entityManager.createNativeQuery("select increment_by from pg_sequences " +
+                    "where schemaname = current_schema() and sequencename = 'users_seq'").getSingleResult();
+            increment = value.intValue();
+            sequenceIncrement = increment;
+        }
+        return increment;
+    }
+}
@@ -1,26 +1,174 @@
 package com.example.clear_solutions.repository;
 
 import com.example.clear_solutions.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * UserRepository is a Spring Data JPA repository for User entities.
  * It extends JpaRepository, which provides JPA related methods such as save(), findOne(), findAll(), count(), delete() etc.
- * It also declares a custom method to find Users by a range of birth dates.
+ * It also declares custom methods that find Users by a range of birth dates, page by page or as a stream, and by IDs.
+ * These methods return Users that are not managed.
+ * Other custom methods count the Users by birth date and read their (birth date, ID) keys.
+ * Batch inserts come from the UserBatchRepository fragment and single-statement updates from UserUpdateRepository.
+ * Chunked bulk statements come from UserBulkRepository, COPY loads from UserCopyRepository
+ * and searches by name and email from UserSearchRepository.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserBatchRepository,
+        UserUpdateRepository, UserBulkRepository, UserCopyRepository, UserSearchRepository {
 
     /**
-     * Finds Users whose birthdate is between the specified from and to dates.
+     * The start of the queries that read Users without managing them: the columns are passed to the constructor
+     * of User, so Hibernate neither registers the Users in the persistence context nor keeps a snapshot of their
+     * state to check them for changes. Read paths only copy Users into caches and responses, so they use these
+     * queries rather than loading entities.
+     */
+    String SELECT_USERS = "select new com.example.clear_solutions.model.User(u.id, u.email, u.firstName, " +
+                          "u.lastName, u.birthDate, u.address, u.phoneNumber, u.version) from User u ";
+
+    /**
+     * Finds a User by ID. Unlike the inherited method, which opens a read-only transaction, it opens a read-write one,
+     * so a lookup made on the way to a write, such as the one before a delete, reads the primary rather than
+     * a replica that may lag behind. Called from a read-only transaction, it joins it and may read a replica.
+     *
+     * @param id the ID of the User
+     * @return the User, or an empty Optional if there is no User with the ID
+     */
+    @Override
+    @Transactional
+    Optional<User> findById(Long id);
+
+    /**
+     * Checks whether a User exists, in a read-write transaction for the same reason as findById.
+     *
+     * @param id the ID of the User
+     * @return true if there is a User with the ID
+     */
+    @Override
+    @Transactional
+    boolean existsById(Long id);
+
+    /**
+     * Finds the first page of Users whose birthdate is between the specified from and to dates.
+     * The Users are ordered by birthdate and ID, which is the key used to fetch the following pages,
+     * and are not managed.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @param limit the maximum number of Users to return
+     * @return a list of at most limit Users whose birthdate is between the specified from and to dates
+     */
+    @Query(SELECT_USERS + "where u.birthDate between :from and :to order by u.birthDate, u.id")
+    List<User> findPageByBirthDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to, Limit limit);
+
+    /**
+     * Finds the page of Users whose birthdate is between the specified from and to dates
+     * and that come after the specified birthdate and ID in (birthdate, ID) order.
+     * The key is compared as a row value, which PostgreSQL uses as a condition of the (birth_date, id) index,
+     * so the scan starts at the key instead of filtering every earlier row of the range. The Users are not managed.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @param afterBirthDate the birthdate of the last User of the previous page
+     * @param afterId the ID of the last User of the previous page
+     * @param limit the maximum number of Users to return
+     * @return a list of at most limit Users that follow the specified key
+     */
+    @Query(SELECT_USERS + "where u.birthDate between :from and :to " +
+           "and (u.birthDate, u.id) > (:afterBirthDate, :afterId) order by u.birthDate, u.id")
+    List<User> findPageByBirthDateBetweenAfter(@Param("from") LocalDate from,
+                                              @Param("to") LocalDate to,
+                                              @Param("afterBirthDate") LocalDate afterBirthDate,
+                                              @Param("afterId") Long afterId,
+                                              Limit limit);
+
+    /**
+     * Streams Users whose birthdate is between the specified from and to dates, ordered by birthdate and ID.
+     * The rows are fetched from a cursor, so the stream must be consumed inside a transaction and closed.
+     * The Users are not managed, so the persistence context does not grow however many of them are read.
      *
      * @param from the start of the birthdate range
      * @param to the end of the birthdate range
-     * @return a list of Users whose birthdate is between the specified from and to dates
+     * @return a stream of Users whose birthdate is between the specified from and to dates
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_USERS + "where u.birthDate between :from and :to order by u.birthDate, u.id")
+    Stream<User> streamByBirthDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Finds the Users with the specified IDs, without managing them.
+     *
+     * @param ids the IDs of the Users
+     * @return the Users that exist, in no particular order
+     */
+    @Query(SELECT_USERS + "where u.id in :ids")
+    List<User> findAllUnmanagedByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts the Users per birth date. The grouping is done by the database, so one row per distinct
+     * birth date is read rather than one per User.
+     *
+     * @return the number of Users per birth date, in no particular order
+     */
+    @Query("select new com.example.clear_solutions.repository.UserRepository$BirthDateCount(u.birthDate, count(u)) " +
+           "from User u group by u.birthDate")
+    List<BirthDateCount> countByBirthDate();
+
+    /**
+     * Finds the first chunk of (birth date, ID) keys of all Users, in that order.
+     * The keys are read from the (birth_date, id) index without touching the rows.
+     *
+     * @param limit the maximum number of keys to return
+     * @return a list of at most limit keys
+     */
+    @Query("select new com.example.clear_solutions.repository.UserRepository$BirthDateKey(u.birthDate, u.id) " +
+           "from User u order by u.birthDate, u.id")
+    List<BirthDateKey> findBirthDateKeys(Limit limit);
+
+    /**
+     * Finds the chunk of (birth date, ID) keys of all Users that follows the specified key, in that order.
+     * As in findPageByBirthDateBetweenAfter, the row value comparison lets the scan start at the key.
+     *
+     * @param afterBirthDate the birthdate of the last key of the previous chunk
+     * @param afterId the ID of the last key of the previous chunk
+     * @param limit the maximum number of keys to return
+     * @return a list of at most limit keys that follow the specified key
+     */
+    @Query("select new com.example.clear_solutions.repository.UserRepository$BirthDateKey(u.birthDate, u.id) " +
+           "from User u where (u.birthDate, u.id) > (:afterBirthDate, :afterId) order by u.birthDate, u.id")
+    List<BirthDateKey> findBirthDateKeysAfter(@Param("afterBirthDate") LocalDate afterBirthDate,
+                                              @Param("afterId") Long afterId,
+                                              Limit limit);
+
+    /**
+     * BirthDateKey is the (birth date, ID) key of a User, by which birth date range searches are ordered.
+     *
+     * @param birthDate the birth date of the User
+     * @param id the ID of the User
+     */
+    record BirthDateKey(LocalDate birthDate, Long id) {
+    }
+
+    /**
+     * BirthDateCount is the number of Users born on one day.
+     *
+     * @param birthDate the birth date
+     * @param users the number of Users born on it
      */
-    List<User> findByBirthDateBetween(LocalDate from, LocalDate to);
-}
\ No newline at end of file
+    record BirthDateCount(LocalDate birthDate, long users) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.clear_solutions.repository;
+
+/**
+ * UserSearchRepository is a repository fragment for finding Users by their email, first name or last name.
+ * A search text is matched case-insensitively, as the prefix of a field or as a name similar to the first
+ * or last name, and only the IDs of the matching Users are returned, so the Users can be read through the UserCache.
+ * It is implemented by UserSearchRepositoryImpl and mixed into UserRepository by Spring Data.
+ */
+public interface UserSearchRepository {
+
+    /**
+     * Finds the first Users with a field that starts with the specified text, ordered by the lowest of their
+     * matching fields in binary order and then by ID, so a field equal to the text comes first.
+     *
+     * @param text the text to be matched
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of at most limit Users, in rank order
+     */
+    long[] findIdsByPrefix(String text, int limit);
+
+    /**
+     * Finds the first Users whose first or last name is similar to the specified text,
+     * ordered by the highest similarity of their names and then by ID.
+     *
+     * @param text the text to be matched
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of at most limit Users, in rank order
+     */
+    long[] findIdsBySimilarity(String text, int limit);
+}
@@ -0,0 +1,139 @@
+package com.example.clear_solutions.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+
+import java.util.Locale;
+
+/**
+ * UserSearchRepositoryImpl is the implementation of the UserSearchRepository fragment.
+ * Prefix searches read each field from its ("C" collated lower-case value, id) index, which yields the matches
+ * already in rank order, so every field costs one short index-only range scan whatever the size of the table.
+ * A prefix is matched as the range from the prefix up to the prefix with its last character incremented,
+ * which, unlike a LIKE pattern given as a parameter, is an index range even in a generic plan; in the "C" collation
+ * strings are ordered by code point, so that range holds exactly the strings that start with the prefix.
+ * Similarity searches look the text up in the pg_trgm GIN index of the distinct names, the user_search_terms table
+ * maintained by a trigger, with the similarity operator, whose threshold is set by the "pg_trgm.similarity_threshold"
+ * setting of the database, and read the Users of every similar name from the prefix indexes.
+ * The text is lower-cased in the root locale, which agrees with the lower() of the database for letters
+ * that have a single lower-case form.
+ */
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    /**
+     * The statement that finds the first Users by prefix: the first matches of every field, in index order,
+     * merged by the lowest match of every User.
+     * Its parameters are the prefix, the limit and the end of the prefix range.
+     */
+    static final String FIND_BY_PREFIX = "select id from (" +
+            prefixMatches("email") + " union all " +
+            prefixMatches("first_name") + " union all " +
+            prefixMatches("last_name") +
+            ") matches group by id order by min(value), id limit ?2";
+
+    /**
+     * The statement that finds the first Users by similar names: the most similar distinct names, each followed
+     * by its first Users from the prefix indexes, merged by the most similar name of every User.
+     * Its parameters are the text and the limit, which bounds the number of names as well.
+     */
+    static final String FIND_BY_SIMILARITY = "with similar_terms as (select term, similarity(?1, term) as score " +
+            "from user_search_terms where term % ?1 order by score desc, term limit ?2) " +
+            "select id from (" + namedUsers("first_name") + " union all " + namedUsers("last_name") + ") matches " +
+            "group by id order by max(score) desc, id limit ?2";
+
+    /**
+     * The EntityManager used to run the statements.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs a UserSearchRepositoryImpl with the specified EntityManager.
+     *
+     * @param entityManager the EntityManager to be used
+     */
+    public UserSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Finds the first Users with a field that starts with the specified text.
+     *
+     * @param text the text to be matched
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of at most limit Users, in rank order
+     */
+    @Override
+    public long[] findIdsByPrefix(String text, int limit) {
+        String prefix = text.toLowerCase(Locale.ROOT);
+        return findIds(FIND_BY_PREFIX, prefix, limit, prefixEnd(prefix));
+    }
+
+    /**
+     * Finds the first Users whose first or last name is similar to the specified text.
+     *
+     * @param text the text to be matched
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of at most limit Users, in rank order
+     */
+    @Override
+    public long[] findIdsBySimilarity(String text, int limit) {
+        return findIds(FIND_BY_SIMILARITY, text.toLowerCase(Locale.ROOT), limit);
+    }
+
+    /**
+     * Computes the end of the range of the strings that start with a lower-case prefix:
+     * the prefix with its last code point incremented, skipping the surrogates.
+     *
+     * @param prefix the lower-case prefix
+     * @return the first string after the range
+     */
+    static String prefixEnd(String prefix) {
+        int last = prefix.codePointBefore(prefix.length());
+        int next = last == Character.MIN_SURROGATE - 1 ? Character.MAX_SURROGATE + 1 : last + 1;
+        return prefix.substring(0, prefix.length() - Character.charCount(last)) + Character.toString(next);
+    }
+
+    /**
+     * Builds the subquery that finds the first matches of one field by prefix, with the matched value.
+     *
+     * @param column the column of the field
+     * @return the subquery
+     */
+    private static String prefixMatches(String column) {
+        String value = "(lower(" + column + ") collate \"C\")";
+        return "(select id, " + value + " as value from users where " + value + " >= ?1 and " + value + " < ?3 " +
+                "order by " + value + ", id limit ?2)";
+    }
+
+    /**
+     * Builds the subquery that finds the first Users of every similar name by one field, with the similarity.
+     *
+     * @param column the column of the field
+     * @return the subquery
+     */
+    private static String namedUsers(String column) {
+        return "select named.id, similar_terms.score from similar_terms cross join lateral (select id from users " +
+                "where (lower(" + column + ") collate \"C\") = similar_terms.term order by id limit ?2) named";
+    }
+
+    /**
+     * Runs a search statement.
+     *
+     * @param sql the statement
+     * @param text the text to be matched, the first parameter
+     * @param limit the maximum number of IDs to return, the second parameter
+     * @param more the following parameters
+     * @return the found IDs, in the order of the statement
+     */
+    @SuppressWarnings("unchecked")
+    private long[] findIds(String sql, String text, int limit, Object... more) {
+        NativeQuery<Long> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .setParameter(1, text)
+                .setParameter(2, limit);
+        for (int i = 0; i < more.length; i++) {
+            query.setParameter(i + 3, more[i]);
+        }
+        return query.getResultList().stream().mapToLong(Long::longValue).toArray();
+    }
+}
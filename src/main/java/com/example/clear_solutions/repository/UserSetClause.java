@@ -0,0 +1,114 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UserSetClause is the SET clause of a native UPDATE of the "users" table (aliased "u") for the non-null fields
+ * of a User. The new values are bound to the first positional parameters, in the order of the columns,
+ * and the version of every updated row is incremented.
+ */
+class UserSetClause {
+
+    /**
+     * The columns to be set.
+     */
+    private final List<String> columns = new ArrayList<>(6);
+
+    /**
+     * The new values of the columns, in the order of the columns.
+     */
+    private final List<Object> values = new ArrayList<>(6);
+
+    /**
+     * Constructs the UserSetClause for the non-null fields of the specified User.
+     *
+     * @param updates a User object containing the fields to be set
+     * @throws IllegalArgumentException if all fields are null
+     */
+    UserSetClause(User updates) {
+        addColumn("email", updates.getEmail());
+        addColumn("first_name", updates.getFirstName());
+        addColumn("last_name", updates.getLastName());
+        addColumn("birth_date", updates.getBirthDate());
+        addColumn("address", updates.getAddress());
+        addColumn("phone_number", updates.getPhoneNumber());
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be updated");
+        }
+    }
+
+    /**
+     * Returns the number of parameters the clause binds; the rest of the statement uses the parameters after them.
+     *
+     * @return the number of bound parameters
+     */
+    int parameterCount() {
+        return values.size();
+    }
+
+    /**
+     * Returns the new values of the columns, in the order of their parameters.
+     *
+     * @return the new values
+     */
+    List<Object> values() {
+        return values;
+    }
+
+    /**
+     * Appends the clause, including the SET keyword, to an UPDATE statement.
+     *
+     * @param sql the statement to be appended to
+     * @return the statement
+     */
+    StringBuilder appendTo(StringBuilder sql) {
+        sql.append(" set ");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(columns.get(i)).append(" = ?").append(i + 1).append(", ");
+        }
+        return sql.append("version = u.version + 1");
+    }
+
+    /**
+     * Appends the condition that a row differs from the new values in at least one column,
+     * reusing the parameters of the clause, to the WHERE clause of a statement.
+     *
+     * @param sql the statement to be appended to
+     * @return the statement
+     */
+    StringBuilder appendChangedCondition(StringBuilder sql) {
+        sql.append(" and (").append(String.join(", ", columns)).append(") is distinct from (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?").append(i + 1);
+        }
+        return sql.append(")");
+    }
+
+    /**
+     * Binds the new values to the parameters of the clause.
+     *
+     * @param query the query of the statement
+     */
+    void bind(Query query) {
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter(i + 1, values.get(i));
+        }
+    }
+
+    /**
+     * Adds a column to the clause if its new value is not null.
+     *
+     * @param column the name of the column
+     * @param value the new value of the column, or null to leave it unchanged
+     */
+    private void addColumn(String column, Object value) {
+        if (value != null) {
+            columns.add(column);
+            values.add(value);
+        }
+    }
+}
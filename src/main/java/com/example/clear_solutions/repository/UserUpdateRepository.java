@@ -0,0 +1,36 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * UserUpdateRepository is a repository fragment for updating a User without loading it first.
+ * It is implemented by UserUpdateRepositoryImpl and mixed into UserRepository by Spring Data.
+ */
+public interface UserUpdateRepository {
+
+    /**
+     * Updates the non-null fields of the specified User with a single statement and returns the updated row.
+     * Fields that are null in the updates are left unchanged; the version is incremented.
+     *
+     * @param id the ID of the User to be updated
+     * @param updates a User object containing the fields to be updated; at least one field must be non-null
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
+     * @return the updated User and its previous birth date, or an empty Optional if no User with the ID
+     *         and the expected version exists
+     */
+    @Transactional
+    Optional<UpdatedUser> updateFields(Long id, User updates, Long expectedVersion);
+
+    /**
+     * UpdatedUser is the outcome of an update.
+     *
+     * @param user the User as stored after the update
+     * @param previousBirthDate the birth date of the User before the update
+     */
+    record UpdatedUser(User user, LocalDate previousBirthDate) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * UserUpdateRepositoryImpl is the implementation of the UserUpdateRepository fragment.
+ * It issues one PostgreSQL UPDATE ... RETURNING that sets only the changed columns,
+ * so an update takes a single round trip and no entity is loaded or dirty checked.
+ */
+public class UserUpdateRepositoryImpl implements UserUpdateRepository {
+
+    /**
+     * The columns returned by an update, in the order of the User constructor.
+     */
+    private static final String RETURNING = " returning u.id, u.email, u.first_name, u.last_name, u.birth_date, " +
+            "u.address, u.phone_number, u.version";
+
+    /**
+     * The EntityManager used to run the update.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs a UserUpdateRepositoryImpl with the specified EntityManager.
+     *
+     * @param entityManager the EntityManager to be used
+     */
+    public UserUpdateRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Updates the non-null fields of the specified User with a single statement and returns the updated row.
+     * When the birth date changes, the row is locked by a sub-select that also returns the previous birth date,
+     * so the previous value is the one the update replaced even under concurrent updates.
+     * The version is incremented by the same statement and, if an expected version is given, checked by it.
+     * The User is evicted from the Hibernate second-level cache, which the statement bypasses.
+     *
+     * @param id the ID of the User to be updated
+     * @param updates a User object containing the fields to be updated; at least one field must be non-null
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
+     * @return the updated User and its previous birth date, or an empty Optional if no User with the ID
+     *         and the expected version exists
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<UpdatedUser> updateFields(Long id, User updates, Long expectedVersion) {
+        UserSetClause setClause = new UserSetClause(updates);
+        boolean birthDateChanges = updates.getBirthDate() != null;
+        int idParameter = setClause.parameterCount() + 1;
+        String sql = updateSql(setClause, birthDateChanges, expectedVersion != null);
+
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("email", String.class)
+                .addScalar("first_name", String.class)
+                .addScalar("last_name", String.class)
+                .addScalar("birth_date", LocalDate.class)
+                .addScalar("address", String.class)
+                .addScalar("phone_number", String.class)
+                .addScalar("version", Long.class);
+        if (birthDateChanges) {
+            query.addScalar("previous_birth_date", LocalDate.class);
+        }
+        setClause.bind(query);
+        query.setParameter(idParameter, id);
+        if (expectedVersion != null) {
+            query.setParameter(idParameter + 1, expectedVersion);
+        }
+        List<Object[]> rows = query.getResultList();
+        entityManager.getEntityManagerFactory().getCache().evict(User.class, id);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Object[] row = rows.get(0);
+        User user = new User((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (LocalDate) row[4],
+                (String) row[5], (String) row[6], (Long) row[7]);
+        LocalDate previousBirthDate = birthDateChanges ? (LocalDate) row[8] : user.getBirthDate();
+        return Optional.of(new UpdatedUser(user, previousBirthDate));
+    }
+
+    /**
+     * Builds the statement of an update. The new values are the first parameters, followed by the ID and,
+     * if a version is expected, the version. It returns the columns of the User and, when the birth date changes,
+     * the previous birth date as "previous_birth_date".
+     *
+     * @param setClause the SET clause of the update
+     * @param birthDateChanges whether the update sets the birth date
+     * @param versioned whether the update is conditional on the version of the User
+     * @return the statement, with JPA positional parameters
+     */
+    static String updateSql(UserSetClause setClause, boolean birthDateChanges, boolean versioned) {
+        StringBuilder sql = setClause.appendTo(new StringBuilder("update users u"));
+        int idParameter = setClause.parameterCount() + 1;
+        if (birthDateChanges) {
+            sql.append(" from (select id, birth_date from users where id = ?").append(idParameter)
+                    .append(" for update) previous where u.id = previous.id");
+        } else {
+            sql.append(" where u.id = ?").append(idParameter);
+        }
+        if (versioned) {
+            sql.append(" and u.version = ?").append(idParameter + 1);
+        }
+        sql.append(RETURNING);
+        if (birthDateChanges) {
+            sql.append(", previous.birth_date as previous_birth_date");
+        }
+        return sql.toString();
+    }
+}
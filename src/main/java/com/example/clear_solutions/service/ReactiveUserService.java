@@ -0,0 +1,103 @@
+package com.example.clear_solutions.service;
+
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.model.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReactiveUserService is the non-blocking counterpart of UserService, used by the reactive profile.
+ * It declares the methods of the user resource: creating, updating, deleting and finding Users.
+ * Nothing happens until the returned publishers are subscribed to, and errors are signalled rather than thrown.
+ */
+public interface ReactiveUserService {
+
+    /**
+     * Creates a new User.
+     *
+     * @param user the User to be created
+     * @return the created User
+     */
+    Mono<User> createUser(User user);
+
+    /**
+     * Creates the specified Users, validating each of them on its own and persisting the valid ones in chunks.
+     *
+     * @param users the Users to be created
+     * @return a map from the index of every User that was not created to the reason it was rejected
+     */
+    Mono<Map<Integer, String>> createUsers(List<User> users);
+
+    /**
+     * Finds a User by ID.
+     *
+     * @param id the ID of the User
+     * @return the User
+     */
+    Mono<User> findUserById(Long id);
+
+    /**
+     * Updates the specified fields of an existing User.
+     *
+     * @param id the ID of the User to be updated
+     * @param userUpdates a User object containing the fields to be updated
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
+     * @return the updated User
+     */
+    Mono<User> updateUserFields(Long id, User userUpdates, Long expectedVersion);
+
+    /**
+     * Updates all fields of an existing User.
+     *
+     * @param id the ID of the User to be updated
+     * @param userUpdates a User object containing the updated fields
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
+     * @return the updated User
+     */
+    Mono<User> updateAllUserFields(Long id, User userUpdates, Long expectedVersion);
+
+    /**
+     * Deletes a User.
+     *
+     * @param id the ID of the User to be deleted
+     * @param expectedVersion the version the User must have to be deleted, or null to delete any version
+     * @return a Mono that completes when the User is deleted
+     */
+    Mono<Void> deleteUser(Long id, Long expectedVersion);
+
+    /**
+     * Finds one page of Users whose birthdate is within the specified range, ordered by birthdate and ID.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @param after the cursor of the last User of the previous page, or null for the first page
+     * @param limit the maximum number of Users to return
+     * @return at most limit Users whose birthdate is within the specified range
+     */
+    Flux<User> findUsersByBirthDateRange(LocalDate from, LocalDate to, UserCursor after, int limit);
+
+    /**
+     * Finds one page of Users whose email, first name or last name starts with the specified text,
+     * or whose first or last name is similar to it, ordered by relevance.
+     *
+     * @param text the text to be matched
+     * @param offset the number of matching Users to skip
+     * @param limit the maximum number of Users to return
+     * @return at most limit Users that match the text
+     */
+    Flux<User> findUsersByText(String text, int offset, int limit);
+
+    /**
+     * Streams all Users whose birthdate is within the specified range, ordered by birthdate and ID.
+     * The Users are read from the database as they are requested, so demand flows back to the database cursor.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @return the Users whose birthdate is within the specified range
+     */
+    Flux<User> streamUsersByBirthDateRange(LocalDate from, LocalDate to);
+}
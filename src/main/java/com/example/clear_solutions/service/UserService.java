@@ -1,8 +1,14 @@
 package com.example.clear_solutions.service;
 
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.dto.UserSelection;
+import com.example.clear_solutions.job.Job;
 import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.stats.StatsGroup;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * UserService is an interface that defines the contract for the User service.
@@ -19,37 +25,122 @@ public interface UserService {
      */
     User createUser(User user);
 
+    /**
+     * Creates the specified Users, validating each of them on its own and persisting the valid ones in chunks.
+     *
+     * @param users the Users to be created
+     * @return a map from the index of every User that was not created to the reason it was rejected
+     */
+    Map<Integer, String> createUsers(List<User> users);
+
+    /**
+     * Finds a User by ID.
+     *
+     * @param id the ID of the User
+     * @return the User
+     */
+    User findUserById(Long id);
+
     /**
      * Updates the specified fields of an existing User.
      *
      * @param id the ID of the User to be updated
      * @param userUpdates a User object containing the fields to be updated
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
      * @return the updated User
      */
-    User updateUserFields(Long id, User userUpdates);
+    User updateUserFields(Long id, User userUpdates, Long expectedVersion);
 
     /**
      * Updates all fields of an existing User.
      *
      * @param id the ID of the User to be updated
      * @param userUpdates a User object containing the updated fields
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
      * @return the updated User
      */
-    User updateAllUserFields(Long id, User userUpdates);
+    User updateAllUserFields(Long id, User userUpdates, Long expectedVersion);
 
     /**
      * Deletes a User.
      *
      * @param id the ID of the User to be deleted
+     * @param expectedVersion the version the User must have to be deleted, or null to delete any version
+     */
+    void deleteUser(Long id, Long expectedVersion);
+
+    /**
+     * Deletes the selected Users in chunks.
+     *
+     * @param selection the Users to be deleted, by ID or by birthdate range
+     * @return the number of deleted Users
+     */
+    long deleteUsers(UserSelection selection);
+
+    /**
+     * Validates a bulk delete and runs it in the background.
+     *
+     * @param selection the Users to be deleted, by ID or by birthdate range
+     * @return the Job that deletes the Users, counting them as it goes
+     */
+    Job deleteUsersAsync(UserSelection selection);
+
+    /**
+     * Sets the specified fields on the selected Users in chunks.
+     *
+     * @param selection the Users to be updated, by ID or by birthdate range
+     * @param userUpdates a User object containing the fields to be set
+     * @return the number of updated Users
+     */
+    long updateUsers(UserSelection selection, User userUpdates);
+
+    /**
+     * Validates a bulk update and runs it in the background.
+     *
+     * @param selection the Users to be updated, by ID or by birthdate range
+     * @param userUpdates a User object containing the fields to be set
+     * @return the Job that updates the Users, counting them as it goes
      */
-    void deleteUser(Long id);
+    Job updateUsersAsync(UserSelection selection, User userUpdates);
 
     /**
-     * Finds Users whose birthdate is within the specified range.
+     * Finds one page of Users whose birthdate is within the specified range, ordered by birthdate and ID.
      *
      * @param from the start of the birthdate range
      * @param to the end of the birthdate range
-     * @return a list of Users whose birthdate is within the specified range
+     * @param after the cursor of the last User of the previous page, or null for the first page
+     * @param limit the maximum number of Users to return
+     * @return a list of at most limit Users whose birthdate is within the specified range
+     */
+    List<User> findUsersByBirthDateRange(LocalDate from, LocalDate to, UserCursor after, int limit);
+
+    /**
+     * Finds one page of Users whose email, first name or last name starts with the specified text,
+     * or whose first or last name is similar to it, ordered by relevance.
+     *
+     * @param text the text to be matched
+     * @param offset the number of matching Users to skip
+     * @param limit the maximum number of Users to return
+     * @return a list of at most limit Users that match the text
+     */
+    List<User> findUsersByText(String text, int offset, int limit);
+
+    /**
+     * Streams all Users whose birthdate is within the specified range, ordered by birthdate and ID.
+     * The Users are handed to the consumer in batches; a batch must not be retained after the consumer returns.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @param batchConsumer the consumer that receives the Users batch by batch
+     */
+    void streamUsersByBirthDateRange(LocalDate from, LocalDate to, Consumer<List<User>> batchConsumer);
+
+    /**
+     * Counts all Users per year of birth, month of birth or age.
+     *
+     * @param group how the Users are grouped
+     * @param fromDatabase whether the counts are taken from the database rather than from memory
+     * @return the number of Users per group key, in ascending order of the groups, without empty groups
      */
-    List<User> findUsersByBirthDateRange(LocalDate from, LocalDate to);
+    Map<String, Long> countUsersByBirthDate(StatsGroup group, boolean fromDatabase);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.clear_solutions.service;
+
+import com.example.clear_solutions.job.Job;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+
+/**
+ * UserTransferService is an interface that defines the contract for importing and exporting Users in the background.
+ * Imports and exports are submitted as Jobs, so they are not bound to the request that submits them.
+ */
+public interface UserTransferService {
+
+    /**
+     * Submits a Job that creates the Users of a newline-delimited JSON document, one User per line.
+     * The result of the Job lists the lines that were rejected and why.
+     *
+     * @param ndjson the document
+     * @return the Job that imports the Users, counting the lines as it goes
+     */
+    Job importUsers(InputStream ndjson);
+
+    /**
+     * Submits a Job that creates the Users of a CSV document whose first line is a header naming the columns.
+     * The result of the Job is a CSV document of the rows that were rejected and why.
+     *
+     * @param csv the document
+     * @return the Job that imports the Users, counting the rows as it goes
+     */
+    Job importCsv(InputStream csv);
+
+    /**
+     * Submits a Job that writes all Users whose birthdate is within the specified range as newline-delimited JSON.
+     * The result of the Job is the exported document.
+     *
+     * @param from the start of the birthdate range
+     * @param to the end of the birthdate range
+     * @param selfLink the self link written for every exported User
+     * @return the Job that exports the Users, counting them as it goes
+     */
+    Job exportUsers(LocalDate from, LocalDate to, String selfLink);
+}
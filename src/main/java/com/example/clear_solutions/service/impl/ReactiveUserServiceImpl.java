@@ -0,0 +1,471 @@
+package com.example.clear_solutions.service.impl;
+
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.exception.DataConflict;
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserConflictException;
+import com.example.clear_solutions.exception.UserException;
+import com.example.clear_solutions.exception.UserNotFoundException;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.ReactiveUserRepository;
+import com.example.clear_solutions.repository.UserUpdateRepository.UpdatedUser;
+import com.example.clear_solutions.service.ReactiveUserService;
+import com.example.clear_solutions.validation.AgeCutoff;
+import com.example.clear_solutions.validation.UserValidation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * ReactiveUserServiceImpl is the implementation of the ReactiveUserService interface, used by the reactive profile.
+ * It provides the business logic of UserServiceImpl for the user resource on top of the ReactiveUserRepository,
+ * and checks Users, updates and searches with the same UserValidation, so both stacks answer alike.
+ * It keeps no caches, statistics or index in memory: every read goes to the database, so any number of instances
+ * can serve the same table next to the servlet deployment.
+ * Every public method is timed as "user.service", tagged with the class, the method name and the exception,
+ * as the @Timed methods of UserServiceImpl are; the timer stops when the returned publisher terminates.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    /**
+     * The shortest text of a search by name or email that is also matched by similarity;
+     * shorter texts have too few trigrams to tell similar names apart.
+     */
+    private static final int MIN_SIMILARITY_LENGTH = 3;
+
+    /**
+     * The maximum number of Users a single search page may contain.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.search.max-limit}")
+    private int maxSearchLimit;
+
+    /**
+     * The maximum length of the text of a search by name or email.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.find.max-length}")
+    private int maxFindLength;
+
+    /**
+     * The number of Users fetched from the database cursor at a time by streams.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.stream.batch-size}")
+    private int streamBatchSize;
+
+    /**
+     * The maximum number of Users a single batch create request may contain.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.batch.max-size}")
+    private int maxBatchSize;
+
+    /**
+     * The number of Users written to the database with one statement.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.batch.chunk-size}")
+    private int batchChunkSize;
+
+    /**
+     * The ReactiveUserRepository used to interact with the database.
+     */
+    private final ReactiveUserRepository userRepository;
+
+    /**
+     * The UserValidation that checks created Users, updates and searches.
+     */
+    private final UserValidation userValidation;
+
+    /**
+     * The AgeCutoff that decides what today is for birth date range searches.
+     */
+    private final AgeCutoff ageCutoff;
+
+    /**
+     * The MeterRegistry the methods are timed with.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The distribution of the number of Users found by birth date range searches.
+     */
+    private final DistributionSummary searchResultSize;
+
+    /**
+     * Constructs a ReactiveUserServiceImpl with the specified ReactiveUserRepository, UserValidation, AgeCutoff
+     * and MeterRegistry.
+     *
+     * @param userRepository the ReactiveUserRepository to be used
+     * @param userValidation the UserValidation to be used
+     * @param ageCutoff the AgeCutoff to be used
+     * @param meterRegistry the MeterRegistry the methods and the search result sizes are recorded with
+     */
+    public ReactiveUserServiceImpl(ReactiveUserRepository userRepository, UserValidation userValidation,
+                                   AgeCutoff ageCutoff, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userValidation = userValidation;
+        this.ageCutoff = ageCutoff;
+        this.meterRegistry = meterRegistry;
+        this.searchResultSize = DistributionSummary.builder("user.search.results")
+                .description("Number of Users found by a birth date range search")
+                .baseUnit("users")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates a new User if it satisfies its constraints and is at least the minimum age.
+     * Unlike the servlet stack, where the constraints are checked by Hibernate when the User is persisted,
+     * a violated constraint is rejected before the insert as an invalid field.
+     *
+     * @param user the User to be created
+     * @return the created User
+     * @throws UserValidationException if a field violates its constraints or the User is not at least the minimum age
+     */
+    public Mono<User> createUser(User user) {
+        return timed("createUser", () -> {
+            userValidation.checkConstraints(user);
+            userValidation.checkAge(user);
+            return userRepository.insert(user);
+        });
+    }
+
+    /**
+     * Creates the specified Users, validating each of them on its own.
+     * The valid Users are written in chunks with one statement per chunk, one chunk after the other.
+     * If a chunk fails, its Users are retried one by one so that only the Users the database refuses are rejected.
+     *
+     * @param users the Users to be created
+     * @return a map from the index of every User that was not created to the reason it was rejected
+     * @throws UserValidationException if there are more Users than a single batch may contain
+     */
+    public Mono<Map<Integer, String>> createUsers(List<User> users) {
+        return timed("createUsers", () -> {
+            if (users.size() > maxBatchSize) {
+                throw new UserValidationException(ErrorCode.BATCH_TOO_LARGE,
+                        "A batch may contain at most " + maxBatchSize + " users");
+            }
+            Map<Integer, String> rejected = new TreeMap<>();
+            List<Integer> valid = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                String violation = userValidation.findViolation(users.get(i));
+                if (violation != null) {
+                    rejected.put(i, violation);
+                } else {
+                    valid.add(i);
+                }
+            }
+            return Flux.fromIterable(valid)
+                    .buffer(batchChunkSize)
+                    .concatMap(chunkIndexes -> insertChunk(users, chunkIndexes, rejected))
+                    .then(Mono.just(rejected));
+        });
+    }
+
+    /**
+     * Finds a User by ID.
+     *
+     * @param id the ID of the User
+     * @return the User
+     * @throws UserNotFoundException if the User is not found
+     */
+    public Mono<User> findUserById(Long id) {
+        return timed("findUserById", () -> userRepository.findById(id)
+                .switchIfEmpty(Mono.error(UserNotFoundException::new)));
+    }
+
+    /**
+     * Updates the specified fields of an existing User.
+     * The non-null fields are written with a single statement that returns the updated row,
+     * so the User is not loaded first.
+     *
+     * @param id the ID of the User to be updated
+     * @param userUpdates a User object containing the fields to be updated
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
+     * @return the updated User
+     * @throws UserValidationException if an updated field violates its constraints
+     * @throws UserNotFoundException if the User is not found
+     * @throws UserConflictException if the User does not have the expected version
+     */
+    public Mono<User> updateUserFields(Long id, User userUpdates, Long expectedVersion) {
+        return timed("updateUserFields", () -> {
+            if (UserValidation.isEmpty(userUpdates)) {
+                return userRepository.findById(id)
+                        .switchIfEmpty(Mono.error(UserNotFoundException::new))
+                        .handle((user, sink) -> {
+                            if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+                                sink.error(UserValidation.versionMismatch());
+                            } else {
+                                sink.next(user);
+                            }
+                        });
+            }
+            return update(id, userUpdates, expectedVersion);
+        });
+    }
+
+    /**
+     * Updates all fields of an existing User.
+     * The fields are written with a single statement that returns the updated row, so the User is not loaded first.
+     *
+     * @param id the ID of the User to be updated
+     * @param userUpdates a User object containing the updated fields
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
+     * @return the updated User
+     * @throws UserValidationException if not all fields are updated or if a field violates its constraints
+     * @throws UserNotFoundException if the User is not found
+     * @throws UserConflictException if the User does not have the expected version
+     */
+    public Mono<User> updateAllUserFields(Long id, User userUpdates, Long expectedVersion) {
+        return timed("updateAllUserFields", () -> {
+            userValidation.checkAllFields(userUpdates);
+            return update(id, userUpdates, expectedVersion);
+        });
+    }
+
+    /**
+     * Deletes a User.
+     *
+     * @param id the ID of the User to be deleted
+     * @param expectedVersion the version the User must have to be deleted, or null to delete any version
+     * @return a Mono that completes when the User is deleted
+     * @throws UserNotFoundException if the User is not found
+     * @throws UserConflictException if the User does not have the expected version
+     */
+    public Mono<Void> deleteUser(Long id, Long expectedVersion) {
+        return timed("deleteUser", () -> userRepository.delete(id, expectedVersion)
+                .flatMap(deleted -> deleted == 0
+                        ? notUpdated(id, expectedVersion).flatMap(Mono::error)
+                        : Mono.empty())
+                .then());
+    }
+
+    /**
+     * Finds one page of Users whose birth date is within the specified range.
+     * The page is fetched by key (birth date, ID), so the cost of a page does not depend on how deep it is.
+     * Birth dates are always in the past, so a range that starts today or later is answered without a query.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param after the cursor of the last User of the previous page, or null for the first page
+     * @param limit the maximum number of Users to return
+     * @return at most limit Users whose birth date is within the specified range
+     * @throws UserValidationException if the 'from' date is after the 'to' date or if the limit is out of bounds
+     */
+    public Flux<User> findUsersByBirthDateRange(LocalDate from, LocalDate to, UserCursor after, int limit) {
+        return timedFlux("findUsersByBirthDateRange", () -> {
+            UserValidation.checkRange(from, to);
+            UserValidation.checkLimit(limit, maxSearchLimit);
+            if (!from.isBefore(ageCutoff.getToday())) {
+                searchResultSize.record(0);
+                return Flux.empty();
+            }
+            return userRepository.findPageByBirthDateBetween(from, to, after, limit)
+                    .collectList()
+                    .doOnNext(users -> searchResultSize.record(users.size()))
+                    .flatMapIterable(users -> users);
+        });
+    }
+
+    /**
+     * Finds one page of Users whose email, first name or last name matches the specified text.
+     * Users with a field that starts with the text rank first, in the order of their lowest matching field.
+     * Only if they do not fill the page are they followed by the Users whose first or last name is similar
+     * to the text, by descending similarity; Users are never listed twice.
+     * Only the first max-limit matching Users can be paged through.
+     *
+     * @param text the text to be matched; leading and trailing whitespace is ignored
+     * @param offset the number of matching Users to skip, at most max-limit
+     * @param limit the maximum number of Users to return
+     * @return at most limit Users that match the text
+     * @throws UserValidationException if the text is blank or too long, or if the offset or the limit is out of bounds
+     */
+    public Flux<User> findUsersByText(String text, int offset, int limit) {
+        return timedFlux("findUsersByText", () -> {
+            String stripped = UserValidation.checkText(text, offset, limit, maxFindLength, maxSearchLimit);
+            int end = Math.min(offset + limit, maxSearchLimit);
+            if (offset == end) {
+                return Flux.empty();
+            }
+            return userRepository.findIdsByPrefix(stripped, end)
+                    .flatMap(ids -> ids.length < end && stripped.length() >= MIN_SIMILARITY_LENGTH
+                            ? userRepository.findIdsBySimilarity(stripped, end).map(similar -> merge(ids, similar, end))
+                            : Mono.just(ids))
+                    .flatMap(ids -> ids.length <= offset
+                            ? Mono.just(List.<User>of())
+                            : userRepository.findAllById(Arrays.copyOfRange(ids, offset, ids.length)))
+                    .flatMapIterable(users -> users);
+        });
+    }
+
+    /**
+     * Streams all Users whose birth date is within the specified range.
+     * The Users are fetched from the database cursor streamBatchSize at a time, as the subscriber requests them,
+     * so the memory used depends neither on the size of the range nor on the speed of the client.
+     * A range that starts today or later is empty.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @return the Users whose birth date is within the specified range
+     * @throws UserValidationException if the 'from' date is after the 'to' date
+     */
+    public Flux<User> streamUsersByBirthDateRange(LocalDate from, LocalDate to) {
+        return timedFlux("streamUsersByBirthDateRange", () -> {
+            UserValidation.checkRange(from, to);
+            if (!from.isBefore(ageCutoff.getToday())) {
+                return Flux.empty();
+            }
+            return userRepository.streamByBirthDateBetween(from, to, streamBatchSize);
+        });
+    }
+
+    /**
+     * Writes the non-null fields of an update to the database.
+     *
+     * @param id the ID of the User to be updated
+     * @param userUpdates a User object containing the fields to be updated, at least one of them non-null
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
+     * @return the updated User
+     * @throws UserValidationException if an updated field violates its constraints
+     * @throws UserNotFoundException if the User is not found
+     * @throws UserConflictException if the User does not have the expected version
+     */
+    private Mono<User> update(Long id, User userUpdates, Long expectedVersion) {
+        userValidation.checkUpdatedFields(userUpdates);
+        return userRepository.updateFields(id, userUpdates, expectedVersion)
+                .map(UpdatedUser::user)
+                .switchIfEmpty(Mono.defer(() -> notUpdated(id, expectedVersion).flatMap(Mono::error)));
+    }
+
+    /**
+     * Explains why a conditional write matched no row.
+     * The existence of the User is only checked on this failure path, so successful writes take one statement.
+     *
+     * @param id the ID of the User that was not written
+     * @param expectedVersion the version the User was expected to have, or null if any version was accepted
+     * @return a UserConflictException if the User exists with another version, otherwise a UserNotFoundException
+     */
+    private Mono<UserException> notUpdated(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.just(new UserNotFoundException());
+        }
+        return userRepository.existsById(id)
+                .map(exists -> exists ? UserValidation.versionMismatch() : new UserNotFoundException());
+    }
+
+    /**
+     * Inserts a chunk of valid Users and records the ones the database refuses, with the fixed message of their
+     * DataConflict.
+     *
+     * @param users the submitted Users
+     * @param chunkIndexes the indexes of the Users of the chunk in the submitted batch
+     * @param rejected the map the refused Users are recorded in
+     * @return a Mono that completes when the chunk is written
+     */
+    private Mono<Void> insertChunk(List<User> users, List<Integer> chunkIndexes, Map<Integer, String> rejected) {
+        List<User> chunk = chunkIndexes.stream().map(users::get).toList();
+        return userRepository.insertAll(chunk)
+                .onErrorResume(DataAccessException.class, e -> Flux.fromIterable(chunkIndexes)
+                        .concatMap(index -> userRepository.insert(users.get(index))
+                                .then()
+                                .onErrorResume(DataAccessException.class, rowException -> {
+                                    rejected.put(index, DataConflict.of(rowException).getMessage());
+                                    return Mono.empty();
+                                }))
+                        .then());
+    }
+
+    /**
+     * Appends the IDs of the similarity search to the IDs of the prefix search, skipping the IDs already found.
+     *
+     * @param ids the IDs found by prefix
+     * @param similar the IDs found by similarity
+     * @param end the maximum number of IDs
+     * @return at most end IDs, in rank order
+     */
+    private static long[] merge(long[] ids, long[] similar, int end) {
+        Set<Long> found = Arrays.stream(ids).boxed().collect(Collectors.toCollection(HashSet::new));
+        long[] added = Arrays.stream(similar).filter(id -> !found.contains(id)).toArray();
+        return LongStream.concat(Arrays.stream(ids), Arrays.stream(added)).limit(end).toArray();
+    }
+
+    /**
+     * Times a method that returns a Mono, from subscription until it completes, fails or is cancelled.
+     * The body runs on subscription, so an exception it throws is signalled as an error and timed like one.
+     *
+     * @param method the name of the method
+     * @param body the body of the method
+     * @param <T> the type of the result
+     * @return the timed result
+     */
+    private <T> Mono<T> timed(String method, Supplier<Mono<T>> body) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            return Mono.defer(body)
+                    .doOnError(error::set)
+                    .doFinally(signal -> stop(sample, method, signal, error.get()));
+        });
+    }
+
+    /**
+     * Times a method that returns a Flux, from subscription until it completes, fails or is cancelled.
+     *
+     * @param method the name of the method
+     * @param body the body of the method
+     * @param <T> the type of the elements
+     * @return the timed result
+     */
+    private <T> Flux<T> timedFlux(String method, Supplier<Flux<T>> body) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            return Flux.defer(body)
+                    .doOnError(error::set)
+                    .doFinally(signal -> stop(sample, method, signal, error.get()));
+        });
+    }
+
+    /**
+     * Records the time of a method call with the tags of the TimedAspect and the signal that ended it,
+     * so calls cancelled by their client, such as an abandoned stream, are recorded as well.
+     *
+     * @param sample the sample started when the call was subscribed to
+     * @param method the name of the method
+     * @param signal the signal that ended the call: onComplete, onError or cancel
+     * @param e the exception the call ended with, or null if it did not fail
+     */
+    private void stop(Timer.Sample sample, String method, SignalType signal, Throwable e) {
+        sample.stop(Timer.builder("user.service")
+                .description("Time spent in UserService methods")
+                .tag("class", ReactiveUserServiceImpl.class.getName())
+                .tag("method", method)
+                .tag("exception", e == null ? "none" : e.getClass().getSimpleName())
+                .tag("signal", signal.toString())
+                .register(meterRegistry));
+    }
+}
@@ -1,30 +1,122 @@
 package com.example.clear_solutions.service.impl;
 
+import com.example.clear_solutions.cache.UserCache;
+import com.example.clear_solutions.cache.UserRangeCache;
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.dto.UserSelection;
+import com.example.clear_solutions.exception.DataConflict;
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserConflictException;
+import com.example.clear_solutions.exception.UserException;
+import com.example.clear_solutions.exception.UserNotFoundException;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.index.BirthDateIndex;
+import com.example.clear_solutions.job.Job;
+import com.example.clear_solutions.job.JobService;
 import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserBulkRepository.ChangedUser;
 import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.repository.UserUpdateRepository.UpdatedUser;
 import com.example.clear_solutions.service.UserService;
+import com.example.clear_solutions.stats.BirthDateStats;
+import com.example.clear_solutions.stats.StatsGroup;
+import com.example.clear_solutions.validation.AgeCutoff;
+import com.example.clear_solutions.validation.UserValidation;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 /**
  * UserServiceImpl is the implementation of the UserService interface.
  * It provides the business logic for creating, updating, deleting, and finding Users.
- * It uses a UserRepository to interact with the database.
+ * It uses a UserRepository to interact with the database, a UserCache to look Users up by ID
+ * and a UserRangeCache to keep the results of birth date range searches, which are resolved by the BirthDateIndex
+ * instead of the database when it is enabled.
  * It also checks that a User is at least a certain age before creating them.
+ * Every public method is timed as "user.service", tagged with the method name.
  */
 @Service
+@Profile("!reactive")
+@Timed(value = "user.service", description = "Time spent in UserService methods")
 public class UserServiceImpl implements UserService {
 
     /**
-     * The minimum age a User must be to be created.
+     * The shortest text of a search by name or email that is also matched by similarity;
+     * shorter texts have too few trigrams to tell similar names apart.
+     */
+    private static final int MIN_SIMILARITY_LENGTH = 3;
+
+    /**
+     * The maximum number of Users a single search page may contain.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.search.max-limit}")
+    private int maxSearchLimit;
+
+    /**
+     * The maximum length of the text of a search by name or email.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.find.max-length}")
+    private int maxFindLength;
+
+    /**
+     * The number of Users handed to a stream consumer at a time.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.stream.batch-size}")
+    private int streamBatchSize;
+
+    /**
+     * The maximum number of Users a single batch create request may contain.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.batch.max-size}")
+    private int maxBatchSize;
+
+    /**
+     * The number of Users written to the database with one JDBC batch.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.batch.chunk-size}")
+    private int batchChunkSize;
+
+    /**
+     * The maximum number of IDs a single bulk request may select.
+     * This value is injected from the application properties.
+     */
+    @Value("${user.bulk.max-ids}")
+    private int maxBulkIds;
+
+    /**
+     * The number of Users updated or deleted with one statement, and so in one transaction, by bulk requests.
      * This value is injected from the application properties.
      */
-    @Value("${user.min.age}")
-    private int minAge;
+    @Value("${user.bulk.chunk-size}")
+    private int bulkChunkSize;
 
     /**
      * The UserRepository used to interact with the database.
@@ -32,12 +124,78 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
 
     /**
-     * Constructs a UserServiceImpl with the specified UserRepository.
+     * The UserCache used to look Users up by ID.
+     * It is kept up to date by every method that writes Users.
+     */
+    private final UserCache userCache;
+
+    /**
+     * The UserRangeCache used to keep the results of birth date range searches.
+     * Every method that writes Users invalidates the results that contain the birth dates it touched.
+     */
+    private final UserRangeCache userRangeCache;
+
+    /**
+     * The UserValidation that checks created Users, updates and searches.
+     */
+    private final UserValidation userValidation;
+
+    /**
+     * The JobService used to run bulk requests in the background.
+     */
+    private final JobService jobService;
+
+    /**
+     * The AgeCutoff that decides whether a User is old enough to be created.
+     */
+    private final AgeCutoff ageCutoff;
+
+    /**
+     * The BirthDateStats that count the Users by birth date.
+     * Every method that writes Users reports the birth dates it added, changed or removed.
+     */
+    private final BirthDateStats birthDateStats;
+
+    /**
+     * The BirthDateIndex that resolves birth date range searches to IDs when it is enabled.
+     * Every method that writes Users reports the IDs and birth dates it added, changed or removed.
+     */
+    private final BirthDateIndex birthDateIndex;
+
+    /**
+     * The distribution of the number of Users found by birth date range searches.
+     */
+    private final DistributionSummary searchResultSize;
+
+    /**
+     * Constructs a UserServiceImpl with the specified UserRepository, caches, UserValidation, JobService,
+     * AgeCutoff, BirthDateStats, BirthDateIndex and MeterRegistry.
      *
      * @param userRepository the UserRepository to be used
+     * @param userCache the UserCache to be used
+     * @param userRangeCache the UserRangeCache to be used
+     * @param userValidation the UserValidation to be used
+     * @param jobService the JobService to be used
+     * @param ageCutoff the AgeCutoff to be used
+     * @param birthDateStats the BirthDateStats to be used
+     * @param birthDateIndex the BirthDateIndex to be used
+     * @param meterRegistry the MeterRegistry the search result sizes are recorded with
      */
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, UserCache userCache, UserRangeCache userRangeCache,
+                           UserValidation userValidation, JobService jobService, AgeCutoff ageCutoff,
+                           BirthDateStats birthDateStats, BirthDateIndex birthDateIndex, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.userRangeCache = userRangeCache;
+        this.userValidation = userValidation;
+        this.jobService = jobService;
+        this.ageCutoff = ageCutoff;
+        this.birthDateStats = birthDateStats;
+        this.birthDateIndex = birthDateIndex;
+        this.searchResultSize = DistributionSummary.builder("user.search.results")
+                .description("Number of Users found by a birth date range search")
+                .baseUnit("users")
+                .register(meterRegistry);
     }
 
     /**
@@ -45,80 +203,573 @@ public class UserServiceImpl implements UserService {
      *
      * @param user the User to be created
      * @return the created User
-     * @throws IllegalArgumentException if the User is not at least the minimum age
+     * @throws UserValidationException if the User is not at least the minimum age
      */
     public User createUser(User user) {
-        if (Period.between(user.getBirthDate(), LocalDate.now()).getYears() < minAge) {
-            throw new IllegalArgumentException("User must be at least " + minAge + " years old");
+        userValidation.checkAge(user);
+        User createdUser = userRepository.save(user);
+        userCache.put(createdUser);
+        userRangeCache.invalidate(createdUser.getBirthDate());
+        birthDateStats.add(createdUser.getBirthDate());
+        birthDateIndex.add(createdUser.getId(), createdUser.getBirthDate());
+        return createdUser;
+    }
+
+    /**
+     * Creates the specified Users, validating each of them on its own.
+     * The valid Users are written in chunks with one JDBC batch per chunk. If a chunk fails,
+     * its Users are retried one by one so that only the Users the database refuses are rejected.
+     *
+     * @param users the Users to be created
+     * @return a map from the index of every User that was not created to the reason it was rejected
+     * @throws UserValidationException if there are more Users than a single batch may contain
+     */
+    public Map<Integer, String> createUsers(List<User> users) {
+        if (users.size() > maxBatchSize) {
+            throw new UserValidationException(ErrorCode.BATCH_TOO_LARGE,
+                    "A batch may contain at most " + maxBatchSize + " users");
+        }
+        Map<Integer, String> rejected = new TreeMap<>();
+        List<User> chunk = new ArrayList<>(batchChunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            String violation = userValidation.findViolation(user);
+            if (violation != null) {
+                rejected.put(i, violation);
+                continue;
+            }
+            chunk.add(user);
+            chunkIndexes.add(i);
+            if (chunk.size() == batchChunkSize) {
+                insertChunk(chunk, chunkIndexes, rejected);
+                chunk = new ArrayList<>(batchChunkSize);
+                chunkIndexes = new ArrayList<>(batchChunkSize);
+            }
         }
-        return userRepository.save(user);
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, chunkIndexes, rejected);
+        }
+        return rejected;
+    }
+
+    /**
+     * Finds a User by ID. It runs in a read-only transaction, so a User that is not cached may be read from a replica.
+     *
+     * @param id the ID of the User
+     * @return the User
+     * @throws UserNotFoundException if the User is not found
+     */
+    @Transactional(readOnly = true)
+    public User findUserById(Long id) {
+        return userCache.findById(id).orElseThrow(UserNotFoundException::new);
     }
 
     /**
      * Updates the specified fields of an existing User.
+     * The non-null fields are written with a single statement that returns the updated row,
+     * so the User is not loaded first.
      *
      * @param id the ID of the User to be updated
      * @param userUpdates a User object containing the fields to be updated
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
      * @return the updated User
-     * @throws IllegalArgumentException if the User is not found
+     * @throws UserValidationException if an updated field violates its constraints
+     * @throws UserNotFoundException if the User is not found
+     * @throws UserConflictException if the User does not have the expected version
      */
-    public User updateUserFields(Long id, User userUpdates) {
-        User user = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
-        if (userUpdates.getEmail() != null) user.setEmail(userUpdates.getEmail());
-        if (userUpdates.getFirstName() != null) user.setFirstName(userUpdates.getFirstName());
-        if (userUpdates.getLastName() != null) user.setLastName(userUpdates.getLastName());
-        if (userUpdates.getBirthDate() != null) user.setBirthDate(userUpdates.getBirthDate());
-        if (userUpdates.getAddress() != null) user.setAddress(userUpdates.getAddress());
-        if (userUpdates.getPhoneNumber() != null) user.setPhoneNumber(userUpdates.getPhoneNumber());
-        return userRepository.save(user);
+    public User updateUserFields(Long id, User userUpdates, Long expectedVersion) {
+        if (UserValidation.isEmpty(userUpdates)) {
+            User user = findUserById(id);
+            if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+                throw UserValidation.versionMismatch();
+            }
+            return user;
+        }
+        return update(id, userUpdates, expectedVersion);
     }
 
     /**
      * Updates all fields of an existing User.
+     * The fields are written with a single statement that returns the updated row, so the User is not loaded first.
      *
      * @param id the ID of the User to be updated
      * @param userUpdates a User object containing the updated fields
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
      * @return the updated User
-     * @throws IllegalArgumentException if not all fields are updated or if the User is not found
+     * @throws UserValidationException if not all fields are updated or if a field violates its constraints
+     * @throws UserNotFoundException if the User is not found
+     * @throws UserConflictException if the User does not have the expected version
+     */
+    public User updateAllUserFields(Long id, User userUpdates, Long expectedVersion) {
+        userValidation.checkAllFields(userUpdates);
+        return update(id, userUpdates, expectedVersion);
+    }
+
+    /**
+     * Deletes a User with one statement that returns its birth date, which the caches and the birth date counts
+     * are brought up to date with.
+     *
+     * @param id the ID of the User to be deleted
+     * @param expectedVersion the version the User must have to be deleted, or null to delete any version
+     * @throws UserNotFoundException if the User is not found
+     * @throws UserConflictException if the User does not have the expected version
+     */
+    public void deleteUser(Long id, Long expectedVersion) {
+        ChangedUser deletedUser = userRepository.deleteOne(id, expectedVersion)
+                .orElseThrow(() -> notUpdated(id, expectedVersion));
+        userCache.evict(id);
+        userRangeCache.invalidate(deletedUser.previousBirthDate());
+        birthDateStats.remove(deletedUser.previousBirthDate());
+        birthDateIndex.remove(id, deletedUser.previousBirthDate());
+    }
+
+    /**
+     * Deletes the selected Users in chunks of at most bulkChunkSize Users, each in its own transaction,
+     * so that no row lock is held for the whole request. Chunks that were deleted stay deleted if a later one fails.
+     *
+     * @param selection the Users to be deleted, by ID or by birth date range
+     * @return the number of deleted Users
+     * @throws UserValidationException if the selection is invalid
+     */
+    public long deleteUsers(UserSelection selection) {
+        checkSelection(selection);
+        return deleteUsers(selection, deleted -> { });
+    }
+
+    /**
+     * Validates a bulk delete and runs it in the background.
+     *
+     * @param selection the Users to be deleted, by ID or by birth date range
+     * @return the Job that deletes the Users, counting them as it goes
+     * @throws UserValidationException if the selection is invalid
+     * @throws RejectedExecutionException if too many Jobs are queued
+     */
+    public Job deleteUsersAsync(UserSelection selection) {
+        checkSelection(selection);
+        return jobService.submit("bulk-delete", context -> deleteUsers(selection, context::addProcessed));
+    }
+
+    /**
+     * Sets the specified fields on the selected Users in chunks of at most bulkChunkSize Users,
+     * each in its own transaction, so that no row lock is held for the whole request.
+     * Chunks that were updated stay updated if a later one fails.
+     *
+     * @param selection the Users to be updated, by ID or by birth date range
+     * @param userUpdates a User object containing the fields to be set
+     * @return the number of updated Users
+     * @throws UserValidationException if the selection or the updates are invalid
+     */
+    public long updateUsers(UserSelection selection, User userUpdates) {
+        checkSelection(selection);
+        checkBulkUpdates(userUpdates);
+        return updateUsers(selection, userUpdates, updated -> { });
+    }
+
+    /**
+     * Validates a bulk update and runs it in the background.
+     *
+     * @param selection the Users to be updated, by ID or by birth date range
+     * @param userUpdates a User object containing the fields to be set
+     * @return the Job that updates the Users, counting them as it goes
+     * @throws UserValidationException if the selection or the updates are invalid
+     * @throws RejectedExecutionException if too many Jobs are queued
      */
-    public User updateAllUserFields(Long id, User userUpdates) {
-        if (userUpdates.getEmail() == null || userUpdates.getFirstName() == null || userUpdates.getLastName() == null ||
-            userUpdates.getBirthDate() == null || userUpdates.getAddress() == null || userUpdates.getPhoneNumber() == null) {
-            throw new IllegalArgumentException("All fields must be updated");
+    public Job updateUsersAsync(UserSelection selection, User userUpdates) {
+        checkSelection(selection);
+        checkBulkUpdates(userUpdates);
+        return jobService.submit("bulk-update",
+                context -> updateUsers(selection, userUpdates, context::addProcessed));
+    }
+
+    /**
+     * Finds one page of Users whose birth date is within the specified range.
+     * The page is fetched by key (birth date, ID), so the cost of a page does not depend on how deep it is.
+     * When the BirthDateIndex is enabled, the IDs of the page are found in memory and the Users read through the
+     * UserCache, so only the Users that are not cached are fetched, with one query by ID.
+     * Birth dates are always in the past, so a range that starts today or later is answered without a query.
+     * It runs in a read-only transaction, so the page may be read from a replica.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param after the cursor of the last User of the previous page, or null for the first page
+     * @param limit the maximum number of Users to return
+     * @return a list of at most limit Users whose birth date is within the specified range
+     * @throws UserValidationException if the 'from' date is after the 'to' date or if the limit is out of bounds
+     */
+    @Transactional(readOnly = true)
+    public List<User> findUsersByBirthDateRange(LocalDate from, LocalDate to, UserCursor after, int limit) {
+        UserValidation.checkRange(from, to);
+        UserValidation.checkLimit(limit, maxSearchLimit);
+        if (!from.isBefore(ageCutoff.getToday())) {
+            searchResultSize.record(0);
+            return List.of();
+        }
+        List<User> users = userRangeCache.get(from, to, after, limit, () -> findPage(from, to, after, limit));
+        searchResultSize.record(users.size());
+        return users;
+    }
+
+    /**
+     * Finds one page of Users whose email, first name or last name matches the specified text.
+     * Users with a field that starts with the text rank first, in the order of their lowest matching field,
+     * so a field equal to the text comes before longer ones. Only if they do not fill the page are they followed by
+     * the Users whose first or last name is similar to the text, by descending similarity, which finds misspelled
+     * names; Users are never listed twice. Both kinds of matches are found on indexes and the Users are read
+     * through the UserCache, in a read-only transaction that may read a replica.
+     * Only the first max-limit matching Users can be paged through.
+     *
+     * @param text the text to be matched; leading and trailing whitespace is ignored
+     * @param offset the number of matching Users to skip, at most max-limit
+     * @param limit the maximum number of Users to return
+     * @return a list of at most limit Users that match the text
+     * @throws UserValidationException if the text is blank or too long, or if the offset or the limit is out of bounds
+     */
+    @Transactional(readOnly = true)
+    public List<User> findUsersByText(String text, int offset, int limit) {
+        String stripped = UserValidation.checkText(text, offset, limit, maxFindLength, maxSearchLimit);
+        int end = Math.min(offset + limit, maxSearchLimit);
+        if (offset == end) {
+            return List.of();
+        }
+        long[] ids = userRepository.findIdsByPrefix(stripped, end);
+        if (ids.length < end && stripped.length() >= MIN_SIMILARITY_LENGTH) {
+            Set<Long> found = Arrays.stream(ids).boxed().collect(Collectors.toCollection(HashSet::new));
+            long[] similar = Arrays.stream(userRepository.findIdsBySimilarity(stripped, end))
+                    .filter(id -> !found.contains(id))
+                    .toArray();
+            ids = LongStream.concat(Arrays.stream(ids), Arrays.stream(similar)).limit(end).toArray();
+        }
+        if (ids.length <= offset) {
+            return List.of();
         }
+        return userCache.findAllById(Arrays.copyOfRange(ids, offset, ids.length));
+    }
 
-        User user = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
-        user.setEmail(userUpdates.getEmail());
-        user.setFirstName(userUpdates.getFirstName());
-        user.setLastName(userUpdates.getLastName());
-        user.setBirthDate(userUpdates.getBirthDate());
-        user.setAddress(userUpdates.getAddress());
-        user.setPhoneNumber(userUpdates.getPhoneNumber());
+    /**
+     * Streams all Users whose birth date is within the specified range, batch by batch.
+     * The Users are read from a database cursor without being managed, and every batch is released
+     * once it is consumed, so the memory used does not depend on the size of the range.
+     * The transaction is read-only, so the Users may be read from a replica. A range that starts today or later is empty.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param batchConsumer the consumer that receives the Users batch by batch
+     * @throws UserValidationException if the 'from' date is after the 'to' date
+     */
+    @Transactional(readOnly = true)
+    public void streamUsersByBirthDateRange(LocalDate from, LocalDate to, Consumer<List<User>> batchConsumer) {
+        UserValidation.checkRange(from, to);
+        if (!from.isBefore(ageCutoff.getToday())) {
+            return;
+        }
+        try (Stream<User> users = userRepository.streamByBirthDateBetween(from, to)) {
+            List<User> batch = new ArrayList<>(streamBatchSize);
+            users.forEach(user -> {
+                batch.add(user);
+                if (batch.size() == streamBatchSize) {
+                    consumeBatch(batch, batchConsumer);
+                }
+            });
+            if (!batch.isEmpty()) {
+                consumeBatch(batch, batchConsumer);
+            }
+        }
+    }
 
-        return userRepository.save(user);
+    /**
+     * Counts all Users per year of birth, month of birth or age. The counts are kept in memory
+     * by BirthDateStats, so they are answered without a query unless the database is asked for,
+     * in a read-only transaction that may read a replica.
+     *
+     * @param group how the Users are grouped
+     * @param fromDatabase whether the counts are taken from the database rather than from memory
+     * @return the number of Users per group key, in ascending order of the groups, without empty groups
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> countUsersByBirthDate(StatsGroup group, boolean fromDatabase) {
+        return birthDateStats.count(group, fromDatabase);
     }
 
     /**
-     * Deletes a User.
+     * Hands a batch of streamed Users to the consumer and empties it afterwards.
      *
-     * @param id the ID of the User to be deleted
+     * @param batch the batch of Users
+     * @param batchConsumer the consumer that receives the batch
+     */
+    private void consumeBatch(List<User> batch, Consumer<List<User>> batchConsumer) {
+        batchConsumer.accept(batch);
+        batch.clear();
+    }
+
+    /**
+     * Writes the non-null fields of an update to the database and brings the caches up to date.
+     *
+     * @param id the ID of the User to be updated
+     * @param userUpdates a User object containing the fields to be updated, at least one of them non-null
+     * @param expectedVersion the version the User must have to be updated, or null to update any version
+     * @return the updated User
+     * @throws UserValidationException if an updated field violates its constraints
+     * @throws UserNotFoundException if the User is not found
+     * @throws UserConflictException if the User does not have the expected version
+     */
+    private User update(Long id, User userUpdates, Long expectedVersion) {
+        userValidation.checkUpdatedFields(userUpdates);
+        UpdatedUser updatedUser = userRepository.updateFields(id, userUpdates, expectedVersion)
+                .orElseThrow(() -> notUpdated(id, expectedVersion));
+        userCache.put(updatedUser.user());
+        invalidateRanges(updatedUser.previousBirthDate(), updatedUser.user().getBirthDate());
+        birthDateStats.move(updatedUser.previousBirthDate(), updatedUser.user().getBirthDate());
+        birthDateIndex.move(id, updatedUser.previousBirthDate(), updatedUser.user().getBirthDate());
+        return updatedUser.user();
+    }
+
+    /**
+     * Explains why a conditional write matched no row.
+     * The existence of the User is only checked on this failure path, so successful writes take one statement.
+     *
+     * @param id the ID of the User that was not written
+     * @param expectedVersion the version the User was expected to have, or null if any version was accepted
+     * @return a UserConflictException if the User exists with another version, otherwise a UserNotFoundException
+     */
+    private UserException notUpdated(Long id, Long expectedVersion) {
+        if (expectedVersion != null && userRepository.existsById(id)) {
+            return UserValidation.versionMismatch();
+        }
+        return new UserNotFoundException();
+    }
+
+    /**
+     * Deletes the selected Users chunk by chunk.
+     * A range is deleted from its start until a chunk comes back short, so Users that are deleted
+     * concurrently never leave a gap.
+     *
+     * @param selection the valid selection of the Users to be deleted
+     * @param progress the consumer that receives the number of Users deleted by every chunk
+     * @return the number of deleted Users
+     */
+    private long deleteUsers(UserSelection selection, LongConsumer progress) {
+        long deleted = 0;
+        if (selection.getIds() != null) {
+            for (List<Long> ids : partition(selection.getIds())) {
+                deleted += afterChunk(userRepository.deleteChunkByIds(ids), progress);
+            }
+            return deleted;
+        }
+        List<ChangedUser> chunk;
+        do {
+            chunk = userRepository.deleteChunkByBirthDateBetween(selection.getFrom(), selection.getTo(), bulkChunkSize);
+            deleted += afterChunk(chunk, progress);
+        } while (chunk.size() == bulkChunkSize);
+        return deleted;
+    }
+
+    /**
+     * Updates the selected Users chunk by chunk.
+     * A range is walked by its (birth date, ID) key, so every chunk is found on the index after the previous one.
+     * Users already at the new values are skipped and not counted, whether they are selected by IDs or by a range,
+     * so a User whose new birth date moves it further into the range is not updated twice.
+     *
+     * @param selection the valid selection of the Users to be updated
+     * @param userUpdates a User object containing the fields to be set
+     * @param progress the consumer that receives the number of Users updated by every chunk
+     * @return the number of updated Users
      */
-    public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+    private long updateUsers(UserSelection selection, User userUpdates, LongConsumer progress) {
+        long updated = 0;
+        if (selection.getIds() != null) {
+            for (List<Long> ids : partition(selection.getIds())) {
+                updated += afterChunk(userRepository.updateChunkByIds(ids, userUpdates), progress);
+            }
+            return updated;
+        }
+        LocalDate afterBirthDate = null;
+        Long afterId = null;
+        List<ChangedUser> chunk;
+        do {
+            chunk = userRepository.updateChunkByBirthDateBetween(selection.getFrom(), selection.getTo(),
+                    afterBirthDate, afterId, userUpdates, bulkChunkSize);
+            updated += afterChunk(chunk, progress);
+            for (ChangedUser changedUser : chunk) {
+                if (afterBirthDate == null || changedUser.previousBirthDate().isAfter(afterBirthDate) ||
+                    changedUser.previousBirthDate().equals(afterBirthDate) && changedUser.id() > afterId) {
+                    afterBirthDate = changedUser.previousBirthDate();
+                    afterId = changedUser.id();
+                }
+            }
+        } while (chunk.size() == bulkChunkSize);
+        return updated;
     }
 
     /**
-     * Finds Users whose birth date is within the specified range.
+     * Brings the caches and the birth date counts up to date after a bulk chunk and reports its progress.
+     * The touched Users are evicted rather than cached, as the chunk did not return their other fields,
+     * and the cached searches are invalidated over the span of the touched birth dates in one pass.
+     *
+     * @param chunk the Users touched by the chunk
+     * @param progress the consumer that receives the number of touched Users
+     * @return the number of touched Users
+     */
+    private int afterChunk(List<ChangedUser> chunk, LongConsumer progress) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        chunk.forEach(changedUser -> {
+            userCache.evict(changedUser.id());
+            birthDateStats.move(changedUser.previousBirthDate(), changedUser.birthDate());
+            birthDateIndex.move(changedUser.id(), changedUser.previousBirthDate(), changedUser.birthDate());
+        });
+        List<LocalDate> birthDates = chunk.stream()
+                .flatMap(changedUser -> Stream.of(changedUser.previousBirthDate(), changedUser.birthDate()))
+                .filter(Objects::nonNull)
+                .toList();
+        userRangeCache.invalidate(Collections.min(birthDates), Collections.max(birthDates));
+        progress.accept(chunk.size());
+        return chunk.size();
+    }
+
+    /**
+     * Splits the distinct IDs of a selection into chunks of at most bulkChunkSize IDs.
+     *
+     * @param ids the IDs to be split
+     * @return the chunks of IDs
+     */
+    private List<List<Long>> partition(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i += bulkChunkSize) {
+            chunks.add(distinctIds.subList(i, Math.min(i + bulkChunkSize, distinctIds.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Checks that a bulk request selects Users by exactly one of an ID list or a birth date range.
+     *
+     * @param selection the selection to be checked
+     * @throws UserValidationException if the selection is invalid
+     */
+    private void checkSelection(UserSelection selection) {
+        if (selection == null) {
+            throw new UserValidationException(ErrorCode.INVALID_SELECTION, "A selection of users is required");
+        }
+        boolean byIds = selection.getIds() != null;
+        boolean byRange = selection.getFrom() != null || selection.getTo() != null;
+        if (byIds == byRange) {
+            throw new UserValidationException(ErrorCode.INVALID_SELECTION,
+                    "Users must be selected either by 'ids' or by 'from' and 'to'");
+        }
+        if (byIds && selection.getIds().size() > maxBulkIds) {
+            throw new UserValidationException(ErrorCode.INVALID_SELECTION,
+                    "A bulk request may select at most " + maxBulkIds + " ids");
+        }
+        if (byRange && (selection.getFrom() == null || selection.getTo() == null)) {
+            throw new UserValidationException(ErrorCode.INVALID_SELECTION, "Both 'from' and 'to' are required");
+        }
+        if (byRange) {
+            UserValidation.checkRange(selection.getFrom(), selection.getTo());
+        }
+    }
+
+    /**
+     * Checks that the fields of a bulk update may be set on many Users at once.
+     *
+     * @param userUpdates a User object containing the fields to be set
+     * @throws UserValidationException if no field is set, if the email is set, which must be unique,
+     *                                 or if a field violates its constraints
+     */
+    private void checkBulkUpdates(User userUpdates) {
+        if (userUpdates == null || userUpdates.getFirstName() == null && userUpdates.getLastName() == null &&
+            userUpdates.getBirthDate() == null && userUpdates.getAddress() == null && userUpdates.getPhoneNumber() == null) {
+            throw new UserValidationException(ErrorCode.MISSING_FIELDS, "At least one field must be updated");
+        }
+        if (userUpdates.getEmail() != null) {
+            throw new UserValidationException(ErrorCode.INVALID_FIELD, "email must be unique and cannot be set in bulk");
+        }
+        userValidation.checkUpdatedFields(userUpdates);
+    }
+
+    /**
+     * Invalidates the cached search results that contain the birth date of a User before or after an update.
+     *
+     * @param previousBirthDate the birth date of the User before the update
+     * @param birthDate the birth date of the User after the update
+     */
+    private void invalidateRanges(LocalDate previousBirthDate, LocalDate birthDate) {
+        userRangeCache.invalidate(previousBirthDate);
+        if (!Objects.equals(birthDate, previousBirthDate)) {
+            userRangeCache.invalidate(birthDate);
+        }
+    }
+
+    /**
+     * Loads one page of a birth date range search, from the BirthDateIndex and the UserCache if the index is enabled
+     * and otherwise with a single keyset query.
      *
      * @param from the start of the birth date range
      * @param to the end of the birth date range
-     * @return a list of Users whose birth date is within the specified range
-     * @throws IllegalArgumentException if the 'from' date is after the 'to' date
+     * @param after the cursor of the last User of the previous page, or null for the first page
+     * @param limit the maximum number of Users to return
+     * @return a list of at most limit Users whose birth date is within the specified range
      */
-    public List<User> findUsersByBirthDateRange(LocalDate from, LocalDate to) {
-        if (from.isAfter(to)) {
-            throw new IllegalArgumentException("'From' date must be less than 'To' date");
+    private List<User> findPage(LocalDate from, LocalDate to, UserCursor after, int limit) {
+        if (birthDateIndex.isEnabled()) {
+            return userCache.findAllById(birthDateIndex.findIds(from, to, after, limit));
+        }
+        return after == null
+                ? userRepository.findPageByBirthDateBetween(from, to, Limit.of(limit))
+                : userRepository.findPageByBirthDateBetweenAfter(from, to, after.getBirthDate(), after.getId(), Limit.of(limit));
+    }
+
+    /**
+     * Inserts a chunk of valid Users and records the ones the database refuses, with the fixed message of their
+     * DataConflict rather than the database's own, which names the constraint and repeats the values.
+     *
+     * @param chunk the Users to be inserted
+     * @param chunkIndexes the indexes of the Users in the submitted batch
+     * @param rejected the map the refused Users are recorded in
+     */
+    private void insertChunk(List<User> chunk, List<Integer> chunkIndexes, Map<Integer, String> rejected) {
+        try {
+            userRepository.insertAll(chunk);
+            afterInsert(chunk);
+        } catch (DataAccessException e) {
+            List<User> inserted = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    userRepository.insertAll(List.of(chunk.get(i)));
+                    inserted.add(chunk.get(i));
+                } catch (DataAccessException rowException) {
+                    rejected.put(chunkIndexes.get(i), DataConflict.of(rowException).getMessage());
+                }
+            }
+            afterInsert(inserted);
+        }
+    }
+
+    /**
+     * Brings the caches, the birth date counts and the index up to date after Users were inserted.
+     * The cached searches are invalidated over the span of the inserted birth dates in one pass,
+     * rather than once per User.
+     *
+     * @param inserted the inserted Users
+     */
+    private void afterInsert(List<User> inserted) {
+        if (inserted.isEmpty()) {
+            return;
+        }
+        LocalDate minBirthDate = inserted.get(0).getBirthDate();
+        LocalDate maxBirthDate = minBirthDate;
+        for (User user : inserted) {
+            userCache.evict(user.getId());
+            birthDateStats.add(user.getBirthDate());
+            birthDateIndex.add(user.getId(), user.getBirthDate());
+            if (user.getBirthDate().isBefore(minBirthDate)) {
+                minBirthDate = user.getBirthDate();
+            } else if (user.getBirthDate().isAfter(maxBirthDate)) {
+                maxBirthDate = user.getBirthDate();
+            }
         }
-        return userRepository.findByBirthDateBetween(from, to);
+        userRangeCache.invalidate(minBirthDate, maxBirthDate);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,274 @@
+package com.example.clear_solutions.service.impl;
+
+import com.example.clear_solutions.dto.UserResponse;
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.ingest.CsvHeader;
+import com.example.clear_solutions.ingest.UserCsvIngester;
+import com.example.clear_solutions.job.Job;
+import com.example.clear_solutions.job.JobContext;
+import com.example.clear_solutions.job.JobService;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.service.UserService;
+import com.example.clear_solutions.service.UserTransferService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * UserTransferServiceImpl is the implementation of the UserTransferService interface.
+ * Imports and exports run as Jobs of the JobService and use the UserService for validation, persistence and
+ * reading, so they apply the same rules as the single-user endpoints. Both exchange newline-delimited JSON,
+ * which is read and written line by line, so the memory used does not depend on the size of the document.
+ * Large CSV documents are imported by the UserCsvIngester, which checks the same rules in parallel and copies
+ * the valid rows into the database in blocks.
+ */
+@Service
+@Profile("!reactive")
+public class UserTransferServiceImpl implements UserTransferService {
+
+    /**
+     * The media type of newline-delimited JSON.
+     */
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * The media type of CSV.
+     */
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    /**
+     * The UserService used to create and read the Users.
+     */
+    private final UserService userService;
+
+    /**
+     * The JobService the imports and exports run on.
+     */
+    private final JobService jobService;
+
+    /**
+     * The UserCsvIngester used to import CSV documents.
+     */
+    private final UserCsvIngester userCsvIngester;
+
+    /**
+     * The JsonFactory used to write the rejected lines of an import.
+     */
+    private final JsonFactory jsonFactory;
+
+    /**
+     * The ObjectReader used to read the imported Users.
+     */
+    private final ObjectReader userReader;
+
+    /**
+     * The ObjectWriter used to write the exported UserResponses without flushing after every one of them.
+     */
+    private final ObjectWriter userResponseWriter;
+
+    /**
+     * The number of imported Users created at once.
+     */
+    private final int importBatchSize;
+
+    /**
+     * Constructs a UserTransferServiceImpl with the specified UserService, JobService, UserCsvIngester,
+     * ObjectMapper and batch size.
+     *
+     * @param userService the UserService to be used
+     * @param jobService the JobService to be used
+     * @param userCsvIngester the UserCsvIngester to be used
+     * @param objectMapper the ObjectMapper used to read and write the documents
+     * @param importBatchSize the number of imported Users created at once
+     */
+    public UserTransferServiceImpl(UserService userService, JobService jobService, UserCsvIngester userCsvIngester,
+                                   ObjectMapper objectMapper, @Value("${user.batch.chunk-size}") int importBatchSize) {
+        this.userService = userService;
+        this.jobService = jobService;
+        this.userCsvIngester = userCsvIngester;
+        this.jsonFactory = objectMapper.getFactory();
+        this.userReader = objectMapper.readerFor(User.class);
+        this.userResponseWriter = objectMapper.writerFor(UserResponse.class)
+                .withRootValueSeparator("")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.importBatchSize = importBatchSize;
+    }
+
+    /**
+     * Spools the document and submits a Job that imports it.
+     *
+     * @param ndjson the document
+     * @return the Job that imports the Users, counting the lines as it goes
+     * @throws RejectedExecutionException if too many Jobs are queued
+     */
+    public Job importUsers(InputStream ndjson) {
+        return jobService.submit("import", ndjson, this::importUsers);
+    }
+
+    /**
+     * Checks the header of the document, then spools it and submits a Job that imports it.
+     *
+     * @param csv the document
+     * @return the Job that imports the Users, counting the rows as it goes
+     * @throws UserValidationException if the header does not name the required columns
+     * @throws RejectedExecutionException if too many Jobs are queued
+     * @throws UncheckedIOException if the header cannot be read
+     */
+    public Job importCsv(InputStream csv) {
+        BufferedInputStream input = new BufferedInputStream(csv);
+        try {
+            CsvHeader.peek(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return jobService.submit("csv-import", input, context -> userCsvIngester.ingest(context.input(),
+                context.openResult(TEXT_CSV_VALUE), context::addProcessed));
+    }
+
+    /**
+     * Checks the range and submits a Job that exports the Users in it.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param selfLink the self link written for every exported User
+     * @return the Job that exports the Users, counting them as it goes
+     * @throws UserValidationException if the 'from' date is after the 'to' date
+     * @throws RejectedExecutionException if too many Jobs are queued
+     */
+    public Job exportUsers(LocalDate from, LocalDate to, String selfLink) {
+        if (from.isAfter(to)) {
+            throw new UserValidationException(ErrorCode.INVALID_DATE_RANGE,
+                    "'From' date must be less than 'To' date");
+        }
+        return jobService.submit("export", context -> exportUsers(from, to, selfLink, context));
+    }
+
+    /**
+     * Creates the Users of the spooled document in batches of importBatchSize lines.
+     * Every line is validated on its own; the lines that are not valid JSON or whose User is rejected
+     * are written to the result with their line number and the reason, in line order.
+     *
+     * @param context the context of the import Job
+     * @throws IOException if the document cannot be read or the result cannot be written
+     */
+    private void importUsers(JobContext context) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(context.input(), StandardCharsets.UTF_8);
+             JsonGenerator rejections = jsonFactory.createGenerator(context.openResult(APPLICATION_NDJSON_VALUE))) {
+            rejections.setRootValueSeparator(null);
+            List<User> users = new ArrayList<>(importBatchSize);
+            List<Long> lineNumbers = new ArrayList<>(importBatchSize);
+            Map<Long, String> rejected = new TreeMap<>();
+            long lineNumber = 0;
+            long lines = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                lines++;
+                User user = readUser(line);
+                if (user == null) {
+                    rejected.put(lineNumber, "Line is not a JSON user object");
+                } else {
+                    users.add(user);
+                    lineNumbers.add(lineNumber);
+                }
+                if (lines == importBatchSize) {
+                    createUsers(users, lineNumbers, rejected, rejections);
+                    context.addProcessed(lines);
+                    lines = 0;
+                }
+            }
+            createUsers(users, lineNumbers, rejected, rejections);
+            context.addProcessed(lines);
+        }
+    }
+
+    /**
+     * Reads a User from a line of the imported document.
+     *
+     * @param line the line
+     * @return the User, or null if the line is not a JSON object with the fields of a User
+     */
+    private User readUser(String line) {
+        try {
+            return userReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a batch of imported Users and writes the rejected lines of the batch, then clears the batch.
+     *
+     * @param users the Users of the batch
+     * @param lineNumbers the line number of every User of the batch
+     * @param rejected the lines of the batch that were already rejected, by line number
+     * @param rejections the generator writing the result of the import
+     * @throws IOException if the result cannot be written
+     */
+    private void createUsers(List<User> users, List<Long> lineNumbers, Map<Long, String> rejected,
+                             JsonGenerator rejections) throws IOException {
+        if (!users.isEmpty()) {
+            userService.createUsers(users).forEach((index, reason) -> rejected.put(lineNumbers.get(index), reason));
+        }
+        for (Map.Entry<Long, String> rejection : rejected.entrySet()) {
+            rejections.writeStartObject();
+            rejections.writeNumberField("line", rejection.getKey());
+            rejections.writeStringField("detail", rejection.getValue());
+            rejections.writeEndObject();
+            rejections.writeRaw('\n');
+        }
+        users.clear();
+        lineNumbers.clear();
+        rejected.clear();
+    }
+
+    /**
+     * Writes the Users in the range to the result, one UserResponse per line.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @param selfLink the self link written for every exported User
+     * @param context the context of the export Job
+     * @throws IOException if the result cannot be written
+     */
+    private void exportUsers(LocalDate from, LocalDate to, String selfLink, JobContext context) throws IOException {
+        try (JsonGenerator generator = userResponseWriter.createGenerator(context.openResult(APPLICATION_NDJSON_VALUE))) {
+            userService.streamUsersByBirthDateRange(from, to, batch -> {
+                try {
+                    for (User user : batch) {
+                        userResponseWriter.writeValue(generator, new UserResponse(user, selfLink));
+                        generator.writeRaw('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                context.addProcessed(batch.size());
+            });
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.clear_solutions.stats;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BirthDateHistogram counts Users by birth date in primitive arrays indexed by day, month and year,
+ * so it can be kept up to date with every write and grouped without boxing a count per User.
+ * It covers the birth dates from 1800 to 2199; Users born outside them are only counted in total,
+ * and {@link #coversAll()} tells whether there are any. All methods are synchronized.
+ */
+public final class BirthDateHistogram {
+
+    /**
+     * The first year the histogram covers.
+     */
+    private static final int FIRST_YEAR = 1800;
+
+    /**
+     * The number of years the histogram covers.
+     */
+    private static final int YEARS = 400;
+
+    /**
+     * The first birth date the histogram covers.
+     */
+    private static final LocalDate FIRST_DAY = LocalDate.of(FIRST_YEAR, 1, 1);
+
+    /**
+     * The last birth date the histogram covers.
+     */
+    private static final LocalDate LAST_DAY = LocalDate.of(FIRST_YEAR + YEARS - 1, 12, 31);
+
+    /**
+     * The epoch day of FIRST_DAY, which is index 0 of days.
+     */
+    private static final long FIRST_EPOCH_DAY = FIRST_DAY.toEpochDay();
+
+    /**
+     * The number of Users per birth date, indexed by epoch day minus FIRST_EPOCH_DAY.
+     */
+    private final int[] days = new int[(int) (LAST_DAY.toEpochDay() - FIRST_EPOCH_DAY + 1)];
+
+    /**
+     * The number of Users per month of birth, indexed by 12 times the year minus FIRST_YEAR plus the month minus 1.
+     */
+    private final int[] months = new int[YEARS * 12];
+
+    /**
+     * The number of Users per year of birth, indexed by the year minus FIRST_YEAR.
+     */
+    private final int[] years = new int[YEARS];
+
+    /**
+     * The number of Users.
+     */
+    private long total;
+
+    /**
+     * The number of Users born outside the covered years.
+     */
+    private long uncovered;
+
+    /**
+     * Adds Users born on the specified date.
+     *
+     * @param birthDate the birth date of the Users
+     * @param count the number of Users, negative to remove them
+     */
+    public synchronized void add(LocalDate birthDate, int count) {
+        total += count;
+        if (birthDate.isBefore(FIRST_DAY) || birthDate.isAfter(LAST_DAY)) {
+            uncovered += count;
+            return;
+        }
+        int year = birthDate.getYear() - FIRST_YEAR;
+        days[(int) (birthDate.toEpochDay() - FIRST_EPOCH_DAY)] += count;
+        months[year * 12 + birthDate.getMonthValue() - 1] += count;
+        years[year] += count;
+    }
+
+    /**
+     * Moves a User from one birth date to another.
+     *
+     * @param previousBirthDate the birth date before the change, or null if the User was created
+     * @param birthDate the birth date after the change, or null if the User was deleted
+     */
+    public synchronized void move(LocalDate previousBirthDate, LocalDate birthDate) {
+        if (previousBirthDate != null) {
+            add(previousBirthDate, -1);
+        }
+        if (birthDate != null) {
+            add(birthDate, 1);
+        }
+    }
+
+    /**
+     * Gets the number of Users.
+     *
+     * @return the number of Users
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    /**
+     * Checks whether every User was born in the covered years, so the groups add up to the total.
+     *
+     * @return true if no User was born outside the covered years
+     */
+    public synchronized boolean coversAll() {
+        return uncovered == 0;
+    }
+
+    /**
+     * Counts the Users per group, leaving out empty groups.
+     *
+     * @param group how the Users are grouped
+     * @param today the day ages are counted on
+     * @return the number of Users per group key, in ascending order of the groups
+     */
+    public synchronized Map<String, Long> count(StatsGroup group, LocalDate today) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        switch (group) {
+            case YEAR -> {
+                for (int year = 0; year < YEARS; year++) {
+                    if (years[year] != 0) {
+                        counts.put(Integer.toString(FIRST_YEAR + year), (long) years[year]);
+                    }
+                }
+            }
+            case MONTH -> {
+                for (int month = 0; month < months.length; month++) {
+                    if (months[month] != 0) {
+                        counts.put(String.format("%d-%02d", FIRST_YEAR + month / 12, month % 12 + 1),
+                                (long) months[month]);
+                    }
+                }
+            }
+            case AGE -> countAges(today, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the Users per age in whole years. Users of age a were born after today minus a + 1 years
+     * and on or before today minus a years, which is the rule of the minimum age.
+     *
+     * @param today the day ages are counted on
+     * @param counts the map the counts are put in, youngest first
+     */
+    private void countAges(LocalDate today, Map<String, Long> counts) {
+        for (int age = 0; ; age++) {
+            LocalDate latest = today.minusYears(age);
+            if (latest.isBefore(FIRST_DAY)) {
+                return;
+            }
+            int to = index(latest.isAfter(LAST_DAY) ? LAST_DAY : latest);
+            int from = index(today.minusYears(age + 1).isBefore(FIRST_DAY) ? FIRST_DAY.minusDays(1)
+                    : today.minusYears(age + 1));
+            long count = 0;
+            for (int day = to; day > from; day--) {
+                count += days[day];
+            }
+            if (count != 0) {
+                counts.put(Integer.toString(age), count);
+            }
+        }
+    }
+
+    /**
+     * Gets the index of a date in days; FIRST_DAY minus one day has index -1.
+     *
+     * @param date the date
+     * @return the index of the date
+     */
+    private static int index(LocalDate date) {
+        return (int) (date.toEpochDay() - FIRST_EPOCH_DAY);
+    }
+}
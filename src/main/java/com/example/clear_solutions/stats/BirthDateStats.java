@@ -0,0 +1,123 @@
+package com.example.clear_solutions.stats;
+
+import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.repository.UserRepository.BirthDateCount;
+import com.example.clear_solutions.validation.AgeCutoff;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * BirthDateStats counts the Users by year, month or age of birth.
+ * It keeps a BirthDateHistogram of all Users in memory, loaded with one GROUP BY query when the application starts
+ * and kept up to date by every write of this application, so the counts are answered without the database.
+ * Writes made to the database by other means are only seen when the counts are taken from the database,
+ * which groups one row per birth date and is also used while any User is born outside the years the histogram covers.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class BirthDateStats {
+
+    /**
+     * The UserRepository the counts are loaded from.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * The AgeCutoff that decides what today is when counting ages.
+     */
+    private final AgeCutoff ageCutoff;
+
+    /**
+     * The histogram of all Users.
+     */
+    private final BirthDateHistogram histogram = new BirthDateHistogram();
+
+    /**
+     * Constructs a BirthDateStats with the specified UserRepository and AgeCutoff.
+     *
+     * @param userRepository the UserRepository to be used
+     * @param ageCutoff the AgeCutoff to be used
+     */
+    public BirthDateStats(UserRepository userRepository, AgeCutoff ageCutoff) {
+        this.userRepository = userRepository;
+        this.ageCutoff = ageCutoff;
+    }
+
+    /**
+     * Loads the histogram from the database. It runs before the application accepts requests,
+     * so no write is counted twice or missed.
+     */
+    @PostConstruct
+    public void load() {
+        for (BirthDateCount count : userRepository.countByBirthDate()) {
+            histogram.add(count.birthDate(), Math.toIntExact(count.users()));
+        }
+        log.info("Loaded the birth date histogram of {} users", histogram.total());
+    }
+
+    /**
+     * Counts a created User.
+     *
+     * @param birthDate the birth date of the User
+     */
+    public void add(LocalDate birthDate) {
+        histogram.add(birthDate, 1);
+    }
+
+    /**
+     * Counts a deleted User.
+     *
+     * @param birthDate the birth date the User had
+     */
+    public void remove(LocalDate birthDate) {
+        histogram.add(birthDate, -1);
+    }
+
+    /**
+     * Counts a changed birth date.
+     *
+     * @param previousBirthDate the birth date before the change, or null if the User was created
+     * @param birthDate the birth date after the change, or null if the User was deleted
+     */
+    public void move(LocalDate previousBirthDate, LocalDate birthDate) {
+        histogram.move(previousBirthDate, birthDate);
+    }
+
+    /**
+     * Counts the Users per group, from memory unless the database is asked for or memory does not cover all Users.
+     *
+     * @param group how the Users are grouped
+     * @param fromDatabase whether the counts are taken from the database
+     * @return the number of Users per group key, in ascending order of the groups, without empty groups
+     */
+    public Map<String, Long> count(StatsGroup group, boolean fromDatabase) {
+        LocalDate today = ageCutoff.getToday();
+        if (!fromDatabase && histogram.coversAll()) {
+            return histogram.count(group, today);
+        }
+        Map<Long, Long> groups = new TreeMap<>();
+        for (BirthDateCount count : userRepository.countByBirthDate()) {
+            LocalDate birthDate = count.birthDate();
+            long key = switch (group) {
+                case YEAR -> birthDate.getYear();
+                case MONTH -> birthDate.getYear() * 12L + birthDate.getMonthValue() - 1;
+                case AGE -> Period.between(birthDate, today).getYears();
+            };
+            groups.merge(key, count.users(), Long::sum);
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        groups.forEach((key, users) -> counts.put(group == StatsGroup.MONTH
+                ? String.format("%d-%02d", Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1)
+                : Long.toString(key), users));
+        return counts;
+    }
+}
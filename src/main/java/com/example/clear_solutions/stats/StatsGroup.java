@@ -0,0 +1,42 @@
+package com.example.clear_solutions.stats;
+
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserValidationException;
+
+import java.util.Locale;
+
+/**
+ * StatsGroup enumerates the ways Users can be counted by birth date.
+ */
+public enum StatsGroup {
+
+    /**
+     * Users counted per year of birth, keyed like "1990".
+     */
+    YEAR,
+
+    /**
+     * Users counted per month of birth, keyed like "1990-05".
+     */
+    MONTH,
+
+    /**
+     * Users counted per age in whole years today, keyed like "18".
+     */
+    AGE;
+
+    /**
+     * Parses a StatsGroup from its name, ignoring case.
+     *
+     * @param name the name of the StatsGroup
+     * @return the StatsGroup
+     * @throws UserValidationException if there is no StatsGroup with the name
+     */
+    public static StatsGroup parse(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UserValidationException(ErrorCode.INVALID_ARGUMENT, "groupBy must be one of year, month or age");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.clear_solutions.validation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * AgeCutoff decides whether a birth date makes a User old enough to be created.
+ * A User is old enough if they were born on or before the cutoff, which is today minus the minimum age in years;
+ * someone born on 29 February reaches an age on 1 March in years without that day, as Period would count it.
+ * The cutoff is computed once per day of the Clock, so a check is a single date comparison.
+ */
+@Component
+public class AgeCutoff {
+
+    /**
+     * The Clock that decides what today is.
+     */
+    private final Clock clock;
+
+    /**
+     * The minimum age a User must be to be created.
+     */
+    private final int minAge;
+
+    /**
+     * The cutoff of the current day, replaced when the Clock passes into the next day.
+     */
+    private volatile Day day;
+
+    /**
+     * Constructs an AgeCutoff with the specified Clock and minimum age.
+     *
+     * @param clock the Clock that decides what today is
+     * @param minAge the minimum age a User must be to be created
+     */
+    public AgeCutoff(Clock clock, @Value("${user.min.age}") int minAge) {
+        this.clock = clock;
+        this.minAge = minAge;
+    }
+
+    /**
+     * Gets the minimum age a User must be to be created.
+     *
+     * @return the minimum age in years
+     */
+    public int getMinAge() {
+        return minAge;
+    }
+
+    /**
+     * Checks whether a User born on the specified date is at least the minimum age today.
+     *
+     * @param birthDate the birth date of the User
+     * @return true if the User is at least the minimum age
+     */
+    public boolean isOldEnough(LocalDate birthDate) {
+        return !birthDate.isAfter(currentDay().cutoff());
+    }
+
+    /**
+     * Gets the latest birth date of a User who is at least the minimum age today.
+     *
+     * @return the cutoff date
+     */
+    public LocalDate getCutoff() {
+        return currentDay().cutoff();
+    }
+
+    /**
+     * Gets today's date in the time zone of the Clock.
+     *
+     * @return today's date
+     */
+    public LocalDate getToday() {
+        return currentDay().today();
+    }
+
+    /**
+     * Gets the Day of the current instant of the Clock, computing it if the previous one has ended.
+     *
+     * @return the current Day
+     */
+    private Day currentDay() {
+        Day current = day;
+        long now = clock.millis();
+        if (current == null || now >= current.endMillis() || now < current.startMillis()) {
+            LocalDate today = LocalDate.now(clock);
+            current = new Day(today, today.minusYears(minAge),
+                    today.atStartOfDay(clock.getZone()).toInstant().toEpochMilli(),
+                    today.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli());
+            day = current;
+        }
+        return current;
+    }
+
+    /**
+     * Day is the cutoff computed for one day of the Clock.
+     *
+     * @param today the date of the day
+     * @param cutoff the latest birth date of a User who is at least the minimum age on that day
+     * @param startMillis the first instant of the day, in epoch milliseconds
+     * @param endMillis the first instant of the next day, in epoch milliseconds
+     */
+    private record Day(LocalDate today, LocalDate cutoff, long startMillis, long endMillis) {
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.clear_solutions.validation;
+
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserConflictException;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.model.User;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * UserValidation holds the checks of the user API that do not need the database: the constraints and the minimum age
+ * of created Users, the fields of updates, and the bounds of searches.
+ * It is shared by the blocking and the reactive UserService, so both reject the same requests with the same
+ * ErrorCodes and messages.
+ */
+@Component
+public class UserValidation {
+
+    /**
+     * The Validator used to check the constraints of Users.
+     */
+    private final Validator validator;
+
+    /**
+     * The AgeCutoff that decides whether a User is old enough to be created.
+     */
+    private final AgeCutoff ageCutoff;
+
+    /**
+     * Constructs a UserValidation with the specified Validator and AgeCutoff.
+     *
+     * @param validator the Validator to be used
+     * @param ageCutoff the AgeCutoff to be used
+     */
+    public UserValidation(Validator validator, AgeCutoff ageCutoff) {
+        this.validator = validator;
+        this.ageCutoff = ageCutoff;
+    }
+
+    /**
+     * Checks that a User is at least the minimum age.
+     *
+     * @param user the User to be checked
+     * @throws UserValidationException if the User is not at least the minimum age
+     */
+    public void checkAge(User user) {
+        if (!ageCutoff.isOldEnough(user.getBirthDate())) {
+            throw new UserValidationException(ErrorCode.USER_TOO_YOUNG, tooYoung());
+        }
+    }
+
+    /**
+     * Finds the reason a User may not be created: a violated bean validation constraint or a birth date
+     * that makes the User younger than the minimum age.
+     *
+     * @param user the User to be checked
+     * @return the reason the User may not be created, or null if it may be created
+     */
+    public String findViolation(User user) {
+        String violation = describe(validator.validate(user));
+        if (violation != null) {
+            return violation;
+        }
+        if (!ageCutoff.isOldEnough(user.getBirthDate())) {
+            return tooYoung();
+        }
+        return null;
+    }
+
+    /**
+     * Checks the constraints of a User to be created.
+     *
+     * @param user the User to be checked
+     * @throws UserValidationException if a field violates its constraints
+     */
+    public void checkConstraints(User user) {
+        String violation = describe(validator.validate(user));
+        if (violation != null) {
+            throw new UserValidationException(ErrorCode.INVALID_FIELD, violation);
+        }
+    }
+
+    /**
+     * Checks the constraints of the fields an update sets.
+     * Only the fields being set are validated, as the stored fields were validated when they were written.
+     *
+     * @param userUpdates a User object containing the fields to be set
+     * @throws UserValidationException if a field violates its constraints
+     */
+    public void checkUpdatedFields(User userUpdates) {
+        String violation = describe(validator.validate(userUpdates).stream()
+                .filter(constraintViolation -> constraintViolation.getInvalidValue() != null)
+                .collect(Collectors.toSet()));
+        if (violation != null) {
+            throw new UserValidationException(ErrorCode.INVALID_FIELD, violation);
+        }
+    }
+
+    /**
+     * Checks that a full update sets every field.
+     *
+     * @param userUpdates a User object containing the updated fields
+     * @throws UserValidationException if a field is not set
+     */
+    public void checkAllFields(User userUpdates) {
+        if (userUpdates.getEmail() == null || userUpdates.getFirstName() == null || userUpdates.getLastName() == null ||
+            userUpdates.getBirthDate() == null || userUpdates.getAddress() == null || userUpdates.getPhoneNumber() == null) {
+            throw new UserValidationException(ErrorCode.MISSING_FIELDS, "All fields must be updated");
+        }
+    }
+
+    /**
+     * Checks whether an update sets no field at all.
+     *
+     * @param userUpdates a User object containing the fields to be updated
+     * @return true if every field of the update is null
+     */
+    public static boolean isEmpty(User userUpdates) {
+        return userUpdates.getEmail() == null && userUpdates.getFirstName() == null && userUpdates.getLastName() == null &&
+               userUpdates.getBirthDate() == null && userUpdates.getAddress() == null && userUpdates.getPhoneNumber() == null;
+    }
+
+    /**
+     * Checks that a birth date range does not end before it starts.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @throws UserValidationException if the 'from' date is after the 'to' date
+     */
+    public static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new UserValidationException(ErrorCode.INVALID_DATE_RANGE, "'From' date must be less than 'To' date");
+        }
+    }
+
+    /**
+     * Checks that the size of a search page is within bounds.
+     *
+     * @param limit the requested page size
+     * @param maxLimit the largest page size
+     * @throws UserValidationException if the limit is out of bounds
+     */
+    public static void checkLimit(int limit, int maxLimit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new UserValidationException(ErrorCode.INVALID_LIMIT, "Limit must be between 1 and " + maxLimit);
+        }
+    }
+
+    /**
+     * Checks a search by name or email and returns its text without leading and trailing whitespace.
+     *
+     * @param text the text to be matched
+     * @param offset the number of matching Users to skip
+     * @param limit the maximum number of Users to return
+     * @param maxLength the longest text
+     * @param maxLimit the largest page size, which also bounds the offset
+     * @return the stripped text
+     * @throws UserValidationException if the text is blank or too long, or if the offset or the limit is out of bounds
+     */
+    public static String checkText(String text, int offset, int limit, int maxLength, int maxLimit) {
+        String stripped = text.strip();
+        if (stripped.isEmpty() || stripped.length() > maxLength) {
+            throw new UserValidationException(ErrorCode.INVALID_ARGUMENT,
+                    "Search text must contain between 1 and " + maxLength + " characters");
+        }
+        checkLimit(limit, maxLimit);
+        if (offset < 0 || offset > maxLimit) {
+            throw new UserValidationException(ErrorCode.INVALID_ARGUMENT, "Offset must be between 0 and " + maxLimit);
+        }
+        return stripped;
+    }
+
+    /**
+     * Creates the exception for a User that does not have the version a request expects.
+     *
+     * @return the UserConflictException
+     */
+    public static UserConflictException versionMismatch() {
+        return new UserConflictException(ErrorCode.VERSION_MISMATCH,
+                "If-Match does not match the current version of the User");
+    }
+
+    /**
+     * Describes why a User is too young to be created.
+     *
+     * @return the description
+     */
+    private String tooYoung() {
+        return "User must be at least " + ageCutoff.getMinAge() + " years old";
+    }
+
+    /**
+     * Describes constraint violations as one message, sorted by property.
+     *
+     * @param violations the constraint violations of a User
+     * @return the description of the violations, or null if there are none
+     */
+    private static String describe(Set<ConstraintViolation<User>> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
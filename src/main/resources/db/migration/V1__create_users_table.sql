@@ -0,0 +1,12 @@
+-- The users table as it was created by Hibernate (ddl-auto=update) before schema migrations were introduced.
+-- Existing databases are baselined at this version, so only fresh databases run it.
+
+CREATE TABLE IF NOT EXISTS users (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    address      VARCHAR(255),
+    birth_date   DATE NOT NULL,
+    email        VARCHAR(255),
+    first_name   VARCHAR(255),
+    last_name    VARCHAR(255),
+    phone_number VARCHAR(255)
+);
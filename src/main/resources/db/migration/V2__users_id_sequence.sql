@@ -0,0 +1,10 @@
+-- Moves users.id from an identity column to the pooled users_seq sequence used by the User entity.
+-- Safe to re-run against databases where the sequence was already created by hand.
+-- The increment must match the allocationSize of the User ID generator (or the value Hibernate should adopt).
+-- The sequence starts one block above the highest existing ID, so no reserved block overlaps existing rows.
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50;
+
+SELECT setval('users_seq', COALESCE(MAX(id), 0) + 50, false) FROM users;
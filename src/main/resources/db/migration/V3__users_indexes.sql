@@ -0,0 +1,5 @@
+-- Serves birth date range searches and their keyset pagination on (birth_date, id) without a sort.
+CREATE INDEX IF NOT EXISTS users_birth_date_id_idx ON users (birth_date, id);
+
+-- Emails identify Users; fails if the table already contains duplicates, which must be resolved first.
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_key ON users (email);
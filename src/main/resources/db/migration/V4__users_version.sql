@@ -0,0 +1,2 @@
+-- Version of every User row for optimistic locking; existing rows start at version 0.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,16 @@
+-- Background jobs, so that their status, progress and outcome survive a restart of the application.
+-- Jobs that were queued or running when the application stopped are marked as failed on the next start.
+
+CREATE TABLE IF NOT EXISTS jobs (
+    id           UUID PRIMARY KEY,
+    type         VARCHAR(50) NOT NULL,
+    status       VARCHAR(20) NOT NULL,
+    processed    BIGINT NOT NULL DEFAULT 0,
+    detail       TEXT,
+    result_type  VARCHAR(100),
+    submitted_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    started_at   TIMESTAMP WITH TIME ZONE,
+    finished_at  TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS jobs_finished_at_idx ON jobs (finished_at);
@@ -0,0 +1,46 @@
+-- Serves the search of Users by name and email.
+
+-- Trigram matching for the similar names; needs the contrib package of PostgreSQL.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Prefix matches, in the order they are ranked: the "C" collation lets a prefix become a range of the index
+-- whatever the collation of the database, the id column ends the ties without a sort, and the included column
+-- lets the search read the index alone.
+CREATE INDEX IF NOT EXISTS users_email_prefix_idx ON users ((lower(email) COLLATE "C"), id) INCLUDE (email);
+CREATE INDEX IF NOT EXISTS users_first_name_prefix_idx ON users ((lower(first_name) COLLATE "C"), id) INCLUDE (first_name);
+CREATE INDEX IF NOT EXISTS users_last_name_prefix_idx ON users ((lower(last_name) COLLATE "C"), id) INCLUDE (last_name);
+
+-- The distinct lower-case first and last names. Names repeat, so there are far fewer of them than Users, and similar
+-- names are found on their trigrams in about a millisecond; a trigram index on the Users themselves would read
+-- posting lists of millions of rows for every common trigram. Terms are only added: a name no User has any more
+-- matches nobody.
+CREATE TABLE IF NOT EXISTS user_search_terms (
+    term TEXT COLLATE "C" PRIMARY KEY
+);
+
+CREATE INDEX IF NOT EXISTS user_search_terms_trgm_idx ON user_search_terms USING gin (term gin_trgm_ops);
+
+INSERT INTO user_search_terms (term)
+SELECT lower(first_name) FROM users UNION SELECT lower(last_name) FROM users
+ON CONFLICT DO NOTHING;
+
+-- Adds the names of the Users written by a statement, once per statement, so batches and COPY loads pay for
+-- their distinct names only.
+CREATE OR REPLACE FUNCTION add_user_search_terms() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO user_search_terms (term)
+    SELECT lower(first_name) FROM written_users UNION SELECT lower(last_name) FROM written_users
+    ON CONFLICT DO NOTHING;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS users_insert_search_terms ON users;
+CREATE TRIGGER users_insert_search_terms AFTER INSERT ON users
+    REFERENCING NEW TABLE AS written_users
+    FOR EACH STATEMENT EXECUTE FUNCTION add_user_search_terms();
+
+DROP TRIGGER IF EXISTS users_update_search_terms ON users;
+CREATE TRIGGER users_update_search_terms AFTER UPDATE ON users
+    REFERENCING NEW TABLE AS written_users
+    FOR EACH STATEMENT EXECUTE FUNCTION add_user_search_terms();
@@ -0,0 +1,11 @@
+-- Leases of unfinished jobs, so that an instance only fails the jobs of instances that have stopped.
+-- The instance running a job renews its heartbeat; a job whose heartbeat is older than the lease timeout is failed
+-- by whichever instance notices it first.
+
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS heartbeat_at TIMESTAMP WITH TIME ZONE;
+
+UPDATE jobs SET heartbeat_at = submitted_at WHERE heartbeat_at IS NULL;
+
+ALTER TABLE jobs ALTER COLUMN heartbeat_at SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS jobs_unfinished_heartbeat_at_idx ON jobs (heartbeat_at) WHERE finished_at IS NULL;
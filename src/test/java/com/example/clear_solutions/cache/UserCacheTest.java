@@ -0,0 +1,133 @@
+package com.example.clear_solutions.cache;
+
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * UserCacheTest is a test class for UserCache.
+ * It uses an in-memory CacheManager and Mockito to mock the UserRepository.
+ */
+public class UserCacheTest {
+
+    /**
+     * The mocked UserRepository.
+     */
+    private UserRepository userRepository;
+
+    /**
+     * The UserCache instance to be tested.
+     */
+    private UserCache userCache;
+
+    /**
+     * Sets up the tests.
+     * This method is run before each test.
+     * It creates a UserCache backed by an empty in-memory cache.
+     */
+    @BeforeEach
+    public void setup() {
+        userRepository = mock(UserRepository.class);
+        userCache = new UserCache(new ConcurrentMapCacheManager(UserCache.CACHE_NAME), userRepository, Duration.ZERO);
+    }
+
+    /**
+     * Tests that a cached user is loaded from the repository only once.
+     */
+    @Test
+    @DisplayName("Finding a user twice loads it from the repository once")
+    public void findByIdLoadsUserOnce() {
+        User user = new User(1L, "test@example.com", "Test", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        userCache.findById(1L);
+        Optional<User> cachedUser = userCache.findById(1L);
+
+        assertEquals("test@example.com", cachedUser.orElseThrow().getEmail());
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    /**
+     * Tests that modifying a found user does not modify the cached user.
+     */
+    @Test
+    @DisplayName("Modifying a found user does not modify the cached user")
+    public void findByIdReturnsCopies() {
+        User user = new User(1L, "test@example.com", "Test", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        userCache.put(user);
+
+        User foundUser = userCache.findById(1L).orElseThrow();
+        foundUser.setEmail("changed@example.com");
+
+        assertNotSame(user, foundUser);
+        assertEquals("test@example.com", userCache.findById(1L).orElseThrow().getEmail());
+    }
+
+    /**
+     * Tests that an evicted user is loaded from the repository again.
+     */
+    @Test
+    @DisplayName("Finding an evicted user loads it from the repository again")
+    public void evictedUserIsLoadedAgain() {
+        userCache.put(new User(1L, "test@example.com", "Test", "User", LocalDate.of(1990, 1, 1), null, null, null));
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        userCache.evict(1L);
+
+        assertTrue(userCache.findById(1L).isEmpty());
+        verify(userRepository).findById(1L);
+    }
+
+    /**
+     * Tests that a user loaded while it is evicted is not kept in the cache.
+     */
+    @Test
+    @DisplayName("A user evicted while it is loaded is loaded again")
+    public void userEvictedDuringLoadIsNotCached() {
+        User user = new User(1L, "test@example.com", "Test", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            userCache.evict(1L);
+            return Optional.of(user);
+        });
+
+        userCache.findById(1L);
+        userCache.findById(1L);
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    /**
+     * Tests that finding users by ID loads only the uncached users, with one query, and keeps the order of the IDs.
+     */
+    @Test
+    @DisplayName("Finding users by IDs loads the uncached users at once in ID order")
+    public void findAllByIdLoadsUncachedUsersAtOnce() {
+        User cached = new User(1L, "cached@example.com", "Cached", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        User loaded = new User(2L, "loaded@example.com", "Loaded", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        userCache.put(cached);
+        when(userRepository.findAllUnmanagedByIdIn(List.of(2L, 3L))).thenReturn(List.of(loaded));
+
+        List<User> users = userCache.findAllById(new long[]{2L, 1L, 3L});
+
+        assertEquals(List.of("loaded@example.com", "cached@example.com"), users.stream().map(User::getEmail).toList());
+        userCache.findById(2L);
+        verify(userRepository, never()).findById(2L);
+    }
+}
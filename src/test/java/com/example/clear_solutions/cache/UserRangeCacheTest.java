@@ -0,0 +1,117 @@
+package com.example.clear_solutions.cache;
+
+import com.example.clear_solutions.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * UserRangeCacheTest is a test class for UserRangeCache.
+ * It counts how often search results are loaded to check what the cache keeps and what it invalidates.
+ */
+public class UserRangeCacheTest {
+
+    /**
+     * The UserRangeCache instance to be tested.
+     */
+    private UserRangeCache userRangeCache;
+
+    /**
+     * The number of times a search result was loaded.
+     */
+    private AtomicInteger loads;
+
+    /**
+     * Sets up the tests.
+     * This method is run before each test.
+     * It creates an empty UserRangeCache.
+     */
+    @BeforeEach
+    public void setup() {
+        userRangeCache = new UserRangeCache(1000, Duration.ofMinutes(5), Duration.ZERO, new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    /**
+     * Tests that a birth date inside a cached range invalidates that range only.
+     */
+    @Test
+    @DisplayName("Invalidating a birth date only invalidates the ranges that contain it")
+    public void invalidateOnlyInvalidatesRangesContainingBirthDate() {
+        search(LocalDate.of(1950, 1, 1), LocalDate.of(1969, 12, 31));
+        search(LocalDate.of(1970, 1, 1), LocalDate.of(1989, 12, 31));
+
+        userRangeCache.invalidate(LocalDate.of(1980, 6, 15));
+        search(LocalDate.of(1950, 1, 1), LocalDate.of(1969, 12, 31));
+        search(LocalDate.of(1970, 1, 1), LocalDate.of(1989, 12, 31));
+
+        assertEquals(3, loads.get());
+    }
+
+    /**
+     * Tests that a birth date or a range of birth dates invalidates a long cached range that starts long before it,
+     * and leaves the short ranges that do not contain it.
+     */
+    @Test
+    @DisplayName("Invalidating a birth date invalidates a long range that starts long before it")
+    public void invalidateInvalidatesLongRangeStartingLongBefore() {
+        searchLongAndShortRanges();
+        userRangeCache.invalidate(LocalDate.of(1995, 6, 15));
+        searchLongAndShortRanges();
+        assertEquals(5, loads.get());
+
+        userRangeCache.invalidate(LocalDate.of(1950, 1, 1), LocalDate.of(1950, 1, 31));
+        searchLongAndShortRanges();
+        assertEquals(6, loads.get());
+    }
+
+    /**
+     * Tests that a result loaded while an invalidation happens is not kept.
+     */
+    @Test
+    @DisplayName("A result loaded during an invalidation is not kept")
+    public void resultLoadedDuringInvalidationIsNotKept() {
+        LocalDate from = LocalDate.of(1950, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        userRangeCache.get(from, to, null, 10, () -> {
+            loads.incrementAndGet();
+            userRangeCache.invalidate(LocalDate.of(1990, 1, 1));
+            return List.of();
+        });
+
+        search(from, to);
+
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Searches a range through the cache, counting the loads.
+     *
+     * @param from the start of the birth date range
+     * @param to the end of the birth date range
+     * @return the search result
+     */
+    private List<User> search(LocalDate from, LocalDate to) {
+        return userRangeCache.get(from, to, null, 10, () -> {
+            loads.incrementAndGet();
+            return List.of(new User());
+        });
+    }
+
+    /**
+     * Searches a range of a century and two ranges of a year within it.
+     */
+    private void searchLongAndShortRanges() {
+        search(LocalDate.of(1900, 1, 1), LocalDate.of(2000, 12, 31));
+        search(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31));
+        search(LocalDate.of(1995, 1, 1), LocalDate.of(1995, 12, 31));
+    }
+}
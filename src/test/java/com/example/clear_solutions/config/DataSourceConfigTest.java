@@ -0,0 +1,77 @@
+package com.example.clear_solutions.config;
+
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DataSourceConfigTest is a test class for the routing of connections between the primary and the replicas.
+ * It runs the whole application with the application's database listed as its only replica,
+ * which is never in recovery and so never lags, and counts where the connections are opened.
+ */
+@SpringBootTest(properties = "user.datasource.replica.urls=${spring.datasource.url}")
+public class DataSourceConfigTest {
+
+    /**
+     * The UserService whose transactions are routed.
+     */
+    @Autowired
+    private UserService userService;
+
+    /**
+     * The UserRepository used to remove the created User.
+     */
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * The MeterRegistry the routing decisions are published to.
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Tests that a read-only service method opens its connection on the replica
+     * and that creating a User opens its connection on the primary.
+     */
+    @Test
+    @DisplayName("Read-only service methods read the replica and writes use the primary")
+    public void readOnlyServiceMethodsUseReplica() {
+        double reads = routed("replica-1", "read-only");
+        double writes = routed("primary", "read-write");
+
+        userService.findUsersByBirthDateRange(LocalDate.of(1902, 1, 1), LocalDate.of(1902, 12, 31), null, 10);
+        assertEquals(reads + 1, routed("replica-1", "read-only"));
+
+        User user = userService.createUser(new User(null, "replica-routing-test@example.com", "John", "Doe",
+                LocalDate.of(1990, 1, 1), null, null, null));
+        try {
+            assertEquals(reads + 1, routed("replica-1", "read-only"));
+            assertTrue(routed("primary", "read-write") > writes);
+        } finally {
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    /**
+     * Reads a routing counter.
+     *
+     * @param target the database the connections were opened on
+     * @param reason why they were opened there
+     * @return the number of connections
+     */
+    private double routed(String target, String reason) {
+        return meterRegistry.get("user.datasource.routing").tag("target", target).tag("reason", reason)
+                .counter().count();
+    }
+}
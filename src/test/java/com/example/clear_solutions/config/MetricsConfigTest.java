@@ -0,0 +1,55 @@
+package com.example.clear_solutions.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * MetricsConfigTest is a test class for the metrics of the application.
+ * It runs requests against the whole application and checks what /actuator/prometheus exposes.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+public class MetricsConfigTest {
+
+    /**
+     * The MockMvc instance used to simulate HTTP requests and responses.
+     */
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Tests that a search and a rejected search are exposed on every layer.
+     */
+    @Test
+    @DisplayName("Endpoint, service, repository, pool, search size and error metrics are exposed to Prometheus")
+    public void prometheusExposesMetricsOfEveryLayer() throws Exception {
+        mockMvc.perform(get("/api/v1/users/search").param("from", "1950-01-01").param("to", "1950-01-02"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/users/search").param("from", "1950-01-02").param("to", "1950-01-01"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("http_server_requests_seconds_bucket{"),
+                        containsString("user_service_seconds_bucket{class=\"com.example.clear_solutions.service.impl.UserServiceImpl\""),
+                        containsString("method=\"findUsersByBirthDateRange\""),
+                        containsString("spring_data_repository_invocations_seconds_bucket{"),
+                        containsString("method=\"findPageByBirthDateBetween\""),
+                        containsString("hikaricp_connections_active"),
+                        containsString("user_search_results_users_bucket{"),
+                        containsString("user_errors_total{code=\"1002\",status=\"400\""))));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.clear_solutions.controller;
+
+import com.example.clear_solutions.exception.UserNotFoundException;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.service.ReactiveUserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ReactiveUserControllerTest is a test class for ReactiveUserController.
+ * It uses Spring's WebTestClient to simulate HTTP requests and responses against the reactive profile.
+ * It also uses Mockito to mock the ReactiveUserService, and a SimpleMeterRegistry to count error responses.
+ */
+@WebFluxTest(ReactiveUserController.class)
+@ActiveProfiles("reactive")
+@Import(SimpleMeterRegistry.class)
+public class ReactiveUserControllerTest {
+
+    /**
+     * The WebTestClient used to simulate HTTP requests and responses.
+     */
+    @Autowired
+    private WebTestClient webTestClient;
+
+    /**
+     * The mocked ReactiveUserService.
+     */
+    @MockBean
+    private ReactiveUserService userService;
+
+    /**
+     * Tests that finding a user by ID returns the user in the shape of the servlet stack, with its version as the ETag,
+     * and that the current ETag in If-None-Match returns 304 Not Modified.
+     */
+    @Test
+    @DisplayName("Finding a user by ID returns the user with its version as ETag and honours If-None-Match")
+    public void findUserByIdReturnsUserWithETag() {
+        when(userService.findUserById(1L)).thenReturn(Mono.just(user(1L, 4L)));
+
+        webTestClient.get().uri("http://localhost/api/v1/users/1").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"")
+                .expectBody()
+                .jsonPath("$.links.self").isEqualTo("http://localhost/api/v1/users/1")
+                .jsonPath("$.data.attributes.email").isEqualTo("user1@example.com")
+                .jsonPath("$.data.type").isEqualTo("user");
+        webTestClient.get().uri("http://localhost/api/v1/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"4\"").exchange()
+                .expectStatus().isNotModified();
+    }
+
+    /**
+     * Tests that a missing user returns the error response of the servlet stack.
+     */
+    @Test
+    @DisplayName("Finding a missing user returns a 404 error response with its error code")
+    public void findMissingUserReturnsNotFound() {
+        when(userService.findUserById(2L)).thenReturn(Mono.error(new UserNotFoundException()));
+
+        webTestClient.get().uri("http://localhost/api/v1/users/2").exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.errors[0].code").isEqualTo(2001)
+                .jsonPath("$.errors[0].links.about").isEqualTo("http://localhost/api/v1/users/2");
+    }
+
+    /**
+     * Tests that a full search page links to the following page by the cursor of its last user.
+     */
+    @Test
+    @DisplayName("Searching by birth date range returns a page with a next link when the page is full")
+    public void findUsersByBirthDateRangeReturnsNextLink() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(1990, 12, 31);
+        when(userService.findUsersByBirthDateRange(from, to, null, 2)).thenReturn(Flux.just(user(1L, 0L), user(2L, 0L)));
+
+        webTestClient.get().uri("http://localhost/api/v1/users/search?from=1990-01-01&to=1990-12-31&limit=2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(2)
+                .jsonPath("$.links.self").isEqualTo("http://localhost/api/v1/users/search?from=1990-01-01&to=1990-12-31&limit=2")
+                .jsonPath("$.links.next").value(next -> assertTrue(((String) next).contains("&after=")));
+    }
+
+    /**
+     * Tests that a malformed parameter is answered as an invalid argument.
+     */
+    @Test
+    @DisplayName("Searching with a malformed date returns a 400 error response")
+    public void findUsersByBirthDateRangeWithMalformedDateReturnsBadRequest() {
+        webTestClient.get().uri("http://localhost/api/v1/users/search?from=yesterday&to=1990-12-31").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0].code").isEqualTo(1000);
+    }
+
+    /**
+     * Tests that streaming writes one user per line across several buffers.
+     */
+    @Test
+    @DisplayName("Streaming users by birth date range returns one user per line")
+    public void streamUsersByBirthDateRangeReturnsNdjson() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(1990, 12, 31);
+        when(userService.streamUsersByBirthDateRange(from, to))
+                .thenReturn(Flux.fromStream(IntStream.rangeClosed(1, 1201).mapToObj(id -> user(id, 0L))));
+
+        String body = webTestClient.get().uri("http://localhost/api/v1/users/search/stream?from=1990-01-01&to=1990-12-31").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-ndjson")
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        String[] lines = body.split("\n");
+        assertEquals(1201, lines.length);
+        assertTrue(lines[1200].contains("\"id\":1201"));
+    }
+
+    /**
+     * Tests that an inverted range is rejected before streaming starts.
+     */
+    @Test
+    @DisplayName("Streaming users with an inverted range returns a 400 error response")
+    public void streamUsersWithInvertedRangeReturnsBadRequest() {
+        webTestClient.get().uri("http://localhost/api/v1/users/search/stream?from=1990-12-31&to=1990-01-01").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0].code").isEqualTo(1002);
+
+        verify(userService, never()).streamUsersByBirthDateRange(any(), any());
+    }
+
+    /**
+     * Creates a User with the specified ID and version.
+     *
+     * @param id the ID of the User
+     * @param version the version of the User
+     * @return the User
+     */
+    private static User user(long id, long version) {
+        return new User(id, "user" + id + "@example.com", "Test", "User", LocalDate.of(1990, 1, 1), null, null, version);
+    }
+}
@@ -1,31 +1,64 @@
 package com.example.clear_solutions.controller;
 
-import com.example.clear_solutions.dto.UserResponse;
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserConflictException;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.job.Job;
+import com.example.clear_solutions.job.JobService;
 import com.example.clear_solutions.model.User;
 import com.example.clear_solutions.service.UserService;
+import com.example.clear_solutions.service.UserTransferService;
+import com.example.clear_solutions.stats.StatsGroup;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
  * UserControllerTest is a test class for UserController.
  * It uses Spring's MockMvc to simulate HTTP requests and responses.
- * It also uses Mockito to mock the UserService.
+ * It also uses Mockito to mock the UserService, and a SimpleMeterRegistry to count error responses.
  */
 @WebMvcTest(UserController.class)
+@Import(SimpleMeterRegistry.class)
 public class UserControllerTest {
 
     /**
@@ -40,6 +73,18 @@ public class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    /**
+     * The mocked UserTransferService.
+     */
+    @MockBean
+    private UserTransferService userTransferService;
+
+    /**
+     * The mocked JobService.
+     */
+    @MockBean
+    private JobService jobService;
+
     /**
      * The ObjectMapper used to convert objects to and from JSON.
      */
@@ -55,9 +100,9 @@ public class UserControllerTest {
     public void setup() {
         User user = new User();
         when(userService.createUser(user)).thenReturn(user);
-        when(userService.updateUserFields(1L, user)).thenReturn(user);
-        when(userService.updateAllUserFields(1L, user)).thenReturn(user);
-        when(userService.findUsersByBirthDateRange(LocalDate.now().minusDays(1), LocalDate.now())).thenReturn(Arrays.asList(user, user));
+        when(userService.updateUserFields(1L, user, null)).thenReturn(user);
+        when(userService.updateAllUserFields(1L, user, null)).thenReturn(user);
+        when(userService.findUsersByBirthDateRange(LocalDate.now().minusDays(1), LocalDate.now(), null, 100)).thenReturn(Arrays.asList(user, user));
     }
 
     /**
@@ -74,6 +119,23 @@ public class UserControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    /**
+     * Tests that creating users in a batch reports the outcome for every submitted user.
+     */
+    @Test
+    @DisplayName("Creating users in a batch reports the outcome for every user")
+    public void createUsersReportsOutcomeForEveryUser() throws Exception {
+        when(userService.createUsers(anyList())).thenReturn(Map.of(1, "email must not be blank"));
+
+        mockMvc.perform(post("/api/v1/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(new User(), new User()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].status").value(201))
+                .andExpect(jsonPath("$.items[1].status").value(400))
+                .andExpect(jsonPath("$.items[1].detail").value("email must not be blank"));
+    }
+
     /**
      * Tests that updating user fields returns an updated user response.
      */
@@ -102,6 +164,62 @@ public class UserControllerTest {
                 .andExpect(status().isOk());
     }
 
+    /**
+     * Tests that finding a user by ID returns the user with its version as the ETag.
+     */
+    @Test
+    @DisplayName("Finding a user by ID returns the user with its version as ETag")
+    public void findUserByIdReturnsUserWithETag() throws Exception {
+        when(userService.findUserById(1L)).thenReturn(new User(1L, "test@example.com", "Test", "User",
+                LocalDate.of(1990, 1, 1), null, null, 4L));
+
+        mockMvc.perform(get("/api/v1/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.data.attributes.email").value("test@example.com"));
+    }
+
+    /**
+     * Tests that finding a user by ID with its current ETag in If-None-Match returns no body.
+     */
+    @Test
+    @DisplayName("Finding an unchanged user by ID with If-None-Match returns 304 Not Modified")
+    public void findUserByIdWithCurrentETagReturnsNotModified() throws Exception {
+        when(userService.findUserById(1L)).thenReturn(new User(1L, "test@example.com", "Test", "User",
+                LocalDate.of(1990, 1, 1), null, null, 4L));
+
+        mockMvc.perform(get("/api/v1/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    /**
+     * Tests that updating user fields passes the version of the If-Match header on and fails with 412 on a mismatch.
+     */
+    @Test
+    @DisplayName("Updating user fields with a stale If-Match returns a 412 error")
+    public void updateUserFieldsWithStaleIfMatchReturnsPreconditionFailed() throws Exception {
+        when(userService.updateUserFields(eq(1L), any(), eq(3L))).thenThrow(new UserConflictException(
+                ErrorCode.VERSION_MISMATCH, "If-Match does not match the current version of the User"));
+
+        mockMvc.perform(patch("/api/v1/users/update/1")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Johnny\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.errors[0].code").value(ErrorCode.VERSION_MISMATCH.getCode()));
+    }
+
+    /**
+     * Tests that an If-Match header that holds no ETag of this API cannot match and is refused with 412.
+     */
+    @Test
+    @DisplayName("Deleting a user with a weak If-Match returns a 412 error")
+    public void deleteUserWithWeakIfMatchReturnsPreconditionFailed() throws Exception {
+        mockMvc.perform(delete("/api/v1/users/delete/1").header(HttpHeaders.IF_MATCH, "W/\"3\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     /**
      * Tests that deleting a user returns a no content response.
      */
@@ -112,6 +230,121 @@ public class UserControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    /**
+     * Tests that a bulk delete reports the number of deleted users.
+     */
+    @Test
+    @DisplayName("Bulk deleting users returns the number of deleted users")
+    public void deleteUsersReturnsAffectedCount() throws Exception {
+        when(userService.deleteUsers(any())).thenReturn(3L);
+
+        mockMvc.perform(post("/api/v1/users/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"from\":\"1950-01-01\",\"to\":\"2000-01-01\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3));
+    }
+
+    /**
+     * Tests that an asynchronous bulk update is accepted with a link to its job, which can then be polled.
+     */
+    @Test
+    @DisplayName("Bulk updating users asynchronously returns 202 with the job link, and the job can be polled")
+    public void updateUsersAsyncReturnsAcceptedJob() throws Exception {
+        Job job = new Job("bulk-update");
+        when(userService.updateUsersAsync(any(), any())).thenReturn(job);
+        when(jobService.find(job.getId())).thenReturn(job);
+
+        String location = mockMvc.perform(post("/api/v1/users/bulk/update")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"selection\":{\"ids\":[1,2]},\"updates\":{\"address\":\"Kyiv\"}}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        assertEquals("http://localhost/api/v1/users/jobs/" + job.getId(), location);
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(job.getId().toString()))
+                .andExpect(jsonPath("$.processed").value(0));
+    }
+
+    /**
+     * Tests that an import is accepted with a link to its job.
+     */
+    @Test
+    @DisplayName("Importing users returns 202 with the job link")
+    public void importUsersReturnsAcceptedJob() throws Exception {
+        Job job = new Job("import");
+        when(userTransferService.importUsers(any())).thenReturn(job);
+
+        mockMvc.perform(post("/api/v1/users/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"email\":\"a@b.com\"}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/api/v1/users/jobs/" + job.getId()))
+                .andExpect(jsonPath("$.type").value("import"))
+                .andExpect(jsonPath("$.links.result").doesNotExist());
+    }
+
+    /**
+     * Tests that a CSV import is routed by its content type and refused with code 1009 when its header is incomplete.
+     */
+    @Test
+    @DisplayName("Importing CSV without the required columns returns 400 with code 1009")
+    public void importCsvWithoutRequiredColumnsReturnsBadRequest() throws Exception {
+        when(userTransferService.importCsv(any())).thenThrow(new UserValidationException(
+                ErrorCode.INVALID_CSV_HEADER, "The CSV header must name the columns email, firstName, lastName and birthDate"));
+
+        mockMvc.perform(post("/api/v1/users/import")
+                        .contentType("text/csv")
+                        .content("email\na@b.com\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].code").value(1009));
+        verify(userTransferService, never()).importUsers(any());
+    }
+
+    /**
+     * Tests that the result of a job is returned with the media type the job recorded.
+     */
+    @Test
+    @DisplayName("Fetching the result of a job returns the result file")
+    public void findJobResultReturnsResultFile() throws Exception {
+        Job job = mock(Job.class);
+        Path result = Files.createTempFile("job", ".result");
+        Files.writeString(result, "{\"line\":2}\n");
+        UUID id = UUID.randomUUID();
+        when(job.getResultType()).thenReturn("application/x-ndjson");
+        when(jobService.find(id)).thenReturn(job);
+        when(jobService.findResult(job)).thenReturn(result);
+
+        try {
+            mockMvc.perform(get("/api/v1/users/jobs/{id}/result", id))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-ndjson"))
+                    .andExpect(content().string("{\"line\":2}\n"));
+        } finally {
+            Files.delete(result);
+        }
+    }
+
+    /**
+     * Tests that fetching the result of a job that has none answers 409 with the stable error code.
+     */
+    @Test
+    @DisplayName("Fetching the result of an unfinished job returns 409")
+    public void findJobResultOfUnfinishedJobReturnsConflict() throws Exception {
+        Job job = new Job("export");
+        when(jobService.find(job.getId())).thenReturn(job);
+        when(jobService.findResult(job)).thenThrow(
+                new UserConflictException(ErrorCode.JOB_RESULT_UNAVAILABLE, "The job has no result to fetch"));
+
+        mockMvc.perform(get("/api/v1/users/jobs/{id}/result", job.getId()))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errors[0].code").value(ErrorCode.JOB_RESULT_UNAVAILABLE.getCode()));
+    }
+
     /**
      * Tests that finding users by birthdate range returns a list of user responses.
      */
@@ -123,4 +356,136 @@ public class UserControllerTest {
                         .param("to", LocalDate.now().toString()))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a full search page links to the page that follows its last user.
+     */
+    @Test
+    @DisplayName("Finding users by birth date range links a full page to the next page")
+    public void findUsersByBirthDateRangeLinksFullPageToNextPage() throws Exception {
+        User last = new User();
+        last.setId(7L);
+        last.setBirthDate(LocalDate.of(1990, 1, 1));
+        when(userService.findUsersByBirthDateRange(LocalDate.of(1950, 1, 1), LocalDate.of(2000, 1, 1), null, 1))
+                .thenReturn(List.of(last));
+
+        mockMvc.perform(get("/api/v1/users/search")
+                        .param("from", "1950-01-01")
+                        .param("to", "2000-01-01")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.links.next").value(containsString("after=" + UserCursor.of(last).encode())));
+    }
+
+    /**
+     * Tests that an invalid cursor is rejected with its stable error code.
+     */
+    @Test
+    @DisplayName("Finding users after an invalid cursor returns a 400 error with the cursor error code")
+    public void findUsersByBirthDateRangeAfterInvalidCursorReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/users/search")
+                        .param("from", "1950-01-01")
+                        .param("to", "2000-01-01")
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].code").value(ErrorCode.INVALID_CURSOR.getCode()))
+                .andExpect(jsonPath("$.errors[0].detail").value("Invalid 'after' cursor"));
+    }
+
+    /**
+     * Tests that a full page of users found by text links to the page at the following offset.
+     */
+    @Test
+    @DisplayName("Finding users by text links a full page to the next offset")
+    public void findUsersByTextLinksFullPageToNextOffset() throws Exception {
+        User user = new User();
+        user.setId(7L);
+        user.setFirstName("Ann");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        when(userService.findUsersByText("ann", 20, 1)).thenReturn(List.of(user));
+
+        mockMvc.perform(get("/api/v1/users/find")
+                        .param("q", "ann")
+                        .param("offset", "20")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].data.attributes.firstName").value("Ann"))
+                .andExpect(jsonPath("$.links.next").value(containsString("offset=21")));
+    }
+
+    /**
+     * Tests that a search by a blank text is rejected with the generic argument error code.
+     */
+    @Test
+    @DisplayName("Finding users by a blank text returns a 400 error")
+    public void findUsersByBlankTextReturnsBadRequest() throws Exception {
+        when(userService.findUsersByText(" ", 0, 100)).thenThrow(new UserValidationException(
+                ErrorCode.INVALID_ARGUMENT, "Search text must contain between 1 and 100 characters"));
+
+        mockMvc.perform(get("/api/v1/users/find").param("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].code").value(ErrorCode.INVALID_ARGUMENT.getCode()));
+    }
+
+    /**
+     * Tests that streaming users by birthdate range writes one JSON document per line.
+     */
+    @Test
+    @DisplayName("Streaming users by birth date range writes newline-delimited JSON")
+    public void streamUsersByBirthDateRangeWritesNdjson() throws Exception {
+        User user = new User();
+        user.setEmail("stream@example.com");
+        doAnswer(invocation -> {
+            Consumer<List<User>> batchConsumer = invocation.getArgument(2);
+            batchConsumer.accept(List.of(user, user));
+            return null;
+        }).when(userService).streamUsersByBirthDateRange(eq(LocalDate.of(1950, 1, 1)), eq(LocalDate.of(2000, 1, 1)), any());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/users/search/stream")
+                        .param("from", "1950-01-01")
+                        .param("to", "2000-01-01"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("stream@example.com", objectMapper.readTree(lines[0]).at("/data/attributes/email").asText());
+    }
+
+    /**
+     * Tests that the counts of the UserService are returned as ordered groups with their total.
+     */
+    @Test
+    @DisplayName("Counting users by birth date returns the groups and their total")
+    public void countUsersByBirthDateReturnsGroups() throws Exception {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("1990-01", 2L);
+        counts.put("1990-05", 3L);
+        when(userService.countUsersByBirthDate(StatsGroup.MONTH, true)).thenReturn(counts);
+
+        mockMvc.perform(get("/api/v1/users/stats")
+                        .param("groupBy", "month")
+                        .param("source", "database"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.groupBy").value("month"))
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.groups[0].key").value("1990-01"))
+                .andExpect(jsonPath("$.groups[1].users").value(3));
+    }
+
+    /**
+     * Tests that an unknown grouping is rejected without counting.
+     */
+    @Test
+    @DisplayName("Counting users by an unknown grouping returns a 400 error")
+    public void countUsersByUnknownGroupingReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/users/stats").param("groupBy", "week"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].code").value(ErrorCode.INVALID_ARGUMENT.getCode()));
+        verify(userService, never()).countUsersByBirthDate(any(), anyBoolean());
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.clear_solutions.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ReplicaRoutingDataSourceTest is a test class for ReplicaRoutingDataSource.
+ * It uses Mockito to mock the DataSources of the primary and two replicas, whose lag is set by the mocked result
+ * of the check, and marks the current transaction read-only as a read-only @Transactional method would.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    /**
+     * The connection opened on the primary.
+     */
+    private final Connection primaryConnection = mock(Connection.class);
+
+    /**
+     * The mocked DataSources of the replicas by name.
+     */
+    private final Map<String, DataSource> replicas = new LinkedHashMap<>();
+
+    /**
+     * The connections opened on the replicas by name.
+     */
+    private final Map<String, Connection> replicaConnections = new LinkedHashMap<>();
+
+    /**
+     * The lags the checks of the replicas measure by name, in seconds.
+     */
+    private final Map<String, Double> lags = new LinkedHashMap<>();
+
+    /**
+     * The MeterRegistry the routing decisions are published to.
+     */
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The ReplicaRoutingDataSource instance to be tested.
+     */
+    private ReplicaRoutingDataSource dataSource;
+
+    /**
+     * Sets up the tests.
+     * This method is run before each test.
+     * It creates a ReplicaRoutingDataSource with a maximum lag of five seconds over two up-to-date replicas.
+     */
+    @BeforeEach
+    public void setup() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        for (String name : new String[] {"replica-1", "replica-2"}) {
+            lags.put(name, 0.0);
+            replicas.put(name, replica(name));
+        }
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = new ReplicaRoutingDataSource(primary, replicas, Duration.ofSeconds(5), Duration.ofSeconds(5),
+                meterRegistry);
+    }
+
+    /**
+     * Ends the read-only transaction a test may have started.
+     */
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    /**
+     * Tests that read-only transactions take the replicas in turn and other connections open on the primary.
+     */
+    @Test
+    @DisplayName("Read-only transactions read the replicas in turn and other connections use the primary")
+    public void readOnlyTransactionsUseReplicas() throws SQLException {
+        dataSource.checkReplicas();
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(replicaConnections.get("replica-1"), dataSource.getConnection());
+        assertSame(replicaConnections.get("replica-2"), dataSource.getConnection());
+        assertSame(replicaConnections.get("replica-1"), dataSource.getConnection());
+
+        assertEquals(1, routed("primary", "read-write"));
+        assertEquals(2, routed("replica-1", "read-only"));
+        assertEquals(1, routed("replica-2", "read-only"));
+        assertEquals(1, meterRegistry.get("user.datasource.replica.available").tag("replica", "replica-2")
+                .gauge().value());
+    }
+
+    /**
+     * Tests that a lagging replica is skipped and that the primary is read once every replica lags.
+     */
+    @Test
+    @DisplayName("Lagging replicas are skipped and read-only transactions use the primary when all of them lag")
+    public void laggingReplicasAreSkipped() throws SQLException {
+        lags.put("replica-1", 30.0);
+        dataSource.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(replicaConnections.get("replica-2"), dataSource.getConnection());
+        assertSame(replicaConnections.get("replica-2"), dataSource.getConnection());
+
+        lags.put("replica-2", 30.0);
+        dataSource.checkReplicas();
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        assertEquals(1, routed("primary", "stale"));
+        assertEquals(30, meterRegistry.get("user.datasource.replica.lag").tag("replica", "replica-1")
+                .gauge().value());
+    }
+
+    /**
+     * Tests that replicas are not read before they are checked, and that a replica that fails to open
+     * a connection fails over to the primary and is not read again until a check succeeds.
+     */
+    @Test
+    @DisplayName("Unchecked and failing replicas are not read until a check succeeds")
+    public void failingReplicasFailOver() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        dataSource.checkReplicas();
+        DataSource failing = replicas.get("replica-1");
+        doThrow(new SQLException("Connection refused")).when(failing).getConnection();
+        assertSame(replicaConnections.get("replica-2"), dataSource.getConnection());
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertSame(replicaConnections.get("replica-2"), dataSource.getConnection());
+        assertSame(replicaConnections.get("replica-2"), dataSource.getConnection());
+
+        dataSource.checkReplicas();
+        assertEquals(0, meterRegistry.get("user.datasource.replica.available").tag("replica", "replica-1")
+                .gauge().value());
+        replicaConnections.put("replica-1", mock(Connection.class));
+        doAnswer(invocation -> replicaConnection("replica-1")).when(failing).getConnection();
+        dataSource.checkReplicas();
+        dataSource.getConnection();
+        assertSame(replicaConnections.get("replica-1"), dataSource.getConnection());
+
+        assertEquals(1, routed("primary", "unavailable"));
+        assertEquals(1, routed("primary", "failover"));
+    }
+
+    /**
+     * Mocks the DataSource of a replica, whose connections answer the check with the lag of the replica.
+     *
+     * @param name the name of the replica
+     * @return the DataSource
+     */
+    private DataSource replica(String name) throws SQLException {
+        replicaConnections.put(name, mock(Connection.class));
+        DataSource replica = mock(DataSource.class);
+        when(replica.getConnection()).thenAnswer(invocation -> replicaConnection(name));
+        return replica;
+    }
+
+    /**
+     * Stubs the current connection of a replica to answer the check with the lag of the replica.
+     *
+     * @param name the name of the replica
+     * @return the connection
+     */
+    private Connection replicaConnection(String name) throws SQLException {
+        Connection connection = replicaConnections.get(name);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(lags.get(name));
+        return connection;
+    }
+
+    /**
+     * Reads a routing counter.
+     *
+     * @param target the database the connections were opened on
+     * @param reason why they were opened there
+     * @return the number of connections
+     */
+    private double routed(String target, String reason) {
+        return meterRegistry.get("user.datasource.routing").tag("target", target).tag("reason", reason)
+                .counter().count();
+    }
+}
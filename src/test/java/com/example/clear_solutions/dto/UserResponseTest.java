@@ -0,0 +1,88 @@
+package com.example.clear_solutions.dto;
+
+import com.example.clear_solutions.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UserResponseTest is a test class for UserResponse.
+ * It compares the serialized UserResponses with the output of the former map-based UserResponse.
+ */
+public class UserResponseTest {
+
+    /**
+     * The ObjectMapper configured like the one of the application.
+     */
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+    /**
+     * Tests that a User with all fields is written like before.
+     */
+    @Test
+    @DisplayName("User with all fields is serialized unchanged")
+    public void serializeUserWithAllFields() throws JsonProcessingException {
+        User user = new User(7L, "john@example.com", "John", "Doe", LocalDate.of(1990, 2, 3), "Kyiv \"1\"", "+380", null);
+
+        String json = objectMapper.writeValueAsString(new UserResponse(user, "http://h/users/7"));
+
+        assertEquals("{\"links\":{\"self\":\"http://h/users/7\"},\"data\":{\"attributes\":{\"firstName\":\"John\"," +
+                "\"lastName\":\"Doe\",\"address\":\"Kyiv \\\"1\\\"\",\"phoneNumber\":\"+380\",\"birthDate\":\"1990-02-03\"," +
+                "\"email\":\"john@example.com\"},\"id\":7,\"type\":\"user\"}}", json);
+    }
+
+    /**
+     * Tests that a User without optional fields is written like before.
+     */
+    @Test
+    @DisplayName("User without optional fields is serialized unchanged")
+    public void serializeUserWithoutOptionalFields() throws JsonProcessingException {
+        User user = new User(7L, "john@example.com", "John", "Doe", LocalDate.of(1990, 2, 3), null, null, null);
+
+        String json = objectMapper.writeValueAsString(new UserResponse(user, "http://h/users"));
+
+        assertEquals("{\"links\":{\"self\":\"http://h/users\"},\"data\":{\"attributes\":{\"firstName\":\"John\"," +
+                "\"lastName\":\"Doe\",\"birthDate\":\"1990-02-03\",\"email\":\"john@example.com\"},\"id\":7," +
+                "\"type\":\"user\"}}", json);
+    }
+
+    /**
+     * Tests that birth dates are written like LocalDate's own serializer writes them, padded and configurable.
+     */
+    @Test
+    @DisplayName("Birth dates are serialized like LocalDates")
+    public void serializeBirthDateLikeLocalDate() throws JsonProcessingException {
+        ObjectMapper timestampMapper = Jackson2ObjectMapperBuilder.json().build();
+        for (LocalDate birthDate : List.of(LocalDate.of(7, 1, 9), LocalDate.of(1999, 12, 31), LocalDate.of(12345, 6, 7))) {
+            UserResponse response = new UserResponse(new User(1L, "e", "f", "l", birthDate, null, null, null), "s");
+
+            assertTrue(objectMapper.writeValueAsString(response)
+                    .contains("\"birthDate\":" + objectMapper.writeValueAsString(birthDate)));
+            assertTrue(timestampMapper.writeValueAsString(response)
+                    .contains("\"birthDate\":" + timestampMapper.writeValueAsString(birthDate)));
+        }
+    }
+
+    /**
+     * Tests that an empty User and a missing User are written like before.
+     */
+    @Test
+    @DisplayName("Empty and missing Users are serialized unchanged")
+    public void serializeEmptyAndMissingUser() throws JsonProcessingException {
+        assertEquals("{\"links\":{\"self\":\"http://h/users\"},\"data\":{\"attributes\":{\"firstName\":null," +
+                "\"lastName\":null,\"birthDate\":null,\"email\":null},\"id\":null,\"type\":\"user\"}}",
+                objectMapper.writeValueAsString(new UserResponse(new User(), "http://h/users")));
+        assertEquals("{\"links\":{\"self\":\"http://h/users\"},\"data\":{\"type\":\"user\"}}",
+                objectMapper.writeValueAsString(new UserResponse(null, "http://h/users")));
+    }
+}
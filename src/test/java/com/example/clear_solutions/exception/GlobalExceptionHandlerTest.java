@@ -1,17 +1,22 @@
 package com.example.clear_solutions.exception;
 
 import com.example.clear_solutions.dto.ErrorResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.sql.SQLException;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -29,6 +34,12 @@ public class GlobalExceptionHandlerTest {
     @InjectMocks
     GlobalExceptionHandler globalExceptionHandler;
 
+    /**
+     * The MeterRegistry the error responses are counted with.
+     */
+    @Spy
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     /**
      * Sets up the tests.
      * This method is run before each test.
@@ -52,6 +63,50 @@ public class GlobalExceptionHandlerTest {
         ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleIllegalArgumentException(exception);
 
         assertEquals(400, response.getStatusCodeValue());
+        assertEquals(1, meterRegistry.get("user.errors").tag("status", "400").tag("code", "1000").counter().count());
+    }
+
+    /**
+     * Tests that handling a UserNotFoundException returns a 404 error response with its stable code.
+     */
+    @Test
+    @DisplayName("UserNotFoundException returns a 404 error response with its error code")
+    public void handleUserNotFoundExceptionReturnsNotFound() {
+        UserNotFoundException exception = new UserNotFoundException();
+
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleUserException(exception);
+
+        assertEquals(404, response.getStatusCodeValue());
+        assertEquals(ErrorCode.USER_NOT_FOUND.getCode(), response.getBody().getErrors().get(0).getCode());
+        assertEquals("User not found", response.getBody().getErrors().get(0).getDetail());
+        assertEquals(1, meterRegistry.get("user.errors").tag("code", "2001").counter().count());
+    }
+
+    /**
+     * Tests that UserExceptions are created without a stack trace.
+     */
+    @Test
+    @DisplayName("UserExceptions have no stack trace")
+    public void userExceptionsHaveNoStackTrace() {
+        assertEquals(0, new UserNotFoundException().getStackTrace().length);
+        assertEquals(0, new UserValidationException(ErrorCode.USER_TOO_YOUNG, "Too young").getStackTrace().length);
+        assertEquals(0, new UserConflictException(ErrorCode.DATA_CONFLICT, "Conflict").getStackTrace().length);
+    }
+
+    /**
+     * Tests that handling a DataIntegrityViolationException returns a 409 error response with the fixed message
+     * of its conflict rather than the database's message.
+     */
+    @Test
+    @DisplayName("DataIntegrityViolationException returns a 409 error response")
+    public void handleDataIntegrityViolationExceptionReturnsConflict() {
+        DataIntegrityViolationException exception = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("duplicate key value violates unique constraint \"users_email_key\"", "23505"));
+
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleDataIntegrityViolationException(exception);
+
+        assertEquals(409, response.getStatusCodeValue());
+        assertEquals("A user with this email already exists", response.getBody().getErrors().get(0).getDetail());
     }
 
     /**
@@ -0,0 +1,164 @@
+package com.example.clear_solutions.index;
+
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.repository.UserRepository.BirthDateKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * BirthDateIndexTest is a test class for BirthDateIndex.
+ * It compares the pages found by the index with the pages of a plain sorted list of the same Users,
+ * while Users are created, moved and deleted often enough for the index to merge its writes several times.
+ */
+public class BirthDateIndexTest {
+
+    /**
+     * The first birth date of the Users.
+     */
+    private static final LocalDate FIRST_DAY = LocalDate.of(1950, 1, 1);
+
+    /**
+     * The number of days the birth dates of the Users span.
+     */
+    private static final int DAYS = 400;
+
+    /**
+     * The mocked UserRepository.
+     */
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    /**
+     * Tests that the pages of random ranges, followed by cursor, agree with the pages of a sorted list
+     * after every thousand random writes.
+     */
+    @Test
+    @DisplayName("Pages found by the index agree with the sorted Users after random writes")
+    public void pagesAgreeWithSortedUsersAfterRandomWrites() {
+        Random random = new Random(42);
+        Map<Long, LocalDate> birthDates = new HashMap<>();
+        for (long id = 1; id <= 3000; id++) {
+            birthDates.put(id, FIRST_DAY.plusDays(random.nextInt(DAYS)));
+        }
+        when(userRepository.findBirthDateKeys(any(Limit.class))).thenReturn(sortedKeys(birthDates));
+        BirthDateIndex index = new BirthDateIndex(userRepository, true, new SimpleMeterRegistry());
+        index.load();
+        long nextId = 3001;
+
+        for (int write = 1; write <= 20_000; write++) {
+            List<Long> ids = new ArrayList<>(birthDates.keySet());
+            Long id = ids.get(random.nextInt(ids.size()));
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    LocalDate birthDate = FIRST_DAY.plusDays(random.nextInt(DAYS));
+                    birthDates.put(nextId, birthDate);
+                    index.add(nextId++, birthDate);
+                }
+                case 1 -> index.remove(id, birthDates.remove(id));
+                default -> {
+                    LocalDate birthDate = FIRST_DAY.plusDays(random.nextInt(DAYS));
+                    index.move(id, birthDates.put(id, birthDate), birthDate);
+                }
+            }
+            if (write % 1000 == 0) {
+                assertEquals(birthDates.size(), index.size());
+                LocalDate from = FIRST_DAY.plusDays(random.nextInt(DAYS));
+                assertPagesAgree(index, birthDates, from, from.plusDays(random.nextInt(DAYS / 4)), 37);
+            }
+        }
+    }
+
+    /**
+     * Tests that a cursor before the start of the range does not return Users born before the range.
+     */
+    @Test
+    @DisplayName("A cursor before the range starts the page at the range")
+    public void cursorBeforeRangeStartsAtRange() {
+        when(userRepository.findBirthDateKeys(any(Limit.class))).thenReturn(List.of(
+                new BirthDateKey(LocalDate.of(1980, 1, 1), 1L),
+                new BirthDateKey(LocalDate.of(1990, 1, 1), 2L)));
+        BirthDateIndex index = new BirthDateIndex(userRepository, true, new SimpleMeterRegistry());
+        index.load();
+
+        long[] ids = index.findIds(LocalDate.of(1985, 1, 1), LocalDate.of(1995, 1, 1),
+                new UserCursor(LocalDate.of(1970, 1, 1), 9L), 10);
+
+        assertArrayEquals(new long[]{2L}, ids);
+    }
+
+    /**
+     * Tests that a disabled index reads nothing from the database and ignores writes.
+     */
+    @Test
+    @DisplayName("A disabled index is not loaded and ignores writes")
+    public void disabledIndexIsNotLoaded() {
+        BirthDateIndex index = new BirthDateIndex(userRepository, false, new SimpleMeterRegistry());
+
+        index.load();
+        index.add(1L, FIRST_DAY);
+
+        assertEquals(0, index.size());
+        verifyNoInteractions(userRepository);
+    }
+
+    /**
+     * Pages through a range with the index and compares every page with the same page of the sorted Users.
+     *
+     * @param index the BirthDateIndex
+     * @param birthDates the birth dates of the Users by ID
+     * @param from the start of the range
+     * @param to the end of the range
+     * @param limit the page size
+     */
+    private static void assertPagesAgree(BirthDateIndex index, Map<Long, LocalDate> birthDates,
+                                         LocalDate from, LocalDate to, int limit) {
+        long[] expected = sortedKeys(birthDates).stream()
+                .filter(key -> !key.birthDate().isBefore(from) && !key.birthDate().isAfter(to))
+                .mapToLong(BirthDateKey::id)
+                .toArray();
+        List<Long> found = new ArrayList<>();
+        UserCursor after = null;
+        while (true) {
+            long[] page = index.findIds(from, to, after, limit);
+            for (long id : page) {
+                found.add(id);
+            }
+            if (page.length < limit) {
+                break;
+            }
+            long last = page[page.length - 1];
+            after = new UserCursor(birthDates.get(last), last);
+        }
+        assertArrayEquals(expected, found.stream().mapToLong(Long::longValue).toArray(), from + " to " + to);
+    }
+
+    /**
+     * Sorts the keys of the Users in (birth date, ID) order.
+     *
+     * @param birthDates the birth dates of the Users by ID
+     * @return the sorted keys
+     */
+    private static List<BirthDateKey> sortedKeys(Map<Long, LocalDate> birthDates) {
+        return birthDates.entrySet().stream()
+                .map(entry -> new BirthDateKey(entry.getValue(), entry.getKey()))
+                .sorted(Comparator.comparing(BirthDateKey::birthDate).thenComparing(BirthDateKey::id))
+                .toList();
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.clear_solutions.ingest;
+
+import com.example.clear_solutions.cache.UserCache;
+import com.example.clear_solutions.cache.UserRangeCache;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.index.BirthDateIndex;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserCopyRepository.CopyBatch;
+import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.stats.BirthDateStats;
+import com.example.clear_solutions.validation.UserValidation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * UserCsvIngesterTest is a test class for UserCsvIngester.
+ * It ingests files in blocks of 64 bytes on two workers, so lines are carried over between blocks,
+ * and records the rows handed to a mocked UserRepository.
+ */
+public class UserCsvIngesterTest {
+
+    /**
+     * The directory the CSV files are written to.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * The mocked UserValidation, which rejects Users with the email young@b.com.
+     */
+    private final UserValidation userValidation = mock(UserValidation.class);
+
+    /**
+     * The mocked UserRepository, which refuses rows with the email dup@b.com.
+     */
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    /**
+     * The mocked UserRangeCache.
+     */
+    private final UserRangeCache userRangeCache = mock(UserRangeCache.class);
+
+    /**
+     * The mocked BirthDateStats.
+     */
+    private final BirthDateStats birthDateStats = mock(BirthDateStats.class);
+
+    /**
+     * The mocked BirthDateIndex.
+     */
+    private final BirthDateIndex birthDateIndex = mock(BirthDateIndex.class);
+
+    /**
+     * The MeterRegistry the row counters are registered with.
+     */
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * The rows copied into the database, in the format of CopyBatch.
+     */
+    private final StringBuilder copied = new StringBuilder();
+
+    /**
+     * The UserCsvIngester to be tested.
+     */
+    private UserCsvIngester ingester;
+
+    /**
+     * Creates the UserCsvIngester to be tested and the behavior of its mocks.
+     */
+    @BeforeEach
+    public void setup() {
+        when(userValidation.findViolation(any(User.class))).thenAnswer(invocation ->
+                "young@b.com".equals(invocation.getArgument(0, User.class).getEmail())
+                        ? "User must be at least 18 years old" : null);
+        AtomicLong nextId = new AtomicLong(1);
+        when(userRepository.reserveIds(anyInt())).thenAnswer(invocation ->
+                LongStream.range(0, invocation.getArgument(0, Integer.class))
+                        .map(i -> nextId.getAndIncrement()).toArray());
+        when(userRepository.copyUsers(any(CopyBatch.class), any(long[].class))).thenAnswer(invocation -> {
+            CopyBatch batch = invocation.getArgument(0);
+            String rows = new String(batch.data(), 0, batch.rowEnds()[batch.rowCount() - 1], StandardCharsets.UTF_8);
+            copied.append(rows);
+            return rows.lines()
+                    .filter(row -> row.contains("dup@b.com"))
+                    .mapToLong(row -> Long.parseLong(row.substring(0, row.indexOf(','))))
+                    .toArray();
+        });
+        ingester = new UserCsvIngester(userValidation, userRepository, mock(UserCache.class), userRangeCache,
+                birthDateStats, birthDateIndex, Validation.buildDefaultValidatorFactory().getValidator(),
+                meterRegistry, DataSize.ofBytes(64), 2);
+    }
+
+    /**
+     * Stops the workers of the UserCsvIngester.
+     */
+    @AfterEach
+    public void teardown() {
+        ingester.shutdown();
+    }
+
+    /**
+     * Tests that valid rows are copied with their original fields, including quoted ones, and that malformed rows,
+     * rows breaking a rule and rows refused by the database are written to the reject file in line order.
+     */
+    @Test
+    @DisplayName("CSV ingestion copies valid rows and rejects the others in line order")
+    public void ingestCopiesValidRowsAndRejectsOthers() throws Exception {
+        Path csv = Files.writeString(directory.resolve("users.csv"), """
+                \uFEFFemail,first_name,last_name,birth_date,phone_number
+                a@b.com,A,B,1990-01-01,\r
+                "q""uote@b.com","Ann, Jr",B,"1990-02-02",+380
+                bad,row
+                c@d.com,C,D,1990-13-01,
+
+                young@b.com,Y,Y,2020-01-01,
+                dup@b.com,D,D,1991-01-01,
+                "open@b.com,O,O,1990-01-01,
+                e@f.com,E,F,1980-05-05,""");
+        ByteArrayOutputStream rejects = new ByteArrayOutputStream();
+        AtomicLong processed = new AtomicLong();
+
+        ingester.ingest(csv, rejects, processed::addAndGet);
+
+        assertEquals("""
+                2,a@b.com,A,B,1990-01-01,,
+                3,"q""uote@b.com","Ann, Jr",B,1990-02-02,,+380
+                8,dup@b.com,D,D,1991-01-01,,
+                10,e@f.com,E,F,1980-05-05,,
+                """, copied.toString());
+        assertEquals("""
+                line,detail,row
+                4,"Row has fewer columns than the header","bad,row"
+                5,"birthDate must be a date in the format yyyy-MM-dd","c@d.com,C,D,1990-13-01,"
+                7,"User must be at least 18 years old","young@b.com,Y,Y,2020-01-01,"
+                8,"A user with this email already exists","dup@b.com,D,D,1991-01-01,,"
+                9,"Row has an unterminated quoted field",\"""open@b.com,O,O,1990-01-01,"
+                """, rejects.toString(StandardCharsets.UTF_8));
+        assertEquals(8, processed.get());
+        assertEquals(3, meterRegistry.counter("user.ingest.rows", "outcome", "created").count());
+        assertEquals(5, meterRegistry.counter("user.ingest.rows", "outcome", "rejected").count());
+        verify(userRangeCache, atLeastOnce()).invalidate(any(LocalDate.class), any(LocalDate.class));
+        verify(birthDateStats).add(LocalDate.of(1990, 1, 1));
+        verify(birthDateStats).add(LocalDate.of(1990, 2, 2));
+        verify(birthDateStats).add(LocalDate.of(1980, 5, 5));
+        verify(birthDateStats, never()).add(LocalDate.of(1991, 1, 1));
+        verify(birthDateIndex, times(3)).add(any(), any(LocalDate.class));
+        verify(birthDateIndex, never()).add(any(), eq(LocalDate.of(1991, 1, 1)));
+    }
+
+    /**
+     * Tests that a file whose header lacks a required column writes nothing to the database.
+     */
+    @Test
+    @DisplayName("CSV ingestion without the required columns copies nothing")
+    public void ingestWithoutRequiredColumnsCopiesNothing() throws Exception {
+        Path csv = Files.writeString(directory.resolve("users.csv"), "email,firstName\na@b.com,A\n");
+
+        assertThrows(UserValidationException.class, () -> ingester.ingest(csv, new ByteArrayOutputStream(), count -> { }));
+        verify(userRepository, never()).copyUsers(any(), any());
+    }
+
+    /**
+     * Tests that a line longer than a block fails the import instead of being split.
+     */
+    @Test
+    @DisplayName("CSV ingestion fails on a line longer than a block")
+    public void ingestFailsOnLineLongerThanBlock() throws Exception {
+        Path csv = Files.writeString(directory.resolve("users.csv"),
+                "email,firstName,lastName,birthDate\n" + "a".repeat(100) + "@b.com,A,B,1990-01-01\nx\n");
+
+        assertThrows(IOException.class, () -> ingester.ingest(csv, new ByteArrayOutputStream(), count -> { }));
+    }
+
+    /**
+     * Tests that an over-long field is rejected by its length in characters rather than bytes.
+     */
+    @Test
+    @DisplayName("CSV ingestion measures field lengths in characters")
+    public void ingestMeasuresFieldLengthsInCharacters() throws Exception {
+        UserCsvIngester wideIngester = new UserCsvIngester(userValidation, userRepository, mock(UserCache.class),
+                userRangeCache, birthDateStats, birthDateIndex, Validation.buildDefaultValidatorFactory().getValidator(),
+                meterRegistry, DataSize.ofKilobytes(4), 1);
+        String fits = "é".repeat(255);
+        String tooLong = "a".repeat(256);
+        Path csv = Files.writeString(directory.resolve("users.csv"), "email,firstName,lastName,birthDate\n"
+                + "a@b.com," + fits + ",B,1990-01-01\n" + "c@d.com," + tooLong + ",D,1990-01-01\n");
+        ByteArrayOutputStream rejects = new ByteArrayOutputStream();
+
+        try {
+            wideIngester.ingest(csv, rejects, count -> { });
+        } finally {
+            wideIngester.shutdown();
+        }
+
+        assertEquals(1, copied.toString().lines().count());
+        String[] lines = rejects.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("3,\"firstName must be at most 255 characters\","));
+    }
+}
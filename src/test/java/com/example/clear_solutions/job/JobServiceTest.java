@@ -0,0 +1,256 @@
+package com.example.clear_solutions.job;
+
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserConflictException;
+import com.example.clear_solutions.exception.UserValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * JobServiceTest is a test class for JobService.
+ * It runs Jobs on a single worker with a queue of one, storing their state in a mocked JobRepository.
+ */
+public class JobServiceTest {
+
+    /**
+     * The directory the inputs and results of the Jobs are kept in.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * The mocked JobRepository.
+     */
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    /**
+     * The MeterRegistry the metrics of the Jobs are registered with.
+     */
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * The JobService to be tested.
+     */
+    private JobService jobService;
+
+    /**
+     * Creates the JobService to be tested.
+     */
+    @BeforeEach
+    public void setup() {
+        jobService = new JobService(jobRepository, meterRegistry, 1, 1, Duration.ofHours(1), directory,
+                Duration.ofMillis(50), Duration.ofMinutes(1));
+    }
+
+    /**
+     * Stops the worker of the JobService.
+     */
+    @AfterEach
+    public void teardown() {
+        jobService.shutdown();
+    }
+
+    /**
+     * Tests that a job records the progress its work reports, succeeds and is stored when it starts and finishes.
+     */
+    @Test
+    @DisplayName("Submitted job records its progress, succeeds and is stored")
+    public void submittedJobRecordsProgressAndSucceeds() {
+        Job job = jobService.submit("test", context -> {
+            context.addProcessed(2);
+            context.addProcessed(3);
+        });
+
+        verify(jobRepository).save(job);
+        awaitFinished(job);
+        assertEquals(JobStatus.SUCCEEDED, job.getStatus());
+        assertEquals(5, job.getProcessed());
+        assertEquals(5, meterRegistry.get("user.jobs.processed").tag("type", "test").counter().count());
+        assertEquals(1, meterRegistry.get("user.jobs.duration").tags("type", "test", "status", "SUCCEEDED")
+                .timer().count());
+    }
+
+    /**
+     * Tests that a job whose work throws an unexpected exception fails with a fixed detail
+     * rather than the message of the exception.
+     */
+    @Test
+    @DisplayName("Job whose work throws fails with a fixed detail")
+    public void jobWhoseWorkThrowsFails() {
+        Job job = jobService.submit("test", context -> {
+            throw new IllegalStateException("broken");
+        });
+
+        awaitFinished(job);
+        assertEquals(JobStatus.FAILED, job.getStatus());
+        assertEquals("The job failed unexpectedly", job.getDetail());
+    }
+
+    /**
+     * Tests that a job refused by the database fails with the fixed message of the conflict,
+     * and a job refused by a check of the user API with the message of that check.
+     */
+    @Test
+    @DisplayName("Job refused by the database or a check fails with the message an error response would carry")
+    public void jobRefusedFailsWithErrorResponseDetail() {
+        Job conflicting = jobService.submit("test", context -> {
+            throw new DataIntegrityViolationException("insert into users ... failed",
+                    new SQLException("duplicate key value violates unique constraint \"users_email_key\"", "23505"));
+        });
+        awaitFinished(conflicting);
+        Job invalid = jobService.submit("test", context -> {
+            throw new UserValidationException(ErrorCode.INVALID_CSV_HEADER, "The header must name the email column");
+        });
+        awaitFinished(invalid);
+
+        assertEquals("A user with this email already exists", conflicting.getDetail());
+        assertEquals("The header must name the email column", invalid.getDetail());
+    }
+
+    /**
+     * Tests that a job is rejected when the worker is busy and the queue is full.
+     */
+    @Test
+    @DisplayName("Job submitted while the queue is full is rejected")
+    public void jobSubmittedWhileQueueIsFullIsRejected() {
+        CountDownLatch release = new CountDownLatch(1);
+        jobService.submit("running", context -> release.await());
+        jobService.submit("queued", context -> release.await());
+
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit("rejected", context -> { }));
+        assertEquals(1, meterRegistry.get("user.jobs.rejected").tag("type", "rejected").counter().count());
+        release.countDown();
+    }
+
+    /**
+     * Tests that the input of a job is spooled before it runs and deleted after it finished,
+     * and that the result it writes can be found once it has succeeded.
+     */
+    @Test
+    @DisplayName("Job reads its spooled input and its result can be found after it succeeded")
+    public void jobReadsInputAndWritesResult() throws Exception {
+        AtomicReference<Path> input = new AtomicReference<>();
+        Job job = jobService.submit("copy", new ByteArrayInputStream("data".getBytes(StandardCharsets.UTF_8)),
+                context -> {
+                    input.set(context.input());
+                    try (OutputStream result = context.openResult("text/plain")) {
+                        result.write(Files.readAllBytes(context.input()));
+                    }
+                });
+
+        awaitFinished(job);
+        assertEquals(JobStatus.SUCCEEDED, job.getStatus());
+        assertFalse(Files.exists(input.get()));
+        assertEquals("text/plain", job.getResultType());
+        assertEquals("data", Files.readString(jobService.findResult(job)));
+    }
+
+    /**
+     * Tests that the result of a failed job is deleted and cannot be found.
+     */
+    @Test
+    @DisplayName("Result of a failed job cannot be found")
+    public void resultOfFailedJobCannotBeFound() throws Exception {
+        Job job = jobService.submit("test", context -> {
+            try (OutputStream result = context.openResult("text/plain")) {
+                result.write(1);
+            }
+            throw new IllegalStateException("broken");
+        });
+
+        awaitFinished(job);
+        assertThrows(UserConflictException.class, () -> jobService.findResult(job));
+        assertEquals(List.of(), Files.list(directory).toList());
+    }
+
+    /**
+     * Tests that a job that is no longer running is looked up in the JobRepository.
+     */
+    @Test
+    @DisplayName("Finished job is found in the repository")
+    public void finishedJobIsFoundInRepository() {
+        Job stored = new Job("test");
+        when(jobRepository.findById(stored.getId())).thenReturn(Optional.of(stored));
+
+        assertSame(stored, jobService.find(stored.getId()));
+    }
+
+    /**
+     * Tests that the jobs abandoned by a stopped instance are marked as failed and their files are deleted,
+     * while the input of a job of another instance that still renews its lease is kept.
+     */
+    @Test
+    @DisplayName("Jobs abandoned by a stopped instance are failed and only their files deleted")
+    public void abandonedJobsAreFailed() throws Exception {
+        UUID abandoned = UUID.randomUUID();
+        Path abandonedInput = Files.writeString(directory.resolve(abandoned + ".input"), "data");
+        Path abandonedResult = Files.writeString(directory.resolve(abandoned + ".result"), "data");
+        Path otherInput = Files.writeString(directory.resolve(UUID.randomUUID() + ".input"), "data");
+        when(jobRepository.findIdsAbandonedBefore(any())).thenReturn(List.of(abandoned));
+        when(jobRepository.failAbandoned(eq(List.of(abandoned)), any(), eq(JobStatus.FAILED), any(), any()))
+                .thenReturn(1);
+
+        jobService.failAbandonedJobs();
+
+        verify(jobRepository).failAbandoned(eq(List.of(abandoned)), any(), eq(JobStatus.FAILED), any(), any());
+        assertFalse(Files.exists(abandonedInput));
+        assertFalse(Files.exists(abandonedResult));
+        assertEquals(List.of(otherInput), Files.list(directory).toList());
+    }
+
+    /**
+     * Tests that the lease of a running job is renewed while it runs.
+     */
+    @Test
+    @DisplayName("Lease of a running job is renewed")
+    public void leaseOfRunningJobIsRenewed() {
+        CountDownLatch release = new CountDownLatch(1);
+        jobService.start();
+        Job job = jobService.submit("running", context -> release.await());
+
+        verify(jobRepository, timeout(10_000).atLeastOnce()).renewLeases(eq(List.of(job.getId())), any());
+        release.countDown();
+        awaitFinished(job);
+    }
+
+    /**
+     * Waits for a job to finish, which is when its outcome has been stored.
+     *
+     * @param job the job
+     */
+    private void awaitFinished(Job job) {
+        verify(jobRepository, timeout(10_000).times(2)).updateState(job);
+        assertTrue(job.isFinished());
+    }
+}
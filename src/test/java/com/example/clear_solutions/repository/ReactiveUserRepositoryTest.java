@@ -0,0 +1,150 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserUpdateRepository.UpdatedUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ReactiveUserRepositoryTest is a test class for the R2DBC statements of ReactiveUserRepository.
+ * It runs the reactive profile without a web server against the application's database.
+ * The statements are not run in a transaction, so every test deletes the Users it created.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("reactive")
+public class ReactiveUserRepositoryTest {
+
+    /**
+     * The ReactiveUserRepository to be tested.
+     */
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    /**
+     * The DatabaseClient used to remove the created Users.
+     */
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Deletes the Users created by a test.
+     */
+    @AfterEach
+    public void tearDown() {
+        databaseClient.sql("delete from users where email like 'reactive-repository-test-%'").then().block();
+    }
+
+    /**
+     * Tests that an inserted User can be found, updated with the birth date it replaced returned,
+     * and deleted only with its current version.
+     */
+    @Test
+    @DisplayName("Inserted users are found, updated with their previous birth date and deleted by version")
+    public void insertFindUpdateAndDelete() {
+        User user = userRepository.insert(new User(null, "reactive-repository-test-1@example.com", "John", "Doe",
+                LocalDate.of(1990, 1, 1), null, "+380000000000", null)).block();
+        assertNotNull(user.getId());
+        assertEquals(0L, user.getVersion());
+
+        User found = userRepository.findById(user.getId()).block();
+        assertEquals("+380000000000", found.getPhoneNumber());
+        User userUpdates = new User();
+        userUpdates.setBirthDate(LocalDate.of(1985, 6, 15));
+        UpdatedUser updatedUser = userRepository.updateFields(user.getId(), userUpdates, 0L).block();
+        assertEquals(LocalDate.of(1985, 6, 15), updatedUser.user().getBirthDate());
+        assertEquals(LocalDate.of(1990, 1, 1), updatedUser.previousBirthDate());
+        assertEquals(1L, updatedUser.user().getVersion());
+        assertEquals(null, userRepository.updateFields(user.getId(), userUpdates, 0L).block());
+
+        assertEquals(0L, userRepository.delete(user.getId(), 0L).block());
+        assertEquals(1L, userRepository.delete(user.getId(), 1L).block());
+        assertEquals(false, userRepository.existsById(user.getId()).block());
+    }
+
+    /**
+     * Tests that Users inserted with one statement get their IDs and are found in the order of their IDs,
+     * by page and by stream.
+     */
+    @Test
+    @DisplayName("Users inserted together get their IDs and are read back by ID, page and stream")
+    public void insertAllAndRead() {
+        List<User> users = List.of(
+                new User(null, "reactive-repository-test-2@example.com", "Ann", "Reactive", LocalDate.of(1901, 3, 1), "Kyiv", null, null),
+                new User(null, "reactive-repository-test-3@example.com", "Bob", "Reactive", LocalDate.of(1901, 2, 1), null, null, null),
+                new User(null, "reactive-repository-test-4@example.com", "Cid", "Reactive", LocalDate.of(1901, 2, 1), null, null, null));
+        userRepository.insertAll(users).block();
+        users.forEach(user -> assertNotNull(user.getId()));
+
+        long[] ids = users.stream().mapToLong(User::getId).toArray();
+        List<User> byId = userRepository.findAllById(new long[] {ids[2], ids[0]}).block();
+        assertEquals(List.of(ids[2], ids[0]), byId.stream().map(User::getId).toList());
+        assertEquals("Kyiv", byId.get(1).getAddress());
+
+        LocalDate from = LocalDate.of(1901, 1, 1);
+        LocalDate to = LocalDate.of(1901, 12, 31);
+        List<User> firstPage = userRepository.findPageByBirthDateBetween(from, to, null, 2).collectList().block();
+        assertEquals(List.of(ids[1], ids[2]), firstPage.stream().map(User::getId).toList());
+        List<User> secondPage = userRepository.findPageByBirthDateBetween(from, to, UserCursor.of(firstPage.get(1)), 2)
+                .collectList().block();
+        assertEquals(List.of(ids[0]), secondPage.stream().map(User::getId).toList());
+        List<User> streamed = userRepository.streamByBirthDateBetween(from, to, 1).collectList().block();
+        assertEquals(List.of(ids[1], ids[2], ids[0]), streamed.stream().map(User::getId).toList());
+    }
+
+    /**
+     * Tests that IDs are reserved in blocks of the increment of the sequence: the IDs of one call are distinct
+     * and ascending, the sequence is called once per block rather than once per ID, and the rest of a block
+     * is handed out by the next call.
+     */
+    @Test
+    @DisplayName("IDs are reserved from the sequence one block at a time")
+    public void reserveIdsTakesBlocksOfSequence() {
+        long before = lastSequenceValue();
+        long[] ids = userRepository.reserveIds(120).block();
+        long after = lastSequenceValue();
+
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+        assertTrue(after - before <= 150, "reserved " + (after - before) + " IDs for 120");
+        assertTrue(ids[ids.length - 1] <= after);
+        long[] next = userRepository.reserveIds(1).block();
+        assertTrue(next[0] > ids[ids.length - 1]);
+        assertEquals(next[0] <= after ? after : after + 50, lastSequenceValue());
+    }
+
+    /**
+     * Tests that the prefix search of UserSearchRepositoryImpl runs with PostgreSQL's positional parameters.
+     */
+    @Test
+    @DisplayName("Finding IDs by prefix runs the search statement of the JPA repository")
+    public void findIdsByPrefixMatchesNames() {
+        User user = userRepository.insert(new User(null, "reactive-repository-test-5@example.com", "Zyxwvutsrq", "Doe",
+                LocalDate.of(1990, 1, 1), null, null, null)).block();
+
+        assertArrayEquals(new long[] {user.getId()}, userRepository.findIdsByPrefix("ZYXWVU", 10).block());
+        assertTrue(userRepository.findIdsByPrefix("zyxwvutsrqp", 10).block().length == 0);
+    }
+
+    /**
+     * Reads the last value returned by users_seq.
+     *
+     * @return the last value of the sequence
+     */
+    private long lastSequenceValue() {
+        return databaseClient.sql("select last_value from users_seq").map(row -> row.get(0, Long.class)).one().block();
+    }}
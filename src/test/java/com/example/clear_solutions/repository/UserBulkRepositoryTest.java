@@ -0,0 +1,170 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserBulkRepository.ChangedUser;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UserBulkRepositoryTest is a test class for the chunked bulk statements of UserBulkRepositoryImpl.
+ * It runs against the application's database on a range of birth dates no other test uses;
+ * every test rolls its changes back.
+ */
+@SpringBootTest
+@Transactional
+public class UserBulkRepositoryTest {
+
+    /**
+     * The UserRepository that includes the UserBulkRepository fragment.
+     */
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * The EntityManager used to read the stored rows back.
+     */
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * The Users created for a test, one per day from 1 January 1900.
+     */
+    private final List<User> users = new ArrayList<>();
+
+    /**
+     * Creates five Users born on consecutive days.
+     */
+    @BeforeEach
+    public void setup() {
+        for (int i = 0; i < 5; i++) {
+            users.add(userRepository.save(new User(null, "bulk-test" + i + "@example.com", "John", "Doe",
+                    LocalDate.of(1900, 1, 1).plusDays(i), null, null, null)));
+        }
+        userRepository.flush();
+    }
+
+    /**
+     * Tests that deleting one User returns its birth date, and deletes nothing when it has another version.
+     */
+    @Test
+    @DisplayName("Deleting one user returns its birth date only if it has the expected version")
+    public void deleteOneReturnsBirthDateOfDeletedUser() {
+        User user = users.get(2);
+
+        assertTrue(userRepository.deleteOne(user.getId(), user.getVersion() + 1).isEmpty());
+        assertEquals(Optional.of(new ChangedUser(user.getId(), LocalDate.of(1900, 1, 3), null)),
+                userRepository.deleteOne(user.getId(), user.getVersion()));
+        assertTrue(userRepository.deleteOne(user.getId(), null).isEmpty());
+    }
+
+    /**
+     * Tests that deleting by IDs deletes exactly those Users and returns their birth dates.
+     */
+    @Test
+    @DisplayName("Deleting a chunk by IDs deletes those users and returns their birth dates")
+    public void deleteChunkByIdsDeletesUsers() {
+        List<ChangedUser> deleted = userRepository.deleteChunkByIds(List.of(users.get(0).getId(), users.get(3).getId()));
+
+        assertEquals(2, deleted.size());
+        assertTrue(deleted.contains(new ChangedUser(users.get(3).getId(), LocalDate.of(1900, 1, 4), null)));
+        entityManager.clear();
+        assertFalse(userRepository.existsById(users.get(0).getId()));
+        assertTrue(userRepository.existsById(users.get(1).getId()));
+    }
+
+    /**
+     * Tests that deleting by birth date range deletes at most one chunk, from the start of the range.
+     */
+    @Test
+    @DisplayName("Deleting a chunk by birth date range deletes the earliest users up to the limit")
+    public void deleteChunkByBirthDateBetweenDeletesEarliestUsers() {
+        List<ChangedUser> deleted = userRepository.deleteChunkByBirthDateBetween(LocalDate.of(1900, 1, 2),
+                LocalDate.of(1900, 1, 5), 2);
+
+        assertEquals(List.of(users.get(1).getId(), users.get(2).getId()),
+                deleted.stream().map(ChangedUser::id).sorted().toList());
+    }
+
+    /**
+     * Tests that updating by birth date range continues after the key of the previous chunk,
+     * returns the previous and new birth dates and increments the version.
+     */
+    @Test
+    @DisplayName("Updating a chunk by birth date range after a key sets the fields of the following users")
+    public void updateChunkByBirthDateBetweenAfterKeyUpdatesFollowingUsers() {
+        User updates = new User();
+        updates.setLastName("Smith");
+        updates.setBirthDate(LocalDate.of(1899, 12, 31));
+
+        List<ChangedUser> updated = userRepository.updateChunkByBirthDateBetween(LocalDate.of(1900, 1, 1),
+                LocalDate.of(1900, 1, 5), LocalDate.of(1900, 1, 2), users.get(1).getId(), updates, 2);
+
+        assertEquals(List.of(new ChangedUser(users.get(2).getId(), LocalDate.of(1900, 1, 3), LocalDate.of(1899, 12, 31)),
+                        new ChangedUser(users.get(3).getId(), LocalDate.of(1900, 1, 4), LocalDate.of(1899, 12, 31))),
+                updated.stream().sorted((a, b) -> a.id().compareTo(b.id())).toList());
+        entityManager.clear();
+        User stored = userRepository.findById(users.get(2).getId()).orElseThrow();
+        assertEquals("Smith", stored.getLastName());
+        assertEquals("John", stored.getFirstName());
+        assertEquals(users.get(2).getVersion() + 1, stored.getVersion());
+    }
+
+    /**
+     * Tests that updating by birth date range skips the Users already at the new values, so the Users moved
+     * further into the range by the previous chunk are not updated again.
+     */
+    @Test
+    @DisplayName("Updating a chunk by birth date range skips users already at the new values")
+    public void updateChunkByBirthDateBetweenSkipsUsersAtNewValues() {
+        User updates = new User();
+        updates.setBirthDate(LocalDate.of(1900, 1, 5));
+
+        List<ChangedUser> first = userRepository.updateChunkByBirthDateBetween(LocalDate.of(1900, 1, 1),
+                LocalDate.of(1900, 1, 5), null, null, updates, 2);
+        List<ChangedUser> rest = userRepository.updateChunkByBirthDateBetween(LocalDate.of(1900, 1, 1),
+                LocalDate.of(1900, 1, 5), LocalDate.of(1900, 1, 2), users.get(1).getId(), updates, 10);
+
+        assertEquals(List.of(users.get(0).getId(), users.get(1).getId()),
+                first.stream().map(ChangedUser::id).sorted().toList());
+        assertEquals(List.of(users.get(2).getId(), users.get(3).getId()),
+                rest.stream().map(ChangedUser::id).sorted().toList());
+        entityManager.clear();
+        User moved = userRepository.findById(users.get(0).getId()).orElseThrow();
+        User unchanged = userRepository.findById(users.get(4).getId()).orElseThrow();
+        assertEquals(users.get(0).getVersion() + 1, moved.getVersion());
+        assertEquals(users.get(4).getVersion(), unchanged.getVersion());
+    }
+
+    /**
+     * Tests that updating by IDs skips the Users already at the new values, as updating by birth date range does.
+     */
+    @Test
+    @DisplayName("Updating a chunk by IDs skips users already at the new values")
+    public void updateChunkByIdsSkipsUsersAtNewValues() {
+        User updates = new User();
+        updates.setBirthDate(LocalDate.of(1900, 1, 2));
+
+        List<ChangedUser> updated = userRepository.updateChunkByIds(
+                List.of(users.get(0).getId(), users.get(1).getId()), updates);
+
+        assertEquals(List.of(new ChangedUser(users.get(0).getId(), LocalDate.of(1900, 1, 1), LocalDate.of(1900, 1, 2))),
+                updated);
+        entityManager.clear();
+        User unchanged = userRepository.findById(users.get(1).getId()).orElseThrow();
+        assertEquals(users.get(1).getVersion(), unchanged.getVersion());
+    }
+}
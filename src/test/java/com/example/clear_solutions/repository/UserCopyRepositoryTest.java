@@ -0,0 +1,83 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserCopyRepository.CopyBatch;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * UserCopyRepositoryTest is a test class for the COPY-based loading of UserCopyRepositoryImpl.
+ * It runs against the application's database with emails no other test uses; every test rolls its changes back.
+ */
+@SpringBootTest
+@Transactional
+public class UserCopyRepositoryTest {
+
+    /**
+     * The UserRepository that includes the UserCopyRepository fragment.
+     */
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * The EntityManager used to read the stored rows back.
+     */
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Tests that reserved IDs are distinct and never handed out again by Hibernate.
+     */
+    @Test
+    @DisplayName("Reserved IDs are distinct and not reused for saved users")
+    public void reservedIdsAreNotReused() {
+        long[] ids = userRepository.reserveIds(120);
+        User saved = userRepository.saveAndFlush(new User(null, "copy-test-saved@example.com", "John", "Doe",
+                LocalDate.of(1990, 1, 1), null, null, null));
+
+        assertEquals(120, Arrays.stream(ids).distinct().count());
+        assertFalse(Arrays.stream(ids).anyMatch(id -> id == saved.getId()));
+    }
+
+    /**
+     * Tests that a batch inserts its rows with NULL for empty columns and reports the rows with a taken email,
+     * including a duplicate within the batch.
+     */
+    @Test
+    @DisplayName("Copying a batch inserts its rows and reports the rows with a taken email")
+    public void copyUsersInsertsRowsAndReportsConflicts() {
+        userRepository.saveAndFlush(new User(null, "copy-test-taken@example.com", "John", "Doe",
+                LocalDate.of(1990, 1, 1), null, null, null));
+        String rows = """
+                2,copy-test-a@example.com,Ann,"Lee, Jr",1990-02-02,,+380
+                3,copy-test-taken@example.com,Bob,Roe,1990-03-03,,
+                5,copy-test-a@example.com,Ann,Lee,1990-02-02,,
+                """;
+        byte[] data = rows.getBytes(StandardCharsets.UTF_8);
+        int[] rowEnds = {rows.indexOf('\n') + 1, rows.indexOf('\n', rows.indexOf('\n') + 1) + 1, data.length};
+        long[] ids = userRepository.reserveIds(3);
+
+        long[] refused = userRepository.copyUsers(new CopyBatch(data, rowEnds, 3), ids);
+
+        assertArrayEquals(new long[]{3, 5}, refused);
+        entityManager.clear();
+        User created = userRepository.findById(ids[0]).orElseThrow();
+        assertEquals("Lee, Jr", created.getLastName());
+        assertNull(created.getAddress());
+        assertEquals("+380", created.getPhoneNumber());
+        assertFalse(userRepository.existsById(ids[1]));
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.clear_solutions.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UserQueryPlanTest checks the schema created by the Flyway migrations against an embedded PostgreSQL.
+ * It explains the statements of the repositories and asserts that birth date range searches are planned
+ * on the (birth_date, id) index instead of a sequential scan, and that searches by name and email are planned
+ * on their prefix indexes.
+ */
+public class UserQueryPlanTest {
+
+    /**
+     * The pattern of the numbered parameters of the repository statements, "?1" for JPA and "$1" for R2DBC.
+     */
+    private static final Pattern PARAMETER = Pattern.compile("[?$](\\d+)");
+
+    /**
+     * The embedded PostgreSQL the migrations run against.
+     */
+    private static EmbeddedPostgres postgres;
+
+    /**
+     * Starts the embedded PostgreSQL, migrates it and fills it with Users born over fifty years,
+     * with five thousand last names.
+     */
+    @BeforeAll
+    public static void setup() throws IOException, SQLException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("insert into users (id, email, first_name, last_name, birth_date) " +
+                    "select nextval('users_seq'), 'user' || n || '@example.com', 'John', 'Doe' || (n % 5000), " +
+                    "date '1950-01-01' + (n % 18250) from generate_series(1, 50000) n");
+            statement.execute("vacuum analyze users");
+        }
+    }
+
+    /**
+     * Stops the embedded PostgreSQL.
+     */
+    @AfterAll
+    public static void teardown() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    /**
+     * Tests that the first page of a range search is read from the birth date index.
+     */
+    @Test
+    @DisplayName("First page of a birth date range search uses the birth date index")
+    public void firstPageUsesBirthDateIndex() throws SQLException {
+        String plan = explain(ReactiveUserRepository.FIND_PAGE, Date.valueOf("1980-01-01"), Date.valueOf("1980-12-31"),
+                100);
+
+        assertTrue(plan.contains("users_birth_date_id_idx"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    /**
+     * Tests that a page following a cursor is read from the birth date index, starting at the cursor
+     * rather than at the start of the range: the row comparison of the cursor must be an index condition,
+     * not a filter applied to every User of the range.
+     */
+    @Test
+    @DisplayName("Next page of a birth date range search uses the birth date index")
+    public void nextPageUsesBirthDateIndex() throws SQLException {
+        String plan = explain(ReactiveUserRepository.FIND_PAGE_AFTER, Date.valueOf("1980-01-01"),
+                Date.valueOf("1980-12-31"), Date.valueOf("1980-06-01"), 1000L, 100);
+
+        assertTrue(plan.contains("users_birth_date_id_idx"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+        assertTrue(plan.lines().anyMatch(line -> line.contains("Index Cond")
+                && line.contains("ROW(birth_date, id) > ROW('1980-06-01'::date, '1000'::bigint)")), plan);
+        assertFalse(plan.contains("Filter"), plan);
+    }
+
+    /**
+     * Tests that the prefix matches of every field are read in rank order from their prefix indexes.
+     */
+    @Test
+    @DisplayName("Prefix matches of a search by text use the prefix indexes")
+    public void prefixMatchesUsePrefixIndex() throws SQLException {
+        String plan = explain(UserSearchRepositoryImpl.FIND_BY_PREFIX, "user1234", 100,
+                UserSearchRepositoryImpl.prefixEnd("user1234"));
+
+        assertTrue(plan.contains("users_email_prefix_idx"), plan);
+        assertTrue(plan.contains("users_first_name_prefix_idx"), plan);
+        assertTrue(plan.contains("users_last_name_prefix_idx"), plan);
+        assertFalse(plan.contains("Seq Scan on users"), plan);
+    }
+
+    /**
+     * Tests that the Users of a similar name are looked up on the prefix index.
+     */
+    @Test
+    @DisplayName("Users of a similar name are read from the prefix index")
+    public void usersOfSimilarNameUsePrefixIndex() throws SQLException {
+        String plan = explain(UserSearchRepositoryImpl.FIND_BY_SIMILARITY, "doe42", 100);
+
+        assertTrue(plan.contains("users_last_name_prefix_idx"), plan);
+        assertFalse(plan.contains("Seq Scan on users"), plan);
+    }
+
+    /**
+     * Tests that the email index rejects a second User with the same email.
+     */
+    @Test
+    @DisplayName("Email is unique")
+    public void emailIsUnique() {
+        assertThrows(SQLException.class, () -> {
+            try (Connection connection = postgres.getPostgresDatabase().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("insert into users (id, email, first_name, last_name, birth_date) " +
+                        "values (nextval('users_seq'), 'user1@example.com', 'Jane', 'Doe', '" + LocalDate.of(1990, 1, 1) + "')");
+            }
+        });
+    }
+
+    /**
+     * Returns the query plan PostgreSQL chooses for a statement of the repositories and its parameters.
+     * The numbered parameters of the statement are turned into JDBC ones, bound in the order they appear.
+     *
+     * @param sql the statement to be explained
+     * @param parameters the parameters to be bound, by number
+     * @return the query plan as text
+     */
+    private static String explain(String sql, Object... parameters) throws SQLException {
+        List<Object> bound = new ArrayList<>();
+        Matcher matcher = PARAMETER.matcher(sql);
+        while (matcher.find()) {
+            bound.add(parameters[Integer.parseInt(matcher.group(1)) - 1]);
+        }
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + matcher.replaceAll("?"))) {
+            for (int i = 0; i < bound.size(); i++) {
+                statement.setObject(i + 1, bound.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+}
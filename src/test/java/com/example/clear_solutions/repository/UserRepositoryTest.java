@@ -0,0 +1,82 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * UserRepositoryTest is a test class for the read queries of UserRepository that return Users without managing them.
+ * It runs against the application's database with birth dates no other test uses; every test rolls its changes back.
+ */
+@SpringBootTest
+@Transactional
+public class UserRepositoryTest {
+
+    /**
+     * The start of the birth date range the tests create their Users in.
+     */
+    private static final LocalDate FROM = LocalDate.of(1901, 1, 1);
+
+    /**
+     * The end of the birth date range the tests create their Users in.
+     */
+    private static final LocalDate TO = LocalDate.of(1901, 12, 31);
+
+    /**
+     * The UserRepository to be tested.
+     */
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * The EntityManager whose persistence context is checked.
+     */
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Tests that pages, streams and ID lookups return every field of the Users
+     * while the persistence context holds none of them.
+     */
+    @Test
+    @DisplayName("Reading users by birth date range or ID returns complete users that are not managed")
+    public void readQueriesReturnUnmanagedUsers() {
+        User first = userRepository.save(new User(null, "unmanaged-test-1@example.com", "John", "Doe",
+                FROM, "Kyiv", "+380000000000", null));
+        User second = userRepository.save(new User(null, "unmanaged-test-2@example.com", "Jane", "Doe",
+                FROM.plusDays(1), null, null, null));
+        userRepository.flush();
+        entityManager.clear();
+
+        List<User> page = userRepository.findPageByBirthDateBetween(FROM, TO, Limit.of(10));
+        List<User> nextPage = userRepository.findPageByBirthDateBetweenAfter(FROM, TO, FROM, first.getId(), Limit.of(10));
+        List<User> streamed;
+        try (Stream<User> users = userRepository.streamByBirthDateBetween(FROM, TO)) {
+            streamed = users.toList();
+        }
+        List<User> found = userRepository.findAllUnmanagedByIdIn(List.of(first.getId(), -1L));
+
+        assertEquals(List.of(first.getId(), second.getId()), page.stream().map(User::getId).toList());
+        assertEquals(List.of(second.getId()), nextPage.stream().map(User::getId).toList());
+        assertEquals(2, streamed.size());
+        assertEquals(List.of(first.getId()), found.stream().map(User::getId).toList());
+        assertEquals("unmanaged-test-1@example.com", found.get(0).getEmail());
+        assertEquals("Kyiv", found.get(0).getAddress());
+        assertEquals("+380000000000", found.get(0).getPhoneNumber());
+        assertEquals(first.getVersion(), found.get(0).getVersion());
+        Stream.of(page, nextPage, streamed, found).flatMap(List::stream)
+                .forEach(user -> assertFalse(entityManager.contains(user)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * UserSearchRepositoryTest is a test class for the name and email searches of UserSearchRepositoryImpl.
+ * It runs against the application's database with names and emails no other test uses;
+ * every test rolls its changes back.
+ */
+@SpringBootTest
+@Transactional
+public class UserSearchRepositoryTest {
+
+    /**
+     * The UserRepository that includes the UserSearchRepository fragment.
+     */
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Tests that a prefix matches any field regardless of case, that Users are ranked by their lowest matching field,
+     * and that a User matching with several fields is returned once.
+     */
+    @Test
+    @DisplayName("Finding by prefix ranks Users by their lowest matching field and returns each of them once")
+    public void findIdsByPrefixRanksUsersByLowestMatchingField() {
+        User longer = save("search-test-1@example.com", "Quillanova", "Doe");
+        User exact = save("search-test-2@example.com", "Ann", "Quill");
+        User both = save("quillby@example.com", "Quillby", "Doe");
+        save("search-test-3@example.com", "Ann", "Aquill");
+
+        long[] ids = userRepository.findIdsByPrefix("QUILL", 10);
+
+        assertArrayEquals(new long[]{exact.getId(), longer.getId(), both.getId()}, ids);
+        assertArrayEquals(new long[]{exact.getId(), longer.getId()}, userRepository.findIdsByPrefix("quill", 2));
+    }
+
+    /**
+     * Tests that a misspelled name finds the Users with a similar name, including names added by the statement
+     * that created them, the most similar first, while it matches no field as a prefix.
+     */
+    @Test
+    @DisplayName("Finding by similarity matches misspelled names, the most similar first")
+    public void findIdsBySimilarityMatchesMisspelledNames() {
+        User similar = save("search-test-4@example.com", "Ann", "Wolfeschlegel");
+        User exact = save("search-test-5@example.com", "Ann", "Wolfeschlegl");
+        save("search-test-6@example.com", "Ann", "Wolfgang");
+
+        long[] ids = userRepository.findIdsBySimilarity("wolfeschlegl", 10);
+
+        assertArrayEquals(new long[]{exact.getId(), similar.getId()}, ids);
+        assertEquals(0, userRepository.findIdsByPrefix("wolfeschlegll", 10).length);
+    }
+
+    /**
+     * Saves a User with the specified email and names.
+     *
+     * @param email the email
+     * @param firstName the first name
+     * @param lastName the last name
+     * @return the saved User
+     */
+    private User save(String email, String firstName, String lastName) {
+        return userRepository.saveAndFlush(new User(null, email, firstName, lastName,
+                LocalDate.of(1990, 1, 1), null, null, null));
+    }
+}
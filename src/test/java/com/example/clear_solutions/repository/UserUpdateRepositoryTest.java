@@ -0,0 +1,112 @@
+package com.example.clear_solutions.repository;
+
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserUpdateRepository.UpdatedUser;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UserUpdateRepositoryTest is a test class for the single-statement updates of UserUpdateRepositoryImpl.
+ * It runs against the application's database; every test rolls its changes back.
+ */
+@SpringBootTest
+@Transactional
+public class UserUpdateRepositoryTest {
+
+    /**
+     * The UserRepository that includes the UserUpdateRepository fragment.
+     */
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * The EntityManager used to read the stored row back.
+     */
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Tests that an update changes only the non-null fields and returns the stored row.
+     */
+    @Test
+    @DisplayName("Updating fields changes only the given fields and returns the updated user")
+    public void updateFieldsChangesOnlyGivenFields() {
+        User user = userRepository.saveAndFlush(new User(null, "update-test@example.com", "John", "Doe",
+                LocalDate.of(1990, 1, 1), "Kyiv", "+380000000000", null));
+        User userUpdates = new User();
+        userUpdates.setFirstName("Johnny");
+        userUpdates.setAddress("Lviv");
+
+        UpdatedUser updatedUser = userRepository.updateFields(user.getId(), userUpdates, null).orElseThrow();
+
+        assertEquals("Johnny", updatedUser.user().getFirstName());
+        assertEquals("Lviv", updatedUser.user().getAddress());
+        assertEquals("update-test@example.com", updatedUser.user().getEmail());
+        assertEquals(LocalDate.of(1990, 1, 1), updatedUser.previousBirthDate());
+        assertEquals(user.getVersion() + 1, updatedUser.user().getVersion());
+        entityManager.clear();
+        User storedUser = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals("Johnny", storedUser.getFirstName());
+        assertEquals("Doe", storedUser.getLastName());
+    }
+
+    /**
+     * Tests that an update of the birth date returns the birth date it replaced.
+     */
+    @Test
+    @DisplayName("Updating the birth date returns the previous birth date")
+    public void updateFieldsReturnsPreviousBirthDate() {
+        User user = userRepository.saveAndFlush(new User(null, "update-test@example.com", "John", "Doe",
+                LocalDate.of(1990, 1, 1), null, null, null));
+        User userUpdates = new User();
+        userUpdates.setBirthDate(LocalDate.of(1985, 6, 15));
+
+        UpdatedUser updatedUser = userRepository.updateFields(user.getId(), userUpdates, null).orElseThrow();
+
+        assertEquals(LocalDate.of(1985, 6, 15), updatedUser.user().getBirthDate());
+        assertEquals(LocalDate.of(1990, 1, 1), updatedUser.previousBirthDate());
+    }
+
+    /**
+     * Tests that an update expecting a version the User no longer has matches no row and changes nothing.
+     */
+    @Test
+    @DisplayName("Updating with a stale expected version returns an empty result")
+    public void updateFieldsWithStaleVersionReturnsEmpty() {
+        User user = userRepository.saveAndFlush(new User(null, "update-test@example.com", "John", "Doe",
+                LocalDate.of(1990, 1, 1), null, null, null));
+        User userUpdates = new User();
+        userUpdates.setFirstName("Johnny");
+        userRepository.updateFields(user.getId(), userUpdates, user.getVersion());
+
+        Optional<UpdatedUser> updatedUser = userRepository.updateFields(user.getId(), userUpdates, user.getVersion());
+
+        assertTrue(updatedUser.isEmpty());
+        entityManager.clear();
+        assertEquals(user.getVersion() + 1, userRepository.findById(user.getId()).orElseThrow().getVersion());
+    }
+
+    /**
+     * Tests that an update of a missing User matches no row.
+     */
+    @Test
+    @DisplayName("Updating a missing user returns an empty result")
+    public void updateFieldsOfMissingUserReturnsEmpty() {
+        User userUpdates = new User();
+        userUpdates.setFirstName("Johnny");
+
+        Optional<UpdatedUser> updatedUser = userRepository.updateFields(-1L, userUpdates, null);
+
+        assertTrue(updatedUser.isEmpty());
+    }
+}
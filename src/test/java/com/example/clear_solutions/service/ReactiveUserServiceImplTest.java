@@ -0,0 +1,287 @@
+package com.example.clear_solutions.service;
+
+import com.example.clear_solutions.exception.ErrorCode;
+import com.example.clear_solutions.exception.UserConflictException;
+import com.example.clear_solutions.exception.UserException;
+import com.example.clear_solutions.exception.UserNotFoundException;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.ReactiveUserRepository;
+import com.example.clear_solutions.repository.UserUpdateRepository.UpdatedUser;
+import com.example.clear_solutions.service.impl.ReactiveUserServiceImpl;
+import com.example.clear_solutions.validation.AgeCutoff;
+import com.example.clear_solutions.validation.UserValidation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * ReactiveUserServiceImplTest is a test class for ReactiveUserServiceImpl.
+ * It uses Mockito to mock the ReactiveUserRepository and Reactor's StepVerifier to subscribe to the results.
+ */
+public class ReactiveUserServiceImplTest {
+
+    /**
+     * The ReactiveUserServiceImpl instance to be tested.
+     * This instance is automatically injected with mocks by Mockito.
+     */
+    @InjectMocks
+    ReactiveUserServiceImpl userService;
+
+    /**
+     * The mocked ReactiveUserRepository.
+     */
+    @Mock
+    ReactiveUserRepository userRepository;
+
+    /**
+     * The AgeCutoff that requires Users to be 18 years old on the system clock.
+     */
+    @Spy
+    AgeCutoff ageCutoff = new AgeCutoff(Clock.systemDefaultZone(), 18);
+
+    /**
+     * The UserValidation that checks created Users, updates and searches against the AgeCutoff.
+     */
+    @Spy
+    UserValidation userValidation = new UserValidation(Validation.buildDefaultValidatorFactory().getValidator(),
+            ageCutoff);
+
+    /**
+     * The MeterRegistry the methods and the search result sizes are recorded with.
+     */
+    @Spy
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Sets up the tests.
+     * This method is run before each test.
+     * It opens the mocks and sets the limits that are injected from the application properties.
+     */
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        ReflectionTestUtils.setField(userService, "maxFindLength", 100);
+        ReflectionTestUtils.setField(userService, "streamBatchSize", 500);
+        ReflectionTestUtils.setField(userService, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 2);
+    }
+
+    /**
+     * Tests that creating a valid user inserts it and times the call.
+     */
+    @Test
+    @DisplayName("Creating a valid user inserts it and times the call")
+    public void createUserInsertsValidUser() {
+        User user = new User(null, "reactive@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, null);
+        when(userRepository.insert(user)).thenReturn(Mono.just(user));
+
+        StepVerifier.create(userService.createUser(user))
+                .expectNext(user)
+                .verifyComplete();
+
+        assertEquals(1, meterRegistry.get("user.service").tag("method", "createUser").tag("exception", "none")
+                .tag("signal", "onComplete").timer().count());
+    }
+
+    /**
+     * Tests that creating a user that violates a constraint signals an invalid field without touching the database.
+     */
+    @Test
+    @DisplayName("Creating an invalid user signals an invalid field and does not insert it")
+    public void createUserWithInvalidFieldSignalsError() {
+        User user = new User(null, "not-an-email", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, null);
+
+        StepVerifier.create(userService.createUser(user))
+                .expectErrorSatisfies(e -> assertEquals(ErrorCode.INVALID_FIELD, ((UserException) e).getErrorCode()))
+                .verify();
+
+        verifyNoInteractions(userRepository);
+        assertEquals(1, meterRegistry.get("user.service").tag("method", "createUser")
+                .tag("exception", "UserValidationException").tag("signal", "onError").timer().count());
+    }
+
+    /**
+     * Tests that a chunk the database refuses is retried one user at a time and only the refused user is rejected,
+     * with the fixed message of its conflict.
+     */
+    @Test
+    @DisplayName("Creating users in a batch retries a failed chunk user by user")
+    public void createUsersRetriesFailedChunkOneByOne() {
+        User first = new User(null, "first@example.com", "First", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        User taken = new User(null, "taken@example.com", "Taken", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        User underAge = new User(null, "young@example.com", "Young", "User", LocalDate.now().minusYears(10), null, null, null);
+        DataIntegrityViolationException duplicate = new DataIntegrityViolationException("duplicate key",
+                new R2dbcDataIntegrityViolationException("duplicate key value violates unique constraint", "23505"));
+        when(userRepository.insertAll(List.of(first, taken))).thenReturn(Mono.error(duplicate));
+        when(userRepository.insert(first)).thenReturn(Mono.just(first));
+        when(userRepository.insert(taken)).thenReturn(Mono.error(duplicate));
+
+        Map<Integer, String> rejected = userService.createUsers(List.of(first, taken, underAge)).block();
+
+        assertEquals(List.of(1, 2), List.copyOf(rejected.keySet()));
+        assertEquals("A user with this email already exists", rejected.get(1));
+        verify(userRepository).insert(first);
+    }
+
+    /**
+     * Tests that an update whose version does not match signals a conflict once the user is known to exist.
+     */
+    @Test
+    @DisplayName("Updating a user with another version signals UserConflictException")
+    public void updateUserFieldsWithOtherVersionSignalsConflict() {
+        User userUpdates = new User();
+        userUpdates.setFirstName("Johnny");
+        when(userRepository.updateFields(1L, userUpdates, 3L)).thenReturn(Mono.empty());
+        when(userRepository.existsById(1L)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(userService.updateUserFields(1L, userUpdates, 3L))
+                .expectError(UserConflictException.class)
+                .verify();
+    }
+
+    /**
+     * Tests that an update returns the row the repository updated.
+     */
+    @Test
+    @DisplayName("Updating user fields returns the updated user")
+    public void updateUserFieldsReturnsUpdatedUser() {
+        User userUpdates = new User();
+        userUpdates.setBirthDate(LocalDate.of(1985, 6, 15));
+        User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1985, 6, 15), null, null, 1L);
+        when(userRepository.updateFields(1L, userUpdates, null))
+                .thenReturn(Mono.just(new UpdatedUser(user, LocalDate.of(1990, 1, 1))));
+
+        StepVerifier.create(userService.updateUserFields(1L, userUpdates, null))
+                .expectNext(user)
+                .verifyComplete();
+    }
+
+    /**
+     * Tests that deleting a missing user with an expected version signals that it was not found.
+     */
+    @Test
+    @DisplayName("Deleting a missing user with an expected version signals UserNotFoundException")
+    public void deleteMissingUserWithVersionSignalsNotFound() {
+        when(userRepository.delete(1L, 0L)).thenReturn(Mono.just(0L));
+        when(userRepository.existsById(1L)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(userService.deleteUser(1L, 0L))
+                .expectError(UserNotFoundException.class)
+                .verify();
+    }
+
+    /**
+     * Tests that deleting a missing user without an expected version signals that it was not found,
+     * without checking whether it exists.
+     */
+    @Test
+    @DisplayName("Deleting a missing user without an expected version signals UserNotFoundException")
+    public void deleteMissingUserWithoutVersionSignalsNotFound() {
+        when(userRepository.delete(1L, null)).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(userService.deleteUser(1L, null))
+                .expectError(UserNotFoundException.class)
+                .verify();
+
+        verify(userRepository, never()).existsById(any());
+    }
+
+    /**
+     * Tests that a text search appends the similar names to the prefix matches without listing a user twice.
+     */
+    @Test
+    @DisplayName("Finding users by text appends similar names to prefix matches")
+    public void findUsersByTextMergesPrefixAndSimilarityMatches() {
+        User john = new User(1L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L);
+        User jon = new User(2L, "jon@example.com", "Jon", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L);
+        when(userRepository.findIdsByPrefix("john", 10)).thenReturn(Mono.just(new long[] {1L}));
+        when(userRepository.findIdsBySimilarity("john", 10)).thenReturn(Mono.just(new long[] {1L, 2L}));
+        when(userRepository.findAllById(new long[] {1L, 2L})).thenReturn(Mono.just(List.of(john, jon)));
+
+        StepVerifier.create(userService.findUsersByText(" john ", 0, 10))
+                .expectNext(john, jon)
+                .verifyComplete();
+    }
+
+    /**
+     * Tests that a birth date range search records the size of the page.
+     */
+    @Test
+    @DisplayName("Finding users by birth date range records the number of users found")
+    public void findUsersByBirthDateRangeRecordsResultSize() {
+        User user = new User(1L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L);
+        when(userRepository.findPageByBirthDateBetween(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31), null, 10))
+                .thenReturn(Flux.just(user));
+
+        StepVerifier.create(userService.findUsersByBirthDateRange(
+                        LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31), null, 10))
+                .expectNext(user)
+                .verifyComplete();
+
+        assertEquals(1, meterRegistry.get("user.search.results").summary().totalAmount());
+    }
+
+    /**
+     * Tests that a stream reads the database cursor with the stream batch size as its fetch size,
+     * and that an inverted range is signalled without a query.
+     */
+    @Test
+    @DisplayName("Streaming users fetches the cursor by batch size and rejects inverted ranges")
+    public void streamUsersByBirthDateRangeUsesBatchSize() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(1990, 12, 31);
+        when(userRepository.streamByBirthDateBetween(from, to, 500)).thenReturn(Flux.empty());
+
+        StepVerifier.create(userService.streamUsersByBirthDateRange(from, to)).verifyComplete();
+        StepVerifier.create(userService.streamUsersByBirthDateRange(to, from))
+                .expectErrorSatisfies(e -> assertTrue(e instanceof UserException userException
+                        && userException.getErrorCode() == ErrorCode.INVALID_DATE_RANGE))
+                .verify();
+
+        verify(userRepository).streamByBirthDateBetween(from, to, 500);
+    }
+
+    /**
+     * Tests that a stream its client cancels is still timed, with the cancel signal.
+     */
+    @Test
+    @DisplayName("A cancelled stream is timed with the cancel signal")
+    public void cancelledStreamIsTimed() {
+        LocalDate from = LocalDate.of(1990, 1, 1);
+        LocalDate to = LocalDate.of(1990, 12, 31);
+        when(userRepository.streamByBirthDateBetween(from, to, 500)).thenReturn(Flux.never());
+
+        StepVerifier.create(userService.streamUsersByBirthDateRange(from, to))
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, meterRegistry.get("user.service").tag("method", "streamUsersByBirthDateRange")
+                .tag("signal", "cancel").tag("exception", "none").timer().count());
+    }
+}
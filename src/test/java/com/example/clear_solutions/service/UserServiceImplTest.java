@@ -1,20 +1,56 @@
 package com.example.clear_solutions.service;
 
+import com.example.clear_solutions.cache.UserCache;
+import com.example.clear_solutions.cache.UserRangeCache;
+import com.example.clear_solutions.dto.UserCursor;
+import com.example.clear_solutions.dto.UserSelection;
+import com.example.clear_solutions.exception.UserConflictException;
+import com.example.clear_solutions.exception.UserNotFoundException;
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.index.BirthDateIndex;
+import com.example.clear_solutions.job.JobService;
 import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.repository.UserBulkRepository.ChangedUser;
 import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.repository.UserUpdateRepository.UpdatedUser;
 import com.example.clear_solutions.service.impl.UserServiceImpl;
+import com.example.clear_solutions.stats.BirthDateStats;
+import com.example.clear_solutions.validation.AgeCutoff;
+import com.example.clear_solutions.validation.UserValidation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -38,6 +74,55 @@ public class UserServiceImplTest {
     @Mock
     UserRepository userRepository;
 
+    /**
+     * The mocked UserCache.
+     */
+    @Mock
+    UserCache userCache;
+
+    /**
+     * The UserRangeCache used to keep search results.
+     */
+    @Spy
+    UserRangeCache userRangeCache = new UserRangeCache(1000, Duration.ofMinutes(5), Duration.ZERO, new SimpleMeterRegistry());
+
+    /**
+     * The mocked JobService.
+     */
+    @Mock
+    JobService jobService;
+
+    /**
+     * The mocked BirthDateStats.
+     */
+    @Mock
+    BirthDateStats birthDateStats;
+
+    /**
+     * The mocked BirthDateIndex, disabled unless a test enables it.
+     */
+    @Mock
+    BirthDateIndex birthDateIndex;
+
+    /**
+     * The AgeCutoff that requires Users to be 18 years old on the system clock.
+     */
+    @Spy
+    AgeCutoff ageCutoff = new AgeCutoff(Clock.systemDefaultZone(), 18);
+
+    /**
+     * The UserValidation that checks created Users, updates and searches against the AgeCutoff.
+     */
+    @Spy
+    UserValidation userValidation = new UserValidation(Validation.buildDefaultValidatorFactory().getValidator(),
+            ageCutoff);
+
+    /**
+     * The MeterRegistry the search result sizes are recorded with.
+     */
+    @Spy
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     /**
      * Tests that creating a user with a valid age returns the created user.
      */
@@ -51,19 +136,93 @@ public class UserServiceImplTest {
         User createdUser = userService.createUser(user);
 
         assertEquals(user, createdUser);
+        verify(birthDateStats).add(user.getBirthDate());
     }
 
     /**
-     * Tests that creating a user with an invalid age throws an IllegalArgumentException.
+     * Tests that creating a user with an invalid age throws a UserValidationException.
      */
     @Test
-    @DisplayName("Creating a user with invalid age throws IllegalArgumentException")
+    @DisplayName("Creating a user with invalid age throws UserValidationException")
     public void createUserWithInvalidAgeThrowsException() {
-        ReflectionTestUtils.setField(userService, "minAge", 18);
         User user = new User();
         user.setBirthDate(LocalDate.now().minusYears(10));
 
-        assertThrows(IllegalArgumentException.class, () -> userService.createUser(user));
+        assertThrows(UserValidationException.class, () -> userService.createUser(user));
+    }
+
+    /**
+     * Tests that creating users in a batch inserts the valid users and rejects the invalid ones by index.
+     */
+    @Test
+    @DisplayName("Creating users in a batch inserts valid users and rejects invalid ones")
+    public void createUsersInsertsValidUsersAndRejectsInvalidOnes() {
+        ReflectionTestUtils.setField(userService, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 2);
+        User valid = new User(null, "valid@example.com", "Valid", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        User underAge = new User(null, "young@example.com", "Young", "User", LocalDate.now().minusYears(10), null, null, null);
+        User invalidEmail = new User(null, "not-an-email", "Invalid", "User", LocalDate.of(1990, 1, 1), null, null, null);
+
+        Map<Integer, String> rejected = userService.createUsers(List.of(valid, underAge, invalidEmail));
+
+        assertEquals(Set.of(1, 2), rejected.keySet());
+        verify(userRepository).insertAll(List.of(valid));
+        verify(birthDateStats).add(valid.getBirthDate());
+        verify(birthDateStats, never()).add(underAge.getBirthDate());
+    }
+
+    /**
+     * Tests that a chunk of created users invalidates the cached searches over the span of its birth dates once,
+     * rather than once per user.
+     */
+    @Test
+    @DisplayName("Creating users in a batch invalidates the cached searches once per chunk")
+    public void createUsersInvalidatesRangeCacheOncePerChunk() {
+        ReflectionTestUtils.setField(userService, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 3);
+        List<User> users = List.of(
+                new User(null, "b@example.com", "B", "User", LocalDate.of(1985, 1, 1), null, null, null),
+                new User(null, "a@example.com", "A", "User", LocalDate.of(1980, 1, 1), null, null, null),
+                new User(null, "c@example.com", "C", "User", LocalDate.of(1990, 1, 1), null, null, null));
+
+        userService.createUsers(users);
+
+        verify(userRangeCache).invalidate(LocalDate.of(1980, 1, 1), LocalDate.of(1990, 1, 1));
+        verify(userRangeCache, never()).invalidate(any(LocalDate.class));
+        verify(birthDateStats, times(3)).add(any());
+    }
+
+    /**
+     * Tests that a user the database refuses when its chunk is retried one by one is rejected with a fixed message,
+     * not with the message of the database, which names the constraint and repeats the email.
+     */
+    @Test
+    @DisplayName("Creating users in a batch rejects a taken email without the database's message")
+    public void createUsersRejectsTakenEmailWithFixedMessage() {
+        ReflectionTestUtils.setField(userService, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 2);
+        User first = new User(null, "first@example.com", "First", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        User taken = new User(null, "taken@example.com", "Taken", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        DataIntegrityViolationException duplicate = new DataIntegrityViolationException("could not execute batch",
+                new SQLException("duplicate key value violates unique constraint \"users_email_key\"", "23505"));
+        doThrow(duplicate).when(userRepository).insertAll(List.of(first, taken));
+        doThrow(duplicate).when(userRepository).insertAll(List.of(taken));
+
+        Map<Integer, String> rejected = userService.createUsers(List.of(first, taken));
+
+        assertEquals(Map.of(1, "A user with this email already exists"), rejected);
+        verify(userRepository).insertAll(List.of(first));
+    }
+
+    /**
+     * Tests that creating more users than a batch may contain throws a UserValidationException.
+     */
+    @Test
+    @DisplayName("Creating too many users in a batch throws UserValidationException")
+    public void createUsersWithTooManyUsersThrowsException() {
+        ReflectionTestUtils.setField(userService, "maxBatchSize", 1);
+
+        assertThrows(UserValidationException.class, () -> userService.createUsers(List.of(new User(), new User())));
     }
 
     /**
@@ -72,14 +231,16 @@ public class UserServiceImplTest {
     @Test
     @DisplayName("Updating user fields returns the updated user")
     public void updateUserFieldsReturnsUpdatedUser() {
-        User user = new User();
-        user.setId(1L);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenReturn(user);
+        User userUpdates = new User();
+        userUpdates.setFirstName("Johnny");
+        User user = new User(1L, "test@example.com", "Johnny", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        when(userRepository.updateFields(1L, userUpdates, null))
+                .thenReturn(Optional.of(new UpdatedUser(user, user.getBirthDate())));
 
-        User updatedUser = userService.updateUserFields(1L, user);
+        User updatedUser = userService.updateUserFields(1L, userUpdates, null);
 
         assertEquals(user, updatedUser);
+        verify(userCache).put(user);
     }
 
     /**
@@ -97,36 +258,207 @@ public class UserServiceImplTest {
         user.setAddress("Test Address");
         user.setPhoneNumber("1234567890");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenReturn(user);
+        when(userRepository.updateFields(1L, user, null))
+                .thenReturn(Optional.of(new UpdatedUser(user, LocalDate.of(1980, 1, 1))));
 
-        User updatedUser = userService.updateAllUserFields(1L, user);
+        User updatedUser = userService.updateAllUserFields(1L, user, null);
 
         assertEquals(user, updatedUser);
     }
 
     /**
-     * Tests that updating all user fields with missing fields throws an IllegalArgumentException.
+     * Tests that updating the fields of a missing user throws a UserNotFoundException.
+     */
+    @Test
+    @DisplayName("Updating user fields of a missing user throws UserNotFoundException")
+    public void updateUserFieldsOfMissingUserThrowsException() {
+        when(userCache.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.updateUserFields(1L, new User(), null));
+    }
+
+    /**
+     * Tests that an update that matches no row throws a UserNotFoundException.
+     */
+    @Test
+    @DisplayName("Updating user fields of a missing user in the database throws UserNotFoundException")
+    public void updateUserFieldsMatchingNoRowThrowsException() {
+        User userUpdates = new User();
+        userUpdates.setFirstName("Johnny");
+        when(userRepository.updateFields(1L, userUpdates, null)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.updateUserFields(1L, userUpdates, null));
+    }
+
+    /**
+     * Tests that an update expecting a version the user no longer has throws a UserConflictException.
+     */
+    @Test
+    @DisplayName("Updating user fields with a stale version throws UserConflictException")
+    public void updateUserFieldsWithStaleVersionThrowsException() {
+        User userUpdates = new User();
+        userUpdates.setFirstName("Johnny");
+        when(userRepository.updateFields(1L, userUpdates, 3L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(UserConflictException.class, () -> userService.updateUserFields(1L, userUpdates, 3L));
+    }
+
+    /**
+     * Tests that deleting a user expecting a version it no longer has throws a UserConflictException
+     * and keeps the user cached.
+     */
+    @Test
+    @DisplayName("Deleting a user with a stale version throws UserConflictException")
+    public void deleteUserWithStaleVersionThrowsException() {
+        when(userRepository.deleteOne(1L, 3L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(UserConflictException.class, () -> userService.deleteUser(1L, 3L));
+        verify(userCache, never()).evict(1L);
+    }
+
+    /**
+     * Tests that updating a field with a value that violates its constraints throws a UserValidationException
+     * without touching the database.
+     */
+    @Test
+    @DisplayName("Updating user fields with a malformed email throws UserValidationException")
+    public void updateUserFieldsWithMalformedEmailThrowsException() {
+        User userUpdates = new User();
+        userUpdates.setEmail("not-an-email");
+
+        assertThrows(UserValidationException.class, () -> userService.updateUserFields(1L, userUpdates, null));
+        verify(userRepository, never()).updateFields(any(), any(), any());
+    }
+
+    /**
+     * Tests that moving a user to another birth date invalidates the cached searches of both birth dates.
      */
     @Test
-    @DisplayName("Updating all user fields with missing fields throws IllegalArgumentException")
+    @DisplayName("Updating the birth date of a user invalidates the searches of the previous and the new birth date")
+    public void updateUserFieldsInvalidatesPreviousAndNewBirthDate() {
+        User userUpdates = new User();
+        userUpdates.setBirthDate(LocalDate.of(1990, 1, 1));
+        User user = new User(1L, "test@example.com", "Test", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        when(userRepository.updateFields(1L, userUpdates, null))
+                .thenReturn(Optional.of(new UpdatedUser(user, LocalDate.of(1980, 1, 1))));
+
+        userService.updateUserFields(1L, userUpdates, null);
+
+        verify(userRangeCache).invalidate(LocalDate.of(1980, 1, 1));
+        verify(userRangeCache).invalidate(LocalDate.of(1990, 1, 1));
+    }
+
+    /**
+     * Tests that updating all user fields with missing fields throws a UserValidationException.
+     */
+    @Test
+    @DisplayName("Updating all user fields with missing fields throws UserValidationException")
     public void updateAllUserFieldsWithMissingFieldsThrowsException() {
         User userUpdates = new User();
         userUpdates.setId(1L);
         userUpdates.setEmail("newemail@example.com");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
+        assertThrows(UserValidationException.class, () -> userService.updateAllUserFields(1L, userUpdates, null));
+    }
 
-        assertThrows(IllegalArgumentException.class, () -> userService.updateAllUserFields(1L, userUpdates));
+    /**
+     * Tests that a bulk delete by birth date range deletes chunk after chunk until a chunk comes back short.
+     */
+    @Test
+    @DisplayName("Bulk deleting users by birth date range deletes chunks until a chunk is short")
+    public void deleteUsersByBirthDateRangeDeletesChunksUntilShort() {
+        ReflectionTestUtils.setField(userService, "bulkChunkSize", 2);
+        LocalDate from = LocalDate.of(1950, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        when(userRepository.deleteChunkByBirthDateBetween(from, to, 2)).thenReturn(
+                List.of(new ChangedUser(1L, from, null), new ChangedUser(2L, from, null)),
+                List.of(new ChangedUser(3L, to, null)));
+
+        long deleted = userService.deleteUsers(new UserSelection(null, from, to));
+
+        assertEquals(3, deleted);
+        verify(userRepository, times(2)).deleteChunkByBirthDateBetween(from, to, 2);
+        verify(userCache).evict(3L);
+    }
+
+    /**
+     * Tests that a bulk update by birth date range continues each chunk after the greatest key of the previous one.
+     */
+    @Test
+    @DisplayName("Bulk updating users by birth date range continues after the last key of every chunk")
+    public void updateUsersByBirthDateRangeContinuesAfterLastKey() {
+        ReflectionTestUtils.setField(userService, "bulkChunkSize", 2);
+        LocalDate from = LocalDate.of(1950, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        User userUpdates = new User();
+        userUpdates.setAddress("Kyiv");
+        when(userRepository.updateChunkByBirthDateBetween(from, to, null, null, userUpdates, 2)).thenReturn(
+                List.of(new ChangedUser(9L, LocalDate.of(1960, 1, 1), LocalDate.of(1960, 1, 1)),
+                        new ChangedUser(4L, LocalDate.of(1970, 1, 1), LocalDate.of(1970, 1, 1))));
+        when(userRepository.updateChunkByBirthDateBetween(from, to, LocalDate.of(1970, 1, 1), 4L, userUpdates, 2))
+                .thenReturn(List.of());
+
+        long updated = userService.updateUsers(new UserSelection(null, from, to), userUpdates);
+
+        assertEquals(2, updated);
+    }
+
+    /**
+     * Tests that a bulk request selecting users both by ID and by birth date range is rejected.
+     */
+    @Test
+    @DisplayName("Bulk deleting users selected by both IDs and a birth date range throws UserValidationException")
+    public void deleteUsersWithAmbiguousSelectionThrowsException() {
+        UserSelection selection = new UserSelection(List.of(1L), LocalDate.of(1950, 1, 1), LocalDate.of(2000, 1, 1));
+
+        assertThrows(UserValidationException.class, () -> userService.deleteUsers(selection));
+    }
+
+    /**
+     * Tests that a bulk update setting the email, which must be unique, is rejected before anything is queued.
+     */
+    @Test
+    @DisplayName("Bulk updating the email of users throws UserValidationException")
+    public void updateUsersAsyncSettingEmailThrowsException() {
+        User userUpdates = new User();
+        userUpdates.setEmail("same@example.com");
+
+        assertThrows(UserValidationException.class,
+                () -> userService.updateUsersAsync(new UserSelection(List.of(1L, 2L), null, null), userUpdates));
+        verify(jobService, never()).submit(any(), any());
+    }
+
+    /**
+     * Tests that deleting a user brings the caches and the birth date counts up to date with the birth date
+     * returned by the delete.
+     */
+    @Test
+    @DisplayName("Deleting a user updates the caches with its returned birth date")
+    public void deleteUserUpdatesCachesWithReturnedBirthDate() {
+        LocalDate birthDate = LocalDate.of(1990, 1, 1);
+        when(userRepository.deleteOne(1L, null)).thenReturn(Optional.of(new ChangedUser(1L, birthDate, null)));
+
+        userService.deleteUser(1L, null);
+
+        verify(userCache).evict(1L);
+        verify(userRangeCache).invalidate(birthDate);
+        verify(birthDateStats).remove(birthDate);
+        verify(birthDateIndex).remove(1L, birthDate);
     }
 
     /**
-     * Tests that deleting a user does not throw an exception.
+     * Tests that deleting a missing user throws a UserNotFoundException and leaves the caches and counts alone.
      */
     @Test
-    @DisplayName("Deleting a user does not throw an exception")
-    public void deleteUserDoesNotThrowException() {
-        userService.deleteUser(1L);
+    @DisplayName("Deleting a missing user throws UserNotFoundException")
+    public void deleteMissingUserThrowsException() {
+        when(userRepository.deleteOne(1L, null)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.deleteUser(1L, null));
+        verify(userCache, never()).evict(1L);
+        verify(birthDateStats, never()).remove(any());
     }
 
     /**
@@ -135,21 +467,195 @@ public class UserServiceImplTest {
     @Test
     @DisplayName("Finding users by valid birth date range does not throw an exception")
     public void findUsersByValidBirthDateRangeDoesNotThrowException() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
         LocalDate from = LocalDate.now().minusDays(1);
         LocalDate to = LocalDate.now();
 
-        userService.findUsersByBirthDateRange(from, to);
+        userService.findUsersByBirthDateRange(from, to, null, 100);
+    }
+
+    /**
+     * Tests that finding users after a cursor queries the page that follows the cursor key.
+     */
+    @Test
+    @DisplayName("Finding users after a cursor returns the page that follows the cursor")
+    public void findUsersByBirthDateRangeAfterCursorReturnsNextPage() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        LocalDate from = LocalDate.of(1950, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        UserCursor after = new UserCursor(LocalDate.of(1980, 5, 17), 42L);
+        List<User> page = List.of(new User());
+        when(userRepository.findPageByBirthDateBetweenAfter(from, to, after.getBirthDate(), 42L, Limit.of(10)))
+                .thenReturn(page);
+
+        List<User> users = userService.findUsersByBirthDateRange(from, to, after, 10);
+
+        assertEquals(page, users);
     }
 
     /**
-     * Tests that finding users by an invalid birth date range throws an IllegalArgumentException.
+     * Tests that an enabled BirthDateIndex resolves the page to IDs that are read through the UserCache.
      */
     @Test
-    @DisplayName("Finding users by invalid birth date range throws IllegalArgumentException")
+    @DisplayName("Finding users with the birth date index reads the indexed IDs through the cache")
+    public void findUsersByBirthDateRangeWithIndexReadsIndexedIds() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        LocalDate from = LocalDate.of(1950, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        List<User> page = List.of(new User(), new User());
+        when(birthDateIndex.isEnabled()).thenReturn(true);
+        when(birthDateIndex.findIds(from, to, null, 10)).thenReturn(new long[]{7L, 3L});
+        when(userCache.findAllById(new long[]{7L, 3L})).thenReturn(page);
+
+        List<User> users = userService.findUsersByBirthDateRange(from, to, null, 10);
+
+        assertEquals(page, users);
+        verify(userRepository, never()).findPageByBirthDateBetween(any(), any(), any());
+    }
+
+    /**
+     * Tests that finding users records the number of users found.
+     */
+    @Test
+    @DisplayName("Finding users records the number of users found")
+    public void findUsersByBirthDateRangeRecordsResultSize() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        LocalDate from = LocalDate.of(1950, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        when(userRepository.findPageByBirthDateBetween(from, to, Limit.of(10))).thenReturn(List.of(new User(), new User()));
+
+        userService.findUsersByBirthDateRange(from, to, null, 10);
+
+        DistributionSummary searchResults = meterRegistry.get("user.search.results").summary();
+        assertEquals(1, searchResults.count());
+        assertEquals(2, searchResults.totalAmount());
+    }
+
+    /**
+     * Tests that a repeated search is served from the range cache until a user in the range is created.
+     */
+    @Test
+    @DisplayName("Repeated search is cached until a user in the range is created")
+    public void findUsersByBirthDateRangeIsCachedUntilUserInRangeIsCreated() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        LocalDate from = LocalDate.of(1950, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        when(userRepository.findPageByBirthDateBetween(from, to, Limit.of(10))).thenReturn(List.of());
+        User user = new User(1L, "test@example.com", "Test", "User", LocalDate.of(1990, 1, 1), null, null, null);
+        when(userRepository.save(user)).thenReturn(user);
+
+        userService.findUsersByBirthDateRange(from, to, null, 10);
+        userService.findUsersByBirthDateRange(from, to, null, 10);
+        userService.createUser(user);
+        userService.findUsersByBirthDateRange(from, to, null, 10);
+
+        verify(userRepository, times(2)).findPageByBirthDateBetween(from, to, Limit.of(10));
+    }
+
+    /**
+     * Tests that a search for birth dates from today on is answered without a query, as birth dates are in the past.
+     */
+    @Test
+    @DisplayName("Finding users born today or later returns no users without a query")
+    public void findUsersBornTodayOrLaterDoesNotQuery() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        LocalDate today = LocalDate.now();
+
+        List<User> users = userService.findUsersByBirthDateRange(today, today.plusYears(1), null, 10);
+
+        assertTrue(users.isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    /**
+     * Tests that finding users by an invalid birth date range throws a UserValidationException.
+     */
+    @Test
+    @DisplayName("Finding users by invalid birth date range throws UserValidationException")
     public void findUsersByInvalidBirthDateRangeThrowsException() {
         LocalDate from = LocalDate.now();
         LocalDate to = LocalDate.now().minusDays(1);
 
-        assertThrows(IllegalArgumentException.class, () -> userService.findUsersByBirthDateRange(from, to));
+        assertThrows(UserValidationException.class, () -> userService.findUsersByBirthDateRange(from, to, null, 100));
+    }
+
+    /**
+     * Tests that finding users with a limit above the maximum throws a UserValidationException.
+     */
+    @Test
+    @DisplayName("Finding users with a limit above the maximum throws UserValidationException")
+    public void findUsersWithTooLargeLimitThrowsException() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        LocalDate from = LocalDate.now().minusDays(1);
+        LocalDate to = LocalDate.now();
+
+        assertThrows(UserValidationException.class, () -> userService.findUsersByBirthDateRange(from, to, null, 1001));
+    }
+
+    /**
+     * Tests that a page not filled by prefix matches is completed with similar matches that were not found
+     * by prefix, skipping the offset, and read through the UserCache.
+     */
+    @Test
+    @DisplayName("Finding users by text follows prefix matches with new similar matches")
+    public void findUsersByTextFollowsPrefixMatchesWithSimilarMatches() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        ReflectionTestUtils.setField(userService, "maxFindLength", 100);
+        List<User> page = List.of(new User(), new User());
+        when(userRepository.findIdsByPrefix("smith", 4)).thenReturn(new long[]{5L, 2L});
+        when(userRepository.findIdsBySimilarity("smith", 4)).thenReturn(new long[]{2L, 9L, 1L, 4L});
+        when(userCache.findAllById(new long[]{9L, 1L})).thenReturn(page);
+
+        List<User> users = userService.findUsersByText(" smith ", 2, 2);
+
+        assertEquals(page, users);
+    }
+
+    /**
+     * Tests that short texts are not matched by similarity and that a full page of prefix matches needs no more.
+     */
+    @Test
+    @DisplayName("Finding users by a short text or a full page of prefix matches skips the similarity search")
+    public void findUsersByTextSkipsSimilarityWhenNotNeeded() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        ReflectionTestUtils.setField(userService, "maxFindLength", 100);
+        when(userRepository.findIdsByPrefix("an", 10)).thenReturn(new long[]{1L});
+        when(userRepository.findIdsByPrefix("ann", 1)).thenReturn(new long[]{1L});
+
+        userService.findUsersByText("an", 0, 10);
+        userService.findUsersByText("ann", 0, 1);
+
+        verify(userRepository, never()).findIdsBySimilarity(any(), anyInt());
+    }
+
+    /**
+     * Tests that blank texts and offsets beyond the matches that can be paged through are rejected.
+     */
+    @Test
+    @DisplayName("Finding users by a blank text or with a too large offset throws UserValidationException")
+    public void findUsersByBlankTextOrLargeOffsetThrowsException() {
+        ReflectionTestUtils.setField(userService, "maxSearchLimit", 1000);
+        ReflectionTestUtils.setField(userService, "maxFindLength", 100);
+
+        assertThrows(UserValidationException.class, () -> userService.findUsersByText("  ", 0, 10));
+        assertThrows(UserValidationException.class, () -> userService.findUsersByText("ann", 1001, 10));
+        verifyNoInteractions(userRepository);
+    }
+
+    /**
+     * Tests that streaming users hands them over in batches of the configured size.
+     */
+    @Test
+    @DisplayName("Streaming users by birth date range hands them over in batches")
+    public void streamUsersByBirthDateRangeHandsOverBatches() {
+        ReflectionTestUtils.setField(userService, "streamBatchSize", 2);
+        LocalDate from = LocalDate.of(1950, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+        when(userRepository.streamByBirthDateBetween(from, to)).thenReturn(Stream.of(new User(), new User(), new User()));
+        List<Integer> batchSizes = new ArrayList<>();
+
+        userService.streamUsersByBirthDateRange(from, to, batch -> batchSizes.add(batch.size()));
+
+        assertEquals(List.of(2, 1), batchSizes);
     }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.example.clear_solutions.service;
+
+import com.example.clear_solutions.exception.UserValidationException;
+import com.example.clear_solutions.ingest.UserCsvIngester;
+import com.example.clear_solutions.job.Job;
+import com.example.clear_solutions.job.JobContext;
+import com.example.clear_solutions.job.JobService;
+import com.example.clear_solutions.job.JobWork;
+import com.example.clear_solutions.model.User;
+import com.example.clear_solutions.service.impl.UserTransferServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * UserTransferServiceImplTest is a test class for UserTransferServiceImpl.
+ * It captures the work the service submits to a mocked JobService and runs it with an in-memory JobContext.
+ */
+public class UserTransferServiceImplTest {
+
+    /**
+     * The directory the input of an import is written to.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * The mocked UserService.
+     */
+    private final UserService userService = mock(UserService.class);
+
+    /**
+     * The mocked JobService.
+     */
+    private final JobService jobService = mock(JobService.class);
+
+    /**
+     * The mocked UserCsvIngester.
+     */
+    private final UserCsvIngester userCsvIngester = mock(UserCsvIngester.class);
+
+    /**
+     * The UserTransferServiceImpl to be tested, importing in batches of two lines.
+     */
+    private UserTransferServiceImpl userTransferService;
+
+    /**
+     * The processed items reported by the work.
+     */
+    private long processed;
+
+    /**
+     * The result written by the work.
+     */
+    private final ByteArrayOutputStream result = new ByteArrayOutputStream();
+
+    /**
+     * Creates the UserTransferServiceImpl to be tested.
+     */
+    @BeforeEach
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        userTransferService = new UserTransferServiceImpl(userService, jobService, userCsvIngester, objectMapper, 2);
+    }
+
+    /**
+     * Tests that an import creates the valid lines in batches and reports the rejected lines in line order.
+     */
+    @Test
+    @DisplayName("Import creates users in batches and reports rejected lines in order")
+    public void importCreatesUsersAndReportsRejectedLines() throws Exception {
+        String document = """
+                {"email":"a@b.com","firstName":"A","lastName":"B","birthDate":"1990-01-01"}
+                not json
+
+                {"email":"c@d.com","firstName":"C","lastName":"D","birthDate":"2020-01-01"}
+                """;
+        when(userService.createUsers(anyList())).thenReturn(Map.of(), Map.of(0, "User must be at least 18 years old"));
+        Job job = new Job("import");
+        ArgumentCaptor<JobWork> work = ArgumentCaptor.forClass(JobWork.class);
+        when(jobService.submit(eq("import"), any(InputStream.class), work.capture())).thenReturn(job);
+
+        assertEquals(job, userTransferService.importUsers(InputStream.nullInputStream()));
+        Path input = Files.writeString(directory.resolve("import.input"), document);
+        work.getValue().run(context(input));
+
+        verify(userService, times(2)).createUsers(anyList());
+        assertEquals(3, processed);
+        assertEquals("""
+                {"line":2,"detail":"Line is not a JSON user object"}
+                {"line":4,"detail":"User must be at least 18 years old"}
+                """, result.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests that an export writes every streamed user as a line and counts them.
+     */
+    @Test
+    @DisplayName("Export writes one line per user and counts them")
+    @SuppressWarnings("unchecked")
+    public void exportWritesOneLinePerUser() throws Exception {
+        User user = new User(1L, "a@b.com", "A", "B", LocalDate.of(1990, 1, 1), null, null, 0L);
+        doAnswer(invocation -> {
+            invocation.getArgument(2, Consumer.class).accept(List.of(user, user));
+            return null;
+        }).when(userService).streamUsersByBirthDateRange(any(), any(), any());
+        ArgumentCaptor<JobWork> work = ArgumentCaptor.forClass(JobWork.class);
+        when(jobService.submit(eq("export"), work.capture())).thenReturn(new Job("export"));
+
+        userTransferService.exportUsers(LocalDate.of(1980, 1, 1), LocalDate.of(2000, 1, 1), "http://localhost/export");
+        work.getValue().run(context(null));
+
+        assertEquals(2, processed);
+        assertEquals(2, result.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    /**
+     * Tests that an export of an inverted range is refused before a job is submitted.
+     */
+    @Test
+    @DisplayName("Export of an inverted range is refused without a job")
+    public void exportOfInvertedRangeIsRefused() {
+        assertThrows(UserValidationException.class, () -> userTransferService.exportUsers(
+                LocalDate.of(2000, 1, 1), LocalDate.of(1980, 1, 1), "http://localhost/export"));
+        verify(jobService, never()).submit(any(), any());
+    }
+
+    /**
+     * Tests that a CSV import whose header lacks a required column is refused before a job is submitted.
+     */
+    @Test
+    @DisplayName("CSV import without the required columns is refused without a job")
+    public void csvImportWithoutRequiredColumnsIsRefused() {
+        InputStream csv = new ByteArrayInputStream("email,firstName,lastName\na@b.com,A,B\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(UserValidationException.class, () -> userTransferService.importCsv(csv));
+        verify(jobService, never()).submit(any(), any(InputStream.class), any());
+    }
+
+    /**
+     * Creates a JobContext that reads the specified input and records the progress and result of the work.
+     *
+     * @param input the input file, or null
+     * @return the JobContext
+     */
+    private JobContext context(Path input) {
+        return new JobContext() {
+            @Override
+            public Path input() {
+                return input;
+            }
+
+            @Override
+            public void addProcessed(long count) {
+                processed += count;
+            }
+
+            @Override
+            public OutputStream openResult(String mediaType) {
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.clear_solutions.stats;
+
+import com.example.clear_solutions.repository.UserRepository;
+import com.example.clear_solutions.repository.UserRepository.BirthDateCount;
+import com.example.clear_solutions.validation.AgeCutoff;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BirthDateStatsTest is a test class for BirthDateStats and its BirthDateHistogram.
+ * It compares the counts kept in memory with the counts grouped from the rows of a mocked UserRepository.
+ */
+public class BirthDateStatsTest {
+
+    /**
+     * The mocked UserRepository.
+     */
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    /**
+     * Tests that the counts loaded at startup follow created, deleted and changed Users.
+     */
+    @Test
+    @DisplayName("Counts by year and month follow the writes after loading")
+    public void countsFollowWritesAfterLoading() {
+        when(userRepository.countByBirthDate()).thenReturn(List.of(
+                new BirthDateCount(LocalDate.of(1990, 1, 1), 2),
+                new BirthDateCount(LocalDate.of(1990, 5, 5), 1)));
+        BirthDateStats stats = statsOn(LocalDate.of(2025, 6, 15));
+        stats.load();
+
+        stats.add(LocalDate.of(1985, 12, 31));
+        stats.remove(LocalDate.of(1990, 1, 1));
+        stats.move(LocalDate.of(1990, 5, 5), LocalDate.of(2000, 5, 5));
+
+        assertEquals(Map.of("1985", 1L, "1990", 1L, "2000", 1L), stats.count(StatsGroup.YEAR, false));
+        assertEquals(List.of("1985-12", "1990-01", "2000-05"),
+                List.copyOf(stats.count(StatsGroup.MONTH, false).keySet()));
+        verify(userRepository, times(1)).countByBirthDate();
+    }
+
+    /**
+     * Tests that ages counted in memory agree with ages counted with Period from the database,
+     * for birth dates around 29 February on every day of a leap year and the year after it.
+     */
+    @Test
+    @DisplayName("Counts by age in memory agree with the database around 29 February")
+    public void ageCountsInMemoryAgreeWithDatabase() {
+        List<BirthDateCount> rows = new ArrayList<>();
+        for (LocalDate birthDate = LocalDate.of(2004, 2, 20); birthDate.isBefore(LocalDate.of(2008, 3, 10));
+             birthDate = birthDate.plusDays(1)) {
+            rows.add(new BirthDateCount(birthDate, 1));
+        }
+        when(userRepository.countByBirthDate()).thenReturn(rows);
+        for (LocalDate today = LocalDate.of(2024, 1, 1); today.getYear() < 2026; today = today.plusDays(1)) {
+            BirthDateStats stats = statsOn(today);
+            stats.load();
+
+            assertEquals(stats.count(StatsGroup.AGE, true), stats.count(StatsGroup.AGE, false), "on " + today);
+        }
+    }
+
+    /**
+     * Tests that a User born outside the years the histogram covers makes the counts come from the database.
+     */
+    @Test
+    @DisplayName("A birth date outside the histogram is counted from the database")
+    public void uncoveredBirthDateIsCountedFromDatabase() {
+        when(userRepository.countByBirthDate()).thenReturn(List.of(
+                new BirthDateCount(LocalDate.of(1700, 3, 1), 1),
+                new BirthDateCount(LocalDate.of(1990, 1, 1), 1)));
+        BirthDateStats stats = statsOn(LocalDate.of(2025, 6, 15));
+        stats.load();
+
+        assertEquals(List.of("1700-03", "1990-01"), List.copyOf(stats.count(StatsGroup.MONTH, false).keySet()));
+        assertEquals(List.of("35", "325"), List.copyOf(stats.count(StatsGroup.AGE, false).keySet()));
+        verify(userRepository, times(3)).countByBirthDate();
+    }
+
+    /**
+     * Creates a BirthDateStats whose ages are counted on the specified day.
+     *
+     * @param today the day
+     * @return the BirthDateStats
+     */
+    private BirthDateStats statsOn(LocalDate today) {
+        Clock clock = Clock.fixed(today.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        return new BirthDateStats(userRepository, new AgeCutoff(clock, 18));
+    }
+}
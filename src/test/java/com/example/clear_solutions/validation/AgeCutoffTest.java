@@ -0,0 +1,144 @@
+package com.example.clear_solutions.validation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AgeCutoffTest is a test class for AgeCutoff.
+ * It evaluates the minimum age of 18 against fixed Clocks, including days around 29 February.
+ */
+public class AgeCutoffTest {
+
+    /**
+     * The time zone of the Clocks.
+     */
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    /**
+     * Tests that a User born exactly the minimum age ago is old enough and one born a day later is not.
+     */
+    @Test
+    @DisplayName("A user is old enough from the day of their birthday")
+    public void userIsOldEnoughFromTheirBirthday() {
+        AgeCutoff ageCutoff = new AgeCutoff(fixedClock(LocalDate.of(2025, 6, 15)), 18);
+
+        assertEquals(LocalDate.of(2007, 6, 15), ageCutoff.getCutoff());
+        assertTrue(ageCutoff.isOldEnough(LocalDate.of(2007, 6, 15)));
+        assertFalse(ageCutoff.isOldEnough(LocalDate.of(2007, 6, 16)));
+    }
+
+    /**
+     * Tests that a User born on 29 February becomes old enough on 1 March in a year without that day.
+     */
+    @Test
+    @DisplayName("A user born on 29 February is old enough from 1 March in a common year")
+    public void leapDayBirthdayCountsFromFirstOfMarch() {
+        LocalDate birthDate = LocalDate.of(2008, 2, 29);
+
+        assertFalse(new AgeCutoff(fixedClock(LocalDate.of(2026, 2, 28)), 18).isOldEnough(birthDate));
+        assertTrue(new AgeCutoff(fixedClock(LocalDate.of(2026, 3, 1)), 18).isOldEnough(birthDate));
+    }
+
+    /**
+     * Tests the cutoff on 29 February itself, when the same day the minimum age ago did not exist.
+     */
+    @Test
+    @DisplayName("On 29 February the cutoff is 28 February of the birth year")
+    public void cutoffOnLeapDayIsTwentyEighthOfFebruary() {
+        AgeCutoff ageCutoff = new AgeCutoff(fixedClock(LocalDate.of(2024, 2, 29)), 18);
+
+        assertEquals(LocalDate.of(2006, 2, 28), ageCutoff.getCutoff());
+        assertTrue(ageCutoff.isOldEnough(LocalDate.of(2006, 2, 28)));
+        assertFalse(ageCutoff.isOldEnough(LocalDate.of(2006, 3, 1)));
+    }
+
+    /**
+     * Tests that the cutoff agrees with counting whole years with Period for every birth date around the cutoff,
+     * on every day of a leap year and the year after it.
+     */
+    @Test
+    @DisplayName("The cutoff agrees with Period for every day of a leap year and the next year")
+    public void cutoffAgreesWithPeriod() {
+        for (LocalDate today = LocalDate.of(2024, 1, 1); today.getYear() < 2026; today = today.plusDays(1)) {
+            AgeCutoff ageCutoff = new AgeCutoff(fixedClock(today), 18);
+            for (LocalDate birthDate = today.minusYears(18).minusDays(3);
+                 birthDate.isBefore(today.minusYears(18).plusDays(3)); birthDate = birthDate.plusDays(1)) {
+                assertEquals(Period.between(birthDate, today).getYears() >= 18, ageCutoff.isOldEnough(birthDate),
+                        "born " + birthDate + " on " + today);
+            }
+        }
+    }
+
+    /**
+     * Tests that the cutoff moves on when the Clock passes midnight.
+     */
+    @Test
+    @DisplayName("The cutoff moves on at midnight")
+    public void cutoffMovesOnAtMidnight() {
+        MutableClock clock = new MutableClock(LocalDate.of(2025, 6, 15).atTime(23, 59).atZone(ZONE).toInstant());
+        AgeCutoff ageCutoff = new AgeCutoff(clock, 18);
+        LocalDate birthDate = LocalDate.of(2007, 6, 16);
+
+        assertFalse(ageCutoff.isOldEnough(birthDate));
+        clock.instant = LocalDate.of(2025, 6, 16).atStartOfDay(ZONE).toInstant();
+
+        assertTrue(ageCutoff.isOldEnough(birthDate));
+        assertEquals(LocalDate.of(2025, 6, 16), ageCutoff.getToday());
+    }
+
+    /**
+     * Creates a Clock fixed at noon of the specified day.
+     *
+     * @param today the day
+     * @return the Clock
+     */
+    private static Clock fixedClock(LocalDate today) {
+        return Clock.fixed(today.atTime(12, 0).atZone(ZONE).toInstant(), ZONE);
+    }
+
+    /**
+     * MutableClock is a Clock whose instant is set by the test.
+     */
+    private static final class MutableClock extends Clock {
+
+        /**
+         * The current instant.
+         */
+        private Instant instant;
+
+        /**
+         * Constructs a MutableClock at the specified instant.
+         *
+         * @param instant the initial instant
+         */
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}